@@ -0,0 +1,113 @@
+#!/usr/bin/env bash
+#
+# Measures the time from starting a gateway container until it reports readiness.
+#
+# Usage: scripts/startup-benchmark.sh [-n runs] [-e env-file] [-x] image...
+#
+#   -n runs       number of starts per variant (default: 5)
+#   -e env-file   environment for the containers, passed to 'docker run --env-file'
+#   -x            also start every image with class data sharing disabled
+#
+# Compare an image built with './gradlew bootBuildImage' against one built with
+# './gradlew bootBuildImage -PspringAot', or a native image from './gradlew bootBuildImage -Pnative'.
+# AOT-processed and native images only start with the configuration from src/aot/<name>.properties that
+# they were built with, so pass an env-file that provides it.
+
+set -euo pipefail
+
+runs=5
+env_file=""
+without_cds=false
+
+while getopts "n:e:x" opt; do
+    case "$opt" in
+        n) runs="$OPTARG" ;;
+        e) env_file="$OPTARG" ;;
+        x) without_cds=true ;;
+        *) sed -n '4,9p' "$0" >&2; exit 2 ;;
+    esac
+done
+shift $((OPTIND - 1))
+
+if [[ $# -eq 0 ]]; then
+    sed -n '4,9p' "$0" >&2
+    exit 2
+fi
+
+now_ms() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+# Succeeds, after printing its logs and removing it, when the container is no longer running
+exited() {
+    local image="$1" container="$2"
+    if [[ "$(docker inspect --format '{{.State.Running}}' "$container")" == "true" ]]; then
+        return 1
+    fi
+    echo "Container of $image exited before it was ready:" >&2
+    docker logs "$container" 2>&1 | tail -n 20 >&2
+    docker rm --force "$container" > /dev/null
+}
+
+# Starts the image once and prints the milliseconds until readiness and the startup time Spring reports
+start_once() {
+    local image="$1"
+    shift
+    local args=(--detach --publish 127.0.0.1::8080 --env MANAGEMENT_ENDPOINT_HEALTH_PROBES_ENABLED=true)
+    if [[ -n "$env_file" ]]; then
+        args+=(--env-file "$env_file")
+    fi
+
+    local start container port
+    start=$(now_ms)
+    container=$(docker run "${args[@]}" "$@" "$image")
+
+    while [[ -z "${port:-}" ]]; do
+        port=$(docker port "$container" 8080/tcp 2> /dev/null | head -n 1 | cut -d: -f2 || true)
+        if [[ -z "$port" ]]; then
+            exited "$image" "$container" && return 1
+            sleep 0.05
+        fi
+    done
+
+    until curl --silent --fail --output /dev/null "http://127.0.0.1:${port}/actuator/health/readiness"; do
+        exited "$image" "$container" && return 1
+        sleep 0.05
+    done
+
+    local ready=$(( $(now_ms) - start ))
+    local started
+    started=$(docker logs "$container" 2>&1 | grep -o 'Started GatewayApplication in [0-9.]* seconds' | grep -o '[0-9.]*' || echo '?')
+    docker rm --force "$container" > /dev/null
+    echo "$ready $started"
+}
+
+benchmark() {
+    local label="$1"
+    shift
+    local times=()
+    local run result
+    for (( run = 1; run <= runs; run++ )); do
+        result=$(start_once "$@")
+        times+=("${result%% *}")
+        printf '%-60s run %2d: ready after %6d ms (Spring reports %s s)\n' "$label" "$run" "${result%% *}" "${result#* }" >&2
+    done
+
+    local sorted
+    sorted=$(printf '%s\n' "${times[@]}" | sort -n)
+    printf '%-60s min %6d ms  median %6d ms  max %6d ms\n' "$label" \
+        "$(head -n 1 <<< "$sorted")" \
+        "$(sed -n "$(( (runs + 1) / 2 ))p" <<< "$sorted")" \
+        "$(tail -n 1 <<< "$sorted")"
+}
+
+summary=()
+for image in "$@"; do
+    summary+=("$(benchmark "$image" "$image")")
+    if [[ "$without_cds" == "true" ]]; then
+        summary+=("$(benchmark "$image (without CDS)" "$image" --env JAVA_TOOL_OPTIONS=-Xshare:off)")
+    fi
+done
+
+echo
+printf '%s\n' "${summary[@]}"
@@ -1,5 +1,6 @@
 package com.contentgrid.gateway;
 
+import com.contentgrid.gateway.aot.GatewayRuntimeHints;
 import com.contentgrid.gateway.cors.CorsConfigurationResolver;
 import com.contentgrid.gateway.cors.CorsResolverProperties;
 import com.contentgrid.gateway.error.ProxyUpstreamUnavailableWebFilter;
@@ -10,9 +11,13 @@ import com.contentgrid.gateway.security.authority.PrincipalAuthenticationDetails
 import com.contentgrid.gateway.security.jwt.issuer.actuate.JWKSetEndpoint;
 import com.contentgrid.gateway.security.refresh.AuthenticationRefresher;
 import com.contentgrid.gateway.security.refresh.AuthenticationRefreshingServerSecurityContextRepository;
+import com.contentgrid.gateway.security.stateless.StatelessRequestClassifier;
+import com.contentgrid.gateway.security.stateless.StatelessRequestMatcher;
+import com.contentgrid.gateway.security.stateless.StatelessServerSecurityContextRepository;
 import com.contentgrid.thunx.pdp.opa.OpaInputProvider;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.ArrayList;
@@ -36,6 +41,7 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
 import org.springframework.security.authentication.ReactiveAuthenticationManager;
 import org.springframework.security.authorization.AuthenticatedReactiveAuthorizationManager;
 import org.springframework.security.authorization.ReactiveAuthorizationManager;
@@ -71,6 +77,7 @@ import reactor.core.publisher.Mono;
 
 @Slf4j
 @SpringBootApplication
+@ImportRuntimeHints(GatewayRuntimeHints.class)
 @EnableConfigurationProperties({ CorsResolverProperties.class, ServiceDiscoveryProperties.class})
 public class GatewayApplication {
 
@@ -190,6 +197,7 @@ public class GatewayApplication {
             List<Customizer<List<DelegateEntry>>> authenticationEntryPointCustomizer,
             List<Customizer<ServerHttpSecurity.AuthorizeExchangeSpec>> authorizeCustomizer,
             AuthenticationRefresher authenticationRefresher,
+            StatelessRequestClassifier statelessRequestClassifier,
             Optional<ReactiveAuthenticationManager> reactiveAuthenticationManagerOptional,
             Optional<ReactiveUserDetailsService> reactiveUserDetailsServiceOptional
     ) {
@@ -231,9 +239,13 @@ public class GatewayApplication {
         }
 
 
-        http.securityContextRepository(new AuthenticationRefreshingServerSecurityContextRepository(
-                new WebSessionServerSecurityContextRepository(),
-                authenticationRefresher
+        // Stateless requests (e.g. bearer token authentication) skip the session entirely
+        http.securityContextRepository(new StatelessServerSecurityContextRepository(
+                new AuthenticationRefreshingServerSecurityContextRepository(
+                        new WebSessionServerSecurityContextRepository(),
+                        authenticationRefresher
+                ),
+                statelessRequestClassifier
         ));
 
         // do we need to do anything special for logout ?
@@ -251,6 +263,16 @@ public class GatewayApplication {
         return http.build();
     }
 
+    @Bean
+    StatelessRequestMatcher bearerTokenStatelessRequestMatcher() {
+        return StatelessRequestMatcher.bearerToken();
+    }
+
+    @Bean
+    StatelessRequestClassifier statelessRequestClassifier(List<StatelessRequestMatcher> matchers, MeterRegistry meterRegistry) {
+        return new StatelessRequestClassifier(matchers, meterRegistry);
+    }
+
     @Bean
     public GlobalFilter proxyUpstreamUnavailableWebFilter() {
         return new ProxyUpstreamUnavailableWebFilter();
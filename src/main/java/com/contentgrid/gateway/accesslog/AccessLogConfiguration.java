@@ -0,0 +1,42 @@
+package com.contentgrid.gateway.accesslog;
+
+import static com.contentgrid.gateway.runtime.web.ContentGridAppRequestWebFilter.CONTENTGRID_WEB_FILTER_CHAIN_FILTER_ORDER;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty("contentgrid.gateway.access-log.enabled")
+@EnableConfigurationProperties(AccessLogProperties.class)
+public class AccessLogConfiguration {
+
+    @Bean
+    AccessLogWriter accessLogWriter(AccessLogProperties properties, MeterRegistry meterRegistry) throws IOException {
+        if (properties.getFile() == null) {
+            var stdout = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+            return new AccessLogWriter(properties, stdout, false, meterRegistry);
+        }
+        var file = Files.newBufferedWriter(properties.getFile(), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        return new AccessLogWriter(properties, file, true, meterRegistry);
+    }
+
+    /**
+     * Runs before admission control, so shed requests are logged as well
+     */
+    @Bean
+    @Order(CONTENTGRID_WEB_FILTER_CHAIN_FILTER_ORDER - 100)
+    AccessLogWebFilter accessLogWebFilter(AccessLogProperties properties, AccessLogWriter accessLogWriter) {
+        return new AccessLogWebFilter(accessLogWriter, properties.getSampleRate());
+    }
+}
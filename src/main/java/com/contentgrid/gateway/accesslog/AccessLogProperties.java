@@ -0,0 +1,38 @@
+package com.contentgrid.gateway.accesslog;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties("contentgrid.gateway.access-log")
+public class AccessLogProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * File the access log is appended to; the access log is written to stdout when no file is configured
+     */
+    private Path file;
+
+    /**
+     * Fraction of the requests that are logged
+     */
+    private double sampleRate = 1.0;
+
+    /**
+     * Number of records that can wait to be written; records are dropped when the buffer is full
+     */
+    private int bufferSize = 8192;
+
+    /**
+     * Maximum number of records that are written before the output is flushed
+     */
+    private int batchSize = 512;
+
+    /**
+     * How long the writer waits for new records when the buffer is empty
+     */
+    private Duration flushInterval = Duration.ofMillis(200);
+}
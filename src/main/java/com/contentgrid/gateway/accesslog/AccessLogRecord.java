@@ -0,0 +1,71 @@
+package com.contentgrid.gateway.accesslog;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+import java.time.Instant;
+import lombok.Builder;
+import org.springframework.lang.Nullable;
+
+/**
+ * A single line of the access log
+ *
+ * @param path the request path, without query parameters because they may contain secrets
+ * @param route id of the gateway route that handled the request; requests are grouped by route rather than by path
+ * @param status response status, absent when the client went away before a response was sent
+ * @param timeToFirstByteNanos time until the response was committed, or {@code -1} when it never was
+ */
+@Builder
+public record AccessLogRecord(
+        Instant timestamp,
+        String method,
+        String path,
+        @Nullable String route,
+        @Nullable Integer status,
+        long requestBytes,
+        long responseBytes,
+        long durationNanos,
+        long timeToFirstByteNanos,
+        @Nullable String applicationId,
+        @Nullable String deploymentId,
+        @Nullable String authentication,
+        @Nullable String authorization,
+        boolean cancelled
+) {
+
+    void writeTo(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("timestamp", this.timestamp.toString());
+        generator.writeStringField("method", this.method);
+        generator.writeStringField("path", this.path);
+        writeOptionalField(generator, "route", this.route);
+        if (this.status != null) {
+            generator.writeNumberField("status", this.status);
+        }
+        generator.writeNumberField("requestBytes", this.requestBytes);
+        generator.writeNumberField("responseBytes", this.responseBytes);
+        generator.writeNumberField("durationMs", toMillis(this.durationNanos));
+        if (this.timeToFirstByteNanos >= 0) {
+            generator.writeNumberField("timeToFirstByteMs", toMillis(this.timeToFirstByteNanos));
+        }
+        writeOptionalField(generator, "applicationId", this.applicationId);
+        writeOptionalField(generator, "deploymentId", this.deploymentId);
+        writeOptionalField(generator, "authentication", this.authentication);
+        writeOptionalField(generator, "authorization", this.authorization);
+        if (this.cancelled) {
+            generator.writeBooleanField("cancelled", true);
+        }
+        generator.writeEndObject();
+    }
+
+    private static void writeOptionalField(JsonGenerator generator, String name, @Nullable String value)
+            throws IOException {
+        if (value != null) {
+            generator.writeStringField(name, value);
+        }
+    }
+
+    private static double toMillis(long nanos) {
+        // microsecond precision is plenty for an access log
+        return (nanos / 1_000) / 1_000.0;
+    }
+}
@@ -0,0 +1,146 @@
+package com.contentgrid.gateway.accesslog;
+
+import static com.contentgrid.gateway.runtime.web.ContentGridAppRequestWebFilter.CONTENTGRID_APP_ID_ATTR;
+import static com.contentgrid.gateway.runtime.web.ContentGridAppRequestWebFilter.CONTENTGRID_DEPLOY_ID_ATTR;
+
+import com.contentgrid.configuration.applications.ApplicationId;
+import com.contentgrid.gateway.runtime.application.DeploymentId;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.lang.Nullable;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.server.resource.authentication.AbstractOAuth2TokenAuthenticationToken;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Collects an {@link AccessLogRecord} for every sampled request and hands it to the {@link AccessLogWriter} when the
+ * request completes.
+ * <p>
+ * Runs before the other ContentGrid filters, so rejected requests are logged as well. The application and deployment
+ * are read from the exchange attributes when the request completes; the authentication kind and the authorization
+ * outcome are put in the {@link #AUTHENTICATION_KIND_ATTR} and {@link #AUTHORIZATION_OUTCOME_ATTR} attributes by the
+ * authorization manager.
+ */
+@RequiredArgsConstructor
+public class AccessLogWebFilter implements WebFilter {
+
+    public static final String AUTHENTICATION_KIND_ATTR = "com.contentgrid.gateway.access-log.authentication";
+    public static final String AUTHORIZATION_OUTCOME_ATTR = "com.contentgrid.gateway.access-log.authorization";
+
+    @NonNull
+    private final AccessLogWriter writer;
+
+    private final double sampleRate;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (this.sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= this.sampleRate) {
+            return chain.filter(exchange);
+        }
+
+        var timestamp = Instant.now();
+        var start = System.nanoTime();
+        var counters = new Counters();
+        exchange.getResponse().beforeCommit(() -> {
+            counters.committedNanos = System.nanoTime();
+            return Mono.empty();
+        });
+
+        var decorated = exchange.mutate()
+                .request(new ServerHttpRequestDecorator(exchange.getRequest()) {
+                    @Override
+                    public Flux<DataBuffer> getBody() {
+                        return super.getBody().doOnNext(buffer -> counters.requestBytes += buffer.readableByteCount());
+                    }
+                })
+                .response(new ServerHttpResponseDecorator(exchange.getResponse()) {
+                    @Override
+                    public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                        return super.writeWith(Flux.from(body)
+                                .doOnNext(buffer -> counters.responseBytes += buffer.readableByteCount()));
+                    }
+
+                    @Override
+                    public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+                        return super.writeAndFlushWith(Flux.from(body).map(chunk -> Flux.from(chunk)
+                                .doOnNext(buffer -> counters.responseBytes += buffer.readableByteCount())));
+                    }
+                })
+                .build();
+
+        return chain.filter(decorated)
+                .doOnError(error -> counters.errorStatus = error instanceof ResponseStatusException statusException
+                        ? statusException.getStatusCode().value()
+                        : 500)
+                .doFinally(signal -> this.writer.offer(this.createRecord(exchange, timestamp, start, counters, signal)));
+    }
+
+    private AccessLogRecord createRecord(ServerWebExchange exchange, Instant timestamp, long start, Counters counters,
+            SignalType signal) {
+        var end = System.nanoTime();
+        var request = exchange.getRequest();
+        var statusCode = exchange.getResponse().getStatusCode();
+        Integer status = counters.errorStatus != null ? counters.errorStatus
+                : statusCode != null ? Integer.valueOf(statusCode.value()) : null;
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        ApplicationId applicationId = exchange.getAttribute(CONTENTGRID_APP_ID_ATTR);
+        DeploymentId deploymentId = exchange.getAttribute(CONTENTGRID_DEPLOY_ID_ATTR);
+
+        return AccessLogRecord.builder()
+                .timestamp(timestamp)
+                .method(request.getMethod().name())
+                .path(request.getPath().value())
+                .route(route != null ? route.getId() : null)
+                .status(signal == SignalType.CANCEL && !exchange.getResponse().isCommitted() ? null : status)
+                .requestBytes(counters.requestBytes)
+                .responseBytes(counters.responseBytes)
+                .durationNanos(end - start)
+                .timeToFirstByteNanos(counters.committedNanos != 0 ? counters.committedNanos - start : -1)
+                .applicationId(applicationId != null ? applicationId.toString() : null)
+                .deploymentId(deploymentId != null ? deploymentId.getValue() : null)
+                .authentication(exchange.getAttribute(AUTHENTICATION_KIND_ATTR))
+                .authorization(exchange.getAttribute(AUTHORIZATION_OUTCOME_ATTR))
+                .cancelled(signal == SignalType.CANCEL)
+                .build();
+    }
+
+    /**
+     * Kind of authentication as it appears in the access log
+     */
+    public static String authenticationKind(@Nullable Authentication authentication) {
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            return "anonymous";
+        } else if (authentication instanceof AbstractOAuth2TokenAuthenticationToken<?>) {
+            return "bearer";
+        } else if (authentication instanceof OAuth2AuthenticationToken) {
+            return "oidc";
+        }
+        return "other";
+    }
+
+    /**
+     * Only updated from the request's own signals, which are never delivered concurrently
+     */
+    private static class Counters {
+        private long requestBytes;
+        private long responseBytes;
+        private long committedNanos;
+        private Integer errorStatus;
+    }
+}
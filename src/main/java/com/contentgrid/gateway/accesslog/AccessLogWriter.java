@@ -0,0 +1,136 @@
+package com.contentgrid.gateway.accesslog;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes access log records as JSON lines from a background thread.
+ * <p>
+ * Request threads only put records in a {@link RingBuffer}; they never wait for the output. The writer drains the
+ * buffer in batches and flushes the output once per batch. When the writer can not keep up and the buffer is full,
+ * records are dropped and counted instead of slowing down requests.
+ */
+@Slf4j
+public class AccessLogWriter implements AutoCloseable {
+
+    private static final String METRIC_PREFIX = "contentgrid.gateway.access-log.";
+
+    private final RingBuffer<AccessLogRecord> buffer;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final JsonGenerator generator;
+    private final boolean closeOutput;
+
+    private final Counter written;
+    private final Counter dropped;
+
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    /**
+     * @param closeOutput whether the output is closed together with the writer; stdout should stay open
+     */
+    public AccessLogWriter(@NonNull AccessLogProperties properties, @NonNull Writer output, boolean closeOutput,
+            @NonNull MeterRegistry meterRegistry) throws IOException {
+        this.buffer = new RingBuffer<>(properties.getBufferSize());
+        this.batchSize = properties.getBatchSize();
+        this.flushIntervalNanos = properties.getFlushInterval().toNanos();
+        this.generator = new JsonFactory().createGenerator(output)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.closeOutput = closeOutput;
+
+        Gauge.builder(METRIC_PREFIX + "buffer.capacity", this.buffer, RingBuffer::capacity)
+                .description("Number of access log records that can wait to be written")
+                .register(meterRegistry);
+        this.written = Counter.builder(METRIC_PREFIX + "records")
+                .description("Access log records")
+                .tag("outcome", "written")
+                .register(meterRegistry);
+        this.dropped = Counter.builder(METRIC_PREFIX + "records")
+                .description("Access log records")
+                .tag("outcome", "dropped")
+                .register(meterRegistry);
+
+        this.thread = new Thread(this::run, "access-log-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Queues a record to be written; never blocks
+     *
+     * @return whether the record was queued, {@code false} when it was dropped
+     */
+    public boolean offer(@NonNull AccessLogRecord record) {
+        if (this.buffer.offer(record)) {
+            return true;
+        }
+        this.dropped.increment();
+        return false;
+    }
+
+    private void run() {
+        while (this.running) {
+            if (this.drain() == 0) {
+                LockSupport.parkNanos(this, this.flushIntervalNanos);
+            }
+        }
+        // write what is left after close()
+        var remaining = this.drain();
+        while (remaining > 0) {
+            remaining = this.drain();
+        }
+    }
+
+    private int drain() {
+        var total = 0;
+        try {
+            int drained;
+            do {
+                drained = this.buffer.drain(this::write, this.batchSize);
+                if (drained > 0) {
+                    this.generator.flush();
+                    this.written.increment(drained);
+                }
+                total += drained;
+            } while (drained == this.batchSize);
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Failed to write access log: {}", e.getMessage());
+        }
+        return total;
+    }
+
+    private void write(AccessLogRecord record) {
+        try {
+            record.writeTo(this.generator);
+            this.generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.running = false;
+        LockSupport.unpark(this.thread);
+        try {
+            this.thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (this.closeOutput) {
+            this.generator.enable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+        this.generator.close();
+    }
+}
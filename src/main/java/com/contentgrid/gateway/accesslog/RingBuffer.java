@@ -0,0 +1,89 @@
+package com.contentgrid.gateway.accesslog;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded lock-free queue for many producers and a single consumer.
+ * <p>
+ * Every slot carries a sequence number that tells producers and the consumer whose turn it is for that slot, so
+ * producers only contend on the tail counter and never wait for each other or for the consumer. When the buffer is full,
+ * {@link #offer(Object)} fails instead of blocking.
+ */
+class RingBuffer<E> {
+
+    private final int mask;
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Only touched by the single consumer
+     */
+    private long head;
+
+    RingBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive, was %d".formatted(capacity));
+        }
+        // a power of two, and at least two slots so a full buffer can be told apart from an empty one
+        var size = capacity <= 2 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = size - 1;
+        this.elements = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            this.sequences.set(i, i);
+        }
+    }
+
+    int capacity() {
+        return this.mask + 1;
+    }
+
+    boolean offer(E element) {
+        var position = this.tail.get();
+        while (true) {
+            var index = (int) (position & this.mask);
+            var difference = this.sequences.get(index) - position;
+            if (difference == 0) {
+                if (this.tail.compareAndSet(position, position + 1)) {
+                    this.elements.lazySet(index, element);
+                    // publishes the element to the consumer
+                    this.sequences.set(index, position + 1);
+                    return true;
+                }
+                position = this.tail.get();
+            } else if (difference < 0) {
+                // the slot still holds an element of the previous lap: the buffer is full
+                return false;
+            } else {
+                position = this.tail.get();
+            }
+        }
+    }
+
+    /**
+     * Removes up to {@code maxElements} elements and hands them to the consumer; must only be called from one thread
+     *
+     * @return the number of removed elements
+     */
+    int drain(Consumer<? super E> consumer, int maxElements) {
+        var drained = 0;
+        while (drained < maxElements) {
+            var index = (int) (this.head & this.mask);
+            if (this.sequences.get(index) != this.head + 1) {
+                break;
+            }
+            var element = this.elements.get(index);
+            this.elements.lazySet(index, null);
+            // hands the slot back to the producers of the next lap
+            this.sequences.set(index, this.head + this.mask + 1);
+            this.head++;
+            drained++;
+            consumer.accept(element);
+        }
+        return drained;
+    }
+}
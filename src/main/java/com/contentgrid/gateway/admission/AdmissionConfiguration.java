@@ -0,0 +1,55 @@
+package com.contentgrid.gateway.admission;
+
+import static com.contentgrid.gateway.runtime.web.ContentGridAppRequestWebFilter.CONTENTGRID_WEB_FILTER_CHAIN_FILTER_ORDER;
+
+import com.contentgrid.gateway.runtime.RuntimePlatformProperties;
+import com.contentgrid.gateway.runtime.RuntimePlatformProperties.EndpointDefinition;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.autoconfigure.endpoint.web.WebEndpointProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.util.StringUtils;
+
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty("contentgrid.gateway.admission.enabled")
+@EnableConfigurationProperties(AdmissionProperties.class)
+public class AdmissionConfiguration {
+
+    @Bean
+    RequestPriorityClassifier requestPriorityClassifier(WebEndpointProperties webEndpointProperties,
+            ObjectProvider<RuntimePlatformProperties> runtimePlatformProperties) {
+        var platformPatterns = runtimePlatformProperties.stream()
+                .flatMap(RuntimePlatformProperties::endpoints)
+                .map(EndpointDefinition::pathPattern)
+                .toList();
+        // With actuator endpoints mapped to the root, they can not be told apart from other requests by their path
+        var systemPatterns = StringUtils.hasText(webEndpointProperties.getBasePath())
+                ? List.of(webEndpointProperties.getBasePath() + "/**")
+                : List.<String>of();
+        return new RequestPriorityClassifier(
+                systemPatterns,
+                RequestPriorityClassifier.LOGIN_PATH_PATTERNS,
+                platformPatterns
+        );
+    }
+
+    @Bean
+    AdmissionController admissionController(AdmissionProperties properties, MeterRegistry meterRegistry) {
+        return new AdmissionController(properties, meterRegistry);
+    }
+
+    /**
+     * Runs before any other ContentGrid filter, so shed requests cost as little as possible
+     */
+    @Bean
+    @Order(CONTENTGRID_WEB_FILTER_CHAIN_FILTER_ORDER - 50)
+    AdmissionControlWebFilter admissionControlWebFilter(RequestPriorityClassifier classifier,
+            AdmissionController admissionController) {
+        return new AdmissionControlWebFilter(classifier, admissionController);
+    }
+}
@@ -0,0 +1,64 @@
+package com.contentgrid.gateway.admission;
+
+import com.contentgrid.gateway.runtime.streaming.StreamType;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Classifies every request into a {@link PriorityClass} and sheds it with HTTP 503 when its class is over budget.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class AdmissionControlWebFilter implements WebFilter {
+
+    public static final String PRIORITY_CLASS_ATTR = "com.contentgrid.gateway.priority-class";
+
+    @NonNull
+    private final RequestPriorityClassifier classifier;
+
+    @NonNull
+    private final AdmissionController admissionController;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        var priorityClass = this.classifier.classify(exchange);
+        exchange.getAttributes().put(PRIORITY_CLASS_ATTR, priorityClass);
+
+        if (!this.admissionController.tryAdmit(priorityClass)) {
+            log.debug("Shedding {} request {} {}", priorityClass.tag(), exchange.getRequest().getMethod(),
+                    exchange.getRequest().getURI());
+            var response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+            return response.setComplete();
+        }
+
+        // A stream stays open for minutes: once it is admitted as a stream, it no longer counts against the budget
+        var start = System.nanoTime();
+        var released = new AtomicBoolean();
+        exchange.getResponse().beforeCommit(() -> Mono.fromRunnable(() -> {
+            if (StreamType.of(exchange) != null && released.compareAndSet(false, true)) {
+                this.admissionController.release(priorityClass);
+            }
+        }));
+        return chain.filter(exchange)
+                .doFinally(signal -> {
+                    if (!released.compareAndSet(false, true)) {
+                        return;
+                    }
+                    if (StreamType.of(exchange) != null) {
+                        this.admissionController.release(priorityClass);
+                    } else {
+                        this.admissionController.release(priorityClass, System.nanoTime() - start);
+                    }
+                });
+    }
+}
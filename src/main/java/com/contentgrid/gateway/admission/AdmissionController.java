@@ -0,0 +1,105 @@
+package com.contentgrid.gateway.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.NonNull;
+
+/**
+ * Admits requests based on their {@link PriorityClass}.
+ * <p>
+ * Every class has its own concurrency budget, and a threshold on the total number of requests in progress above which
+ * it is shed. Lower priority classes have a lower threshold, so as load rises, tenant traffic is shed first while
+ * health probes and metrics scrapes keep being served.
+ */
+public class AdmissionController {
+
+    private static final String METRIC_PREFIX = "contentgrid.gateway.admission.";
+
+    private final AtomicInteger total = new AtomicInteger();
+    private final Map<PriorityClass, ClassState> states = new EnumMap<>(PriorityClass.class);
+
+    public AdmissionController(@NonNull AdmissionProperties properties, @NonNull MeterRegistry meterRegistry) {
+        for (var priorityClass : PriorityClass.values()) {
+            var budget = properties.getBudget(priorityClass);
+            var state = new ClassState(
+                    (int) Math.min(Integer.MAX_VALUE, Math.ceil(properties.getMaxConcurrency() * budget.getShedAbove())),
+                    budget.getMaxConcurrency(),
+                    Counter.builder(METRIC_PREFIX + "shed")
+                            .description("Requests rejected by admission control")
+                            .tag("class", priorityClass.tag())
+                            .register(meterRegistry),
+                    Timer.builder(METRIC_PREFIX + "latency")
+                            .description("Latency of admitted requests")
+                            .tag("class", priorityClass.tag())
+                            .publishPercentileHistogram()
+                            .register(meterRegistry)
+            );
+            Gauge.builder(METRIC_PREFIX + "in-flight", state.inFlight(), AtomicInteger::get)
+                    .description("Admitted requests that are in progress")
+                    .tag("class", priorityClass.tag())
+                    .register(meterRegistry);
+            this.states.put(priorityClass, state);
+        }
+    }
+
+    /**
+     * @return whether the request is admitted; an admitted request must be {@link #release(PriorityClass, long) released}
+     */
+    public boolean tryAdmit(@NonNull PriorityClass priorityClass) {
+        var state = this.states.get(priorityClass);
+
+        if (!tryIncrement(this.total, state.totalThreshold())) {
+            state.shed().increment();
+            return false;
+        }
+        if (!tryIncrement(state.inFlight(), state.maxConcurrency())) {
+            this.total.decrementAndGet();
+            state.shed().increment();
+            return false;
+        }
+        return true;
+    }
+
+    public void release(@NonNull PriorityClass priorityClass, long durationNanos) {
+        this.release(priorityClass);
+        this.states.get(priorityClass).latency().record(Duration.ofNanos(durationNanos));
+    }
+
+    /**
+     * Releases an admitted request without recording its latency, for long-lived streams
+     */
+    public void release(@NonNull PriorityClass priorityClass) {
+        var state = this.states.get(priorityClass);
+        state.inFlight().decrementAndGet();
+        this.total.decrementAndGet();
+    }
+
+    int getInFlight(PriorityClass priorityClass) {
+        return this.states.get(priorityClass).inFlight().get();
+    }
+
+    private static boolean tryIncrement(AtomicInteger counter, int limit) {
+        while (true) {
+            var current = counter.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (counter.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private record ClassState(int totalThreshold, int maxConcurrency, Counter shed, Timer latency, AtomicInteger inFlight) {
+
+        ClassState(int totalThreshold, int maxConcurrency, Counter shed, Timer latency) {
+            this(totalThreshold, maxConcurrency, shed, latency, new AtomicInteger());
+        }
+    }
+}
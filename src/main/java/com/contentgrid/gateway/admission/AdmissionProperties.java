@@ -0,0 +1,66 @@
+package com.contentgrid.gateway.admission;
+
+import java.util.EnumMap;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties("contentgrid.gateway.admission")
+public class AdmissionProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * Number of requests that the gateway handles concurrently, over all priority classes
+     */
+    private int maxConcurrency = 1000;
+
+    /**
+     * Budgets of the priority classes that do not use the {@link #DEFAULT_BUDGETS default budget}.
+     * <p>
+     * Configuration is merged over the defaults one property at a time, so configuring a single property of one class
+     * keeps the defaults of all other properties and classes.
+     */
+    private Map<PriorityClass, ClassBudget> classes = new EnumMap<>(PriorityClass.class);
+
+    static final Map<PriorityClass, ClassBudget> DEFAULT_BUDGETS = new EnumMap<>(Map.of(
+            PriorityClass.SYSTEM, new ClassBudget(50, 1.0),
+            PriorityClass.LOGIN, new ClassBudget(100, 0.95),
+            PriorityClass.PLATFORM, new ClassBudget(200, 0.9),
+            PriorityClass.TENANT, new ClassBudget(Integer.MAX_VALUE, 0.8)
+    ));
+
+    private static final ClassBudget UNLIMITED = new ClassBudget(Integer.MAX_VALUE, 1.0);
+
+    public ClassBudget getBudget(PriorityClass priorityClass) {
+        var defaults = DEFAULT_BUDGETS.getOrDefault(priorityClass, UNLIMITED);
+        var configured = this.classes.get(priorityClass);
+        if (configured == null) {
+            return defaults;
+        }
+        return new ClassBudget(
+                configured.getMaxConcurrency() != null ? configured.getMaxConcurrency() : defaults.getMaxConcurrency(),
+                configured.getShedAbove() != null ? configured.getShedAbove() : defaults.getShedAbove()
+        );
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ClassBudget {
+
+        /**
+         * Number of requests of this class that are handled concurrently; the default of the class when {@code null}
+         */
+        private Integer maxConcurrency;
+
+        /**
+         * Requests of this class are shed once the gateway is handling this fraction of {@code max-concurrency}; the
+         * default of the class when {@code null}
+         */
+        private Double shedAbove;
+    }
+}
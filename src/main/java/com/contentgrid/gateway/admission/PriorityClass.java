@@ -0,0 +1,32 @@
+package com.contentgrid.gateway.admission;
+
+import java.util.Locale;
+
+/**
+ * Priority classes for admission control, from highest to lowest priority
+ */
+public enum PriorityClass {
+    /**
+     * Actuator endpoints, including health probes and metrics scrapes
+     */
+    SYSTEM,
+
+    /**
+     * OAuth2 login redirects and callbacks
+     */
+    LOGIN,
+
+    /**
+     * ContentGrid platform endpoints below {@code /.contentgrid/}
+     */
+    PLATFORM,
+
+    /**
+     * All other traffic, to the applications
+     */
+    TENANT;
+
+    public String tag() {
+        return this.name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,63 @@
+package com.contentgrid.gateway.admission;
+
+import java.util.Collection;
+import java.util.List;
+import lombok.NonNull;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+/**
+ * Assigns a {@link PriorityClass} to a request, based on its path only.
+ * <p>
+ * Classification happens for every request before anything else, so the path patterns are parsed once and matched
+ * synchronously.
+ */
+public class RequestPriorityClassifier {
+
+    public static final List<String> LOGIN_PATH_PATTERNS = List.of(
+            "/oauth2/authorization/**",
+            "/login/oauth2/code/**",
+            "/login/**",
+            "/logout"
+    );
+
+    private final List<PathPattern> systemPatterns;
+    private final List<PathPattern> loginPatterns;
+    private final List<PathPattern> platformPatterns;
+
+    public RequestPriorityClassifier(@NonNull Collection<String> systemPatterns, @NonNull Collection<String> loginPatterns,
+            @NonNull Collection<String> platformPatterns) {
+        this.systemPatterns = parse(systemPatterns);
+        this.loginPatterns = parse(loginPatterns);
+        this.platformPatterns = parse(platformPatterns);
+    }
+
+    public PriorityClass classify(@NonNull ServerWebExchange exchange) {
+        var path = exchange.getRequest().getPath().pathWithinApplication();
+        if (matches(this.systemPatterns, path)) {
+            return PriorityClass.SYSTEM;
+        }
+        if (matches(this.loginPatterns, path)) {
+            return PriorityClass.LOGIN;
+        }
+        if (matches(this.platformPatterns, path)) {
+            return PriorityClass.PLATFORM;
+        }
+        return PriorityClass.TENANT;
+    }
+
+    private static boolean matches(List<PathPattern> patterns, PathContainer path) {
+        for (var pattern : patterns) {
+            if (pattern.matches(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<PathPattern> parse(Collection<String> patterns) {
+        return patterns.stream().map(PathPatternParser.defaultInstance::parse).toList();
+    }
+}
@@ -0,0 +1,142 @@
+package com.contentgrid.gateway.aot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.stream.StreamSupport;
+import lombok.NonNull;
+import org.springframework.boot.cloud.CloudPlatform;
+import org.springframework.boot.context.properties.source.ConfigurationPropertyName;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.context.properties.source.ConfigurationPropertyState;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.PropertyResolver;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+
+/**
+ * The outcomes of the conditions that Spring AOT processing evaluated, in a form that can be verified against the
+ * configuration at startup.
+ *
+ * @param cloudPlatform the cloud platform that was active during processing
+ * @param clientsConfigured whether OAuth2 client registrations were configured, or {@code null} when no condition
+ * depends on them
+ * @param properties the {@code @ConditionalOnProperty} conditions, with their outcome during processing
+ */
+record AotConditions(
+        @NonNull String cloudPlatform,
+        @Nullable Boolean clientsConfigured,
+        @NonNull List<PropertyCondition> properties
+) {
+
+    static final String CLIENT_REGISTRATIONS = "spring.security.oauth2.client.registration";
+
+    private static final String CLOUD_PLATFORM_KEY = "cloud-platform";
+    private static final String CLIENTS_CONFIGURED_KEY = "clients-configured";
+    private static final String PROPERTY_KEY = "property.%d.%s";
+
+    static String cloudPlatform(Environment environment) {
+        var active = CloudPlatform.getActive(environment);
+        return active != null ? active.name().toLowerCase(Locale.ROOT) : "none";
+    }
+
+    /**
+     * Same as {@code ClientsConfiguredCondition}, without binding the registrations
+     */
+    static boolean clientsConfigured(Environment environment) {
+        var registrations = ConfigurationPropertyName.of(CLIENT_REGISTRATIONS);
+        return StreamSupport.stream(ConfigurationPropertySources.get(environment).spliterator(), false)
+                .anyMatch(source -> source.containsDescendantOf(registrations) == ConfigurationPropertyState.PRESENT);
+    }
+
+    /**
+     * @return a description of every condition that evaluates differently with this environment
+     */
+    List<String> verify(Environment environment) {
+        var mismatches = new ArrayList<String>();
+        var activeCloudPlatform = cloudPlatform(environment);
+        if (!activeCloudPlatform.equalsIgnoreCase(this.cloudPlatform)) {
+            mismatches.add("spring.main.cloud-platform is %s instead of %s".formatted(activeCloudPlatform,
+                    this.cloudPlatform));
+        }
+        if (this.clientsConfigured != null && this.clientsConfigured != clientsConfigured(environment)) {
+            mismatches.add("%s must be %s".formatted(CLIENT_REGISTRATIONS,
+                    this.clientsConfigured ? "configured" : "empty"));
+        }
+        for (var property : this.properties) {
+            if (property.matches(environment) != property.outcome()) {
+                mismatches.add(property.describe());
+            }
+        }
+        return mismatches;
+    }
+
+    Properties toProperties() {
+        var properties = new Properties();
+        properties.setProperty(CLOUD_PLATFORM_KEY, this.cloudPlatform);
+        if (this.clientsConfigured != null) {
+            properties.setProperty(CLIENTS_CONFIGURED_KEY, this.clientsConfigured.toString());
+        }
+        for (int i = 0; i < this.properties.size(); i++) {
+            var property = this.properties.get(i);
+            properties.setProperty(PROPERTY_KEY.formatted(i, "name"), property.name());
+            properties.setProperty(PROPERTY_KEY.formatted(i, "having-value"), property.havingValue());
+            properties.setProperty(PROPERTY_KEY.formatted(i, "match-if-missing"),
+                    Boolean.toString(property.matchIfMissing()));
+            properties.setProperty(PROPERTY_KEY.formatted(i, "outcome"), Boolean.toString(property.outcome()));
+        }
+        return properties;
+    }
+
+    static AotConditions fromProperties(Properties properties) {
+        var clientsConfigured = properties.getProperty(CLIENTS_CONFIGURED_KEY);
+        var propertyConditions = new ArrayList<PropertyCondition>();
+        for (int i = 0; properties.containsKey(PROPERTY_KEY.formatted(i, "name")); i++) {
+            propertyConditions.add(new PropertyCondition(
+                    properties.getProperty(PROPERTY_KEY.formatted(i, "name")),
+                    properties.getProperty(PROPERTY_KEY.formatted(i, "having-value"), ""),
+                    Boolean.parseBoolean(properties.getProperty(PROPERTY_KEY.formatted(i, "match-if-missing"))),
+                    Boolean.parseBoolean(properties.getProperty(PROPERTY_KEY.formatted(i, "outcome")))
+            ));
+        }
+        return new AotConditions(
+                properties.getProperty(CLOUD_PLATFORM_KEY, "none"),
+                clientsConfigured != null ? Boolean.valueOf(clientsConfigured) : null,
+                List.copyOf(propertyConditions)
+        );
+    }
+
+    /**
+     * A single property of a {@code @ConditionalOnProperty}, evaluated the same way
+     */
+    record PropertyCondition(String name, String havingValue, boolean matchIfMissing, boolean outcome) {
+
+        static PropertyCondition evaluate(String name, String havingValue, boolean matchIfMissing,
+                PropertyResolver resolver) {
+            var condition = new PropertyCondition(name, havingValue, matchIfMissing, false);
+            return new PropertyCondition(name, havingValue, matchIfMissing, condition.matches(resolver));
+        }
+
+        boolean matches(PropertyResolver resolver) {
+            if (!resolver.containsProperty(this.name)) {
+                return this.matchIfMissing;
+            }
+            var value = resolver.getProperty(this.name);
+            if (StringUtils.hasLength(this.havingValue)) {
+                return this.havingValue.equalsIgnoreCase(value);
+            }
+            return !"false".equalsIgnoreCase(value);
+        }
+
+        String describe() {
+            if (StringUtils.hasLength(this.havingValue)) {
+                return "%s must %sbe %s".formatted(this.name, this.outcome ? "" : "not ", this.havingValue);
+            }
+            if (this.outcome) {
+                return "%s must be %s".formatted(this.name, this.matchIfMissing ? "unset or not false" : "set");
+            }
+            return "%s must be %s".formatted(this.name, this.matchIfMissing ? "false" : "unset or false");
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.contentgrid.gateway.aot;
+
+import java.io.IOException;
+import java.util.Properties;
+import lombok.SneakyThrows;
+import org.springframework.aot.AotDetector;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+
+/**
+ * Refuses to start an AOT-processed gateway with a configuration that its build-time conditions do not hold for.
+ * <p>
+ * Spring AOT processing evaluates {@code @Conditional} annotations once. {@link AotConditionsProcessor} records their
+ * outcomes in {@value #CONDITIONS_LOCATION}. When the generated artifacts are used, every recorded condition must have
+ * the same outcome with the configuration at startup, so a feature can not silently be left out.
+ */
+public class AotConditionsEnvironmentPostProcessor implements EnvironmentPostProcessor, Ordered {
+
+    static final String CONDITIONS_LOCATION = "META-INF/contentgrid-gateway/aot-conditions.properties";
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        if (!AotDetector.useGeneratedArtifacts()) {
+            return;
+        }
+        var conditions = new ClassPathResource(CONDITIONS_LOCATION, application.getClassLoader());
+        if (!conditions.exists()) {
+            // Not processed by the gateway build, so there is nothing to verify against
+            return;
+        }
+        var mismatches = AotConditions.fromProperties(loadConditions(conditions)).verify(environment);
+        if (!mismatches.isEmpty()) {
+            throw new IllegalStateException("The configuration does not match the configuration this application "
+                    + "was AOT-processed with (" + CONDITIONS_LOCATION + "): " + String.join(", ", mismatches));
+        }
+    }
+
+    @SneakyThrows(IOException.class)
+    private static Properties loadConditions(Resource conditions) {
+        return PropertiesLoaderUtils.loadProperties(conditions);
+    }
+
+    @Override
+    public int getOrder() {
+        // Runs after the configuration files have been loaded
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,179 @@
+package com.contentgrid.gateway.aot;
+
+import com.contentgrid.gateway.aot.AotConditions.PropertyCondition;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.reflect.AnnotatedElement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import lombok.SneakyThrows;
+import org.springframework.beans.factory.aot.BeanFactoryInitializationAotContribution;
+import org.springframework.beans.factory.aot.BeanFactoryInitializationAotProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionEvaluationReport;
+import org.springframework.boot.autoconfigure.condition.ConditionEvaluationReport.ConditionAndOutcome;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.oauth2.client.ClientsConfiguredCondition;
+import org.springframework.core.annotation.MergedAnnotations;
+import org.springframework.core.env.CommandLinePropertySource;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.EnumerablePropertySource;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Records the conditions that Spring AOT processing evaluated for the gateway, so
+ * {@link AotConditionsEnvironmentPostProcessor} can refuse to start with a configuration they do not hold for.
+ * <p>
+ * The build passes the configuration to process with as command line arguments, from {@code src/aot/<name>.properties}.
+ * Every condition on a gateway configuration must be covered by that configuration, or processing fails:
+ * <ul>
+ *     <li>{@code @ConditionalOnProperty}: every property is listed;</li>
+ *     <li>{@code ClientsConfiguredCondition}: {@value #CLIENT_REGISTRATIONS_KEY} is listed, with the outcome;</li>
+ *     <li>conditions on beans and classes follow from the other conditions and the classpath of the build;</li>
+ *     <li>any other condition is listed in {@value #BUILD_TIME_CONDITIONS_KEY}, as a source that is fixed at build
+ *     time and not verified at startup.</li>
+ * </ul>
+ * Listed properties that no gateway condition depends on are verified as well, because they can be conditions of
+ * other auto-configurations.
+ */
+public class AotConditionsProcessor implements BeanFactoryInitializationAotProcessor {
+
+    private static final String GATEWAY_PACKAGE = "com.contentgrid.gateway.";
+
+    static final String AOT_PREFIX = "contentgrid.gateway.aot.";
+    static final String CLIENT_REGISTRATIONS_KEY = AOT_PREFIX + "oauth2-client-registrations";
+    static final String BUILD_TIME_CONDITIONS_KEY = AOT_PREFIX + "build-time-conditions";
+
+    private static final String CLOUD_PLATFORM_PROPERTY = "spring.main.cloud-platform";
+    private static final String ON_PROPERTY_CONDITION =
+            "org.springframework.boot.autoconfigure.condition.OnPropertyCondition";
+
+    /**
+     * Conditions that only depend on other conditions and on the classpath, which are the same at build time
+     */
+    private static final Set<String> DERIVED_CONDITIONS = Set.of(
+            "org.springframework.boot.autoconfigure.condition.OnBeanCondition",
+            "org.springframework.boot.autoconfigure.condition.OnClassCondition",
+            "org.springframework.boot.autoconfigure.condition.OnWebApplicationCondition"
+    );
+
+    @Override
+    public BeanFactoryInitializationAotContribution processAheadOfTime(ConfigurableListableBeanFactory beanFactory) {
+        var environment = beanFactory.getBean(ConfigurableEnvironment.class);
+        var conditions = record(environment, ConditionEvaluationReport.get(beanFactory),
+                beanFactory.getBeanClassLoader());
+        var content = store(conditions);
+        return (generationContext, beanFactoryInitializationCode) -> {
+            generationContext.getGeneratedFiles().addResourceFile(
+                    AotConditionsEnvironmentPostProcessor.CONDITIONS_LOCATION, content);
+            generationContext.getRuntimeHints().resources()
+                    .registerPattern(AotConditionsEnvironmentPostProcessor.CONDITIONS_LOCATION);
+        };
+    }
+
+    static AotConditions record(ConfigurableEnvironment environment, ConditionEvaluationReport report,
+            ClassLoader classLoader) {
+        var listed = listedProperties(environment);
+        var buildTimeConditions = StringUtils.commaDelimitedListToSet(
+                environment.getProperty(BUILD_TIME_CONDITIONS_KEY));
+
+        var properties = new LinkedHashSet<PropertyCondition>();
+        Boolean clientsConfigured = null;
+        var uncovered = new TreeSet<String>();
+
+        for (var entry : report.getConditionAndOutcomesBySource().entrySet()) {
+            var source = entry.getKey();
+            if (!source.startsWith(GATEWAY_PACKAGE)) {
+                continue;
+            }
+            for (ConditionAndOutcome conditionAndOutcome : entry.getValue()) {
+                var condition = conditionAndOutcome.getCondition().getClass();
+                if (ON_PROPERTY_CONDITION.equals(condition.getName())) {
+                    for (var property : propertyConditions(source, environment, classLoader)) {
+                        if (!listed.contains(property.name())) {
+                            uncovered.add("%s: %s is not listed".formatted(source, property.name()));
+                        }
+                        properties.add(property);
+                    }
+                } else if (condition == ClientsConfiguredCondition.class) {
+                    clientsConfigured = AotConditions.clientsConfigured(environment);
+                    var expected = environment.getProperty(CLIENT_REGISTRATIONS_KEY);
+                    if (expected == null || Boolean.parseBoolean(expected) != clientsConfigured) {
+                        uncovered.add("%s: %s must be %s".formatted(source, CLIENT_REGISTRATIONS_KEY,
+                                clientsConfigured));
+                    }
+                } else if (!DERIVED_CONDITIONS.contains(condition.getName())
+                        && !buildTimeConditions.contains(source)) {
+                    uncovered.add("%s: %s is not listed in %s".formatted(source, condition.getSimpleName(),
+                            BUILD_TIME_CONDITIONS_KEY));
+                }
+            }
+        }
+
+        if (!uncovered.isEmpty()) {
+            throw new IllegalStateException("Conditions of the gateway are not covered by the configuration for "
+                    + "AOT processing: " + String.join("; ", uncovered));
+        }
+
+        // Listed properties that other auto-configurations may depend on keep their value during processing
+        var conditionProperties = properties.stream().map(PropertyCondition::name).toList();
+        for (var name : listed) {
+            if (!conditionProperties.contains(name) && !name.startsWith(AOT_PREFIX)
+                    && !name.equals(CLOUD_PLATFORM_PROPERTY)) {
+                properties.add(PropertyCondition.evaluate(name, "", false, environment));
+            }
+        }
+
+        return new AotConditions(AotConditions.cloudPlatform(environment), clientsConfigured,
+                List.copyOf(properties));
+    }
+
+    private static Set<String> listedProperties(ConfigurableEnvironment environment) {
+        var commandLine = environment.getPropertySources()
+                .get(CommandLinePropertySource.COMMAND_LINE_PROPERTY_SOURCE_NAME);
+        if (commandLine instanceof EnumerablePropertySource<?> enumerable) {
+            return new TreeSet<>(Arrays.asList(enumerable.getPropertyNames()));
+        }
+        return Set.of();
+    }
+
+    /**
+     * @param source a class name, or a class name and a method name separated by {@code #}
+     */
+    private static List<PropertyCondition> propertyConditions(String source, ConfigurableEnvironment environment,
+            ClassLoader classLoader) {
+        var separator = source.indexOf('#');
+        var type = ClassUtils.resolveClassName(separator < 0 ? source : source.substring(0, separator), classLoader);
+        List<AnnotatedElement> elements = separator < 0 ? List.of(type) : Arrays.stream(type.getDeclaredMethods())
+                .filter(method -> method.getName().equals(source.substring(separator + 1)))
+                .map(AnnotatedElement.class::cast)
+                .toList();
+
+        var conditions = new ArrayList<PropertyCondition>();
+        for (var element : elements) {
+            MergedAnnotations.from(element).stream(ConditionalOnProperty.class).forEach(annotation -> {
+                var prefix = annotation.getString("prefix");
+                if (StringUtils.hasText(prefix) && !prefix.endsWith(".")) {
+                    prefix = prefix + ".";
+                }
+                for (var name : annotation.getStringArray("name")) {
+                    conditions.add(PropertyCondition.evaluate(prefix + name, annotation.getString("havingValue"),
+                            annotation.getBoolean("matchIfMissing"), environment));
+                }
+            });
+        }
+        return conditions;
+    }
+
+    @SneakyThrows(IOException.class)
+    private static String store(AotConditions conditions) {
+        var writer = new StringWriter();
+        conditions.toProperties().store(writer, "Conditions that Spring AOT processing evaluated for the gateway");
+        return writer.toString();
+    }
+}
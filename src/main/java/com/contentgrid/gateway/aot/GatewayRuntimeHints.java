@@ -0,0 +1,101 @@
+package com.contentgrid.gateway.aot;
+
+import com.contentgrid.configuration.applications.ApplicationId;
+import com.contentgrid.gateway.resilience.CircuitBreakerEndpoint.CircuitBreakersDescriptor;
+import com.contentgrid.gateway.runtime.RuntimePlatformProperties;
+import com.contentgrid.gateway.runtime.application.DeploymentId;
+import com.contentgrid.gateway.runtime.authorization.AuthenticationModel;
+import com.contentgrid.gateway.runtime.authorization.RequestModel;
+import com.contentgrid.gateway.runtime.servicediscovery.StaticServiceDiscovery.StaticServiceDiscoveryProperties;
+import com.contentgrid.gateway.runtime.traffic.ApplicationTrafficMetrics.ApplicationTraffic;
+import com.nimbusds.jose.JWSAlgorithm;
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapList;
+import io.fabric8.kubernetes.api.model.Secret;
+import io.fabric8.kubernetes.api.model.SecretList;
+import io.fabric8.kubernetes.api.model.Service;
+import io.fabric8.kubernetes.api.model.ServiceList;
+import io.fabric8.kubernetes.api.model.Status;
+import io.fabric8.kubernetes.api.model.WatchEvent;
+import java.io.IOException;
+import java.util.List;
+import lombok.SneakyThrows;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.boot.context.properties.bind.BindableRuntimeHintsRegistrar;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Native image hints for what Spring AOT processing does not find on its own.
+ * <p>
+ * AOT processing covers the beans and configuration properties of the configuration that it processes. These hints
+ * add the configuration properties that are bound outside of those, the values that are converted from strings or
+ * serialized with Jackson, and the libraries that do not ship native image metadata themselves.
+ */
+public class GatewayRuntimeHints implements RuntimeHintsRegistrar {
+
+    private static final String JWT_SIGNER_PROPERTIES =
+            "com.contentgrid.gateway.security.jwt.issuer.JwtInternalIssuerConfiguration$JwtSignerProperties";
+
+    /**
+     * Packages of thunx with the Jackson models of OPA queries and of encoded thunk expressions
+     */
+    private static final List<String> THUNX_PACKAGES = List.of(
+            "com.contentgrid.thunx.encoding.json",
+            "com.contentgrid.thunx.pdp.opa"
+    );
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        BindableRuntimeHintsRegistrar.forTypes(
+                RuntimePlatformProperties.class,
+                StaticServiceDiscoveryProperties.class,
+                ClassUtils.resolveClassName(JWT_SIGNER_PROPERTIES, classLoader)
+        ).registerHints(hints, classLoader);
+
+        // Converted from configuration properties with their constructor or static factory method
+        for (var type : List.of(ApplicationId.class, DeploymentId.class, JWSAlgorithm.class)) {
+            hints.reflection().registerType(type, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS,
+                    MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(),
+                AuthenticationModel.class,
+                RequestModel.class,
+                CircuitBreakersDescriptor.class,
+                ApplicationTraffic.class,
+                // Kubernetes resources that service and configuration discovery watch
+                Service.class,
+                ServiceList.class,
+                ConfigMap.class,
+                ConfigMapList.class,
+                Secret.class,
+                SecretList.class,
+                Status.class,
+                WatchEvent.class
+        );
+        // fabric8 looks up the resource class of a kind from these service files
+        hints.resources().registerPattern("META-INF/services/io.fabric8.kubernetes.api.model.KubernetesResource");
+
+        THUNX_PACKAGES.forEach(basePackage -> registerPackage(hints, classLoader, basePackage));
+    }
+
+    @SneakyThrows(IOException.class)
+    private static void registerPackage(RuntimeHints hints, ClassLoader classLoader, String basePackage) {
+        var resolver = new PathMatchingResourcePatternResolver(classLoader);
+        var metadataReaderFactory = new CachingMetadataReaderFactory(resolver);
+        var pattern = ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX
+                + ClassUtils.convertClassNameToResourcePath(basePackage) + "/**/*.class";
+        for (var resource : resolver.getResources(pattern)) {
+            var className = metadataReaderFactory.getMetadataReader(resource).getClassMetadata().getClassName();
+            hints.reflection().registerType(TypeReference.of(className), MemberCategory.DECLARED_FIELDS,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_DECLARED_METHODS);
+        }
+    }
+}
@@ -33,8 +33,11 @@ public class ProxyUpstreamUnavailableWebFilter implements GlobalFilter, Ordered
         }).checkpoint();
     }
 
+    /**
+     * Runs before all filters that route to the upstream service, including hedging and deployment routing
+     */
     @Override
     public int getOrder() {
-        return NettyRoutingFilter.ORDER-1;
+        return NettyRoutingFilter.ORDER - 10;
     }
 }
@@ -0,0 +1,26 @@
+package com.contentgrid.gateway.observability;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Per-stage latency timers are cheap enough to be enabled by default
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(value = "contentgrid.gateway.request-stages.enabled", matchIfMissing = true)
+@EnableConfigurationProperties(RequestStageProperties.class)
+public class RequestStageConfiguration {
+
+    @Bean
+    RequestStageTimers requestStageTimers(RequestStageProperties properties, MeterRegistry meterRegistry) {
+        return new RequestStageTimers(meterRegistry, properties.isApplicationTag());
+    }
+
+    @Bean
+    UpstreamTimingGatewayFilter upstreamTimingGatewayFilter(RequestStageTimers requestStageTimers) {
+        return new UpstreamTimingGatewayFilter(requestStageTimers);
+    }
+}
@@ -0,0 +1,16 @@
+package com.contentgrid.gateway.observability;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties("contentgrid.gateway.request-stages")
+public class RequestStageProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Tag the timers with the application id; multiplies the number of timers by the number of applications
+     */
+    private boolean applicationTag = false;
+}
@@ -0,0 +1,60 @@
+package com.contentgrid.gateway.observability;
+
+import com.contentgrid.gateway.observability.RequestStageTimers.Stage;
+import com.contentgrid.gateway.runtime.streaming.StreamType;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import org.springframework.core.Ordered;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Records the time until the upstream starts responding, as the {@link Stage#UPSTREAM upstream} stage. Admitted
+ * WebSockets are not recorded; event streams are, because they are only known once the upstream starts responding.
+ */
+@RequiredArgsConstructor
+public class UpstreamTimingGatewayFilter implements GlobalFilter, Ordered {
+
+    @NonNull
+    private final RequestStageTimers stageTimers;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (StreamType.of(exchange) == StreamType.WEBSOCKET) {
+            return chain.filter(exchange);
+        }
+
+        var start = System.nanoTime();
+        var recorded = new AtomicBoolean();
+        exchange.getResponse().beforeCommit(() -> {
+            if (recorded.compareAndSet(false, true)) {
+                var status = exchange.getResponse().getStatusCode();
+                var outcome = status == null || status.is2xxSuccessful() || status.is3xxRedirection() ? "success"
+                        : status.is4xxClientError() ? "client-error" : "server-error";
+                this.stageTimers.record(Stage.UPSTREAM, outcome, exchange, System.nanoTime() - start);
+            }
+            return Mono.empty();
+        });
+        return chain.filter(exchange)
+                .doFinally(signal -> {
+                    if (signal == SignalType.ON_ERROR && recorded.compareAndSet(false, true)) {
+                        this.stageTimers.record(Stage.UPSTREAM, "error", exchange, System.nanoTime() - start);
+                    }
+                });
+    }
+
+    /**
+     * Wraps {@link com.contentgrid.gateway.error.ProxyUpstreamUnavailableWebFilter} (at {@code NettyRoutingFilter.ORDER
+     * - 10}), so the timer is started before any routing filter and a failed connection to the upstream is recorded
+     * as an error of this stage once it has been mapped to a 503
+     */
+    @Override
+    public int getOrder() {
+        return NettyRoutingFilter.ORDER - 20;
+    }
+}
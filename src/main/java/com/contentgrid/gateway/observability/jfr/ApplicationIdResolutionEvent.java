@@ -0,0 +1,29 @@
+package com.contentgrid.gateway.observability.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+@Name("com.contentgrid.gateway.ApplicationIdResolution")
+@Label("Application ID Resolution")
+@Category({"ContentGrid", "Gateway", "Routing"})
+@Description("Resolving the application of a request from its Host")
+@Enabled(false)
+@StackTrace(false)
+@Setter
+public class ApplicationIdResolutionEvent extends Event {
+
+    @Label("Host")
+    private String host;
+
+    @Label("Result")
+    private String result;
+
+    @Label("Application ID")
+    private String applicationId;
+}
@@ -0,0 +1,32 @@
+package com.contentgrid.gateway.observability.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+@Name("com.contentgrid.gateway.ClaimsEncryption")
+@Label("Principal Claims Encryption")
+@Category({"ContentGrid", "Gateway", "Security"})
+@Description("Encrypting or decrypting principal claims")
+@Enabled(false)
+@StackTrace(false)
+@Setter
+public class ClaimsEncryptionEvent extends Event {
+
+    @Label("Operation")
+    private String operation;
+
+    @Label("Ciphertext Size")
+    @Description("Size of the encrypted claims, including the verification tag")
+    @DataAmount
+    private int size;
+
+    @Label("Success")
+    private boolean success;
+}
@@ -0,0 +1,52 @@
+package com.contentgrid.gateway.observability.jfr;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.HashMap;
+import jdk.jfr.Recording;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ResourceLoader;
+
+/**
+ * The gateway events are emitted regardless of this configuration; they can also be recorded by starting the JVM with
+ * {@code -XX:StartFlightRecording:settings=<path to contentgrid-gateway.jfc>}. The JVM only reads settings from the
+ * file system: the container image runs the exploded application, where the profile is
+ * {@code /workspace/BOOT-INF/classes/META-INF/jfr/contentgrid-gateway.jfc}; when running the jar, extract it with
+ * {@code unzip -p <jar> BOOT-INF/classes/META-INF/jfr/contentgrid-gateway.jfc > contentgrid-gateway.jfc}
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty("contentgrid.gateway.flight-recorder.enabled")
+@EnableConfigurationProperties(FlightRecorderProperties.class)
+public class FlightRecorderConfiguration {
+
+    static final String RECORDING_NAME = "contentgrid-gateway";
+
+    @Bean(destroyMethod = "stop")
+    Recording gatewayFlightRecording(FlightRecorderProperties properties, ResourceLoader resourceLoader)
+            throws IOException, ParseException {
+        var settings = new HashMap<String, String>();
+        if (properties.isIncludeJdkDefaults()) {
+            settings.putAll(jdk.jfr.Configuration.getConfiguration("default").getSettings());
+        }
+        try (var reader = new InputStreamReader(resourceLoader.getResource(properties.getSettings()).getInputStream(),
+                StandardCharsets.UTF_8)) {
+            settings.putAll(jdk.jfr.Configuration.create(reader).getSettings());
+        }
+
+        var recording = new Recording(settings);
+        recording.setName(RECORDING_NAME);
+        recording.setToDisk(true);
+        recording.setMaxAge(properties.getMaxAge());
+        recording.setMaxSize(properties.getMaxSize().toBytes());
+        if (properties.getDestination() != null) {
+            recording.setDestination(properties.getDestination());
+        }
+        recording.start();
+        return recording;
+    }
+}
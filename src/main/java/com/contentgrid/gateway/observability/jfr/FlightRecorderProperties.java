@@ -0,0 +1,43 @@
+package com.contentgrid.gateway.observability.jfr;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@Data
+@ConfigurationProperties("contentgrid.gateway.flight-recorder")
+public class FlightRecorderProperties {
+
+    /**
+     * Starts a continuous JDK Flight Recorder recording with the gateway events when the application starts
+     */
+    private boolean enabled = false;
+
+    /**
+     * JFR settings profile that configures the gateway events
+     */
+    private String settings = "classpath:META-INF/jfr/contentgrid-gateway.jfc";
+
+    /**
+     * Also record the JDK events of the built-in 'default' settings profile
+     */
+    private boolean includeJdkDefaults = true;
+
+    /**
+     * How long recorded events are kept
+     */
+    private Duration maxAge = Duration.ofHours(1);
+
+    /**
+     * How much recorded data is kept
+     */
+    private DataSize maxSize = DataSize.ofMegabytes(100);
+
+    /**
+     * File the recording is written to when the application stops; the recording can always be dumped with
+     * {@code jcmd <pid> JFR.dump name=contentgrid-gateway}
+     */
+    private Path destination;
+}
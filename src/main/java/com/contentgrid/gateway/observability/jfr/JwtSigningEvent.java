@@ -0,0 +1,33 @@
+package com.contentgrid.gateway.observability.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+@Name("com.contentgrid.gateway.JwtSigning")
+@Label("JWT Signing")
+@Category({"ContentGrid", "Gateway", "Security"})
+@Description("Signing a locally issued JWT")
+@Enabled(false)
+@StackTrace(false)
+@Setter
+public class JwtSigningEvent extends Event {
+
+    @Label("Signer")
+    private String signer;
+
+    @Label("Key ID")
+    private String keyId;
+
+    @Label("Algorithm")
+    private String algorithm;
+
+    @Label("Outcome")
+    @Description("signed, no-usable-key or error")
+    private String outcome;
+}
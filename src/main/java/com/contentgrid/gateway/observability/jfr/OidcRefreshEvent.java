@@ -0,0 +1,26 @@
+package com.contentgrid.gateway.observability.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+@Name("com.contentgrid.gateway.OidcRefresh")
+@Label("OIDC Refresh")
+@Category({"ContentGrid", "Gateway", "Security"})
+@Description("Refreshing an OpenID Connect session with a refresh token")
+@Enabled(false)
+@StackTrace(false)
+@Setter
+public class OidcRefreshEvent extends Event {
+
+    @Label("Client Registration")
+    private String clientRegistration;
+
+    @Label("Outcome")
+    private String outcome;
+}
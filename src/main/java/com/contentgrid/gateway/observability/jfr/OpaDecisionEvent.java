@@ -0,0 +1,26 @@
+package com.contentgrid.gateway.observability.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+@Name("com.contentgrid.gateway.OpaDecision")
+@Label("OPA Decision")
+@Category({"ContentGrid", "Gateway", "Authorization"})
+@Description("Authorization decision for a request with a policy package")
+@Enabled(false)
+@StackTrace(false)
+@Setter
+public class OpaDecisionEvent extends Event {
+
+    @Label("Policy Package")
+    private String policyPackage;
+
+    @Label("Outcome")
+    private String outcome;
+}
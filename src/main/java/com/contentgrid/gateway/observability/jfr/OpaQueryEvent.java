@@ -0,0 +1,23 @@
+package com.contentgrid.gateway.observability.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+@Name("com.contentgrid.gateway.OpaQuery")
+@Label("OPA Query")
+@Category({"ContentGrid", "Gateway", "Authorization"})
+@Description("Creating the Open Policy Agent query for a request")
+@Enabled(false)
+@StackTrace(false)
+@Setter
+public class OpaQueryEvent extends Event {
+
+    @Label("Policy Package")
+    private String policyPackage;
+}
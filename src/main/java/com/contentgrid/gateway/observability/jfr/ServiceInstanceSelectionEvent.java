@@ -0,0 +1,29 @@
+package com.contentgrid.gateway.observability.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+@Name("com.contentgrid.gateway.ServiceInstanceSelection")
+@Label("Service Instance Selection")
+@Category({"ContentGrid", "Gateway", "Routing"})
+@Description("Selecting the service instance of an application that handles a request")
+@Enabled(false)
+@StackTrace(false)
+@Setter
+public class ServiceInstanceSelectionEvent extends Event {
+
+    @Label("Application ID")
+    private String applicationId;
+
+    @Label("Candidates")
+    private int candidates;
+
+    @Label("Service ID")
+    private String serviceId;
+}
@@ -0,0 +1,17 @@
+package com.contentgrid.gateway.resilience;
+
+import lombok.Getter;
+
+/**
+ * Thrown instead of calling a dependency whose {@link CircuitBreaker} is open
+ */
+@Getter
+public class CallNotPermittedException extends RuntimeException {
+
+    private final String circuitBreakerName;
+
+    public CallNotPermittedException(String circuitBreakerName) {
+        super("Circuit breaker '%s' is open".formatted(circuitBreakerName), null, false, false);
+        this.circuitBreakerName = circuitBreakerName;
+    }
+}
@@ -0,0 +1,213 @@
+package com.contentgrid.gateway.resilience;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+/**
+ * Circuit breaker for calls to a single dependency.
+ * <ul>
+ *     <li>{@link State#CLOSED}: calls are made; when the failure rate over the last calls reaches the threshold, the
+ *     breaker opens</li>
+ *     <li>{@link State#OPEN}: calls fail immediately with {@link CallNotPermittedException}; after the wait duration,
+ *     the breaker becomes half-open</li>
+ *     <li>{@link State#HALF_OPEN}: a limited number of probe calls is made; the breaker closes when all of them
+ *     succeed, and opens again on the first failure</li>
+ * </ul>
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    interface Listener {
+
+        void onTransition(CircuitBreaker circuitBreaker, State from, State to);
+
+        void onCall(CircuitBreaker circuitBreaker, String outcome);
+    }
+
+    @Getter
+    private final String name;
+    private final CircuitBreakerProperties properties;
+    private final Listener listener;
+
+    @Setter(AccessLevel.PACKAGE)
+    @NonNull
+    private Clock clock;
+
+    @Getter
+    private volatile State state = State.CLOSED;
+
+    // guarded by this
+    private final boolean[] window;
+    private int windowIndex;
+    private int windowCount;
+    private int windowFailures;
+    private Instant openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    CircuitBreaker(@NonNull String name, @NonNull CircuitBreakerProperties properties, @NonNull Listener listener,
+            @NonNull Clock clock) {
+        this.name = name;
+        this.properties = properties;
+        this.listener = listener;
+        this.clock = clock;
+        this.window = new boolean[Math.max(1, properties.getSlidingWindowSize())];
+    }
+
+    /**
+     * Makes a call through the circuit breaker; every error counts as a failure
+     */
+    public <T> Mono<T> run(@NonNull Mono<T> call) {
+        return this.run(call, error -> true);
+    }
+
+    /**
+     * Makes a call through the circuit breaker
+     *
+     * @param isFailure decides whether an error means that the dependency is unhealthy; other errors are passed on,
+     * but count as a successful call
+     */
+    public <T> Mono<T> run(@NonNull Mono<T> call, @NonNull Predicate<Throwable> isFailure) {
+        return Mono.defer(() -> {
+            if (!this.tryAcquirePermission()) {
+                this.listener.onCall(this, "not-permitted");
+                return Mono.error(new CallNotPermittedException(this.name));
+            }
+
+            var done = new AtomicBoolean();
+            return call
+                    .timeout(this.properties.getCallTimeout())
+                    .doOnSuccess(value -> {
+                        if (done.compareAndSet(false, true)) {
+                            this.onResult(true);
+                        }
+                    })
+                    .doOnError(error -> {
+                        if (done.compareAndSet(false, true)) {
+                            this.onResult(!isFailure.test(error));
+                        }
+                    })
+                    .doOnCancel(() -> {
+                        if (done.compareAndSet(false, true)) {
+                            this.releasePermission();
+                        }
+                    });
+        });
+    }
+
+    /**
+     * @return the failure rate over the calls in the sliding window, or -1 when there are not enough calls
+     */
+    public synchronized double getFailureRate() {
+        if (this.windowCount < this.properties.getMinimumNumberOfCalls()) {
+            return -1;
+        }
+        return (double) this.windowFailures / this.windowCount;
+    }
+
+    public synchronized int getBufferedCalls() {
+        return this.windowCount;
+    }
+
+    boolean tryAcquirePermission() {
+        if (this.state == State.CLOSED) {
+            return true;
+        }
+        synchronized (this) {
+            if (this.state == State.OPEN) {
+                if (this.clock.instant().isBefore(this.openedAt.plus(this.properties.getWaitDurationInOpenState()))) {
+                    return false;
+                }
+                this.transitionTo(State.HALF_OPEN);
+            }
+            if (this.state == State.HALF_OPEN) {
+                if (this.halfOpenPermits <= 0) {
+                    return false;
+                }
+                this.halfOpenPermits--;
+            }
+            return true;
+        }
+    }
+
+    synchronized void onResult(boolean success) {
+        this.listener.onCall(this, success ? "success" : "failure");
+        switch (this.state) {
+            case CLOSED -> {
+                this.record(success);
+                if (this.windowCount >= this.properties.getMinimumNumberOfCalls()
+                        && (double) this.windowFailures / this.windowCount >= this.properties.getFailureRateThreshold()) {
+                    this.transitionTo(State.OPEN);
+                }
+            }
+            case HALF_OPEN -> {
+                if (!success) {
+                    this.transitionTo(State.OPEN);
+                } else if (++this.halfOpenSuccesses >= this.properties.getPermittedCallsInHalfOpenState()) {
+                    this.transitionTo(State.CLOSED);
+                }
+            }
+            case OPEN -> {
+                // Result of a call that started before the breaker opened
+            }
+        }
+    }
+
+    private synchronized void releasePermission() {
+        if (this.state == State.HALF_OPEN) {
+            this.halfOpenPermits++;
+        }
+    }
+
+    private void record(boolean success) {
+        if (this.windowCount == this.window.length) {
+            if (this.window[this.windowIndex]) {
+                this.windowFailures--;
+            }
+        } else {
+            this.windowCount++;
+        }
+        this.window[this.windowIndex] = !success;
+        if (!success) {
+            this.windowFailures++;
+        }
+        this.windowIndex = (this.windowIndex + 1) % this.window.length;
+    }
+
+    private void transitionTo(State newState) {
+        var oldState = this.state;
+        switch (newState) {
+            case OPEN -> this.openedAt = this.clock.instant();
+            case HALF_OPEN -> {
+                this.halfOpenPermits = this.properties.getPermittedCallsInHalfOpenState();
+                this.halfOpenSuccesses = 0;
+            }
+            case CLOSED -> {
+                this.windowIndex = 0;
+                this.windowCount = 0;
+                this.windowFailures = 0;
+            }
+        }
+        this.state = newState;
+        if (newState == State.OPEN) {
+            log.warn("Circuit breaker '{}' changed from {} to {}", this.name, oldState, newState);
+        } else {
+            log.info("Circuit breaker '{}' changed from {} to {}", this.name, oldState, newState);
+        }
+        this.listener.onTransition(this, oldState, newState);
+    }
+}
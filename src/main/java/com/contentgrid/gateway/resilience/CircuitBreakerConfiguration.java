@@ -0,0 +1,23 @@
+package com.contentgrid.gateway.resilience;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty("contentgrid.gateway.circuit-breaker.enabled")
+@EnableConfigurationProperties(CircuitBreakerProperties.class)
+public class CircuitBreakerConfiguration {
+
+    @Bean
+    CircuitBreakerRegistry circuitBreakerRegistry(CircuitBreakerProperties properties, MeterRegistry meterRegistry) {
+        return new CircuitBreakerRegistry(properties, meterRegistry);
+    }
+
+    @Bean
+    CircuitBreakerEndpoint circuitBreakerEndpoint(CircuitBreakerRegistry circuitBreakerRegistry) {
+        return new CircuitBreakerEndpoint(circuitBreakerRegistry);
+    }
+}
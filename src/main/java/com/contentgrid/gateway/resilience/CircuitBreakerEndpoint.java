@@ -0,0 +1,37 @@
+package com.contentgrid.gateway.resilience;
+
+import java.util.Map;
+import java.util.TreeMap;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.OperationResponseBody;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+@Endpoint(id = "circuitbreakers")
+@RequiredArgsConstructor
+public class CircuitBreakerEndpoint {
+
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @ReadOperation
+    public CircuitBreakersDescriptor circuitBreakers() {
+        var circuitBreakers = new TreeMap<String, CircuitBreakerDescriptor>();
+        for (var circuitBreaker : this.circuitBreakerRegistry.getCircuitBreakers()) {
+            circuitBreakers.put(circuitBreaker.getName(), new CircuitBreakerDescriptor(
+                    circuitBreaker.getState(),
+                    circuitBreaker.getFailureRate(),
+                    circuitBreaker.getBufferedCalls()
+            ));
+        }
+        return new CircuitBreakersDescriptor(circuitBreakers);
+    }
+
+    public record CircuitBreakersDescriptor(Map<String, CircuitBreakerDescriptor> circuitBreakers)
+            implements OperationResponseBody {
+
+    }
+
+    public record CircuitBreakerDescriptor(CircuitBreaker.State state, double failureRate, int bufferedCalls) {
+
+    }
+}
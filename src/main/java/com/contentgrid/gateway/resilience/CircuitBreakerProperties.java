@@ -0,0 +1,42 @@
+package com.contentgrid.gateway.resilience;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties("contentgrid.gateway.circuit-breaker")
+public class CircuitBreakerProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * Number of most recent calls that the failure rate is computed over
+     */
+    private int slidingWindowSize = 20;
+
+    /**
+     * Minimum number of calls in the sliding window before the failure rate is considered
+     */
+    private int minimumNumberOfCalls = 10;
+
+    /**
+     * Failure rate (between 0 and 1) at which the circuit breaker opens
+     */
+    private double failureRateThreshold = 0.5;
+
+    /**
+     * How long an open circuit breaker rejects all calls before it lets probe calls through
+     */
+    private Duration waitDurationInOpenState = Duration.ofSeconds(30);
+
+    /**
+     * Number of probe calls that must succeed to close a half-open circuit breaker
+     */
+    private int permittedCallsInHalfOpenState = 3;
+
+    /**
+     * Calls that take longer than this fail, and count as a failure
+     */
+    private Duration callTimeout = Duration.ofSeconds(5);
+}
@@ -0,0 +1,112 @@
+package com.contentgrid.gateway.resilience;
+
+import com.contentgrid.gateway.resilience.CircuitBreaker.State;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Clock;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.NonNull;
+import lombok.Setter;
+
+/**
+ * Keeps one {@link CircuitBreaker} for every dependency, so all requests that call the same policy decision point or
+ * identity provider share its health.
+ */
+public class CircuitBreakerRegistry {
+
+    private static final String METRIC_PREFIX = "contentgrid.gateway.circuit-breaker.";
+
+    private final CircuitBreakerProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+    @Setter
+    @NonNull
+    private Clock clock = Clock.systemUTC();
+
+    public CircuitBreakerRegistry(@NonNull CircuitBreakerProperties properties, @NonNull MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @return the circuit breaker that guards calls to the Open Policy Agent at {@code serviceUrl}
+     */
+    public CircuitBreaker opa(@NonNull String serviceUrl) {
+        return this.circuitBreaker("opa:" + serviceUrl);
+    }
+
+    /**
+     * @return the circuit breaker that guards calls to the identity provider with issuer {@code issuer}
+     */
+    public CircuitBreaker identityProvider(@NonNull String issuer) {
+        return this.circuitBreaker("idp:" + issuer);
+    }
+
+    public CircuitBreaker circuitBreaker(@NonNull String name) {
+        return this.circuitBreakers.computeIfAbsent(name, this::create);
+    }
+
+    public Collection<CircuitBreaker> getCircuitBreakers() {
+        return this.circuitBreakers.values();
+    }
+
+    private CircuitBreaker create(String name) {
+        var circuitBreaker = new CircuitBreaker(name, this.properties, new MetricsListener(name), this.clock);
+        for (var state : State.values()) {
+            Gauge.builder(METRIC_PREFIX + "state", circuitBreaker, cb -> cb.getState() == state ? 1 : 0)
+                    .description("Current state of the circuit breaker (1 for the active state)")
+                    .tag("name", name)
+                    .tag("state", tag(state))
+                    .register(this.meterRegistry);
+        }
+        return circuitBreaker;
+    }
+
+    private static String tag(State state) {
+        return state.name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+
+    /**
+     * Counters of a single circuit breaker, registered once per outcome and transition instead of on every call
+     */
+    private class MetricsListener implements CircuitBreaker.Listener {
+
+        private final String name;
+        private final Map<String, Counter> calls = new ConcurrentHashMap<>();
+        private final Map<State, Map<State, Counter>> transitions = new EnumMap<>(State.class);
+
+        MetricsListener(String name) {
+            this.name = name;
+            for (var from : State.values()) {
+                this.transitions.put(from, new ConcurrentHashMap<>());
+            }
+        }
+
+        @Override
+        public void onTransition(CircuitBreaker circuitBreaker, State from, State to) {
+            this.transitions.get(from).computeIfAbsent(to, ignored -> Counter.builder(METRIC_PREFIX + "transitions")
+                            .description("State transitions of the circuit breaker")
+                            .tag("name", this.name)
+                            .tag("from", tag(from))
+                            .tag("to", tag(to))
+                            .register(meterRegistry))
+                    .increment();
+        }
+
+        @Override
+        public void onCall(CircuitBreaker circuitBreaker, String outcome) {
+            this.calls.computeIfAbsent(outcome, ignored -> Counter.builder(METRIC_PREFIX + "calls")
+                            .description("Calls through the circuit breaker")
+                            .tag("name", this.name)
+                            .tag("outcome", outcome)
+                            .register(meterRegistry))
+                    .increment();
+        }
+    }
+}
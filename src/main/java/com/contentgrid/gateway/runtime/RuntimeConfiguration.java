@@ -8,19 +8,26 @@ import com.contentgrid.configuration.api.observable.Observable;
 import com.contentgrid.configuration.applications.ApplicationConfiguration;
 import com.contentgrid.configuration.applications.ApplicationId;
 import com.contentgrid.gateway.ServiceDiscoveryProperties;
+import com.contentgrid.gateway.observability.RequestStageTimers;
+import com.contentgrid.gateway.resilience.CircuitBreakerRegistry;
+import com.contentgrid.gateway.runtime.RuntimePlatformProperties.AuthorizationType;
+import com.contentgrid.gateway.runtime.RuntimePlatformProperties.EndpointDefinition;
 import com.contentgrid.gateway.runtime.actuate.ContentGridActuatorEndpoint;
 import com.contentgrid.gateway.runtime.application.ContentGridDeploymentMetadata;
 import com.contentgrid.gateway.runtime.application.ServiceCatalog;
 import com.contentgrid.gateway.runtime.application.SimpleContentGridDeploymentMetadata;
+import com.contentgrid.gateway.runtime.authorization.CircuitBreakingAuthorizationManager;
 import com.contentgrid.gateway.runtime.authorization.PolicyPackageAuthorizationManager;
 import com.contentgrid.gateway.runtime.authorization.PolicyPackageTokenGatewayFilter;
 import com.contentgrid.gateway.runtime.authorization.RuntimeOpaQueryProvider;
+import com.contentgrid.gateway.runtime.concurrency.DeploymentConcurrencyLimiters;
 import com.contentgrid.gateway.runtime.config.ApplicationConfigurationRepository;
 import com.contentgrid.gateway.runtime.config.ComposableApplicationConfigurationRepository;
 import com.contentgrid.gateway.runtime.config.kubernetes.KubernetesLabels;
 import com.contentgrid.gateway.runtime.cors.RuntimeCorsConfigurationSource;
 import com.contentgrid.gateway.runtime.routing.ApplicationIdRequestResolver;
 import com.contentgrid.gateway.runtime.routing.CachingApplicationIdRequestResolver;
+import com.contentgrid.gateway.runtime.routing.ContentGridEndpointDispatcher;
 import com.contentgrid.gateway.runtime.routing.DefaultRuntimeRequestRouter;
 import com.contentgrid.gateway.runtime.routing.DynamicVirtualHostApplicationIdResolver;
 import com.contentgrid.gateway.runtime.routing.RuntimeDeploymentGatewayFilter;
@@ -31,11 +38,14 @@ import com.contentgrid.gateway.runtime.servicediscovery.KubernetesServiceDiscove
 import com.contentgrid.gateway.runtime.servicediscovery.ServiceDiscovery;
 import com.contentgrid.gateway.runtime.servicediscovery.StaticServiceDiscovery;
 import com.contentgrid.gateway.runtime.servicediscovery.StaticServiceDiscovery.StaticServiceDiscoveryProperties;
+import com.contentgrid.gateway.runtime.traffic.ApplicationTrafficMetrics;
+import com.contentgrid.gateway.runtime.warmup.DeploymentWarmup;
 import com.contentgrid.gateway.runtime.web.ContentGridAppRequestWebFilter;
 import com.contentgrid.gateway.runtime.web.ContentGridResponseHeadersWebFilter;
 import com.contentgrid.gateway.security.jwt.issuer.JwtSignerRegistry;
 import com.contentgrid.gateway.security.jwt.issuer.LocallyIssuedJwtGatewayFilterFactory;
 import com.contentgrid.gateway.security.oidc.ReactiveClientRegistrationIdResolver;
+import com.contentgrid.gateway.security.stateless.StatelessRequestMatcher;
 import com.contentgrid.thunx.pdp.PolicyDecisionComponentImpl;
 import com.contentgrid.thunx.pdp.PolicyDecisionPointClient;
 import com.contentgrid.thunx.pdp.opa.OpaQueryProvider;
@@ -46,10 +56,10 @@ import io.fabric8.kubernetes.api.model.LabelSelectorBuilder;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.ApplicationRunner;
 import org.springframework.boot.actuate.autoconfigure.endpoint.web.WebEndpointProperties;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnCloudPlatform;
-import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.actuate.endpoint.web.PathMappedEndpoints;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.cloud.CloudPlatform;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -62,12 +72,15 @@ import org.springframework.cloud.kubernetes.fabric8.loadbalancer.Fabric8ServiceI
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
 import org.springframework.security.authorization.ReactiveAuthorizationManager;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.client.registration.ReactiveClientRegistrationRepository;
 import org.springframework.security.web.server.authorization.AuthorizationContext;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher.MatchResult;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatchers;
 import org.springframework.web.cors.reactive.CorsConfigurationSource;
 import org.springframework.web.server.ServerWebExchange;
 
@@ -95,22 +108,24 @@ public class RuntimeConfiguration {
 
         var routes = builder.routes();
 
-        runtimePlatformProperties.endpoints().forEach(endpoint -> {
-            routes.route(endpoint.endpointId(), r -> r
-                    .predicate(exchange -> applicationIdRequestResolver.resolveApplicationId(exchange).isPresent())
-                    .and()
-                    .path(endpoint.pathPattern())
+        var endpointDispatcher = new ContentGridEndpointDispatcher(runtimePlatformProperties.endpoints().toList(),
+                endpoint -> locallyIssuedJwtGatewayFilterFactory.apply(c -> {
+                    c.setSigner(endpoint.endpointId());
+                    c.setClaimsResolver(endpoint.endpointId());
+                }));
+        if (!endpointDispatcher.isEmpty()) {
+            // one route for all /.contentgrid/{endpointId} endpoints: the path is checked before the application id
+            routes.route("contentgrid-endpoints", r -> r
+                    .predicate(exchange -> endpointDispatcher.matches(exchange)
+                            && applicationIdRequestResolver.resolveApplicationId(exchange).isPresent())
                     .filters(f -> f
                             .preserveHostHeader()
                             .removeRequestHeader("Cookie")
-                            .filter(locallyIssuedJwtGatewayFilterFactory.apply(c -> {
-                                c.setSigner(endpoint.endpointId());
-                                c.setClaimsResolver(endpoint.endpointId());
-                            }))
+                            .filter(endpointDispatcher.dispatchFilter())
                     )
-                    .uri(endpoint.upstreamUri())
+                    .uri(ContentGridEndpointDispatcher.DISPATCH_URI)
             );
-        });
+        }
 
         GatewayFilter tokenFilter;
         if (jwtSignerRegistry.hasSigner("apps")) {
@@ -157,6 +172,20 @@ public class RuntimeConfiguration {
         };
     }
 
+    @Bean
+    StatelessRequestMatcher runtimePublicEndpointsStatelessRequestMatcher(
+            RuntimePlatformProperties runtimePlatformProperties
+    ) {
+        var publicEndpointPatterns = runtimePlatformProperties.endpoints()
+                .filter(endpointDefinition -> endpointDefinition.authorizationType() == AuthorizationType.PUBLIC)
+                .map(EndpointDefinition::pathPattern)
+                .toArray(String[]::new);
+        if (publicEndpointPatterns.length == 0) {
+            return StatelessRequestMatcher.of("public-endpoint", exchange -> MatchResult.notMatch());
+        }
+        return StatelessRequestMatcher.of("public-endpoint", ServerWebExchangeMatchers.pathMatchers(publicEndpointPatterns));
+    }
+
     @Bean
     public ServiceCatalog serviceTracker(ContentGridDeploymentMetadata deploymentMetadata) {
         return new ServiceCatalog(deploymentMetadata);
@@ -166,9 +195,14 @@ public class RuntimeConfiguration {
     public ContentGridActuatorEndpoint contentGridActuatorEndpoint(WebEndpointProperties endpointProperties,
             ApplicationConfigurationRepository applicationConfigurationRepository,
             ReactiveClientRegistrationIdResolver clientRegistrationIdResolver,
-            ReactiveClientRegistrationRepository clientRegistrationRepository) {
-        return new ContentGridActuatorEndpoint(endpointProperties, applicationConfigurationRepository,
+            ReactiveClientRegistrationRepository clientRegistrationRepository,
+            ObjectProvider<DeploymentConcurrencyLimiters> deploymentConcurrencyLimiters,
+            ObjectProvider<ApplicationTrafficMetrics> applicationTrafficMetrics) {
+        var endpoint = new ContentGridActuatorEndpoint(endpointProperties, applicationConfigurationRepository,
                 clientRegistrationIdResolver, clientRegistrationRepository);
+        deploymentConcurrencyLimiters.ifAvailable(endpoint::setDeploymentConcurrencyLimiters);
+        applicationTrafficMetrics.ifAvailable(endpoint::setApplicationTrafficMetrics);
+        return endpoint;
     }
 
     @Bean
@@ -180,14 +214,23 @@ public class RuntimeConfiguration {
     @Order(CONTENTGRID_WEB_FILTER_CHAIN_FILTER_ORDER)
     ContentGridAppRequestWebFilter contentGridAppRequestWebFilter(
             ContentGridDeploymentMetadata serviceMetadata,
-            RuntimeRequestRouter requestRouter) {
-        return new ContentGridAppRequestWebFilter(serviceMetadata, requestRouter);
+            RuntimeRequestRouter requestRouter,
+            ObjectProvider<PathMappedEndpoints> pathMappedEndpoints,
+            ObjectProvider<RequestStageTimers> requestStageTimers) {
+        var filter = new ContentGridAppRequestWebFilter(serviceMetadata, requestRouter);
+        requestStageTimers.ifAvailable(filter::setStageTimers);
+        pathMappedEndpoints.ifAvailable(endpoints ->
+                filter.setUnroutedRequestMatcher(ContentGridAppRequestWebFilter.actuatorRequestMatcher(endpoints)));
+        return filter;
     }
 
     @Bean
     @Order(CONTENTGRID_WEB_FILTER_CHAIN_FILTER_ORDER + 10)
-    ContentGridResponseHeadersWebFilter contentGridResponseHeadersWebFilter() {
-        return new ContentGridResponseHeadersWebFilter();
+    ContentGridResponseHeadersWebFilter contentGridResponseHeadersWebFilter(
+            ObjectProvider<ApplicationTrafficMetrics> applicationTrafficMetrics) {
+        var filter = new ContentGridResponseHeadersWebFilter();
+        applicationTrafficMetrics.ifAvailable(filter::setTrafficMetrics);
+        return filter;
     }
 
     @Bean
@@ -200,7 +243,13 @@ public class RuntimeConfiguration {
 
     @Bean
     RuntimeServiceInstanceSelector simpleRuntimeServiceInstanceSelector(
-            ContentGridDeploymentMetadata deploymentMetadata) {
+            ContentGridDeploymentMetadata deploymentMetadata,
+            ObjectProvider<DeploymentWarmup> deploymentWarmup) {
+        var warmup = deploymentWarmup.getIfAvailable();
+        if (warmup != null) {
+            // ramp traffic onto new deployments by their slow-start weight
+            return new SimpleRuntimeServiceInstanceSelector(deploymentMetadata, warmup::getWeight);
+        }
         return new SimpleRuntimeServiceInstanceSelector(deploymentMetadata);
     }
 
@@ -231,17 +280,28 @@ public class RuntimeConfiguration {
      * identical to thunx's {@code @ConditionalOnBean(PolicyDecisionPointClient)}: if the property is set
      * but no PDP client is present, return {@code null} so the gateway keeps its default manager rather
      * than failing to start (matching the pre-existing fallback behaviour).
+     * When circuit breakers are enabled, OPA calls go through the circuit breaker of the OPA endpoint.
      */
     @Bean
     @ConditionalOnProperty("opa.service.url")
     ReactiveAuthorizationManager<AuthorizationContext> reactiveAuthorizationManager(
-            ObjectProvider<PolicyDecisionPointClient<Authentication, ServerWebExchange>> pdpClient) {
+            ObjectProvider<PolicyDecisionPointClient<Authentication, ServerWebExchange>> pdpClient,
+            ObjectProvider<CircuitBreakerRegistry> circuitBreakerRegistry,
+            ObjectProvider<RequestStageTimers> requestStageTimers,
+            @Value("${opa.service.url}") String opaServiceUrl) {
         var client = pdpClient.getIfAvailable();
         if (client == null) {
             return null;
         }
-        var delegate = new ReactivePolicyAuthorizationManager(new PolicyDecisionComponentImpl<>(client));
-        return new PolicyPackageAuthorizationManager(delegate);
+        ReactiveAuthorizationManager<AuthorizationContext> delegate =
+                new ReactivePolicyAuthorizationManager(new PolicyDecisionComponentImpl<>(client));
+        var circuitBreakers = circuitBreakerRegistry.getIfAvailable();
+        if (circuitBreakers != null) {
+            delegate = new CircuitBreakingAuthorizationManager(delegate, circuitBreakers.opa(opaServiceUrl));
+        }
+        var authorizationManager = new PolicyPackageAuthorizationManager(delegate);
+        requestStageTimers.ifAvailable(authorizationManager::setStageTimers);
+        return authorizationManager;
     }
 
     @Bean
@@ -251,7 +311,7 @@ public class RuntimeConfiguration {
         return new ComposableApplicationConfigurationRepository(composedConfigurationRepository);
     }
 
-    @Configuration
+    @Configuration(proxyBeanMethods = false)
     @ConditionalOnProperty("servicediscovery.enabled")
     static class ServiceDiscoveryConfiguration {
 
@@ -260,33 +320,30 @@ public class RuntimeConfiguration {
             return args -> serviceDiscovery.ifAvailable(ServiceDiscovery::discoverApis);
         }
 
-        @ConditionalOnCloudPlatform(CloudPlatform.KUBERNETES)
-        static class KubernetesServiceDiscoveryConfiguration {
-
-            @Bean
-            ServiceDiscovery serviceDiscovery(ServiceDiscoveryProperties properties, KubernetesClient kubernetesClient,
-                    ServiceCatalog serviceCatalog, Fabric8ServiceInstanceMapper instanceMapper) {
-                log.info("Enabled k8s service discovery (namespace:{})", properties.getNamespace());
-                return new KubernetesServiceDiscovery(kubernetesClient, properties.getNamespace(), properties.getResync(),
-                        serviceCatalog, serviceCatalog, instanceMapper);
-            }
-
+        @Bean
+        @ConfigurationProperties("servicediscovery.static")
+        StaticServiceDiscovery.StaticServiceDiscoveryProperties staticServiceDiscoveryProperties() {
+            return new StaticServiceDiscoveryProperties();
         }
 
-        @ConditionalOnMissingBean(ServiceDiscovery.class)
-        static class StaticServiceDiscoveryConfiguration {
-
-            @Bean
-            @ConfigurationProperties("servicediscovery.static")
-            StaticServiceDiscovery.StaticServiceDiscoveryProperties staticServiceDiscoveryProperties() {
-                return new StaticServiceDiscoveryProperties();
-            }
-
-            @Bean
-            ServiceDiscovery staticServiceDiscovery(StaticServiceDiscoveryProperties staticServiceDiscoveryProperties, ServiceCatalog serviceCatalog) {
-                return new StaticServiceDiscovery(staticServiceDiscoveryProperties, serviceCatalog);
+        /**
+         * Picks Kubernetes or static service discovery when the bean is created. This is not done with
+         * {@code @ConditionalOnCloudPlatform}, because Spring AOT processing would fix the outcome at build time.
+         * On Kubernetes, the {@link KubernetesClient} is required, like it was for the conditional configuration.
+         */
+        @Bean
+        ServiceDiscovery serviceDiscovery(Environment environment, ServiceCatalog serviceCatalog,
+                ObjectProvider<ServiceDiscoveryProperties> properties,
+                ObjectProvider<KubernetesClient> kubernetesClient,
+                ObjectProvider<Fabric8ServiceInstanceMapper> instanceMapper,
+                StaticServiceDiscoveryProperties staticServiceDiscoveryProperties) {
+            if (CloudPlatform.KUBERNETES.isActive(environment)) {
+                var discoveryProperties = properties.getObject();
+                log.info("Enabled k8s service discovery (namespace:{})", discoveryProperties.getNamespace());
+                return new KubernetesServiceDiscovery(kubernetesClient.getObject(), discoveryProperties.getNamespace(),
+                        discoveryProperties.getResync(), serviceCatalog, serviceCatalog, instanceMapper.getObject());
             }
-
+            return new StaticServiceDiscovery(staticServiceDiscoveryProperties, serviceCatalog);
         }
 
     }
@@ -3,7 +3,11 @@ package com.contentgrid.gateway.runtime.actuate;
 import com.contentgrid.configuration.applications.ApplicationConfiguration;
 import com.contentgrid.configuration.applications.ApplicationId;
 import com.contentgrid.gateway.runtime.actuate.ContentGridActuatorEndpoint.ApplicationsCollectionDescriptor.ApplicationConfigurationDescriptor;
+import com.contentgrid.gateway.runtime.concurrency.DeploymentConcurrencyLimiters;
+import com.contentgrid.gateway.runtime.concurrency.DeploymentConcurrencyLimiters.DeploymentConcurrencyState;
 import com.contentgrid.gateway.runtime.config.ApplicationConfigurationRepository;
+import com.contentgrid.gateway.runtime.traffic.ApplicationTrafficMetrics;
+import com.contentgrid.gateway.runtime.traffic.ApplicationTrafficMetrics.ApplicationTraffic;
 import com.contentgrid.gateway.security.oidc.ReactiveClientRegistrationIdResolver;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
@@ -11,6 +15,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.PropertyNamingStrategies;
 import com.fasterxml.jackson.databind.annotation.JsonNaming;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -22,7 +27,9 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.Value;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
 import org.springframework.boot.actuate.autoconfigure.endpoint.web.WebEndpointProperties;
 import org.springframework.boot.actuate.endpoint.OperationResponseBody;
 import org.springframework.boot.actuate.endpoint.web.Link;
@@ -41,6 +48,14 @@ import reactor.core.publisher.Mono;
 
 @RequiredArgsConstructor
 @RestControllerEndpoint(id = "contentgrid")
+@RegisterReflectionForBinding({
+        ContentGridActuatorEndpoint.ApplicationsCollectionDescriptor.class,
+        ApplicationConfigurationDescriptor.class,
+        ContentGridActuatorEndpoint.DeploymentsCollectionDescriptor.class,
+        ContentGridActuatorEndpoint.TrafficCollectionDescriptor.class,
+        ContentGridActuatorEndpoint.ApplicationDescriptor.class,
+        ContentGridActuatorEndpoint.ClientRegistrationDescriptor.class
+})
 public class ContentGridActuatorEndpoint {
 
     private final WebEndpointProperties endpointProperties;
@@ -54,14 +69,48 @@ public class ContentGridActuatorEndpoint {
     @NonNull
     private final ReactiveClientRegistrationRepository clientRegistrationRepository;
 
+    @Setter
+    @Nullable
+    private DeploymentConcurrencyLimiters deploymentConcurrencyLimiters;
+
+    @Setter
+    @Nullable
+    private ApplicationTrafficMetrics applicationTrafficMetrics;
 
     @ResponseBody
     @GetMapping(value = {"", "/"})
     public Map<String, Map<String, Link>> links() {
-        var links = Map.of("applications", new Link(this.getBasePath()));
+        var links = Map.of(
+                "applications", new Link(this.getBasePath()),
+                "deployments", new Link(endpointProperties.getBasePath() + "/contentgrid/deployments"),
+                "traffic", new Link(endpointProperties.getBasePath() + "/contentgrid/traffic")
+        );
         return OperationResponseBody.of(Collections.singletonMap("_links", links));
     }
 
+    /**
+     * Concurrency limiting state of the deployments that have received requests; empty when concurrency limiting is disabled
+     */
+    @GetMapping("/deployments")
+    public DeploymentsCollectionDescriptor listDeployments() {
+        if (this.deploymentConcurrencyLimiters == null) {
+            return new DeploymentsCollectionDescriptor(List.of());
+        }
+        return new DeploymentsCollectionDescriptor(this.deploymentConcurrencyLimiters.states()
+                .sorted(Comparator.comparing(DeploymentConcurrencyState::deploymentId))
+                .toList());
+    }
+
+    /**
+     * Applications with the most requests recently; empty when traffic metrics are disabled
+     */
+    @GetMapping("/traffic")
+    public TrafficCollectionDescriptor listTraffic() {
+        if (this.applicationTrafficMetrics == null) {
+            return new TrafficCollectionDescriptor(List.of());
+        }
+        return new TrafficCollectionDescriptor(this.applicationTrafficMetrics.top());
+    }
 
     @GetMapping("/applications")
     public ApplicationsCollectionDescriptor listApplications() {
@@ -215,6 +264,14 @@ public class ContentGridActuatorEndpoint {
         }
     }
 
+    record DeploymentsCollectionDescriptor(List<DeploymentConcurrencyState> deployments) implements OperationResponseBody {
+
+    }
+
+    record TrafficCollectionDescriptor(List<ApplicationTraffic> applications) implements OperationResponseBody {
+
+    }
+
     @Value
     static class ApplicationDescriptor implements OperationResponseBody {
 
@@ -6,7 +6,9 @@ import com.contentgrid.configuration.applications.ApplicationId;
 import com.contentgrid.gateway.runtime.servicediscovery.ServiceAddedHandler;
 import com.contentgrid.gateway.runtime.servicediscovery.ServiceDeletedHandler;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import lombok.NonNull;
@@ -26,6 +28,9 @@ public class ServiceCatalog implements
     @NonNull
     private final Lookup<DeploymentId, ServiceInstance> lookupByDeploymentId;
 
+    private final List<ServiceAddedHandler> serviceAddedHandlers = new CopyOnWriteArrayList<>();
+    private final List<ServiceDeletedHandler> serviceDeletedHandlers = new CopyOnWriteArrayList<>();
+
     public ServiceCatalog(@NonNull ContentGridDeploymentMetadata deploymentMetadata) {
         this.deploymentMetadata = deploymentMetadata;
 
@@ -37,14 +42,30 @@ public class ServiceCatalog implements
 
     }
 
+    /**
+     * Registers a handler that is notified after a service has been added to the catalog, or has been updated
+     */
+    public void addServiceAddedHandler(@NonNull ServiceAddedHandler handler) {
+        this.serviceAddedHandlers.add(handler);
+    }
+
+    /**
+     * Registers a handler that is notified after a service has been removed from the catalog
+     */
+    public void addServiceDeletedHandler(@NonNull ServiceDeletedHandler handler) {
+        this.serviceDeletedHandlers.add(handler);
+    }
+
     @Override
     public void handleServiceAdded(ServiceInstance service) {
         servicesLookup.add(service);
+        serviceAddedHandlers.forEach(handler -> handler.handleServiceAdded(service));
     }
 
     @Override
     public void handleServiceDeleted(ServiceInstance service) {
         servicesLookup.remove(service.getInstanceId());
+        serviceDeletedHandlers.forEach(handler -> handler.handleServiceDeleted(service));
     }
 
     public Stream<ServiceInstance> services() {
@@ -60,6 +81,13 @@ public class ServiceCatalog implements
         return services;
     }
 
+    /**
+     * @return all instances of the deployment; normally a single one
+     */
+    public Collection<ServiceInstance> findAllByDeploymentId(@NonNull DeploymentId deploymentId) {
+        return this.lookupByDeploymentId.get(deploymentId);
+    }
+
     public Optional<ServiceInstance> findByDeploymentId(@NonNull DeploymentId deploymentId) {
         var services = this.lookupByDeploymentId.get(deploymentId);
         if (services.size() > 1) {
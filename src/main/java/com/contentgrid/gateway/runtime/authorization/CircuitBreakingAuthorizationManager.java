@@ -0,0 +1,37 @@
+package com.contentgrid.gateway.runtime.authorization;
+
+import com.contentgrid.gateway.resilience.CallNotPermittedException;
+import com.contentgrid.gateway.resilience.CircuitBreaker;
+import java.util.concurrent.TimeoutException;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.ReactiveAuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.server.authorization.AuthorizationContext;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+/**
+ * Guards the policy decision point with a {@link CircuitBreaker}: while it is unhealthy, requests fail immediately
+ * with {@code 503 Service Unavailable} instead of waiting for a call that will fail anyway. Access denied decisions
+ * are normal answers and do not count as a failure.
+ */
+@RequiredArgsConstructor
+public class CircuitBreakingAuthorizationManager implements ReactiveAuthorizationManager<AuthorizationContext> {
+
+    @NonNull
+    private final ReactiveAuthorizationManager<AuthorizationContext> delegate;
+
+    @NonNull
+    private final CircuitBreaker circuitBreaker;
+
+    @Override
+    public Mono<AuthorizationDecision> check(Mono<Authentication> authentication, AuthorizationContext context) {
+        return this.circuitBreaker.run(this.delegate.check(authentication, context))
+                .onErrorMap(error -> error instanceof CallNotPermittedException || error instanceof TimeoutException,
+                        error -> new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                                "Policy decision point is unavailable", error));
+    }
+}
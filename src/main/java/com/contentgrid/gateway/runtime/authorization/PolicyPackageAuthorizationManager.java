@@ -1,14 +1,24 @@
 package com.contentgrid.gateway.runtime.authorization;
 
+import static com.contentgrid.gateway.accesslog.AccessLogWebFilter.AUTHENTICATION_KIND_ATTR;
+import static com.contentgrid.gateway.accesslog.AccessLogWebFilter.AUTHORIZATION_OUTCOME_ATTR;
+import static com.contentgrid.gateway.runtime.web.ContentGridAppRequestWebFilter.CONTENTGRID_POLICY_PACKAGE_ATTR;
 import static com.contentgrid.gateway.runtime.web.ContentGridAppRequestWebFilter.isMigratedApplication;
 
+import com.contentgrid.gateway.accesslog.AccessLogWebFilter;
+import com.contentgrid.gateway.observability.RequestStageTimers;
+import com.contentgrid.gateway.observability.RequestStageTimers.Stage;
+import com.contentgrid.gateway.observability.jfr.OpaDecisionEvent;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
 import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.authorization.ReactiveAuthorizationManager;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.web.server.authorization.AuthorizationContext;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
 /**
@@ -24,13 +34,53 @@ public class PolicyPackageAuthorizationManager implements ReactiveAuthorizationM
     @NonNull
     private final ReactiveAuthorizationManager<AuthorizationContext> delegate;
 
+    @Setter
+    @Nullable
+    private RequestStageTimers stageTimers;
+
     @Override
     public Mono<AuthorizationDecision> check(Mono<Authentication> authentication, AuthorizationContext context) {
         var exchange = context.getExchange();
+        // the authentication is already resolved by the time authorization runs, looking at it is cheap
+        var recordedAuthentication = authentication.doOnNext(auth -> exchange.getAttributes()
+                .put(AUTHENTICATION_KIND_ATTR, AccessLogWebFilter.authenticationKind(auth)));
         if (isMigratedApplication(exchange)) {
             log.debug("No policy package for '{}': skipping OPA", exchange.getRequest().getURI().getHost());
-            return Mono.just(new AuthorizationDecision(true));
+            exchange.getAttributes().put(AUTHORIZATION_OUTCOME_ATTR, "skipped");
+            return recordedAuthentication.thenReturn(new AuthorizationDecision(true));
+        }
+        var decision = recordEvent(exchange, delegate.check(recordedAuthentication, context))
+                .doOnNext(result -> exchange.getAttributes()
+                        .put(AUTHORIZATION_OUTCOME_ATTR, result.isGranted() ? "granted" : "denied"))
+                .doOnError(error -> exchange.getAttributes().put(AUTHORIZATION_OUTCOME_ATTR, "error"));
+        if (this.stageTimers == null) {
+            return decision;
+        }
+        return this.stageTimers.time(Stage.AUTHORIZATION, exchange, decision,
+                result -> result.isGranted() ? "granted" : "denied");
+    }
+
+    private static Mono<AuthorizationDecision> recordEvent(ServerWebExchange exchange,
+            Mono<AuthorizationDecision> decision) {
+        return Mono.defer(() -> {
+            var event = new OpaDecisionEvent();
+            if (!event.isEnabled()) {
+                return decision;
+            }
+            event.begin();
+            return decision
+                    .doOnSuccess(result -> commit(event, exchange,
+                            result == null ? "empty" : result.isGranted() ? "granted" : "denied"))
+                    .doOnError(error -> commit(event, exchange, "error"));
+        });
+    }
+
+    private static void commit(OpaDecisionEvent event, ServerWebExchange exchange, String outcome) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.setPolicyPackage(exchange.getAttribute(CONTENTGRID_POLICY_PACKAGE_ATTR));
+            event.setOutcome(outcome);
+            event.commit();
         }
-        return delegate.check(authentication, context);
     }
 }
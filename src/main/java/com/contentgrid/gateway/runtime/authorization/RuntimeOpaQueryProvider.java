@@ -2,6 +2,7 @@ package com.contentgrid.gateway.runtime.authorization;
 
 import static com.contentgrid.gateway.runtime.web.ContentGridAppRequestWebFilter.CONTENTGRID_DEPLOY_ID_ATTR;
 
+import com.contentgrid.gateway.observability.jfr.OpaQueryEvent;
 import com.contentgrid.gateway.runtime.application.ContentGridDeploymentMetadata;
 import com.contentgrid.gateway.runtime.application.DeploymentId;
 import com.contentgrid.gateway.runtime.application.ServiceCatalog;
@@ -23,15 +24,25 @@ public class RuntimeOpaQueryProvider implements OpaQueryProvider<ServerWebExchan
 
     @Override
     public String createQuery(ServerWebExchange requestContext) {
+        var event = new OpaQueryEvent();
+        event.begin();
 
-        return RuntimeOpaQueryProvider.getDeploymentIdFromExchange(requestContext)
+        var policyPackage = RuntimeOpaQueryProvider.getDeploymentIdFromExchange(requestContext)
                 .flatMap(serviceCatalog::findByDeploymentId)
-                .flatMap(deploymentMetadata::getPolicyPackage)
-                .map("data.%s.allow == true"::formatted)
-                .orElseGet(() -> {
-                    log.warn("No policy found for request to '{}'", requestContext.getRequest().getURI().getHost());
-                    return NO_MATCH_QUERY;
-                });
+                .flatMap(deploymentMetadata::getPolicyPackage);
+        if (policyPackage.isEmpty()) {
+            log.warn("No policy found for request to '{}'", requestContext.getRequest().getURI().getHost());
+            event.commit();
+            return NO_MATCH_QUERY;
+        }
+
+        var query = "data.%s.allow == true".formatted(policyPackage.get());
+
+        if (event.shouldCommit()) {
+            event.setPolicyPackage(policyPackage.get());
+            event.commit();
+        }
+        return query;
     }
 
     // Eventually this should use RequestDeploymentIdResolver, but this will return a Mono<DeploymentId>
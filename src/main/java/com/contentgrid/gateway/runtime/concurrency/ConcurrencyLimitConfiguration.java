@@ -0,0 +1,24 @@
+package com.contentgrid.gateway.runtime.concurrency;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty({"contentgrid.gateway.runtime-platform.enabled", "contentgrid.gateway.runtime-platform.concurrency-limit.enabled"})
+@EnableConfigurationProperties(ConcurrencyLimitProperties.class)
+public class ConcurrencyLimitConfiguration {
+
+    @Bean
+    DeploymentConcurrencyLimiters deploymentConcurrencyLimiters(ConcurrencyLimitProperties properties,
+            MeterRegistry meterRegistry) {
+        return new DeploymentConcurrencyLimiters(properties, meterRegistry);
+    }
+
+    @Bean
+    ConcurrencyLimitGatewayFilter concurrencyLimitGatewayFilter(DeploymentConcurrencyLimiters limiters) {
+        return new ConcurrencyLimitGatewayFilter(limiters);
+    }
+}
@@ -0,0 +1,88 @@
+package com.contentgrid.gateway.runtime.concurrency;
+
+import static com.contentgrid.gateway.runtime.web.ContentGridAppRequestWebFilter.CONTENTGRID_DEPLOY_ID_ATTR;
+import static org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+
+import com.contentgrid.gateway.runtime.application.DeploymentId;
+import com.contentgrid.gateway.runtime.routing.RuntimeDeploymentGatewayFilter;
+import com.contentgrid.gateway.runtime.streaming.StreamType;
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+/**
+ * Limits the number of concurrent requests to every ContentGrid deployment with an adaptive
+ * {@link GradientConcurrencyLimit}.
+ * <p>
+ * Requests above the limit are answered immediately with HTTP 503, instead of queueing up in the gateway until the
+ * upstream connection times out. Runs just before {@link RuntimeDeploymentGatewayFilter} resolves the upstream URI.
+ * <p>
+ * Long-lived {@link StreamType streams} are capped separately: an admitted WebSocket is not limited, and an event
+ * stream gives up its place under the limit as soon as the upstream starts responding, instead of holding on to it
+ * for minutes.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class ConcurrencyLimitGatewayFilter implements GlobalFilter, Ordered {
+
+    @NonNull
+    private final DeploymentConcurrencyLimiters limiters;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        URI routedUri = exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR);
+        DeploymentId deploymentId = exchange.getAttribute(CONTENTGRID_DEPLOY_ID_ATTR);
+        if (routedUri == null || !"cg".equals(routedUri.getScheme()) || deploymentId == null
+                || StreamType.of(exchange) == StreamType.WEBSOCKET) {
+            return chain.filter(exchange);
+        }
+
+        var start = System.nanoTime();
+        var limit = this.limiters.get(deploymentId, start);
+        if (!limit.tryAcquire(start)) {
+            log.debug("Concurrency limit of {} reached for deployment {}, rejecting {} {}", limit.getLimit(),
+                    deploymentId, exchange.getRequest().getMethod(), exchange.getRequest().getURI());
+            exchange.getResponse().setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            return exchange.getResponse().setComplete();
+        }
+
+        // The response time is measured until the upstream starts responding, not until the body is fully transferred
+        var sampled = new AtomicBoolean();
+        var released = new AtomicBoolean();
+        exchange.getResponse().beforeCommit(() -> {
+            if (sampled.compareAndSet(false, true)) {
+                limit.onSample(System.nanoTime() - start, false);
+            }
+            if (StreamType.of(exchange) != null && released.compareAndSet(false, true)) {
+                // an admitted event stream is capped with the other streams from now on
+                limit.release();
+            }
+            return Mono.empty();
+        });
+
+        return chain.filter(exchange)
+                .doFinally(signal -> {
+                    if (signal == SignalType.ON_ERROR && sampled.compareAndSet(false, true)) {
+                        limit.onSample(System.nanoTime() - start, true);
+                    }
+                    if (released.compareAndSet(false, true)) {
+                        limit.release();
+                    }
+                });
+    }
+
+    @Override
+    public int getOrder() {
+        return LOAD_BALANCER_CLIENT_FILTER_ORDER - 1;
+    }
+}
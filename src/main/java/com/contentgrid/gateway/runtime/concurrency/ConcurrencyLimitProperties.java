@@ -0,0 +1,52 @@
+package com.contentgrid.gateway.runtime.concurrency;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties("contentgrid.gateway.runtime-platform.concurrency-limit")
+public class ConcurrencyLimitProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * Concurrency limit of a deployment before any response time has been observed
+     */
+    private int initialLimit = 20;
+
+    /**
+     * The limit never drops below this number of concurrent requests
+     */
+    private int minLimit = 5;
+
+    /**
+     * The limit never grows above this number of concurrent requests
+     */
+    private int maxLimit = 500;
+
+    /**
+     * How much the long-term response time may be exceeded before the limit is lowered
+     */
+    private double rttTolerance = 1.5;
+
+    /**
+     * Weight of a new limit estimate; lower values make the limit change more slowly
+     */
+    private double smoothing = 0.2;
+
+    /**
+     * Number of samples over which the long-term response time is averaged
+     */
+    private int longWindow = 600;
+
+    /**
+     * Multiplier applied to the limit when a request to the deployment fails
+     */
+    private double backoffRatio = 0.9;
+
+    /**
+     * State for deployments that have not received requests for this long is removed
+     */
+    private Duration idleTimeout = Duration.ofMinutes(10);
+}
@@ -0,0 +1,104 @@
+package com.contentgrid.gateway.runtime.concurrency;
+
+import com.contentgrid.gateway.runtime.application.DeploymentId;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps a {@link GradientConcurrencyLimit} for every upstream {@link DeploymentId}.
+ * <p>
+ * Limits of deployments that have not been used for the idle timeout are removed, together with their metrics.
+ */
+@Slf4j
+public class DeploymentConcurrencyLimiters {
+
+    private static final String METRIC_PREFIX = "contentgrid.gateway.concurrency.";
+
+    private final ConcurrencyLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final long idleTimeoutNanos;
+
+    private final Map<DeploymentId, Entry> limits = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweep = new AtomicLong(Long.MIN_VALUE);
+
+    public DeploymentConcurrencyLimiters(@NonNull ConcurrencyLimitProperties properties,
+            @NonNull MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.idleTimeoutNanos = properties.getIdleTimeout().toNanos();
+    }
+
+    public GradientConcurrencyLimit get(@NonNull DeploymentId deploymentId, long nowNanos) {
+        this.sweepIfDue(nowNanos);
+        var entry = this.limits.get(deploymentId);
+        if (entry == null) {
+            entry = this.limits.computeIfAbsent(deploymentId, id -> this.createEntry(id, nowNanos));
+        }
+        return entry.limit();
+    }
+
+    /**
+     * @return the current state of all deployment limits
+     */
+    public Stream<DeploymentConcurrencyState> states() {
+        return this.limits.entrySet().stream()
+                .map(entry -> new DeploymentConcurrencyState(
+                        entry.getKey().getValue(),
+                        entry.getValue().limit().getLimit(),
+                        entry.getValue().limit().getInFlight(),
+                        entry.getValue().limit().getShed()
+                ));
+    }
+
+    private Entry createEntry(DeploymentId deploymentId, long nowNanos) {
+        var limit = new GradientConcurrencyLimit(this.properties, nowNanos);
+        var tag = deploymentId.getValue();
+        var meters = List.<Meter>of(
+                Gauge.builder(METRIC_PREFIX + "limit", limit, GradientConcurrencyLimit::getLimit)
+                        .description("Current concurrency limit of a deployment")
+                        .tag("deployment", tag)
+                        .register(this.meterRegistry),
+                Gauge.builder(METRIC_PREFIX + "in-flight", limit, GradientConcurrencyLimit::getInFlight)
+                        .description("Requests that are currently in progress for a deployment")
+                        .tag("deployment", tag)
+                        .register(this.meterRegistry),
+                FunctionCounter.builder(METRIC_PREFIX + "shed", limit, GradientConcurrencyLimit::getShed)
+                        .description("Requests rejected because the concurrency limit of a deployment was reached")
+                        .tag("deployment", tag)
+                        .register(this.meterRegistry)
+        );
+        return new Entry(limit, meters);
+    }
+
+    private void sweepIfDue(long nowNanos) {
+        var due = this.nextSweep.get();
+        if (nowNanos < due || !this.nextSweep.compareAndSet(due, nowNanos + this.idleTimeoutNanos)) {
+            return;
+        }
+        this.limits.entrySet().removeIf(entry -> {
+            if (entry.getValue().limit().isIdle(nowNanos, this.idleTimeoutNanos)) {
+                log.debug("Removing concurrency limit of idle deployment {}", entry.getKey());
+                entry.getValue().meters().forEach(this.meterRegistry::remove);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private record Entry(GradientConcurrencyLimit limit, List<Meter> meters) {
+
+    }
+
+    public record DeploymentConcurrencyState(String deploymentId, int limit, int inFlight, long shed) {
+
+    }
+}
@@ -0,0 +1,117 @@
+package com.contentgrid.gateway.runtime.concurrency;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.NonNull;
+
+/**
+ * Adaptive concurrency limit for a single upstream deployment.
+ * <p>
+ * The limit follows the gradient between the long-term average response time and the latest response time: when
+ * responses get slower than usual, requests are queueing up in the deployment and the limit shrinks; as long as
+ * response times stay level, the limit keeps growing by a small queue allowance (the square root of the limit).
+ * Failed requests reduce the limit multiplicatively.
+ */
+public class GradientConcurrencyLimit {
+
+    private final ConcurrencyLimitProperties properties;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong shed = new AtomicLong();
+    private volatile double estimatedLimit;
+    private volatile long lastUsedNanos;
+
+    // guarded by this
+    private double longRttNanos;
+    private int samples;
+
+    GradientConcurrencyLimit(@NonNull ConcurrencyLimitProperties properties, long nowNanos) {
+        this.properties = properties;
+        this.estimatedLimit = properties.getInitialLimit();
+        this.lastUsedNanos = nowNanos;
+    }
+
+    /**
+     * Reserves a slot for a request
+     *
+     * @return whether the request is admitted; an admitted request must be {@link #release() released}
+     */
+    public boolean tryAcquire(long nowNanos) {
+        this.lastUsedNanos = nowNanos;
+        var limit = this.getLimit();
+        while (true) {
+            var current = this.inFlight.get();
+            if (current >= limit) {
+                this.shed.incrementAndGet();
+                return false;
+            }
+            if (this.inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release() {
+        this.inFlight.decrementAndGet();
+    }
+
+    /**
+     * Updates the limit with the response time of a request
+     *
+     * @param rttNanos time until the deployment started responding
+     * @param didDrop whether the request failed without a response
+     */
+    public synchronized void onSample(long rttNanos, boolean didDrop) {
+        var limit = this.estimatedLimit;
+
+        if (didDrop) {
+            this.estimatedLimit = clamp(limit * this.properties.getBackoffRatio());
+            return;
+        }
+
+        var shortRtt = (double) Math.max(1L, rttNanos);
+        if (this.samples < this.properties.getLongWindow()) {
+            // Plain average while warming up, so the first samples don't dominate
+            this.samples++;
+            this.longRttNanos += (shortRtt - this.longRttNanos) / this.samples;
+        } else {
+            var factor = 2d / (this.properties.getLongWindow() + 1);
+            this.longRttNanos = this.longRttNanos * (1 - factor) + shortRtt * factor;
+        }
+
+        // When response times have dropped a lot, the long-term average lags behind; let it catch up faster
+        if (this.longRttNanos / shortRtt > 2) {
+            this.longRttNanos *= 0.95;
+        }
+
+        // Only grow the limit when it is actually being used
+        if (this.inFlight.get() < limit / 2) {
+            return;
+        }
+
+        var gradient = Math.max(0.5, Math.min(1.0, this.properties.getRttTolerance() * this.longRttNanos / shortRtt));
+        var newLimit = limit * gradient + Math.sqrt(limit);
+        var smoothing = this.properties.getSmoothing();
+        this.estimatedLimit = clamp(limit * (1 - smoothing) + newLimit * smoothing);
+    }
+
+    private double clamp(double limit) {
+        return Math.max(this.properties.getMinLimit(), Math.min(this.properties.getMaxLimit(), limit));
+    }
+
+    public int getLimit() {
+        return (int) this.estimatedLimit;
+    }
+
+    public int getInFlight() {
+        return this.inFlight.get();
+    }
+
+    public long getShed() {
+        return this.shed.get();
+    }
+
+    boolean isIdle(long nowNanos, long idleTimeoutNanos) {
+        return this.inFlight.get() == 0 && nowNanos - this.lastUsedNanos >= idleTimeoutNanos;
+    }
+}
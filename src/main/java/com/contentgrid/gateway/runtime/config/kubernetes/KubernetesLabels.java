@@ -9,5 +9,6 @@ public class KubernetesLabels {
     public static final String CONTENTGRID_APPID = "app.contentgrid.com/application-id";
     public static final String CONTENTGRID_DEPLOYID = "app.contentgrid.com/deployment-id";
     public static final String CONTENTGRID_POLICYPACKAGE = "authz.contentgrid.com/policy-package";
+    public static final String CONTENTGRID_UPSTREAM_PROTOCOL = "app.contentgrid.com/upstream-protocol";
 
 }
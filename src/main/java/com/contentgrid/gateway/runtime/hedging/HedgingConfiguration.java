@@ -0,0 +1,32 @@
+package com.contentgrid.gateway.runtime.hedging;
+
+import com.contentgrid.gateway.runtime.upstream.DeploymentConnectionPools;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.http.client.HttpClient;
+
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty({"contentgrid.gateway.runtime-platform.enabled", "contentgrid.gateway.runtime-platform.hedging.enabled"})
+@EnableConfigurationProperties(HedgingProperties.class)
+public class HedgingConfiguration {
+
+    @Bean
+    HedgingGatewayFilter hedgingGatewayFilter(
+            HttpClient httpClient,
+            ObjectProvider<List<HttpHeadersFilter>> headersFilters,
+            HttpClientProperties httpClientProperties,
+            ObjectProvider<DeploymentConnectionPools> connectionPools,
+            HedgingProperties properties,
+            MeterRegistry meterRegistry
+    ) {
+        return new HedgingGatewayFilter(httpClient, headersFilters, httpClientProperties,
+                connectionPools.getIfAvailable(), properties, meterRegistry);
+    }
+}
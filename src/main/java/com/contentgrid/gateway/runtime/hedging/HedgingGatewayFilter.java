@@ -0,0 +1,397 @@
+package com.contentgrid.gateway.runtime.hedging;
+
+import static com.contentgrid.gateway.runtime.web.ContentGridAppRequestWebFilter.CONTENTGRID_APP_ID_ATTR;
+import static com.contentgrid.gateway.runtime.web.ContentGridAppRequestWebFilter.CONTENTGRID_DEPLOY_ID_ATTR;
+import static com.contentgrid.gateway.runtime.web.ContentGridAppRequestWebFilter.CONTENTGRID_SERVICE_INSTANCE_ATTR;
+import static org.springframework.cloud.gateway.support.RouteMetadataUtils.CONNECT_TIMEOUT_ATTR;
+import static org.springframework.cloud.gateway.support.RouteMetadataUtils.RESPONSE_TIMEOUT_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.CLIENT_RESPONSE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.CLIENT_RESPONSE_HEADER_NAMES;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.ORIGINAL_RESPONSE_CONTENT_TYPE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.PRESERVE_HOST_HEADER_ATTRIBUTE;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.isAlreadyRouted;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.setAlreadyRouted;
+
+import com.contentgrid.configuration.applications.ApplicationId;
+import com.contentgrid.gateway.runtime.application.DeploymentId;
+import com.contentgrid.gateway.runtime.upstream.DeploymentConnectionPools;
+import com.contentgrid.gateway.runtime.upstream.DeploymentRoutingFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ChannelOption;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter.Type;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.client.HttpClientResponse;
+
+/**
+ * Hedges idempotent requests to ContentGrid deployments.
+ * <p>
+ * A {@code GET} or {@code HEAD} request without a body is sent to the selected instance first. When it has not
+ * started responding after the configured percentile of recent response times, the same request is sent again, and
+ * whichever responds first is used. A request that fails leaves the outcome to the other one. The connection of the
+ * response that lost is closed, and a request that has not responded yet is cancelled.
+ * <p>
+ * A service instance of the catalog is the Kubernetes Service of a deployment, not one of its pods. The hedged request
+ * goes to the same Service, over another connection of the pool: the connection of the first request is still in use,
+ * so the pool hands out an idle connection or opens a new one. Kubernetes balances every connection over the pods on
+ * its own, so the hedged request usually reaches another pod than the slow one, without the gateway knowing the pods.
+ * <p>
+ * Because both requests go to the same deployment, both are sent with the headers that the route filters produced:
+ * the minted JWT has the deployment as audience, and the ABAC context comes from the policy of the deployment. Hedged
+ * requests are paid for from a {@link RetryBudget} per application, so they never add more than a fixed fraction of
+ * extra load, also while the application is down.
+ * <p>
+ * Runs just before {@link NettyRoutingFilter}, and takes over its job for the requests that it hedges. Like the
+ * routing filters, it uses the connection pool of the deployment when there is one, and honors the connect and
+ * response timeouts in the route metadata.
+ */
+@Slf4j
+public class HedgingGatewayFilter implements GlobalFilter, Ordered {
+
+    /**
+     * Route metadata key to opt in a route for hedging
+     */
+    public static final String HEDGING_METADATA = "hedging";
+
+    private static final String METRIC_PREFIX = "contentgrid.gateway.hedging.";
+
+    private final HttpClient httpClient;
+    private final ObjectProvider<List<HttpHeadersFilter>> headersFiltersProvider;
+    private final HttpClientProperties httpClientProperties;
+    @Nullable
+    private final DeploymentConnectionPools connectionPools;
+    private final HedgingProperties properties;
+
+    private final Map<ApplicationId, ApplicationHedging> applications = new ConcurrentHashMap<>();
+
+    private final Counter hedgesSent;
+    private final Counter hedgesBudgetExhausted;
+    private final Counter primaryWins;
+    private final Counter hedgeWins;
+
+    private volatile List<HttpHeadersFilter> headersFilters;
+
+    public HedgingGatewayFilter(
+            @NonNull HttpClient httpClient,
+            @NonNull ObjectProvider<List<HttpHeadersFilter>> headersFiltersProvider,
+            @NonNull HttpClientProperties httpClientProperties,
+            @Nullable DeploymentConnectionPools connectionPools,
+            @NonNull HedgingProperties properties,
+            @NonNull MeterRegistry meterRegistry
+    ) {
+        this.httpClient = httpClient;
+        this.headersFiltersProvider = headersFiltersProvider;
+        this.httpClientProperties = httpClientProperties;
+        this.connectionPools = connectionPools;
+        this.properties = properties;
+
+        this.hedgesSent = Counter.builder(METRIC_PREFIX + "hedges")
+                .description("Hedged requests")
+                .tag("outcome", "sent")
+                .register(meterRegistry);
+        this.hedgesBudgetExhausted = Counter.builder(METRIC_PREFIX + "hedges")
+                .description("Hedged requests")
+                .tag("outcome", "budget-exhausted")
+                .register(meterRegistry);
+        this.primaryWins = Counter.builder(METRIC_PREFIX + "responses")
+                .description("Responses of hedgeable requests, by the request that responded first")
+                .tag("request", "primary")
+                .register(meterRegistry);
+        this.hedgeWins = Counter.builder(METRIC_PREFIX + "responses")
+                .description("Responses of hedgeable requests, by the request that responded first")
+                .tag("request", "hedge")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        URI requestUrl = exchange.getAttribute(GATEWAY_REQUEST_URL_ATTR);
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        ApplicationId applicationId = exchange.getAttribute(CONTENTGRID_APP_ID_ATTR);
+        DeploymentId deploymentId = exchange.getAttribute(CONTENTGRID_DEPLOY_ID_ATTR);
+        ServiceInstance primary = exchange.getAttribute(CONTENTGRID_SERVICE_INSTANCE_ATTR);
+        if (isAlreadyRouted(exchange) || requestUrl == null || route == null || applicationId == null
+                || deploymentId == null || primary == null
+                || !("http".equals(requestUrl.getScheme()) || "https".equals(requestUrl.getScheme()))
+                || !isHedgeable(exchange.getRequest()) || !this.isOptedIn(route, applicationId)) {
+            return chain.filter(exchange);
+        }
+
+        var application = this.applications.computeIfAbsent(applicationId,
+                id -> new ApplicationHedging(this.properties));
+        application.budget().deposit();
+
+        setAlreadyRouted(exchange);
+        var headers = this.requestHeaders(exchange);
+        var race = new Race();
+        var start = System.nanoTime();
+
+        var primaryError = new AtomicReference<Throwable>();
+        Mono<Attempt> attempt = this.send(exchange, route, deploymentId, primary, requestUrl, headers, race, false)
+                .doOnError(primaryError::set);
+        var delay = application.delay(this.properties);
+        if (delay != null) {
+            var hedge = Mono.delay(delay).flatMap(tick -> {
+                if (!application.budget().tryWithdraw()) {
+                    this.hedgesBudgetExhausted.increment();
+                    return Mono.<Attempt>empty();
+                }
+                this.hedgesSent.increment();
+                log.debug("Hedging {} {} after {}", exchange.getRequest().getMethod(),
+                        exchange.getRequest().getURI(), delay);
+                return this.send(exchange, route, deploymentId, primary, requestUrl, headers, race, true)
+                        .doOnError(error -> log.debug("Hedged request to {} failed: {}", requestUrl.getHost(),
+                                error.getMessage()));
+            });
+            // The first response wins; when both requests fail, or the hedge is not sent, the error of the primary
+            // request is reported
+            attempt = Mono.firstWithValue(attempt, hedge)
+                    .onErrorMap(NoSuchElementException.class,
+                            error -> primaryError.get() != null ? primaryError.get() : error);
+        }
+
+        var responseTimeout = this.getResponseTimeout(route);
+        if (responseTimeout != null) {
+            attempt = attempt.timeout(responseTimeout, Mono.error(new TimeoutException(
+                    "Response took longer than timeout: " + responseTimeout)));
+        }
+
+        return attempt
+                .doOnNext(winner -> {
+                    race.handOver();
+                    application.latencies().record(System.nanoTime() - start);
+                    (winner.hedge() ? this.hedgeWins : this.primaryWins).increment();
+                    this.applyResponse(exchange, winner);
+                })
+                .doFinally(signal -> race.close())
+                .onErrorMap(TimeoutException.class,
+                        error -> new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, error.getMessage(), error))
+                .then(chain.filter(exchange));
+    }
+
+    private static boolean isHedgeable(ServerHttpRequest request) {
+        var method = request.getMethod();
+        var headers = request.getHeaders();
+        return (HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method))
+                && headers.getContentLength() <= 0
+                && !headers.containsKey(HttpHeaders.TRANSFER_ENCODING)
+                && !headers.containsKey(HttpHeaders.UPGRADE);
+    }
+
+    private boolean isOptedIn(Route route, ApplicationId applicationId) {
+        if (Boolean.parseBoolean(String.valueOf(route.getMetadata().get(HEDGING_METADATA)))) {
+            return true;
+        }
+        return this.properties.getApplications().contains(applicationId.getValue());
+    }
+
+    private DefaultHttpHeaders requestHeaders(ServerWebExchange exchange) {
+        var filtered = HttpHeadersFilter.filterRequest(this.getHeadersFilters(), exchange);
+        var httpHeaders = new DefaultHttpHeaders();
+        filtered.forEach(httpHeaders::set);
+
+        // Will either be set below, or later by Netty
+        httpHeaders.remove(HttpHeaders.HOST);
+        if (exchange.getAttributeOrDefault(PRESERVE_HOST_HEADER_ATTRIBUTE, false)) {
+            var host = exchange.getRequest().getHeaders().getFirst(HttpHeaders.HOST);
+            if (host != null) {
+                httpHeaders.set(HttpHeaders.HOST, host);
+            }
+        }
+        return httpHeaders;
+    }
+
+    private Mono<Attempt> send(ServerWebExchange exchange, Route route, DeploymentId deploymentId,
+            ServiceInstance instance, URI url, DefaultHttpHeaders headers, Race race, boolean hedge) {
+        var method = io.netty.handler.codec.http.HttpMethod.valueOf(exchange.getRequest().getMethod().name());
+        return this.getHttpClient(route, deploymentId, instance)
+                .headers(h -> h.add(headers))
+                .request(method)
+                .uri(url)
+                .responseConnection((response, connection) -> race.claim(new Attempt(response, connection, hedge)))
+                .next();
+    }
+
+    /**
+     * The same client as {@link DeploymentRoutingFilter} or {@link NettyRoutingFilter} would use for the request
+     */
+    private HttpClient getHttpClient(Route route, DeploymentId deploymentId, ServiceInstance instance) {
+        var client = this.connectionPools != null
+                ? this.connectionPools.getHttpClient(deploymentId, instance)
+                : this.httpClient;
+        var connectTimeout = route.getMetadata().get(CONNECT_TIMEOUT_ATTR);
+        if (connectTimeout != null) {
+            client = client.option(ChannelOption.CONNECT_TIMEOUT_MILLIS,
+                    connectTimeout instanceof Integer timeout ? timeout : Integer.parseInt(connectTimeout.toString()));
+        }
+        return client;
+    }
+
+    /**
+     * The response timeout of the route, like {@link NettyRoutingFilter} determines it: a negative timeout in the
+     * route metadata disables the gateway-wide one
+     */
+    @Nullable
+    private Duration getResponseTimeout(Route route) {
+        var routeTimeout = route.getMetadata().get(RESPONSE_TIMEOUT_ATTR);
+        if (routeTimeout == null) {
+            return this.httpClientProperties.getResponseTimeout();
+        }
+        var millis = routeTimeout instanceof Number number
+                ? number.longValue()
+                : Long.parseLong(routeTimeout.toString());
+        return millis < 0 ? null : Duration.ofMillis(millis);
+    }
+
+    private void applyResponse(ServerWebExchange exchange, Attempt winner) {
+        var response = exchange.getResponse();
+        var clientResponse = winner.response();
+
+        var headers = new HttpHeaders();
+        clientResponse.responseHeaders().forEach(entry -> headers.add(entry.getKey(), entry.getValue()));
+        var contentType = headers.getFirst(HttpHeaders.CONTENT_TYPE);
+        if (StringUtils.hasLength(contentType)) {
+            exchange.getAttributes().put(ORIGINAL_RESPONSE_CONTENT_TYPE_ATTR, contentType);
+        }
+
+        response.setStatusCode(HttpStatusCode.valueOf(clientResponse.status().code()));
+
+        var filtered = HttpHeadersFilter.filter(this.getHeadersFilters(), headers, exchange, Type.RESPONSE);
+        if (!filtered.containsKey(HttpHeaders.TRANSFER_ENCODING) && filtered.containsKey(HttpHeaders.CONTENT_LENGTH)) {
+            // content-length and transfer-encoding are mutually exclusive
+            response.getHeaders().remove(HttpHeaders.TRANSFER_ENCODING);
+        }
+        exchange.getAttributes().put(CLIENT_RESPONSE_HEADER_NAMES, filtered.keySet());
+        response.getHeaders().addAll(filtered);
+
+        // NettyWriteResponseFilter streams the response body from this connection
+        exchange.getAttributes().put(CLIENT_RESPONSE_ATTR, clientResponse);
+        exchange.getAttributes().put(CLIENT_RESPONSE_CONN_ATTR, winner.connection());
+    }
+
+    private List<HttpHeadersFilter> getHeadersFilters() {
+        if (this.headersFilters == null) {
+            this.headersFilters = this.headersFiltersProvider.getIfAvailable(List::of);
+        }
+        return this.headersFilters;
+    }
+
+    /**
+     * @return the retry budget of the application, or {@code null} when none of its requests was hedgeable yet
+     */
+    @Nullable
+    RetryBudget getBudget(ApplicationId applicationId) {
+        var application = this.applications.get(applicationId);
+        return application != null ? application.budget() : null;
+    }
+
+    @Override
+    public int getOrder() {
+        // before WebsocketRoutingFilter and NettyRoutingFilter
+        return NettyRoutingFilter.ORDER - 2;
+    }
+
+    private record Attempt(HttpClientResponse response, Connection connection, boolean hedge) {
+
+    }
+
+    /**
+     * Decides which response wins, and makes sure that the connection of every other response is closed
+     */
+    private static final class Race {
+
+        private static final Attempt CLOSED = new Attempt(null, null, false);
+
+        private final AtomicReference<Attempt> winner = new AtomicReference<>();
+        private volatile boolean handedOver;
+
+        /**
+         * @return the attempt when it is the first to respond, otherwise empty, after closing its connection
+         */
+        Mono<Attempt> claim(Attempt attempt) {
+            if (this.winner.compareAndSet(null, attempt)) {
+                return Mono.just(attempt);
+            }
+            attempt.connection().dispose();
+            return Mono.empty();
+        }
+
+        /**
+         * The winning response is handed over to the response of the exchange, which releases its connection
+         */
+        void handOver() {
+            this.handedOver = true;
+        }
+
+        /**
+         * Closes the connection of a winner that was never handed over, because the exchange was cancelled or timed
+         * out in between; responses that arrive later are closed when they are claimed
+         */
+        void close() {
+            var current = this.winner.getAndSet(CLOSED);
+            if (current != null && current != CLOSED && !this.handedOver) {
+                current.connection().dispose();
+            }
+        }
+    }
+
+    private record ApplicationHedging(LatencyPercentile latencies, RetryBudget budget) {
+
+        ApplicationHedging(HedgingProperties properties) {
+            this(new LatencyPercentile(properties.getPercentile(), properties.getMinimumSamples()),
+                    new RetryBudget(properties.getBudget().getRatio(), properties.getBudget().getBurst()));
+        }
+
+        /**
+         * @return the delay before the hedged request is sent, or {@code null} when there are not enough samples
+         */
+        Duration delay(HedgingProperties properties) {
+            var nanos = this.latencies.getNanos();
+            if (nanos < 0) {
+                return null;
+            }
+            var delay = Duration.ofNanos(nanos);
+            if (delay.compareTo(properties.getMinDelay()) < 0) {
+                return properties.getMinDelay();
+            }
+            if (delay.compareTo(properties.getMaxDelay()) > 0) {
+                return properties.getMaxDelay();
+            }
+            return delay;
+        }
+    }
+}
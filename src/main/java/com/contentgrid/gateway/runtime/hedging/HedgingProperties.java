@@ -0,0 +1,56 @@
+package com.contentgrid.gateway.runtime.hedging;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties("contentgrid.gateway.runtime-platform.hedging")
+public class HedgingProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * Application ids whose requests are hedged; requests on a route with the {@code hedging: true} metadata are
+     * hedged as well
+     */
+    private Set<String> applications = new HashSet<>();
+
+    /**
+     * Percentile of the upstream response time after which the hedged request is sent
+     */
+    private double percentile = 0.95;
+
+    /**
+     * Number of response times needed before requests to an application are hedged
+     */
+    private int minimumSamples = 20;
+
+    /**
+     * Lower bound for the delay before the hedged request is sent
+     */
+    private Duration minDelay = Duration.ofMillis(5);
+
+    /**
+     * Upper bound for the delay before the hedged request is sent
+     */
+    private Duration maxDelay = Duration.ofSeconds(1);
+
+    private Budget budget = new Budget();
+
+    @Data
+    public static class Budget {
+
+        /**
+         * Hedged requests that can be sent for every original request to an application
+         */
+        private double ratio = 0.1;
+
+        /**
+         * Maximum number of hedged requests that can be saved up while an application is healthy
+         */
+        private int burst = 10;
+    }
+}
@@ -0,0 +1,55 @@
+package com.contentgrid.gateway.runtime.hedging;
+
+import java.util.Arrays;
+
+/**
+ * Estimates a percentile over the most recent response times.
+ * <p>
+ * Samples go into a fixed-size ring; the percentile is recomputed from a sorted copy of the ring every
+ * {@link #RECOMPUTE_INTERVAL} samples, so reading it is a single volatile read.
+ */
+class LatencyPercentile {
+
+    private static final int WINDOW = 256;
+    private static final int RECOMPUTE_INTERVAL = 16;
+
+    private final double percentile;
+    private final int minimumSamples;
+
+    // guarded by this
+    private final long[] samples = new long[WINDOW];
+    private int index;
+    private int count;
+    private int sinceRecompute;
+
+    private volatile long value = -1;
+
+    LatencyPercentile(double percentile, int minimumSamples) {
+        this.percentile = percentile;
+        this.minimumSamples = Math.min(WINDOW, Math.max(1, minimumSamples));
+    }
+
+    synchronized void record(long nanos) {
+        this.samples[this.index] = nanos;
+        this.index = (this.index + 1) % WINDOW;
+        if (this.count < WINDOW) {
+            this.count++;
+        }
+
+        if (this.count >= this.minimumSamples
+                && (++this.sinceRecompute >= RECOMPUTE_INTERVAL || this.value < 0)) {
+            this.sinceRecompute = 0;
+            var sorted = Arrays.copyOf(this.samples, this.count);
+            Arrays.sort(sorted);
+            var rank = (int) Math.ceil(this.percentile * this.count) - 1;
+            this.value = sorted[Math.min(this.count - 1, Math.max(0, rank))];
+        }
+    }
+
+    /**
+     * @return the percentile in nanoseconds, or -1 when there are not enough samples yet
+     */
+    long getNanos() {
+        return this.value;
+    }
+}
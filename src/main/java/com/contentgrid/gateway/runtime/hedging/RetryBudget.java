@@ -0,0 +1,50 @@
+package com.contentgrid.gateway.runtime.hedging;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket that is filled by requests instead of by time: every request deposits a fraction of a token, and
+ * every retry or hedge withdraws a whole one.
+ * <p>
+ * Retries can therefore never add more than {@code ratio} extra load, also when all requests are slow or failing.
+ */
+public class RetryBudget {
+
+    private static final long TOKEN = 1000;
+
+    private final long deposit;
+    private final long capacity;
+    private final AtomicLong balance = new AtomicLong();
+
+    /**
+     * @param ratio fraction of a token deposited by every request
+     * @param burst maximum number of tokens that can be saved up
+     */
+    public RetryBudget(double ratio, int burst) {
+        if (ratio < 0) {
+            throw new IllegalArgumentException("ratio must not be negative");
+        }
+        this.deposit = Math.round(ratio * TOKEN);
+        this.capacity = Math.max(1, burst) * TOKEN;
+    }
+
+    public void deposit() {
+        this.balance.getAndUpdate(current -> Math.min(this.capacity, current + this.deposit));
+    }
+
+    public boolean tryWithdraw() {
+        while (true) {
+            var current = this.balance.get();
+            if (current < TOKEN) {
+                return false;
+            }
+            if (this.balance.compareAndSet(current, current - TOKEN)) {
+                return true;
+            }
+        }
+    }
+
+    public double getBalance() {
+        return (double) this.balance.get() / TOKEN;
+    }
+}
@@ -0,0 +1,62 @@
+package com.contentgrid.gateway.runtime.ratelimit;
+
+import static com.contentgrid.gateway.runtime.web.ContentGridAppRequestWebFilter.CONTENTGRID_WEB_FILTER_CHAIN_FILTER_ORDER;
+
+import com.contentgrid.gateway.runtime.application.ContentGridDeploymentMetadata;
+import com.contentgrid.gateway.runtime.application.ServiceCatalog;
+import com.contentgrid.gateway.runtime.ratelimit.RateLimitWebFilter.RateLimitKeyResolver;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.config.annotation.web.reactive.WebFluxSecurityConfiguration;
+import org.springframework.web.cors.reactive.CorsConfigurationSource;
+
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty({"contentgrid.gateway.runtime-platform.enabled", "contentgrid.gateway.runtime-platform.rate-limit.enabled"})
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class RateLimitConfiguration {
+
+    /**
+     * Runs after the application has been resolved, but before Spring Security, so rejected requests don't pay for
+     * session lookups or token validation.
+     */
+    @Bean
+    @Order(CONTENTGRID_WEB_FILTER_CHAIN_FILTER_ORDER + 20)
+    RateLimitWebFilter applicationRateLimitWebFilter(RateLimitProperties properties, MeterRegistry meterRegistry,
+            CorsConfigurationSource corsConfigurationSource, ServiceCatalog serviceCatalog,
+            ContentGridDeploymentMetadata deploymentMetadata) {
+        var rateLimiter = new RateLimiter("application",
+                applicationId -> properties.getApplications().getOrDefault(applicationId.getValue(), properties.getApplication()),
+                properties.getIdleTimeout(), meterRegistry);
+        removeDeletedApplications(rateLimiter, serviceCatalog, deploymentMetadata);
+        return new RateLimitWebFilter(rateLimiter, RateLimitKeyResolver.application(), corsConfigurationSource);
+    }
+
+    /**
+     * Runs after Spring Security, because it needs the authenticated principal
+     */
+    @Bean
+    @Order(WebFluxSecurityConfiguration.WEB_FILTER_CHAIN_FILTER_ORDER + 10)
+    @ConditionalOnProperty("contentgrid.gateway.runtime-platform.rate-limit.principal.requests-per-second")
+    RateLimitWebFilter principalRateLimitWebFilter(RateLimitProperties properties, MeterRegistry meterRegistry,
+            CorsConfigurationSource corsConfigurationSource, ServiceCatalog serviceCatalog,
+            ContentGridDeploymentMetadata deploymentMetadata) {
+        var rateLimiter = new RateLimiter("principal", applicationId -> properties.getPrincipal(),
+                properties.getIdleTimeout(), meterRegistry);
+        removeDeletedApplications(rateLimiter, serviceCatalog, deploymentMetadata);
+        return new RateLimitWebFilter(rateLimiter, RateLimitKeyResolver.principal(), corsConfigurationSource);
+    }
+
+    /**
+     * Metrics are tagged by application, so they are removed together with the last deployment of the application
+     */
+    private static void removeDeletedApplications(RateLimiter rateLimiter, ServiceCatalog serviceCatalog,
+            ContentGridDeploymentMetadata deploymentMetadata) {
+        serviceCatalog.addServiceDeletedHandler(service -> deploymentMetadata.getApplicationId(service)
+                .filter(applicationId -> serviceCatalog.findByApplicationId(applicationId).isEmpty())
+                .ifPresent(rateLimiter::removeApplication));
+    }
+}
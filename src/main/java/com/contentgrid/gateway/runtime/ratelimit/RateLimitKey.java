@@ -0,0 +1,19 @@
+package com.contentgrid.gateway.runtime.ratelimit;
+
+import com.contentgrid.configuration.applications.ApplicationId;
+import lombok.NonNull;
+import org.springframework.lang.Nullable;
+
+/**
+ * Identifies a token bucket: either an application as a whole, or one principal within an application
+ */
+public record RateLimitKey(@NonNull ApplicationId applicationId, @Nullable String principal) {
+
+    public static RateLimitKey forApplication(@NonNull ApplicationId applicationId) {
+        return new RateLimitKey(applicationId, null);
+    }
+
+    public static RateLimitKey forPrincipal(@NonNull ApplicationId applicationId, @NonNull String principal) {
+        return new RateLimitKey(applicationId, principal);
+    }
+}
@@ -0,0 +1,52 @@
+package com.contentgrid.gateway.runtime.ratelimit;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties("contentgrid.gateway.runtime-platform.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * Limit for all requests to an application, unless overridden in {@link #applications}
+     */
+    private Limit application = new Limit(100, 200);
+
+    /**
+     * Limit for the requests of a single authenticated principal to an application; not limited when absent
+     */
+    private Limit principal;
+
+    /**
+     * Application-specific limits for all requests to an application, by application id
+     */
+    private Map<String, Limit> applications = new HashMap<>();
+
+    /**
+     * Buckets that have been full for this long are removed
+     */
+    private Duration idleTimeout = Duration.ofMinutes(5);
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limit {
+
+        /**
+         * Sustained number of requests per second
+         */
+        private double requestsPerSecond;
+
+        /**
+         * Number of requests that can be made at once, before being limited to the sustained rate
+         */
+        private int burst;
+    }
+}
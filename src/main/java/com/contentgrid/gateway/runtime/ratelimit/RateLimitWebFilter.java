@@ -0,0 +1,105 @@
+package com.contentgrid.gateway.runtime.ratelimit;
+
+import static com.contentgrid.gateway.runtime.web.ContentGridAppRequestWebFilter.CONTENTGRID_APP_ID_ATTR;
+
+import com.contentgrid.configuration.applications.ApplicationId;
+import java.util.concurrent.TimeUnit;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.web.cors.reactive.CorsConfigurationSource;
+import org.springframework.web.cors.reactive.CorsProcessor;
+import org.springframework.web.cors.reactive.CorsUtils;
+import org.springframework.web.cors.reactive.DefaultCorsProcessor;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Rejects requests to a ContentGrid application with HTTP 429 when its {@link RateLimiter} has no tokens left.
+ * <p>
+ * Requests that are not routed to an application are never limited, and neither are CORS preflight requests, which
+ * never reach the application. Because the application limit runs before the CORS filter of Spring Security, rejections
+ * get their CORS headers here, so browsers can read the 429 response.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class RateLimitWebFilter implements WebFilter {
+
+    @NonNull
+    private final RateLimiter rateLimiter;
+
+    @NonNull
+    private final RateLimitKeyResolver keyResolver;
+
+    @NonNull
+    private final CorsConfigurationSource corsConfigurationSource;
+
+    private final CorsProcessor corsProcessor = new DefaultCorsProcessor();
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ApplicationId applicationId = exchange.getAttribute(CONTENTGRID_APP_ID_ATTR);
+        if (applicationId == null || CorsUtils.isPreFlightRequest(exchange.getRequest())) {
+            return chain.filter(exchange);
+        }
+
+        return this.keyResolver.resolve(exchange, applicationId)
+                .map(this.rateLimiter::acquire)
+                .defaultIfEmpty(0L)
+                .flatMap(retryAfterNanos -> {
+                    if (retryAfterNanos == 0) {
+                        return chain.filter(exchange);
+                    }
+                    return reject(exchange, retryAfterNanos);
+                });
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange, long retryAfterNanos) {
+        // Retry-After only has second precision; round up so a client that honors it is admitted
+        var retryAfterSeconds = Math.max(1L, TimeUnit.NANOSECONDS.toSeconds(retryAfterNanos + 999_999_999L));
+        log.debug("Rate limited {} {}, retry after {}s", exchange.getRequest().getMethod(), exchange.getRequest().getURI(),
+                retryAfterSeconds);
+
+        var response = exchange.getResponse();
+        var corsConfiguration = this.corsConfigurationSource.getCorsConfiguration(exchange);
+        if (corsConfiguration != null && !this.corsProcessor.process(corsConfiguration, exchange)) {
+            // A cross-origin request that CORS rejects anyway: the CORS processor has already set the response status
+            return response.setComplete();
+        }
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        return response.setComplete();
+    }
+
+    @FunctionalInterface
+    public interface RateLimitKeyResolver {
+
+        /**
+         * @return the key of the bucket to take a token from, or empty when the request should not be limited
+         */
+        Mono<RateLimitKey> resolve(ServerWebExchange exchange, ApplicationId applicationId);
+
+        /**
+         * Limits all requests to an application together
+         */
+        static RateLimitKeyResolver application() {
+            return (exchange, applicationId) -> Mono.just(RateLimitKey.forApplication(applicationId));
+        }
+
+        /**
+         * Limits the requests of every authenticated principal separately; anonymous requests are not limited.
+         * <p>
+         * This requires the principal to be available, so the filter has to run after Spring Security.
+         */
+        static RateLimitKeyResolver principal() {
+            return (exchange, applicationId) -> exchange.getPrincipal()
+                    .filter(principal -> !(principal instanceof AnonymousAuthenticationToken))
+                    .map(principal -> RateLimitKey.forPrincipal(applicationId, principal.getName()));
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.contentgrid.gateway.runtime.ratelimit;
+
+import com.contentgrid.configuration.applications.ApplicationId;
+import com.contentgrid.gateway.runtime.ratelimit.RateLimitProperties.Limit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory token-bucket rate limiter, with one bucket for every {@link RateLimitKey}.
+ * <p>
+ * Buckets are spread over a fixed number of shards. Every shard removes its idle buckets by itself, at most once per
+ * idle timeout, on the first request that arrives after the sweep is due; so there is no background thread, and a sweep
+ * never has to visit more than one shard.
+ */
+@Slf4j
+public class RateLimiter {
+
+    private static final int SHARDS = 16;
+    private static final String METRIC_PREFIX = "contentgrid.gateway.rate-limit.";
+
+    private final String scope;
+    private final Function<ApplicationId, Limit> limits;
+    private final long idleTimeoutNanos;
+    private final Shard[] shards;
+
+    private final MeterRegistry meterRegistry;
+    private final Map<ApplicationId, Counter> rejectedCounters = new ConcurrentHashMap<>();
+
+    /**
+     * Monotonic time source in nanoseconds; wall-clock time would over-admit or lock out callers when it is stepped
+     */
+    @Setter
+    @NonNull
+    private LongSupplier ticker = System::nanoTime;
+
+    /**
+     * @param scope name of the scope of this limiter, used as tag on all metrics
+     * @param limits resolves the limit of the buckets for an application
+     */
+    public RateLimiter(@NonNull String scope, @NonNull Function<ApplicationId, Limit> limits,
+            @NonNull Duration idleTimeout, @NonNull MeterRegistry meterRegistry) {
+        this.scope = scope;
+        this.limits = limits;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.meterRegistry = meterRegistry;
+
+        this.shards = new Shard[SHARDS];
+        Arrays.setAll(this.shards, i -> new Shard());
+
+        Gauge.builder(METRIC_PREFIX + "buckets", this, RateLimiter::size)
+                .description("Number of active rate limit buckets")
+                .tag("scope", scope)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes a token from the bucket for the key
+     *
+     * @return 0 when the request is admitted, otherwise the number of nanoseconds until the next request can be admitted
+     */
+    public long acquire(@NonNull RateLimitKey key) {
+        var now = this.nanoTime();
+        var shard = this.shards[Math.floorMod(key.hashCode(), SHARDS)];
+        shard.sweepIfDue(now);
+
+        var bucket = shard.buckets.get(key);
+        if (bucket == null) {
+            bucket = shard.buckets.computeIfAbsent(key, k -> this.createBucket(k, now));
+        }
+
+        var retryAfter = bucket.tryAcquire(now);
+        if (retryAfter > 0) {
+            this.rejectedCounters.computeIfAbsent(key.applicationId(), applicationId -> Counter.builder(METRIC_PREFIX + "rejected")
+                    .description("Requests rejected by the rate limiter")
+                    .tag("scope", this.scope)
+                    .tag("application", applicationId.toString())
+                    .register(this.meterRegistry)
+            ).increment();
+        }
+        return retryAfter;
+    }
+
+    /**
+     * Removes the buckets and metrics of an application that no longer exists
+     */
+    public void removeApplication(@NonNull ApplicationId applicationId) {
+        for (var shard : this.shards) {
+            shard.buckets.keySet().removeIf(key -> {
+                if (key.applicationId().equals(applicationId)) {
+                    removeBucket(key);
+                    return true;
+                }
+                return false;
+            });
+        }
+        var rejectedCounter = this.rejectedCounters.remove(applicationId);
+        if (rejectedCounter != null) {
+            this.meterRegistry.remove(rejectedCounter);
+        }
+    }
+
+    int size() {
+        return Arrays.stream(this.shards).mapToInt(shard -> shard.buckets.size()).sum();
+    }
+
+    private TokenBucket createBucket(RateLimitKey key, long now) {
+        var limit = this.limits.apply(key.applicationId());
+        var bucket = new TokenBucket(limit.getRequestsPerSecond(), limit.getBurst(), now);
+        if (key.principal() == null) {
+            // Only application buckets are tracked individually, principals would be too many
+            Gauge.builder(METRIC_PREFIX + "available", bucket, b -> b.availableTokens(this.nanoTime()))
+                    .description("Number of requests that an application can make without being rate limited")
+                    .tag("scope", this.scope)
+                    .tag("application", key.applicationId().toString())
+                    .register(this.meterRegistry);
+        }
+        return bucket;
+    }
+
+    private void removeBucket(RateLimitKey key) {
+        log.trace("Removing idle {} rate limit bucket for {}", this.scope, key);
+        if (key.principal() == null) {
+            var gauge = this.meterRegistry.find(METRIC_PREFIX + "available")
+                    .tag("scope", this.scope)
+                    .tag("application", key.applicationId().toString())
+                    .gauge();
+            if (gauge != null) {
+                this.meterRegistry.remove(gauge);
+            }
+        }
+    }
+
+    private long nanoTime() {
+        return this.ticker.getAsLong();
+    }
+
+    private final class Shard {
+
+        private final Map<RateLimitKey, TokenBucket> buckets = new ConcurrentHashMap<>();
+        private final AtomicLong nextSweep = new AtomicLong(Long.MIN_VALUE);
+
+        void sweepIfDue(long now) {
+            var due = this.nextSweep.get();
+            if (now < due || !this.nextSweep.compareAndSet(due, now + idleTimeoutNanos)) {
+                return;
+            }
+            // A request that races with the removal of its (full) bucket may take its token from the removed bucket;
+            // that only loses a single token of a bucket that nobody else was using
+            this.buckets.entrySet().removeIf(entry -> {
+                if (entry.getValue().isIdle(now, idleTimeoutNanos)) {
+                    removeBucket(entry.getKey());
+                    return true;
+                }
+                return false;
+            });
+        }
+    }
+}
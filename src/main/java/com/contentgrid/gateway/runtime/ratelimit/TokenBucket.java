@@ -0,0 +1,60 @@
+package com.contentgrid.gateway.runtime.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.util.Assert;
+
+/**
+ * Lock-free token bucket, implemented as a generic cell rate algorithm.
+ * <p>
+ * Instead of a token count and a refill timestamp, the bucket keeps a single "theoretical arrival time": the moment at
+ * which the bucket would be full again. Taking a token pushes it forward by one emission interval, so a request is
+ * admitted with a single compare-and-set.
+ */
+final class TokenBucket {
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final AtomicLong theoreticalArrivalTime;
+
+    TokenBucket(double requestsPerSecond, int burst, long nowNanos) {
+        Assert.isTrue(requestsPerSecond > 0, "requestsPerSecond must be positive");
+        Assert.isTrue(burst > 0, "burst must be positive");
+        this.emissionIntervalNanos = Math.max(1L, Math.round(1_000_000_000d / requestsPerSecond));
+        this.burstToleranceNanos = this.emissionIntervalNanos * (burst - 1);
+        this.theoreticalArrivalTime = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Takes a token from the bucket
+     *
+     * @return 0 when a token was taken, otherwise the number of nanoseconds until a token will be available
+     */
+    long tryAcquire(long nowNanos) {
+        while (true) {
+            var tat = this.theoreticalArrivalTime.get();
+            var start = Math.max(tat, nowNanos);
+            var backlog = start - nowNanos;
+            if (backlog > this.burstToleranceNanos) {
+                return backlog - this.burstToleranceNanos;
+            }
+            if (this.theoreticalArrivalTime.compareAndSet(tat, start + this.emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * @return the number of tokens that can currently be taken from the bucket
+     */
+    double availableTokens(long nowNanos) {
+        var backlog = Math.max(0L, this.theoreticalArrivalTime.get() - nowNanos);
+        return Math.max(0d, (this.burstToleranceNanos - backlog) / (double) this.emissionIntervalNanos + 1);
+    }
+
+    /**
+     * A bucket that has been full for the idle timeout holds no state that differs from a new bucket
+     */
+    boolean isIdle(long nowNanos, long idleTimeoutNanos) {
+        return nowNanos - this.theoreticalArrivalTime.get() >= idleTimeoutNanos;
+    }
+}
@@ -0,0 +1,103 @@
+package com.contentgrid.gateway.runtime.routing;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.containsEncodedParts;
+
+import com.contentgrid.gateway.runtime.RuntimePlatformProperties.EndpointDefinition;
+import java.net.URI;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.NonNull;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.RouteToRequestUrlFilter;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+
+/**
+ * Dispatches requests to {@code /.contentgrid/{endpointId}/**} to the upstream of their ContentGrid endpoint from a
+ * single route.
+ * <p>
+ * The endpoint id is taken from the path and looked up in a map, so the cost of routing does not grow with the number
+ * of endpoints, and requests to applications only pay for a prefix check. The filter of every endpoint is created once,
+ * up front.
+ */
+public class ContentGridEndpointDispatcher {
+
+    public static final String CONTENTGRID_ENDPOINT_ID_ATTR = "com.contentgrid.gateway.endpoint-id";
+
+    /**
+     * Route URI that is replaced by the upstream URI of the endpoint
+     */
+    public static final String DISPATCH_URI = "http://ignored";
+
+    private static final String PATH_PREFIX = "/.contentgrid/";
+
+    private final Map<String, Endpoint> endpoints;
+
+    public ContentGridEndpointDispatcher(@NonNull Collection<EndpointDefinition> endpoints,
+            @NonNull Function<EndpointDefinition, GatewayFilter> endpointFilterFactory) {
+        this.endpoints = endpoints.stream()
+                .collect(Collectors.toUnmodifiableMap(EndpointDefinition::endpointId, endpoint -> new Endpoint(
+                        URI.create(endpoint.upstreamUri()),
+                        endpointFilterFactory.apply(endpoint)
+                )));
+    }
+
+    public boolean isEmpty() {
+        return this.endpoints.isEmpty();
+    }
+
+    /**
+     * Route predicate that matches requests to a known endpoint, and remembers the endpoint on the exchange
+     */
+    public boolean matches(ServerWebExchange exchange) {
+        var endpointId = extractEndpointId(exchange.getRequest().getPath().pathWithinApplication().value());
+        if (endpointId == null || !this.endpoints.containsKey(endpointId)) {
+            return false;
+        }
+        exchange.getAttributes().put(CONTENTGRID_ENDPOINT_ID_ATTR, endpointId);
+        return true;
+    }
+
+    /**
+     * Route filter that replaces the request URL with the upstream URI of the endpoint, and applies the filter of the
+     * endpoint. Runs right after {@link RouteToRequestUrlFilter} has resolved the request URL from the route URI.
+     */
+    public GatewayFilter dispatchFilter() {
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            String endpointId = exchange.getAttribute(CONTENTGRID_ENDPOINT_ID_ATTR);
+            var endpoint = endpointId == null ? null : this.endpoints.get(endpointId);
+            if (endpoint == null) {
+                return chain.filter(exchange);
+            }
+
+            var requestUri = exchange.getRequest().getURI();
+            var upstreamUri = endpoint.upstreamUri();
+            var requestUrl = UriComponentsBuilder.fromUri(requestUri)
+                    .scheme(upstreamUri.getScheme())
+                    .host(upstreamUri.getHost())
+                    .port(upstreamUri.getPort())
+                    .build(containsEncodedParts(requestUri))
+                    .toUri();
+            exchange.getAttributes().put(GATEWAY_REQUEST_URL_ATTR, requestUrl);
+
+            return endpoint.filter().filter(exchange, chain);
+        }, RouteToRequestUrlFilter.ROUTE_TO_URL_FILTER_ORDER + 1);
+    }
+
+    static String extractEndpointId(String path) {
+        if (!path.startsWith(PATH_PREFIX)) {
+            return null;
+        }
+        var end = path.indexOf('/', PATH_PREFIX.length());
+        var endpointId = end < 0 ? path.substring(PATH_PREFIX.length()) : path.substring(PATH_PREFIX.length(), end);
+        return endpointId.isEmpty() ? null : endpointId;
+    }
+
+    private record Endpoint(URI upstreamUri, GatewayFilter filter) {
+
+    }
+}
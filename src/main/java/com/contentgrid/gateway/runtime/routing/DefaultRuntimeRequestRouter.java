@@ -1,38 +1,46 @@
 package com.contentgrid.gateway.runtime.routing;
 
+import com.contentgrid.gateway.observability.jfr.ServiceInstanceSelectionEvent;
 import com.contentgrid.gateway.runtime.application.ServiceCatalog;
+import java.util.Optional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.client.ServiceInstance;
 import org.springframework.web.server.ServerWebExchange;
-import reactor.core.publisher.Mono;
 
 @Slf4j
 @RequiredArgsConstructor
-public class DefaultRuntimeRequestRouter implements RuntimeRequestRouter {
+public class DefaultRuntimeRequestRouter implements SynchronousRuntimeRequestRouter {
 
     private final ServiceCatalog serviceCatalog;
     private final ApplicationIdRequestResolver applicationIdResolver;
     private final RuntimeServiceInstanceSelector serviceInstanceSelector;
 
     @Override
-    public Mono<ServiceInstance> route(ServerWebExchange exchange) {
-        return Mono.justOrEmpty(this.applicationIdResolver.resolveApplicationId(exchange))
-                .switchIfEmpty(Mono.defer(() -> {
-                    log.debug("Could not resolve Host:'{}' to app-id",
-                            exchange.getRequest().getURI().getHost());
-                    return Mono.empty();
-                }))
-                .map(this.serviceCatalog::findByApplicationId)
-                .map(services -> this.serviceInstanceSelector.selectService(exchange, services))
-                .doOnNext(result -> result.ifPresentOrElse(
-                        service -> log.debug("Routing '{}' to {}",
-                                exchange.getRequest().getURI().getHost(), service.getServiceId()),
-                        () -> log.debug("No service found to route request {}",
-                                exchange.getRequest().getURI().getHost()))
-                )
-                .flatMap(Mono::justOrEmpty);
-
+    public Optional<ServiceInstance> routeSynchronously(ServerWebExchange exchange) {
+        var applicationId = this.applicationIdResolver.resolveApplicationId(exchange);
+        if (applicationId.isEmpty()) {
+            log.debug("Could not resolve Host:'{}' to app-id", exchange.getRequest().getURI().getHost());
+            return Optional.empty();
+        }
 
+        var event = new ServiceInstanceSelectionEvent();
+        event.begin();
+        var services = this.serviceCatalog.findByApplicationId(applicationId.get());
+        var result = this.serviceInstanceSelector.selectService(exchange, services);
+        if (event.shouldCommit()) {
+            event.setApplicationId(applicationId.get().toString());
+            event.setCandidates(services.size());
+            event.setServiceId(result.map(ServiceInstance::getServiceId).orElse(null));
+            event.commit();
+        }
+        if (log.isDebugEnabled()) {
+            result.ifPresentOrElse(
+                    service -> log.debug("Routing '{}' to {}",
+                            exchange.getRequest().getURI().getHost(), service.getServiceId()),
+                    () -> log.debug("No service found to route request {}",
+                            exchange.getRequest().getURI().getHost()));
+        }
+        return result;
     }
 }
@@ -6,6 +6,7 @@ import com.contentgrid.configuration.api.lookup.Lookup;
 import com.contentgrid.configuration.api.observable.Observable;
 import com.contentgrid.configuration.applications.ApplicationConfiguration;
 import com.contentgrid.configuration.applications.ApplicationId;
+import com.contentgrid.gateway.observability.jfr.ApplicationIdResolutionEvent;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -33,18 +34,21 @@ public class DynamicVirtualHostApplicationIdResolver implements ApplicationIdReq
 
     @Override
     public Optional<ApplicationId> resolveApplicationId(ServerWebExchange exchange) {
+        var event = new ApplicationIdResolutionEvent();
+        event.begin();
+
         var requestURI = exchange.getRequest().getURI();
 
         var requestHost = requestURI.getHost();
         if (requestHost == null) {
             log.warn("URI {} does not have Host information", requestURI);
-            return Optional.empty();
+            return commit(event, null, "no-host", null);
         }
 
         var registrations = this.lookupByDomain.get(requestHost);
         if (registrations.isEmpty()) {
             log.debug("No app-domain-registration found for '{}'", requestHost);
-            return Optional.empty();
+            return commit(event, requestHost, "unknown", null);
         }
 
         if (registrations.size() > 1) {
@@ -53,12 +57,23 @@ public class DynamicVirtualHostApplicationIdResolver implements ApplicationIdReq
                     .map(ApplicationId::toString)
                     .collect(Collectors.joining(", "));
             log.warn("CONFLICT resolving {} -> [{}]", requestHost, domains);
-            return Optional.empty();
+            return commit(event, requestHost, "conflict", null);
         }
 
         var appId = registrations.iterator().next().applicationId();
         log.debug("Resolved {} -> {}", requestHost, appId);
-        return Optional.of(appId);
+        return commit(event, requestHost, "resolved", appId);
+    }
+
+    private static Optional<ApplicationId> commit(ApplicationIdResolutionEvent event, String host, String result,
+            ApplicationId applicationId) {
+        if (event.shouldCommit()) {
+            event.setHost(host);
+            event.setResult(result);
+            event.setApplicationId(applicationId == null ? null : applicationId.toString());
+            event.commit();
+        }
+        return Optional.ofNullable(applicationId);
     }
 
     @Value
@@ -3,21 +3,48 @@ package com.contentgrid.gateway.runtime.routing;
 import com.contentgrid.gateway.runtime.application.ContentGridDeploymentMetadata;
 import com.contentgrid.gateway.runtime.application.DeploymentId;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
-import lombok.RequiredArgsConstructor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleSupplier;
+import java.util.function.ToDoubleFunction;
+import lombok.AccessLevel;
+import lombok.NonNull;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.lang.Nullable;
 import org.springframework.web.server.ServerWebExchange;
 
 @Slf4j
-@RequiredArgsConstructor
 public class SimpleRuntimeServiceInstanceSelector implements RuntimeServiceInstanceSelector {
 
     private final ContentGridDeploymentMetadata serviceMetadata;
 
+    /**
+     * Relative share of traffic for every candidate; without weights, the same candidate is always selected
+     */
+    @Nullable
+    private final ToDoubleFunction<ServiceInstance> weights;
+
+    @Setter(AccessLevel.PACKAGE)
+    @NonNull
+    private DoubleSupplier random = () -> ThreadLocalRandom.current().nextDouble();
+
+    public SimpleRuntimeServiceInstanceSelector(ContentGridDeploymentMetadata serviceMetadata) {
+        this(serviceMetadata, null);
+    }
+
+    public SimpleRuntimeServiceInstanceSelector(ContentGridDeploymentMetadata serviceMetadata,
+            @Nullable ToDoubleFunction<ServiceInstance> weights) {
+        this.serviceMetadata = serviceMetadata;
+        this.weights = weights;
+    }
+
     public Optional<ServiceInstance> selectService(ServerWebExchange exchange, Collection<ServiceInstance> candidates) {
 
-        if (candidates.size() > 1) {
+        if (candidates.size() > 1 && this.weights == null) {
             // logging a warning until we have a better service selection
             log.warn("multiple matches {}: {}", exchange.getRequest().getURI().getHost(), candidates.stream()
                     .map(service -> serviceMetadata.getDeploymentId(service).map(DeploymentId::toString)
@@ -25,10 +52,30 @@ public class SimpleRuntimeServiceInstanceSelector implements RuntimeServiceInsta
         }
 
         // sorting based on deployment-id alphabetical order, to get at least a stable selection
-        return candidates.stream().min((service1, service2) -> {
-            var d1 = serviceMetadata.getDeploymentId(service1).map(DeploymentId::toString).orElse("");
-            var d2 = serviceMetadata.getDeploymentId(service2).map(DeploymentId::toString).orElse("");
-            return d1.compareTo(d2);
-        });
+        var sorted = candidates.stream()
+                .sorted(Comparator.comparing((ServiceInstance service) -> serviceMetadata.getDeploymentId(service)
+                        .map(DeploymentId::toString).orElse("")))
+                .toList();
+        if (this.weights == null || sorted.size() < 2) {
+            return sorted.stream().findFirst();
+        }
+        return Optional.of(this.selectWeighted(sorted));
+    }
+
+    private ServiceInstance selectWeighted(List<ServiceInstance> candidates) {
+        var weights = candidates.stream().mapToDouble(this.weights).toArray();
+        var total = 0.0;
+        for (var weight : weights) {
+            total += weight;
+        }
+
+        var point = this.random.getAsDouble() * total;
+        for (int i = 0; i < weights.length; i++) {
+            point -= weights[i];
+            if (point < 0) {
+                return candidates.get(i);
+            }
+        }
+        return candidates.get(candidates.size() - 1);
     }
 }
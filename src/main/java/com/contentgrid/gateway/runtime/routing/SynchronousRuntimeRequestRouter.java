@@ -0,0 +1,20 @@
+package com.contentgrid.gateway.runtime.routing;
+
+import java.util.Optional;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * A {@link RuntimeRequestRouter} that routes without blocking, so callers on the request path can use the result
+ * directly instead of assembling a {@link Mono} for every request.
+ */
+public interface SynchronousRuntimeRequestRouter extends RuntimeRequestRouter {
+
+    Optional<ServiceInstance> routeSynchronously(ServerWebExchange serverWebExchange);
+
+    @Override
+    default Mono<ServiceInstance> route(ServerWebExchange serverWebExchange) {
+        return Mono.justOrEmpty(this.routeSynchronously(serverWebExchange));
+    }
+}
@@ -5,25 +5,107 @@ import com.contentgrid.gateway.security.authority.Actor;
 import com.contentgrid.gateway.security.authority.DelegatedAuthenticationDetailsGrantedAuthority;
 import com.contentgrid.gateway.security.jwt.issuer.encrypt.TextEncryptorFactory;
 import com.nimbusds.jwt.JWTClaimsSet;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.text.ParseException;
+import java.time.Clock;
+import java.time.Instant;
 import java.util.Collection;
+import java.util.HexFormat;
 import java.util.List;
-import lombok.RequiredArgsConstructor;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.NonNull;
+import lombok.Setter;
 import lombok.SneakyThrows;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.oauth2.core.ClaimAccessor;
 import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.util.ConcurrentLruCache;
 
-@RequiredArgsConstructor
+/**
+ * Converts delegation tokens issued to extensions into a {@link DelegatedAuthenticationDetailsGrantedAuthority}.
+ * <p>
+ * Extensions typically reuse one delegation token for a burst of requests, so conversion results are kept in a bounded
+ * cache until the token expires. The cache key is a digest of the whole token, because the result depends on both the
+ * encrypted principal claims and the actor claim.
+ */
 public class ExtensionDelegationGrantedAuthorityConverter implements
         Converter<Jwt, Collection<GrantedAuthority>> {
 
+    private static final int CACHE_SIZE = 1024;
+    private static final String METRIC_PREFIX = "contentgrid.gateway.extension-delegation.";
+
     private final TextEncryptorFactory encryptorFactory;
     private final Converter<ClaimAccessor, Actor> actorConverter;
 
+    /**
+     * Every token digest maps to a slot that is filled after conversion; slots are created empty by the cache itself
+     */
+    private final ConcurrentLruCache<String, AtomicReference<CachedAuthorities>> cache;
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+
+    @Setter
+    @NonNull
+    private Clock clock = Clock.systemUTC();
+
+    public ExtensionDelegationGrantedAuthorityConverter(
+            TextEncryptorFactory encryptorFactory,
+            Converter<ClaimAccessor, Actor> actorConverter
+    ) {
+        this(encryptorFactory, actorConverter, Metrics.globalRegistry);
+    }
+
+    public ExtensionDelegationGrantedAuthorityConverter(
+            @NonNull TextEncryptorFactory encryptorFactory,
+            @NonNull Converter<ClaimAccessor, Actor> actorConverter,
+            @NonNull MeterRegistry meterRegistry
+    ) {
+        this.encryptorFactory = encryptorFactory;
+        this.actorConverter = actorConverter;
+        this.cache = new ConcurrentLruCache<>(CACHE_SIZE, key -> new AtomicReference<>());
+
+        Gauge.builder(METRIC_PREFIX + "cache.size", this.cache, ConcurrentLruCache::size)
+                .description("Number of cached delegation token conversions")
+                .register(meterRegistry);
+        this.cacheHits = Counter.builder(METRIC_PREFIX + "cache")
+                .description("Lookups of delegation token conversions")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.cacheMisses = Counter.builder(METRIC_PREFIX + "cache")
+                .description("Lookups of delegation token conversions")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
     @Override
     public Collection<GrantedAuthority> convert(Jwt source) {
+        var expiresAt = source.getExpiresAt();
+        if (expiresAt == null) {
+            // Without an expiry, there is no moment where we can safely forget the result
+            return doConvert(source);
+        }
+
+        var slot = this.cache.get(digest(source.getTokenValue()));
+        var cached = slot.get();
+        if (cached != null && this.clock.instant().isBefore(cached.expiresAt())) {
+            this.cacheHits.increment();
+            return cached.authorities();
+        }
+
+        this.cacheMisses.increment();
+        var authorities = doConvert(source);
+        slot.set(new CachedAuthorities(authorities, expiresAt));
+        return authorities;
+    }
+
+    private Collection<GrantedAuthority> doConvert(Jwt source) {
         var principal = actorConverter.convert(decryptClaims(source.getClaimAsString(ContentGridClaimNames.RESTRICT_PRINCIPAL_CLAIMS)));
         if (principal == null) {
             return null;
@@ -42,4 +124,14 @@ public class ExtensionDelegationGrantedAuthorityConverter implements
         return claimSet::toJSONObject;
     }
 
+    @SneakyThrows(NoSuchAlgorithmException.class)
+    private static String digest(String tokenValue) {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                .digest(tokenValue.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private record CachedAuthorities(Collection<GrantedAuthority> authorities, Instant expiresAt) {
+
+    }
+
 }
@@ -1,6 +1,10 @@
 package com.contentgrid.gateway.runtime.security.bearer;
 
+import com.contentgrid.configuration.api.ComposedConfiguration;
+import com.contentgrid.configuration.api.observable.Observable;
+import com.contentgrid.configuration.applications.ApplicationConfiguration;
 import com.contentgrid.configuration.applications.ApplicationId;
+import com.contentgrid.gateway.observability.RequestStageTimers;
 import com.contentgrid.gateway.runtime.config.ApplicationConfigurationRepository;
 import com.contentgrid.gateway.runtime.routing.ApplicationIdRequestResolver;
 import com.contentgrid.gateway.runtime.security.authority.ClaimUtil;
@@ -16,6 +20,9 @@ import com.contentgrid.gateway.security.bearer.DynamicJwtAuthenticationManagerRe
 import com.contentgrid.gateway.security.bearer.IssuerGatedJwtAuthenticationManager;
 import com.contentgrid.gateway.security.bearer.PostValidatingJwtAuthenticationManager;
 import com.contentgrid.gateway.security.bearer.ReactiveJwtDecoderBuilder;
+import com.contentgrid.gateway.security.bearer.SharedJwkSetCache;
+import com.contentgrid.gateway.security.bearer.SharedJwkSetCache.JwkSetCacheProperties;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
@@ -42,11 +49,12 @@ import org.springframework.security.oauth2.server.resource.web.server.BearerToke
 import org.springframework.security.oauth2.server.resource.web.server.authentication.ServerBearerTokenAuthenticationConverter;
 import org.springframework.security.web.server.DelegatingServerAuthenticationEntryPoint.DelegateEntry;
 import org.springframework.security.web.server.authentication.AuthenticationConverterServerWebExchangeMatcher;
+import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
 @Configuration(proxyBeanMethods = false)
 @ConditionalOnProperty(value = "contentgrid.gateway.runtime-platform.enabled")
-@EnableConfigurationProperties(RuntimePlatformExternalIssuerProperties.class)
+@EnableConfigurationProperties({RuntimePlatformExternalIssuerProperties.class, JwkSetCacheProperties.class})
 public class RuntimePlatformOAuth2ResourceServerConfiguration {
 
     @Bean
@@ -78,16 +86,29 @@ public class RuntimePlatformOAuth2ResourceServerConfiguration {
         return converter;
     }
 
+    @Bean
+    SharedJwkSetCache sharedJwkSetCache(
+            WebClient.Builder webClientBuilder,
+            JwkSetCacheProperties jwkSetCacheProperties,
+            MeterRegistry meterRegistry
+    ) {
+        return new SharedJwkSetCache(webClientBuilder.build(), jwkSetCacheProperties, meterRegistry);
+    }
+
     @Bean
     Customizer<OAuth2ResourceServerSpec> configureRuntimeJwtAuthenticationManagerResolver(
             ApplicationIdRequestResolver applicationIdResolver,
             ApplicationConfigurationRepository applicationConfigurationRepository,
+            Observable<ComposedConfiguration<ApplicationId, ApplicationConfiguration>> applicationConfigurations,
+            MeterRegistry meterRegistry,
+            SharedJwkSetCache jwkSetCache,
             RuntimePlatformExternalIssuerProperties externalIssuerProperties,
             @ActorConverterType(ActorType.USER)
             Converter<ClaimAccessor, Actor> userActorConverter,
             @ActorConverterType(ActorType.EXTENSION)
             Converter<ClaimAccessor, Actor> extensionActorConverter,
-            @Autowired(required = false) ExtensionDelegationGrantedAuthorityConverter extensionDelegationGrantedAuthorityConverter
+            @Autowired(required = false) ExtensionDelegationGrantedAuthorityConverter extensionDelegationGrantedAuthorityConverter,
+            @Autowired(required = false) RequestStageTimers requestStageTimers
     ) {
         return spec -> {
             // The general idea here is: there are 3 different issuers that are trusted for different ways of authenticating
@@ -99,20 +120,27 @@ public class RuntimePlatformOAuth2ResourceServerConfiguration {
             // However, for shared issuers, we also MUST verify the 'aud' claim, so it is only acceptable for the application that the token was
             // issued for. If the audience is not checked, users for different applications (or organizations) would be able to log in to the application.
             //
-            // Because signing keys are cached by the ReactiveJwtDecoder, we don't want to create separate decoders for every application.
+            // Because the ReactiveJwtDecoder is built with a fixed set of validators, we don't want to create separate decoders for every application.
             // Normally, audience checks are part of ReactiveJwtDecoder, but here we are left with checking the 'aud' claim with a wrapping ReactiveAuthenticationManager
+            //
+            // Signing keys of all issuers are kept in the gateway-wide SharedJwkSetCache
             var resolver = new DynamicJwtAuthenticationManagerResolver(
                     applicationIdResolver,
-                    applicationConfigurationRepository
+                    applicationConfigurationRepository,
+                    meterRegistry
             );
+            resolver.setJwkSetCache(jwkSetCache);
+            resolver.setStageTimers(requestStageTimers);
 
             var extensionSystemAuthenticationManager = createAuthenticationManager(
                     externalIssuerProperties.getExtensionSystem(),
-                    new UserGrantedAuthorityConverter(extensionActorConverter)
+                    new UserGrantedAuthorityConverter(extensionActorConverter),
+                    jwkSetCache
             );
             var extensionDelegationAuthenticationManager = createAuthenticationManager(
                     externalIssuerProperties.getExtensionDelegation(),
-                    extensionDelegationGrantedAuthorityConverter
+                    extensionDelegationGrantedAuthorityConverter,
+                    jwkSetCache
             );
             resolver.setAuthenticationManagerConfigurer(authenticationManager -> {
                 var authenticationConverter = new ReactiveJwtAuthenticationConverter();
@@ -134,6 +162,8 @@ public class RuntimePlatformOAuth2ResourceServerConfiguration {
                             )
                             .orElse(Mono.just(authenticationManager))
             );
+            // Prebuild decoders for the issuers of known applications, instead of on the first request
+            resolver.subscribe(applicationConfigurations);
             spec.authenticationManagerResolver(resolver);
         };
     }
@@ -165,7 +195,8 @@ public class RuntimePlatformOAuth2ResourceServerConfiguration {
 
     private static ReactiveAuthenticationManager createAuthenticationManager(
             OidcIssuerProperties issuerProperties,
-            Converter<Jwt, Collection<GrantedAuthority>> converter
+            Converter<Jwt, Collection<GrantedAuthority>> converter,
+            SharedJwkSetCache jwkSetCache
     ) {
         if (converter == null || issuerProperties.getIssuer() == null) {
             return auth -> Mono.empty(); // If no converter available, or no issuer is set, create an authentication manager that skips
@@ -174,6 +205,7 @@ public class RuntimePlatformOAuth2ResourceServerConfiguration {
                 .issuer(issuerProperties.getIssuer())
                 .jwkSetUri(issuerProperties.getJwkSetUri())
                 .jwsAlgorithms(issuerProperties.getJwsAlgorithms())
+                .jwkSetCache(jwkSetCache)
                 .build();
         var jwtAuthenticationManager = new JwtReactiveAuthenticationManager(jwtDecoder);
         var jwtAuthenticationConverter = new ReactiveJwtAuthenticationConverter();
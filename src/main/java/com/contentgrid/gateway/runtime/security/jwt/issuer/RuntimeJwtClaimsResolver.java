@@ -11,16 +11,58 @@ import com.contentgrid.thunx.predicates.model.ThunkExpression;
 import com.contentgrid.thunx.spring.security.ReactivePolicyAuthorizationManager;
 import com.nimbusds.jwt.JWTClaimsSet;
 import com.nimbusds.jwt.JWTClaimsSet.Builder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import java.nio.charset.StandardCharsets;
-import lombok.RequiredArgsConstructor;
+import java.util.concurrent.TimeUnit;
+import lombok.NonNull;
 import org.springframework.security.oauth2.core.oidc.StandardClaimNames;
+import org.springframework.util.ConcurrentLruCache;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-@RequiredArgsConstructor
 public class RuntimeJwtClaimsResolver implements JwtClaimsResolver {
     private static final ThunkExpressionEncoder thunxExpressionEncoder = new JsonThunkExpressionCoder();
 
+    private static final int ENCODED_PREDICATE_CACHE_SIZE = 512;
+    private static final String METRIC_PREFIX = "contentgrid.gateway.abac-context.";
+
+    /**
+     * Encoded predicates, keyed by the structural equality of the {@link ThunkExpression}: the same user hitting the
+     * same policy gets an equal, but freshly built, predicate on every request
+     */
+    private final ConcurrentLruCache<ThunkExpression<Boolean>, String> encodedPredicates;
+
+    private final Timer encodingTimer;
+    private final DistributionSummary claimSize;
+    private final Counter cacheHits;
+    private final Counter cacheMisses;
+
+    public RuntimeJwtClaimsResolver() {
+        this(Metrics.globalRegistry);
+    }
+
+    public RuntimeJwtClaimsResolver(@NonNull MeterRegistry meterRegistry) {
+        this.encodedPredicates = new ConcurrentLruCache<>(ENCODED_PREDICATE_CACHE_SIZE, this::encode);
+
+        this.encodingTimer = Timer.builder(METRIC_PREFIX + "encoding")
+                .description("Time spent encoding ABAC predicates that were not cached")
+                .register(meterRegistry);
+        this.claimSize = DistributionSummary.builder(METRIC_PREFIX + "size")
+                .description("Size of newly encoded ABAC predicate claims")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.cacheHits = Counter.builder(METRIC_PREFIX + "cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.cacheMisses = Counter.builder(METRIC_PREFIX + "cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+    }
+
     @Override
     public Mono<JWTClaimsSet> resolveAdditionalClaims(ServerWebExchange exchange, AuthenticationDetails authenticationDetails) {
         ApplicationId applicationId = exchange.getRequiredAttribute(ContentGridAppRequestWebFilter.CONTENTGRID_APP_ID_ATTR);
@@ -30,7 +72,7 @@ public class RuntimeJwtClaimsResolver implements JwtClaimsResolver {
         var jwtClaimsBuilder = new Builder();
 
         if(abacPolicyPredicate != null) {
-            jwtClaimsBuilder.claim("x-abac-context", new String(thunxExpressionEncoder.encode(abacPolicyPredicate), StandardCharsets.UTF_8));
+            jwtClaimsBuilder.claim("x-abac-context", encodedPredicate(abacPolicyPredicate));
         }
 
         return Mono.just(
@@ -40,4 +82,18 @@ public class RuntimeJwtClaimsResolver implements JwtClaimsResolver {
                         .build()
         );
     }
+
+    private String encodedPredicate(ThunkExpression<Boolean> predicate) {
+        // Hit/miss accounting is approximate under concurrent eviction, the returned value is always correct
+        (this.encodedPredicates.contains(predicate) ? this.cacheHits : this.cacheMisses).increment();
+        return this.encodedPredicates.get(predicate);
+    }
+
+    private String encode(ThunkExpression<Boolean> predicate) {
+        var start = System.nanoTime();
+        var encoded = thunxExpressionEncoder.encode(predicate);
+        this.encodingTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        this.claimSize.record(encoded.length);
+        return new String(encoded, StandardCharsets.UTF_8);
+    }
 }
@@ -10,6 +10,7 @@ import com.contentgrid.gateway.security.jwt.issuer.NamedJwtClaimsResolver;
 import com.contentgrid.gateway.security.jwt.issuer.encrypt.PropertiesBasedTextEncryptorFactory;
 import com.contentgrid.gateway.security.jwt.issuer.encrypt.PropertiesBasedTextEncryptorFactory.TextEncryptorProperties;
 import com.contentgrid.gateway.security.jwt.issuer.encrypt.TextEncryptorFactory;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
@@ -26,8 +27,8 @@ import org.springframework.security.oauth2.core.ClaimAccessor;
 public class RuntimeJwtInternalIssuerConfiguration {
     @Bean
     @NamedJwtClaimsResolver("apps")
-    RuntimeJwtClaimsResolver runtimeJwtClaimsResolver() {
-        return new RuntimeJwtClaimsResolver();
+    RuntimeJwtClaimsResolver runtimeJwtClaimsResolver(MeterRegistry meterRegistry) {
+        return new RuntimeJwtClaimsResolver(meterRegistry);
     }
 
     @Bean
@@ -78,7 +79,8 @@ public class RuntimeJwtInternalIssuerConfiguration {
             Converter<ClaimAccessor, Actor> extensionActorConverter,
             @Qualifier(AUTHENTICATION_ENCRYPTOR_FACTORY)
             @Autowired(required = false)
-            TextEncryptorFactory encryptorFactory
+            TextEncryptorFactory encryptorFactory,
+            MeterRegistry meterRegistry
     ) {
         if (encryptorFactory == null) {
             return null;
@@ -86,6 +88,6 @@ public class RuntimeJwtInternalIssuerConfiguration {
         return new ExtensionDelegationGrantedAuthorityConverter(encryptorFactory, new AggregateActorConverter(
                 extensionActorConverter,
                 userActorConverter
-        ));
+        ), meterRegistry);
     }
 }
@@ -4,6 +4,7 @@ import com.contentgrid.configuration.api.ComposedConfiguration;
 import com.contentgrid.configuration.api.observable.Observable;
 import com.contentgrid.configuration.applications.ApplicationConfiguration;
 import com.contentgrid.configuration.applications.ApplicationId;
+import com.contentgrid.gateway.resilience.CircuitBreakerRegistry;
 import com.contentgrid.gateway.runtime.routing.ApplicationIdRequestResolver;
 import com.contentgrid.gateway.security.oauth2.client.registration.DynamicReactiveClientRegistrationRepository;
 import com.contentgrid.gateway.security.oauth2.client.registration.DynamicReactiveClientRegistrationRepository.ClientRegistrationEvent;
@@ -16,6 +17,7 @@ import java.net.URI;
 import java.util.Collections;
 import java.util.List;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
@@ -50,8 +52,11 @@ public class RuntimePlatformOidcClientConfiguration {
 
     @Bean
     ReactiveClientRegistrationResolver oAuth2ClientApplicationConfigurationMapper(
-            ReactiveClientRegistrationIdResolver registrationIdResolver) {
-        return new OAuth2ClientApplicationConfigurationMapper(registrationIdResolver);
+            ReactiveClientRegistrationIdResolver registrationIdResolver,
+            ObjectProvider<CircuitBreakerRegistry> circuitBreakerRegistry) {
+        var mapper = new OAuth2ClientApplicationConfigurationMapper(registrationIdResolver);
+        circuitBreakerRegistry.ifAvailable(mapper::setCircuitBreakers);
+        return mapper;
     }
 
     @Bean
@@ -9,6 +9,8 @@ import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
 import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
 import java.time.Duration;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cloud.kubernetes.fabric8.loadbalancer.Fabric8ServiceInstanceMapper;
@@ -28,6 +30,13 @@ public class KubernetesServiceDiscovery implements ServiceDiscovery, AutoCloseab
 
     private SharedIndexInformer<Service> informer;
 
+    /**
+     * Uids of the services that were handed to the handler, while the initial services are discovered
+     */
+    private volatile Set<String> initialServices;
+
+    private static final Duration INITIAL_SERVICES_TIMEOUT = Duration.ofSeconds(30);
+
     private static final LabelSelector selector = new LabelSelectorBuilder()
             .addToMatchLabels(KubernetesLabels.CONTENTGRID_SERVICETYPE, "api")
             .build();
@@ -35,6 +44,7 @@ public class KubernetesServiceDiscovery implements ServiceDiscovery, AutoCloseab
     // TODO this should by a bean-init method
     @Override
     public void discoverApis() {
+        this.initialServices = ConcurrentHashMap.newKeySet();
         this.informer = client.services()
                 .inNamespace(namespace)
                 .withLabelSelector(selector)
@@ -44,6 +54,11 @@ public class KubernetesServiceDiscovery implements ServiceDiscovery, AutoCloseab
                         var service = mapper.map(obj);
                         serviceAddedHandler.handleServiceAdded(service);
                         log.info("{} discovered", service);
+
+                        var initial = initialServices;
+                        if (initial != null) {
+                            initial.add(obj.getMetadata().getUid());
+                        }
                     }
 
                     @Override
@@ -61,6 +76,32 @@ public class KubernetesServiceDiscovery implements ServiceDiscovery, AutoCloseab
                         log.info("{} deleted", service);
                     }
                 }, resyncInterval.toMillis());
+        this.awaitInitialServices();
+    }
+
+    /**
+     * The informer lists the services before {@code inform()} returns, but hands them to the handler asynchronously.
+     * Waits for that, so the services that already exist are known when service discovery has started.
+     */
+    private void awaitInitialServices() {
+        var listed = this.informer.getStore().list().stream()
+                .map(service -> service.getMetadata().getUid())
+                .toList();
+        var deadline = System.nanoTime() + INITIAL_SERVICES_TIMEOUT.toNanos();
+        try {
+            while (!this.initialServices.containsAll(listed)) {
+                if (System.nanoTime() > deadline) {
+                    log.warn("Not all {} initial services were discovered within {}", listed.size(),
+                            INITIAL_SERVICES_TIMEOUT);
+                    break;
+                }
+                Thread.sleep(10);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            this.initialServices = null;
+        }
     }
 
     @Override
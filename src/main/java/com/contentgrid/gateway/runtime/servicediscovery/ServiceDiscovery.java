@@ -1,5 +1,9 @@
 package com.contentgrid.gateway.runtime.servicediscovery;
 
 public interface ServiceDiscovery {
+
+    /**
+     * Starts discovering services; returns after the services that already exist have been handed to the handlers
+     */
     void discoverApis();
 }
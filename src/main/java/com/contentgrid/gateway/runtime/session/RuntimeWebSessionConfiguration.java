@@ -4,6 +4,7 @@ import static org.springframework.web.server.adapter.WebHttpHandlerBuilder.WEB_S
 
 import com.contentgrid.configuration.applications.ApplicationId;
 import com.contentgrid.gateway.runtime.routing.ApplicationIdRequestResolver;
+import com.contentgrid.gateway.security.stateless.StatelessRequestClassifier;
 import java.time.Duration;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -32,8 +33,8 @@ public class RuntimeWebSessionConfiguration {
 
     @Bean(name = WEB_SESSION_MANAGER_BEAN_NAME)
     public WebSessionManager runtimeWebSessionManager(ObjectProvider<WebSessionIdResolver> webSessionIdResolver,
-            WebExchangePartitioner<?> partitioner) {
-        return new PartitionedWebSessionManager<>(
+            WebExchangePartitioner<?> partitioner, StatelessRequestClassifier statelessRequestClassifier) {
+        var sessionManager = new PartitionedWebSessionManager<>(
                 partitioner,
                 (partition) -> {
                     log.debug("Creating new session manager for partition {}", partition);
@@ -43,6 +44,7 @@ public class RuntimeWebSessionConfiguration {
                     webSessionIdResolver.ifAvailable(delegate::setSessionIdResolver);
                     return delegate;
                 });
+        return new StatelessWebSessionManager(sessionManager, statelessRequestClassifier);
     }
 
     @Bean
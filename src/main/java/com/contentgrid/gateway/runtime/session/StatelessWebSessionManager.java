@@ -0,0 +1,32 @@
+package com.contentgrid.gateway.runtime.session;
+
+import com.contentgrid.gateway.security.stateless.StatelessRequestClassifier;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebSession;
+import org.springframework.web.server.session.InMemoryWebSessionStore;
+import org.springframework.web.server.session.WebSessionManager;
+import reactor.core.publisher.Mono;
+
+/**
+ * Hands out a throw-away session to stateless requests, without resolving a session id or touching the session store.
+ * The throw-away session is never saved, so no session cookie is sent either.
+ */
+@RequiredArgsConstructor
+public class StatelessWebSessionManager implements WebSessionManager {
+
+    @NonNull
+    private final WebSessionManager delegate;
+
+    @NonNull
+    private final StatelessRequestClassifier classifier;
+
+    private final InMemoryWebSessionStore transientSessions = new InMemoryWebSessionStore();
+
+    @Override
+    public Mono<WebSession> getSession(ServerWebExchange exchange) {
+        return classifier.isStateless(exchange)
+                .flatMap(stateless -> stateless ? transientSessions.createWebSession() : delegate.getSession(exchange));
+    }
+}
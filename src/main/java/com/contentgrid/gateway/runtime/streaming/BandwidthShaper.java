@@ -0,0 +1,40 @@
+package com.contentgrid.gateway.runtime.streaming;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.util.Assert;
+
+/**
+ * Lock-free bandwidth shaper, implemented as a generic cell rate algorithm where every byte is a cell.
+ * <p>
+ * Unlike a rate limiter, the shaper never rejects: every reservation pushes the theoretical arrival time forward, and
+ * the caller delays its data by the returned amount. Concurrent streams of the same application therefore share the
+ * bandwidth fairly, in the order in which they reserve it. The bandwidth is passed with every reservation, so a
+ * changed limit applies to the next buffer.
+ */
+final class BandwidthShaper {
+
+    private final AtomicLong theoreticalArrivalTime;
+
+    BandwidthShaper(long nowNanos) {
+        this.theoreticalArrivalTime = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Reserves bandwidth for a number of bytes
+     *
+     * @return the number of nanoseconds the bytes have to be delayed
+     */
+    long reserve(long bytes, long bytesPerSecond, long burstBytes, long nowNanos) {
+        Assert.isTrue(bytesPerSecond > 0, "bytesPerSecond must be positive");
+        var nanosPerByte = 1_000_000_000d / bytesPerSecond;
+        var burstToleranceNanos = Math.round(Math.max(0, burstBytes) * nanosPerByte);
+        var cost = (long) Math.ceil(bytes * nanosPerByte);
+        while (true) {
+            var tat = this.theoreticalArrivalTime.get();
+            var next = Math.max(tat, nowNanos) + cost;
+            if (this.theoreticalArrivalTime.compareAndSet(tat, next)) {
+                return Math.max(0L, next - nowNanos - burstToleranceNanos);
+            }
+        }
+    }
+}
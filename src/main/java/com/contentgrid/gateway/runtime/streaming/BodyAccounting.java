@@ -0,0 +1,187 @@
+package com.contentgrid.gateway.runtime.streaming;
+
+import com.contentgrid.configuration.applications.ApplicationId;
+import com.contentgrid.gateway.runtime.application.DeploymentId;
+import com.contentgrid.gateway.runtime.streaming.StreamingProperties.Limits;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import lombok.NonNull;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.Nullable;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Counts, limits and shapes the request and response bodies of ContentGrid applications.
+ * <p>
+ * Bodies are only observed while they stream through: every {@link DataBuffer} is passed on as-is, without being
+ * copied, joined or retained, so the memory use of a request does not depend on the size of its body.
+ */
+public class BodyAccounting {
+
+    private static final String METRIC_PREFIX = "contentgrid.gateway.streaming.";
+
+    public enum Direction {
+        IN,
+        OUT;
+
+        String tag() {
+            return this == IN ? "in" : "out";
+        }
+    }
+
+    private final Function<ApplicationId, Limits> limits;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<CounterKey, Counter> byteCounters = new ConcurrentHashMap<>();
+    private final Map<ShaperKey, BandwidthShaper> shapers = new ConcurrentHashMap<>();
+    private final Map<Direction, AtomicInteger> inFlight = new EnumMap<>(Direction.class);
+
+    public BodyAccounting(@NonNull Function<ApplicationId, Limits> limits, @NonNull MeterRegistry meterRegistry) {
+        this.limits = limits;
+        this.meterRegistry = meterRegistry;
+
+        for (var direction : Direction.values()) {
+            var bodies = new AtomicInteger();
+            this.inFlight.put(direction, bodies);
+            Gauge.builder(METRIC_PREFIX + "in-flight", bodies, AtomicInteger::get)
+                    .description("Number of bodies that are currently streaming through the gateway")
+                    .tag("direction", direction.tag())
+                    .register(meterRegistry);
+        }
+    }
+
+    public Limits getLimits(@NonNull ApplicationId applicationId) {
+        return this.limits.apply(applicationId);
+    }
+
+    /**
+     * Wraps a body so it is counted and shaped, and fails with HTTP 413 once it grows larger than {@code maxBytes}
+     */
+    public Flux<DataBuffer> meter(@NonNull Publisher<? extends DataBuffer> body, @NonNull Direction direction,
+            @NonNull ApplicationId applicationId, @Nullable DeploymentId deploymentId, long maxBytes) {
+        var inFlight = this.inFlight.get(direction);
+        return this.count(body, direction, applicationId, deploymentId, maxBytes)
+                .doOnSubscribe(subscription -> inFlight.incrementAndGet())
+                .doFinally(signal -> inFlight.decrementAndGet());
+    }
+
+    /**
+     * Wraps a body that is written as a sequence of chunks that are flushed one by one, such as server-sent events
+     */
+    public Flux<Flux<DataBuffer>> meterChunked(@NonNull Publisher<? extends Publisher<? extends DataBuffer>> body,
+            @NonNull Direction direction, @NonNull ApplicationId applicationId, @Nullable DeploymentId deploymentId) {
+        var inFlight = this.inFlight.get(direction);
+        return Flux.from(body)
+                .map(chunk -> this.count(chunk, direction, applicationId, deploymentId, Long.MAX_VALUE))
+                .doOnSubscribe(subscription -> inFlight.incrementAndGet())
+                .doFinally(signal -> inFlight.decrementAndGet());
+    }
+
+    /**
+     * Removes the byte counters of a deployment that no longer exists
+     */
+    public void removeDeployment(@NonNull DeploymentId deploymentId) {
+        this.removeCounters(key -> deploymentId.equals(key.deploymentId()));
+    }
+
+    /**
+     * Removes the byte counters and bandwidth shapers of an application that no longer exists
+     */
+    public void removeApplication(@NonNull ApplicationId applicationId) {
+        this.removeCounters(key -> applicationId.equals(key.applicationId()));
+        this.shapers.keySet().removeIf(key -> applicationId.equals(key.applicationId()));
+    }
+
+    private void removeCounters(Predicate<CounterKey> predicate) {
+        this.byteCounters.entrySet().removeIf(entry -> {
+            if (predicate.test(entry.getKey())) {
+                this.meterRegistry.remove(entry.getValue());
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private Flux<DataBuffer> count(Publisher<? extends DataBuffer> body, Direction direction,
+            ApplicationId applicationId, @Nullable DeploymentId deploymentId, long maxBytes) {
+        var counter = this.byteCounters.computeIfAbsent(new CounterKey(direction, applicationId, deploymentId),
+                key -> Counter.builder(METRIC_PREFIX + "bytes")
+                        .description("Bytes of request and response bodies")
+                        .baseUnit("bytes")
+                        .tag("direction", direction.tag())
+                        .tag("application", applicationId.toString())
+                        .tag("deployment", deploymentId == null ? "none" : deploymentId.getValue())
+                        .register(this.meterRegistry));
+
+        return Flux.defer(() -> {
+            var transferred = new AtomicLong();
+            Flux<DataBuffer> flux = Flux.<DataBuffer>from(body).handle((buffer, sink) -> {
+                var size = buffer.readableByteCount();
+                if (transferred.addAndGet(size) > maxBytes) {
+                    DataBufferUtils.release(buffer);
+                    sink.error(new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                            "Request body is larger than %d bytes".formatted(maxBytes)));
+                    return;
+                }
+                counter.increment(size);
+                sink.next(buffer);
+            });
+
+            var shaper = this.shaper(direction, applicationId);
+            if (shaper != null) {
+                // one buffer at a time, so a shaped body also slows down reading from its source; the limits are
+                // read for every buffer, so changed limits apply to bodies that are already streaming
+                flux = flux
+                        .concatMap(buffer -> {
+                            var delay = this.delay(shaper, applicationId, buffer.readableByteCount());
+                            return delay == 0 ? Mono.just(buffer) : Mono.just(buffer).delayElement(Duration.ofNanos(delay));
+                        }, 1)
+                        .doOnDiscard(DataBuffer.class, DataBufferUtils::release);
+            }
+            return flux;
+        });
+    }
+
+    /**
+     * @return the shaper for bodies of the application, or {@code null} when its bandwidth is not limited
+     */
+    @Nullable
+    private BandwidthShaper shaper(Direction direction, ApplicationId applicationId) {
+        if (this.limits.apply(applicationId).getBandwidthPerSecond() == null) {
+            return null;
+        }
+        return this.shapers.computeIfAbsent(new ShaperKey(direction, applicationId),
+                key -> new BandwidthShaper(System.nanoTime()));
+    }
+
+    private long delay(BandwidthShaper shaper, ApplicationId applicationId, long bytes) {
+        var limits = this.limits.apply(applicationId);
+        var bandwidth = limits.getBandwidthPerSecond();
+        if (bandwidth == null) {
+            return 0;
+        }
+        return shaper.reserve(bytes, bandwidth.toBytes(), limits.getBurst().toBytes(), System.nanoTime());
+    }
+
+    private record CounterKey(Direction direction, ApplicationId applicationId, DeploymentId deploymentId) {
+
+    }
+
+    private record ShaperKey(Direction direction, ApplicationId applicationId) {
+
+    }
+}
@@ -0,0 +1,83 @@
+package com.contentgrid.gateway.runtime.streaming;
+
+import com.contentgrid.configuration.applications.ApplicationId;
+import com.contentgrid.gateway.runtime.streaming.StreamingProperties.Limits;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import lombok.NonNull;
+
+/**
+ * Tracks the streams that are open for every ContentGrid application, and caps them at
+ * {@link Limits#getMaxConcurrentStreams()}.
+ */
+public class OpenStreams {
+
+    private static final String METRIC_PREFIX = "contentgrid.gateway.streaming.streams.";
+
+    private final Function<ApplicationId, Limits> limits;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<ApplicationId, AtomicInteger> open = new ConcurrentHashMap<>();
+    private final Map<ApplicationId, Counter> rejected = new ConcurrentHashMap<>();
+    private final Map<StreamType, Timer> durations = new EnumMap<>(StreamType.class);
+
+    public OpenStreams(@NonNull Function<ApplicationId, Limits> limits, @NonNull MeterRegistry meterRegistry) {
+        this.limits = limits;
+        this.meterRegistry = meterRegistry;
+
+        for (var type : StreamType.values()) {
+            this.durations.put(type, Timer.builder(METRIC_PREFIX + "duration")
+                    .description("How long streams stay open")
+                    .tag("type", type.tag())
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * @return whether the stream can be opened; an opened stream must be {@link #close(ApplicationId, StreamType, long) closed}
+     */
+    public boolean tryOpen(@NonNull ApplicationId applicationId) {
+        var open = this.open.computeIfAbsent(applicationId, id -> {
+            var streams = new AtomicInteger();
+            Gauge.builder(METRIC_PREFIX + "open", streams, AtomicInteger::get)
+                    .description("Number of streams that are currently open")
+                    .tag("application", id.toString())
+                    .register(this.meterRegistry);
+            return streams;
+        });
+        var limit = this.limits.apply(applicationId).getMaxConcurrentStreams();
+
+        while (true) {
+            var current = open.get();
+            if (current >= limit) {
+                this.rejected.computeIfAbsent(applicationId, id -> Counter.builder(METRIC_PREFIX + "rejected")
+                        .description("Streams rejected because an application has too many open streams")
+                        .tag("application", id.toString())
+                        .register(this.meterRegistry)
+                ).increment();
+                return false;
+            }
+            if (open.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void close(@NonNull ApplicationId applicationId, @NonNull StreamType type, long durationNanos) {
+        this.open.get(applicationId).decrementAndGet();
+        this.durations.get(type).record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    int getOpen(ApplicationId applicationId) {
+        var open = this.open.get(applicationId);
+        return open == null ? 0 : open.get();
+    }
+}
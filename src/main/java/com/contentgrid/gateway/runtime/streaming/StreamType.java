@@ -0,0 +1,59 @@
+package com.contentgrid.gateway.runtime.streaming;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.lang.Nullable;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * Long-lived requests that stay open for minutes, like the {@code text/event-stream} responses of the assistant.
+ * <p>
+ * A request only counts as a stream once {@link StreamWebFilter} has admitted it under the cap on open streams of its
+ * application, and marked the exchange with {@link #STREAM_TYPE_ATTR}. Event streams are recognized by the
+ * {@code Content-Type} of the upstream response, not by what the client asks for, so a client can not opt out of the
+ * limits that are meant for short API calls. WebSocket handshakes are recognized by their request, because an
+ * upgraded request can only be answered as a WebSocket.
+ */
+public enum StreamType {
+    EVENT_STREAM("event-stream"),
+    WEBSOCKET("websocket");
+
+    /**
+     * Exchange attribute with the {@link StreamType} of an admitted stream
+     */
+    public static final String STREAM_TYPE_ATTR = "com.contentgrid.gateway.stream-type";
+
+    private final String tag;
+
+    StreamType(String tag) {
+        this.tag = tag;
+    }
+
+    public String tag() {
+        return this.tag;
+    }
+
+    /**
+     * @return the type of stream the exchange was admitted as, or {@code null} for an ordinary request; event streams
+     * are only known once the upstream responds
+     */
+    @Nullable
+    public static StreamType of(ServerWebExchange exchange) {
+        return exchange.getAttribute(STREAM_TYPE_ATTR);
+    }
+
+    static boolean isWebSocketUpgrade(ServerHttpRequest request) {
+        return "websocket".equalsIgnoreCase(request.getHeaders().getUpgrade());
+    }
+
+    static boolean isEventStream(HttpHeaders responseHeaders) {
+        try {
+            var contentType = responseHeaders.getContentType();
+            return contentType != null && MediaType.TEXT_EVENT_STREAM.equalsTypeAndSubtype(contentType);
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.contentgrid.gateway.runtime.streaming;
+
+import static com.contentgrid.gateway.runtime.web.ContentGridAppRequestWebFilter.CONTENTGRID_APP_ID_ATTR;
+
+import com.contentgrid.configuration.applications.ApplicationId;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Manages long-lived streams to ContentGrid applications, as classified by {@link StreamType}.
+ * <p>
+ * Every application can have a limited number of streams open at the same time. A WebSocket handshake above that
+ * limit is rejected with HTTP 429 before it is proxied; an event stream is recognized when the upstream responds, and
+ * is answered with HTTP 429 instead of its events when the application has too many open streams. Admitted streams
+ * are marked with {@link StreamType#STREAM_TYPE_ATTR}. Event stream responses are flushed event by event, and are
+ * ended once they have been idle for longer than the event stream idle timeout.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class StreamWebFilter implements WebFilter {
+
+    /**
+     * Disables response buffering in nginx-based reverse proxies in front of the gateway
+     */
+    static final String X_ACCEL_BUFFERING = "X-Accel-Buffering";
+
+    @NonNull
+    private final OpenStreams openStreams;
+
+    @NonNull
+    private final Duration eventStreamIdleTimeout;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ApplicationId applicationId = exchange.getAttribute(CONTENTGRID_APP_ID_ATTR);
+        if (applicationId == null) {
+            return chain.filter(exchange);
+        }
+
+        var start = System.nanoTime();
+        if (StreamType.isWebSocketUpgrade(exchange.getRequest())) {
+            if (!this.tryOpen(exchange, applicationId, StreamType.WEBSOCKET)) {
+                exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+                return exchange.getResponse().setComplete();
+            }
+            return chain.filter(exchange)
+                    .doFinally(signal -> this.openStreams.close(applicationId, StreamType.WEBSOCKET,
+                            System.nanoTime() - start));
+        }
+
+        var response = new EventStreamResponse(exchange, applicationId);
+        return chain.filter(exchange.mutate().response(response).build())
+                .doFinally(signal -> {
+                    if (response.opened) {
+                        this.openStreams.close(applicationId, StreamType.EVENT_STREAM, System.nanoTime() - start);
+                    }
+                });
+    }
+
+    private boolean tryOpen(ServerWebExchange exchange, ApplicationId applicationId, StreamType type) {
+        if (!this.openStreams.tryOpen(applicationId)) {
+            log.debug("Too many open streams for application {}, rejecting {} {}", applicationId,
+                    exchange.getRequest().getMethod(), exchange.getRequest().getURI());
+            return false;
+        }
+        exchange.getAttributes().put(StreamType.STREAM_TYPE_ATTR, type);
+        return true;
+    }
+
+    private class EventStreamResponse extends ServerHttpResponseDecorator {
+
+        private final ServerWebExchange exchange;
+        private final ApplicationId applicationId;
+
+        /**
+         * Whether the response is an event stream that was admitted; only set before the response is written
+         */
+        private volatile boolean opened;
+
+        EventStreamResponse(ServerWebExchange exchange, ApplicationId applicationId) {
+            super(exchange.getResponse());
+            this.exchange = exchange;
+            this.applicationId = applicationId;
+            exchange.getResponse().beforeCommit(() -> {
+                if (this.opened) {
+                    this.getHeaders().set(X_ACCEL_BUFFERING, "no");
+                }
+                return Mono.empty();
+            });
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            if (!StreamType.isEventStream(this.getHeaders())) {
+                return super.writeWith(body);
+            }
+            if (!this.open()) {
+                return this.reject(body);
+            }
+            // Not every event stream is written with flushes (e.g. a content type with parameters): flush every buffer
+            return this.writeEvents(Flux.<DataBuffer>from(body).map(Flux::just));
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            if (!StreamType.isEventStream(this.getHeaders())) {
+                return super.writeAndFlushWith(body);
+            }
+            if (!this.open()) {
+                return this.reject(body);
+            }
+            return this.writeEvents(body);
+        }
+
+        private boolean open() {
+            this.opened = tryOpen(this.exchange, this.applicationId, StreamType.EVENT_STREAM);
+            return this.opened;
+        }
+
+        /**
+         * Answers with HTTP 429 instead of the events, and cancels the upstream response so its connection is closed
+         */
+        private Mono<Void> reject(Publisher<?> body) {
+            this.getHeaders().clear();
+            this.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+            return Flux.from(body).take(0).then(this.setComplete());
+        }
+
+        private Mono<Void> writeEvents(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return super.writeAndFlushWith(Flux.<Publisher<? extends DataBuffer>>from(body)
+                    .timeout(eventStreamIdleTimeout)
+                    .onErrorResume(TimeoutException.class, error -> {
+                        log.debug("Ending event stream that was idle for {}", eventStreamIdleTimeout);
+                        return Flux.empty();
+                    }));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.contentgrid.gateway.runtime.streaming;
+
+import static com.contentgrid.gateway.runtime.web.ContentGridAppRequestWebFilter.CONTENTGRID_APP_ID_ATTR;
+import static com.contentgrid.gateway.runtime.web.ContentGridAppRequestWebFilter.CONTENTGRID_DEPLOY_ID_ATTR;
+
+import com.contentgrid.configuration.applications.ApplicationId;
+import com.contentgrid.gateway.runtime.application.DeploymentId;
+import com.contentgrid.gateway.runtime.streaming.BodyAccounting.Direction;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Streams request and response bodies of ContentGrid applications through {@link BodyAccounting}.
+ * <p>
+ * A request that announces a body larger than the maximum request size of its application is rejected with HTTP 413
+ * before it is proxied; a chunked request body that grows too large fails with HTTP 413 while it streams.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class StreamingBodyWebFilter implements WebFilter {
+
+    @NonNull
+    private final BodyAccounting accounting;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ApplicationId applicationId = exchange.getAttribute(CONTENTGRID_APP_ID_ATTR);
+        if (applicationId == null) {
+            return chain.filter(exchange);
+        }
+        DeploymentId deploymentId = exchange.getAttribute(CONTENTGRID_DEPLOY_ID_ATTR);
+
+        var maxRequestSize = this.accounting.getLimits(applicationId).getMaxRequestSize();
+        var maxBytes = maxRequestSize == null ? Long.MAX_VALUE : maxRequestSize.toBytes();
+        if (exchange.getRequest().getHeaders().getContentLength() > maxBytes) {
+            log.debug("Rejecting {} {}: body of {} bytes is larger than {} bytes", exchange.getRequest().getMethod(),
+                    exchange.getRequest().getURI(), exchange.getRequest().getHeaders().getContentLength(), maxBytes);
+            exchange.getResponse().setStatusCode(HttpStatus.PAYLOAD_TOO_LARGE);
+            return exchange.getResponse().setComplete();
+        }
+
+        var request = new ServerHttpRequestDecorator(exchange.getRequest()) {
+            @Override
+            public Flux<DataBuffer> getBody() {
+                return accounting.meter(super.getBody(), Direction.IN, applicationId, deploymentId, maxBytes);
+            }
+        };
+        var response = new ServerHttpResponseDecorator(exchange.getResponse()) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                return super.writeWith(accounting.meter(body, Direction.OUT, applicationId, deploymentId, Long.MAX_VALUE));
+            }
+
+            @Override
+            public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+                return super.writeAndFlushWith(accounting.meterChunked(body, Direction.OUT, applicationId, deploymentId));
+            }
+        };
+
+        return chain.filter(exchange.mutate().request(request).response(response).build());
+    }
+}
@@ -0,0 +1,71 @@
+package com.contentgrid.gateway.runtime.streaming;
+
+import static com.contentgrid.gateway.runtime.web.ContentGridAppRequestWebFilter.CONTENTGRID_WEB_FILTER_CHAIN_FILTER_ORDER;
+
+import com.contentgrid.gateway.runtime.application.ContentGridDeploymentMetadata;
+import com.contentgrid.gateway.runtime.application.ServiceCatalog;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty({"contentgrid.gateway.runtime-platform.enabled", "contentgrid.gateway.runtime-platform.streaming.enabled"})
+@EnableConfigurationProperties(StreamingProperties.class)
+public class StreamingConfiguration {
+
+    @Bean
+    BodyAccounting bodyAccounting(StreamingProperties properties, MeterRegistry meterRegistry,
+            ServiceCatalog serviceCatalog, ContentGridDeploymentMetadata deploymentMetadata) {
+        var accounting = new BodyAccounting(
+                applicationId -> properties.getApplications().getOrDefault(applicationId.getValue(), properties.getApplication()),
+                meterRegistry);
+        removeDeleted(accounting, serviceCatalog, deploymentMetadata);
+        return accounting;
+    }
+
+    /**
+     * Byte counters are tagged by application and deployment, so they are removed together with the last instance
+     * of the deployment, and of the application
+     */
+    private static void removeDeleted(BodyAccounting accounting, ServiceCatalog serviceCatalog,
+            ContentGridDeploymentMetadata deploymentMetadata) {
+        serviceCatalog.addServiceDeletedHandler(service -> {
+            deploymentMetadata.getDeploymentId(service)
+                    .filter(deploymentId -> serviceCatalog.findByDeploymentId(deploymentId).isEmpty())
+                    .ifPresent(accounting::removeDeployment);
+            deploymentMetadata.getApplicationId(service)
+                    .filter(applicationId -> serviceCatalog.findByApplicationId(applicationId).isEmpty())
+                    .ifPresent(accounting::removeApplication);
+        });
+    }
+
+    @Bean
+    OpenStreams openStreams(StreamingProperties properties, MeterRegistry meterRegistry) {
+        return new OpenStreams(
+                applicationId -> properties.getApplications().getOrDefault(applicationId.getValue(), properties.getApplication()),
+                meterRegistry);
+    }
+
+    /**
+     * Runs after the application has been resolved and rate limited, and wraps the response before
+     * {@link StreamingBodyWebFilter}, so shaped events are still flushed one by one
+     */
+    @Bean
+    @Order(CONTENTGRID_WEB_FILTER_CHAIN_FILTER_ORDER + 25)
+    StreamWebFilter streamWebFilter(OpenStreams openStreams, StreamingProperties properties) {
+        return new StreamWebFilter(openStreams, properties.getEventStreamIdleTimeout());
+    }
+
+    /**
+     * Runs after the application has been resolved and rate limited, so oversized requests are rejected before
+     * Spring Security
+     */
+    @Bean
+    @Order(CONTENTGRID_WEB_FILTER_CHAIN_FILTER_ORDER + 30)
+    StreamingBodyWebFilter streamingBodyWebFilter(BodyAccounting bodyAccounting) {
+        return new StreamingBodyWebFilter(bodyAccounting);
+    }
+}
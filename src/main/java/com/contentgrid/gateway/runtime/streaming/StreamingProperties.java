@@ -0,0 +1,56 @@
+package com.contentgrid.gateway.runtime.streaming;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@Data
+@ConfigurationProperties("contentgrid.gateway.runtime-platform.streaming")
+public class StreamingProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * Limits for all applications, unless overridden in {@link #applications}
+     */
+    private Limits application = new Limits();
+
+    /**
+     * Application-specific limits, by application id
+     */
+    private Map<String, Limits> applications = new HashMap<>();
+
+    /**
+     * An event stream that has not sent an event for this long is ended, so the client reconnects with its
+     * {@code Last-Event-ID}
+     */
+    private Duration eventStreamIdleTimeout = Duration.ofMinutes(5);
+
+    @Data
+    public static class Limits {
+
+        /**
+         * Maximum size of a request body; not limited when absent
+         */
+        private DataSize maxRequestSize;
+
+        /**
+         * Sustained number of bytes per second that request bodies and response bodies of an application are shaped
+         * to, separately for each direction; not shaped when absent
+         */
+        private DataSize bandwidthPerSecond;
+
+        /**
+         * Number of bytes that can be transferred at once, before being shaped to the sustained bandwidth
+         */
+        private DataSize burst = DataSize.ofMegabytes(1);
+
+        /**
+         * Maximum number of event streams and WebSocket connections that are open at the same time
+         */
+        private int maxConcurrentStreams = 100;
+    }
+}
@@ -0,0 +1,175 @@
+package com.contentgrid.gateway.runtime.traffic;
+
+import com.contentgrid.configuration.applications.ApplicationId;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import lombok.NonNull;
+import org.springframework.boot.actuate.metrics.http.Outcome;
+
+/**
+ * Request rate, error rate, latency and bytes per application, with a bounded number of series.
+ * <p>
+ * Only the {@code topK} applications with the most requests get series of their own; all other applications share the
+ * {@value #OTHER} series. The top applications are found with a {@link SpaceSaving} sketch and recomputed every
+ * refresh interval; series of applications that drop out of the top are removed from the registry.
+ * <p>
+ * Requests are counted in one sketch per stripe, picked by the recording thread, so the event loops do not contend on a
+ * single sketch; the stripes are merged on refresh.
+ */
+public class ApplicationTrafficMetrics {
+
+    static final String OTHER = "other";
+    private static final String METRIC_PREFIX = "contentgrid.gateway.application.";
+
+    private final MeterRegistry meterRegistry;
+    private final List<SpaceSaving<ApplicationId>> sketches;
+    private final int topK;
+    private final long refreshIntervalNanos;
+    private final AtomicLong nextRefresh;
+
+    private volatile TrackedMeters tracked;
+
+    public ApplicationTrafficMetrics(@NonNull TrafficMetricsProperties properties,
+            @NonNull MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        var capacity = Math.max(properties.getSketchCapacity(), properties.getTopK());
+        this.sketches = IntStream.range(0, Runtime.getRuntime().availableProcessors())
+                .mapToObj(stripe -> new SpaceSaving<ApplicationId>(capacity))
+                .toList();
+        this.topK = properties.getTopK();
+        this.refreshIntervalNanos = properties.getRefreshInterval().toNanos();
+        this.nextRefresh = new AtomicLong(System.nanoTime() + this.refreshIntervalNanos);
+        this.tracked = new TrackedMeters(Map.of(), this.createMeters(OTHER));
+    }
+
+    /**
+     * Records a request that completed in {@code durationNanos}
+     */
+    public void record(@NonNull ApplicationId applicationId, int status, long requestBytes, long responseBytes,
+            long durationNanos) {
+        var meters = this.count(applicationId);
+        meters.record(status, requestBytes, responseBytes);
+        meters.latency().record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records a long-lived stream, like an event stream or a WebSocket; its duration is not a request latency
+     */
+    public void recordStream(@NonNull ApplicationId applicationId, int status, long requestBytes, long responseBytes) {
+        this.count(applicationId).record(status, requestBytes, responseBytes);
+    }
+
+    private ApplicationMeters count(ApplicationId applicationId) {
+        var stripe = (int) (Thread.currentThread().threadId() % this.sketches.size());
+        this.sketches.get(stripe).offer(applicationId, 1);
+        this.maybeRefresh();
+        return this.tracked.meters(applicationId);
+    }
+
+    /**
+     * Estimated request counts of the applications with the most requests since the last refreshes
+     */
+    public List<ApplicationTraffic> top() {
+        var tracked = this.tracked;
+        return SpaceSaving.merge(this.sketches, this.topK).stream()
+                .map(estimate -> new ApplicationTraffic(estimate.key().toString(), estimate.count(), estimate.error(),
+                        tracked.applications().containsKey(estimate.key())))
+                .toList();
+    }
+
+    private void maybeRefresh() {
+        var now = System.nanoTime();
+        var next = this.nextRefresh.get();
+        if (now - next >= 0 && this.nextRefresh.compareAndSet(next, now + this.refreshIntervalNanos)) {
+            this.refresh();
+        }
+    }
+
+    synchronized void refresh() {
+        var previous = this.tracked;
+        var applications = new HashMap<ApplicationId, ApplicationMeters>();
+        for (var estimate : SpaceSaving.merge(this.sketches, this.topK)) {
+            var meters = previous.applications().get(estimate.key());
+            applications.put(estimate.key(), meters != null ? meters : this.createMeters(estimate.key().toString()));
+        }
+
+        // Requests record on the new meters before the meters of applications that dropped out are removed
+        this.tracked = new TrackedMeters(Map.copyOf(applications), previous.other());
+        previous.applications().forEach((applicationId, meters) -> {
+            if (!applications.containsKey(applicationId)) {
+                meters.remove(this.meterRegistry);
+            }
+        });
+
+        this.sketches.forEach(SpaceSaving::decay);
+    }
+
+    private ApplicationMeters createMeters(String application) {
+        var requests = new EnumMap<Outcome, Counter>(Outcome.class);
+        for (var outcome : Outcome.values()) {
+            requests.put(outcome, Counter.builder(METRIC_PREFIX + "requests")
+                    .description("Requests per application")
+                    .tag("application", application)
+                    .tag("outcome", outcome.name())
+                    .register(this.meterRegistry));
+        }
+        return new ApplicationMeters(
+                requests,
+                Timer.builder(METRIC_PREFIX + "latency")
+                        .description("Request latency per application")
+                        .tag("application", application)
+                        .register(this.meterRegistry),
+                Counter.builder(METRIC_PREFIX + "bytes")
+                        .description("Bytes per application, from the Content-Length of requests and responses")
+                        .baseUnit("bytes")
+                        .tag("application", application)
+                        .tag("direction", "in")
+                        .register(this.meterRegistry),
+                Counter.builder(METRIC_PREFIX + "bytes")
+                        .description("Bytes per application, from the Content-Length of requests and responses")
+                        .baseUnit("bytes")
+                        .tag("application", application)
+                        .tag("direction", "out")
+                        .register(this.meterRegistry)
+        );
+    }
+
+    public record ApplicationTraffic(String applicationId, long estimatedRequests, long maximumError, boolean tracked) {
+
+    }
+
+    private record TrackedMeters(Map<ApplicationId, ApplicationMeters> applications, ApplicationMeters other) {
+
+        ApplicationMeters meters(ApplicationId applicationId) {
+            return this.applications.getOrDefault(applicationId, this.other);
+        }
+    }
+
+    private record ApplicationMeters(Map<Outcome, Counter> requests, Timer latency, Counter bytesIn, Counter bytesOut) {
+
+        void record(int status, long requestBytes, long responseBytes) {
+            this.requests.get(Outcome.forStatus(status)).increment();
+            if (requestBytes > 0) {
+                this.bytesIn.increment(requestBytes);
+            }
+            if (responseBytes > 0) {
+                this.bytesOut.increment(responseBytes);
+            }
+        }
+
+        void remove(MeterRegistry meterRegistry) {
+            this.requests.values().forEach(meterRegistry::remove);
+            meterRegistry.remove(this.latency);
+            meterRegistry.remove(this.bytesIn);
+            meterRegistry.remove(this.bytesOut);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.contentgrid.gateway.runtime.traffic;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving sketch of the heaviest keys of a stream, in memory proportional to its capacity instead of to the number
+ * of distinct keys.
+ * <p>
+ * A key that is not counted yet takes over the smallest counter when all counters are in use; its count is then
+ * overestimated by at most the count it inherited, which is reported as the error of the estimate. Every key with a
+ * true count above {@code total / capacity} is guaranteed to be counted.
+ * <p>
+ * Sketches of parts of the same stream can be {@linkplain #merge(Collection, int) merged}, so every thread can count in
+ * a sketch of its own.
+ */
+class SpaceSaving<K> {
+
+    private final int capacity;
+    private final Map<K, Counter> counters;
+
+    SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive, was %d".formatted(capacity));
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    synchronized void offer(K key, long weight) {
+        var counter = this.counters.get(key);
+        if (counter != null) {
+            counter.count += weight;
+            return;
+        }
+        if (this.counters.size() < this.capacity) {
+            this.counters.put(key, new Counter(weight, 0));
+            return;
+        }
+
+        // Only keys outside of the sketch pay for finding the smallest counter
+        Map.Entry<K, Counter> smallest = null;
+        for (var entry : this.counters.entrySet()) {
+            if (smallest == null || entry.getValue().count < smallest.getValue().count) {
+                smallest = entry;
+            }
+        }
+        var inherited = smallest.getValue().count;
+        this.counters.remove(smallest.getKey());
+        this.counters.put(key, new Counter(inherited + weight, inherited));
+    }
+
+    /**
+     * The {@code k} keys with the highest estimated counts, highest first
+     */
+    List<Estimate<K>> top(int k) {
+        return merge(List.of(this), k);
+    }
+
+    /**
+     * The {@code k} keys with the highest estimated counts over all sketches, highest first
+     * <p>
+     * A key that is not counted by a full sketch may have been evicted from it, so it is estimated at the smallest
+     * count of that sketch, which is added to its error as well.
+     */
+    static <K> List<Estimate<K>> merge(Collection<SpaceSaving<K>> sketches, int k) {
+        var snapshots = sketches.stream().map(SpaceSaving::snapshot).toList();
+        var keys = new HashSet<K>();
+        snapshots.forEach(snapshot -> keys.addAll(snapshot.estimates().keySet()));
+
+        return keys.stream()
+                .map(key -> {
+                    long count = 0;
+                    long error = 0;
+                    for (var snapshot : snapshots) {
+                        var estimate = snapshot.estimates().get(key);
+                        count += estimate != null ? estimate.count() : snapshot.floor();
+                        error += estimate != null ? estimate.error() : snapshot.floor();
+                    }
+                    return new Estimate<>(key, count, error);
+                })
+                .sorted(Comparator.comparingLong(Estimate<K>::count).reversed())
+                .limit(k)
+                .toList();
+    }
+
+    private synchronized Snapshot<K> snapshot() {
+        var estimates = new HashMap<K, Estimate<K>>(this.counters.size() * 2);
+        long smallest = Long.MAX_VALUE;
+        for (var entry : this.counters.entrySet()) {
+            estimates.put(entry.getKey(), new Estimate<>(entry.getKey(), entry.getValue().count,
+                    entry.getValue().error));
+            smallest = Math.min(smallest, entry.getValue().count);
+        }
+        return new Snapshot<>(estimates, this.counters.size() < this.capacity ? 0 : smallest);
+    }
+
+    /**
+     * Halves all counts, so the sketch follows recent traffic instead of all traffic since startup
+     */
+    synchronized void decay() {
+        var iterator = this.counters.values().iterator();
+        while (iterator.hasNext()) {
+            var counter = iterator.next();
+            counter.count /= 2;
+            counter.error /= 2;
+            if (counter.count == 0) {
+                iterator.remove();
+            }
+        }
+    }
+
+    record Estimate<K>(K key, long count, long error) {
+
+    }
+
+    /**
+     * @param floor the most a key that is not counted can have been offered since it was evicted
+     */
+    private record Snapshot<K>(Map<K, Estimate<K>> estimates, long floor) {
+
+    }
+
+    private static class Counter {
+
+        private long count;
+        private long error;
+
+        Counter(long count, long error) {
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
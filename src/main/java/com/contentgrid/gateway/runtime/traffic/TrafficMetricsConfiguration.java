@@ -0,0 +1,19 @@
+package com.contentgrid.gateway.runtime.traffic;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty({"contentgrid.gateway.runtime-platform.enabled", "contentgrid.gateway.runtime-platform.traffic-metrics.enabled"})
+@EnableConfigurationProperties(TrafficMetricsProperties.class)
+public class TrafficMetricsConfiguration {
+
+    @Bean
+    ApplicationTrafficMetrics applicationTrafficMetrics(TrafficMetricsProperties properties,
+            MeterRegistry meterRegistry) {
+        return new ApplicationTrafficMetrics(properties, meterRegistry);
+    }
+}
@@ -0,0 +1,30 @@
+package com.contentgrid.gateway.runtime.traffic;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties("contentgrid.gateway.runtime-platform.traffic-metrics")
+public class TrafficMetricsProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * Number of applications with the most requests that get their own series; all other applications are
+     * aggregated into the 'other' series
+     */
+    private int topK = 20;
+
+    /**
+     * Number of applications that are counted to find the ones with the most requests; higher values make the
+     * top applications more accurate, at the cost of memory
+     */
+    private int sketchCapacity = 500;
+
+    /**
+     * How often the top applications are recomputed; request counts are halved on every refresh, so the top
+     * follows recent traffic
+     */
+    private Duration refreshInterval = Duration.ofMinutes(1);
+}
@@ -0,0 +1,48 @@
+package com.contentgrid.gateway.runtime.upstream;
+
+import com.contentgrid.gateway.runtime.application.ContentGridDeploymentMetadata;
+import com.contentgrid.gateway.runtime.application.ServiceCatalog;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.http.client.HttpClient;
+
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty({"contentgrid.gateway.runtime-platform.enabled", "contentgrid.gateway.runtime-platform.connection-pool.enabled"})
+@EnableConfigurationProperties(UpstreamConnectionPoolProperties.class)
+public class DeploymentConnectionPoolConfiguration {
+
+    @Bean
+    DeploymentHttpClientFactory deploymentHttpClientFactory(HttpClientProperties httpClientProperties,
+            ServerProperties serverProperties, HttpClientSslConfigurer sslConfigurer,
+            ObjectProvider<HttpClientCustomizer> customizers) {
+        return new DeploymentHttpClientFactory(httpClientProperties, serverProperties, sslConfigurer,
+                customizers.orderedStream().toList());
+    }
+
+    @Bean
+    DeploymentConnectionPools deploymentConnectionPools(UpstreamConnectionPoolProperties properties,
+            DeploymentHttpClientFactory httpClientFactory, ContentGridDeploymentMetadata deploymentMetadata,
+            ServiceCatalog serviceCatalog, MeterRegistry meterRegistry) {
+        var pools = new DeploymentConnectionPools(properties, httpClientFactory::create, deploymentMetadata,
+                serviceCatalog, meterRegistry);
+        serviceCatalog.addServiceDeletedHandler(pools);
+        return pools;
+    }
+
+    @Bean
+    DeploymentRoutingFilter deploymentRoutingFilter(HttpClient httpClient,
+            ObjectProvider<List<HttpHeadersFilter>> headersFilters, HttpClientProperties httpClientProperties,
+            DeploymentConnectionPools connectionPools) {
+        return new DeploymentRoutingFilter(httpClient, headersFilters, httpClientProperties, connectionPools);
+    }
+}
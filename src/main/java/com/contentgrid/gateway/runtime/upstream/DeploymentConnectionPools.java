@@ -0,0 +1,158 @@
+package com.contentgrid.gateway.runtime.upstream;
+
+import com.contentgrid.gateway.runtime.application.ContentGridDeploymentMetadata;
+import com.contentgrid.gateway.runtime.application.DeploymentId;
+import com.contentgrid.gateway.runtime.application.ServiceCatalog;
+import com.contentgrid.gateway.runtime.config.kubernetes.KubernetesLabels;
+import com.contentgrid.gateway.runtime.servicediscovery.ServiceDeletedHandler;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.net.SocketAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.client.ServiceInstance;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Keeps a separate upstream connection pool for every ContentGrid deployment, so one application with many slow
+ * requests can only exhaust its own connections, not those of other applications.
+ * <p>
+ * The pool of a deployment is created on its first request, and disposed when the deployment is removed from the
+ * service catalog. Apart from their connection pool, the clients are configured like the gateway-wide client, see
+ * {@link DeploymentHttpClientFactory}.
+ */
+@Slf4j
+public class DeploymentConnectionPools implements ServiceDeletedHandler {
+
+    private static final String METRIC_PREFIX = "contentgrid.gateway.upstream-pool.";
+    private static final String POOL_NAME_PREFIX = "deployment-";
+
+    private final UpstreamConnectionPoolProperties properties;
+    private final Function<ConnectionProvider, HttpClient> httpClientFactory;
+    private final ContentGridDeploymentMetadata deploymentMetadata;
+    private final ServiceCatalog serviceCatalog;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<DeploymentId, Pool> pools = new ConcurrentHashMap<>();
+    private final Map<String, List<Meter>> poolMeters = new ConcurrentHashMap<>();
+
+    public DeploymentConnectionPools(
+            @NonNull UpstreamConnectionPoolProperties properties,
+            @NonNull Function<ConnectionProvider, HttpClient> httpClientFactory,
+            @NonNull ContentGridDeploymentMetadata deploymentMetadata,
+            @NonNull ServiceCatalog serviceCatalog,
+            @NonNull MeterRegistry meterRegistry
+    ) {
+        this.properties = properties;
+        this.httpClientFactory = httpClientFactory;
+        this.deploymentMetadata = deploymentMetadata;
+        this.serviceCatalog = serviceCatalog;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder(METRIC_PREFIX + "pools", this.pools, Map::size)
+                .description("Number of upstream connection pools")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return the {@link HttpClient} that uses the connection pool of the deployment
+     */
+    public HttpClient getHttpClient(@NonNull DeploymentId deploymentId, @NonNull ServiceInstance serviceInstance) {
+        var pool = this.pools.get(deploymentId);
+        if (pool == null) {
+            pool = this.pools.computeIfAbsent(deploymentId, id -> this.createPool(id, serviceInstance));
+            // The service catalog removes a deployment before notifying its handlers, so a pool that was created
+            // concurrently with the deletion is either removed by the handler, or found here
+            if (this.serviceCatalog.findByDeploymentId(deploymentId).isEmpty() && this.pools.remove(deploymentId, pool)) {
+                dispose(pool);
+            }
+        }
+        return pool.httpClient();
+    }
+
+    @Override
+    public void handleServiceDeleted(ServiceInstance service) {
+        this.deploymentMetadata.getDeploymentId(service)
+                .map(this.pools::remove)
+                .ifPresent(DeploymentConnectionPools::dispose);
+    }
+
+    private static void dispose(Pool pool) {
+        log.debug("Disposing upstream connection pool {}", pool.connectionProvider().name());
+        pool.connectionProvider().disposeLater().subscribe();
+    }
+
+    private Pool createPool(DeploymentId deploymentId, ServiceInstance serviceInstance) {
+        var connectionProvider = ConnectionProvider.builder(POOL_NAME_PREFIX + deploymentId)
+                .maxConnections(this.properties.getMaxConnections())
+                .pendingAcquireMaxCount(this.properties.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(this.properties.getPendingAcquireTimeout())
+                .maxIdleTime(this.properties.getMaxIdleTime())
+                .evictInBackground(this.properties.getEvictionInterval())
+                .metrics(true, () -> new PoolMeterRegistrar(deploymentId))
+                .build();
+
+        var httpClient = this.httpClientFactory.apply(connectionProvider);
+
+        var h2c = this.properties.isH2cEnabled() && "h2c".equalsIgnoreCase(
+                serviceInstance.getMetadata().get(KubernetesLabels.CONTENTGRID_UPSTREAM_PROTOCOL));
+        if (h2c) {
+            // Only H2C, without HTTP/1.1: prior knowledge, no upgrade
+            httpClient = httpClient.protocol(HttpProtocol.H2C);
+        }
+
+        log.debug("Created upstream connection pool for deployment {} (h2c: {})", deploymentId, h2c);
+        return new Pool(connectionProvider, httpClient);
+    }
+
+    private record Pool(ConnectionProvider connectionProvider, HttpClient httpClient) {
+
+    }
+
+    private class PoolMeterRegistrar implements ConnectionProvider.MeterRegistrar {
+
+        private final String deployment;
+
+        PoolMeterRegistrar(DeploymentId deploymentId) {
+            this.deployment = deploymentId.toString();
+        }
+
+        @Override
+        public void registerMetrics(String poolName, String id, SocketAddress remoteAddress,
+                ConnectionPoolMetrics metrics) {
+            poolMeters.put(poolName + id, List.of(
+                    this.gauge("connections", "active", metrics, ConnectionPoolMetrics::acquiredSize),
+                    this.gauge("connections", "idle", metrics, ConnectionPoolMetrics::idleSize),
+                    this.gauge("pending", null, metrics, ConnectionPoolMetrics::pendingAcquireSize),
+                    this.gauge("max-connections", null, metrics, ConnectionPoolMetrics::maxAllocatedSize)
+            ));
+        }
+
+        @Override
+        public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+            var meters = poolMeters.remove(poolName + id);
+            if (meters != null) {
+                meters.forEach(meterRegistry::remove);
+            }
+        }
+
+        private Meter gauge(String name, String state, ConnectionPoolMetrics metrics,
+                ToIntFunction<ConnectionPoolMetrics> value) {
+            var builder = Gauge.builder(METRIC_PREFIX + name, metrics, m -> value.applyAsInt(m))
+                    .tag("deployment", this.deployment);
+            if (state != null) {
+                builder = builder.tag("state", state);
+            }
+            return builder.register(meterRegistry);
+        }
+    }
+}
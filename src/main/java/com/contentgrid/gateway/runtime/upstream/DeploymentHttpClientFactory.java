@@ -0,0 +1,65 @@
+package com.contentgrid.gateway.runtime.upstream;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.NonNull;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientFactory;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Builds {@link HttpClient}s exactly like the gateway-wide client, but on another {@link ConnectionProvider}.
+ * <p>
+ * Everything else that Spring Cloud Gateway configures on its client stays the same: SSL and trust settings, proxy,
+ * header and initial line size limits, compression, wiretap, and all {@link HttpClientCustomizer} beans.
+ */
+public class DeploymentHttpClientFactory {
+
+    private final HttpClientProperties properties;
+    private final ServerProperties serverProperties;
+    private final HttpClientSslConfigurer sslConfigurer;
+    private final List<HttpClientCustomizer> customizers;
+
+    public DeploymentHttpClientFactory(
+            @NonNull HttpClientProperties properties,
+            @NonNull ServerProperties serverProperties,
+            @NonNull HttpClientSslConfigurer sslConfigurer,
+            @NonNull List<HttpClientCustomizer> customizers
+    ) {
+        this.properties = properties;
+        this.serverProperties = serverProperties;
+        this.sslConfigurer = sslConfigurer;
+        this.customizers = List.copyOf(customizers);
+    }
+
+    public HttpClient create(@NonNull ConnectionProvider connectionProvider) {
+        // The gateway factory sorts the customizers in place, so it gets its own copy
+        return new ConnectionProviderHttpClientFactory(this.properties, this.serverProperties, this.sslConfigurer,
+                new ArrayList<>(this.customizers), connectionProvider).createHttpClient();
+    }
+
+    private static class ConnectionProviderHttpClientFactory extends HttpClientFactory {
+
+        private final ConnectionProvider connectionProvider;
+
+        ConnectionProviderHttpClientFactory(HttpClientProperties properties, ServerProperties serverProperties,
+                HttpClientSslConfigurer sslConfigurer, List<HttpClientCustomizer> customizers,
+                ConnectionProvider connectionProvider) {
+            super(properties, serverProperties, sslConfigurer, customizers);
+            this.connectionProvider = connectionProvider;
+        }
+
+        @Override
+        protected ConnectionProvider buildConnectionProvider(HttpClientProperties properties) {
+            return this.connectionProvider;
+        }
+
+        HttpClient createHttpClient() {
+            return this.createInstance();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.contentgrid.gateway.runtime.upstream;
+
+import static com.contentgrid.gateway.runtime.web.ContentGridAppRequestWebFilter.CONTENTGRID_DEPLOY_ID_ATTR;
+import static com.contentgrid.gateway.runtime.web.ContentGridAppRequestWebFilter.CONTENTGRID_SERVICE_INSTANCE_ATTR;
+import static org.springframework.cloud.gateway.support.RouteMetadataUtils.CONNECT_TIMEOUT_ATTR;
+
+import com.contentgrid.gateway.runtime.application.DeploymentId;
+import io.netty.channel.ChannelOption;
+import java.util.List;
+import lombok.NonNull;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+
+/**
+ * Routes requests to ContentGrid deployments over the connection pool of the deployment; other requests use the
+ * gateway-wide {@link HttpClient}.
+ * <p>
+ * Runs just before the regular {@link NettyRoutingFilter}, which skips the requests that were already routed here.
+ * WebSocket upgrades are left to the {@code WebsocketRoutingFilter}.
+ */
+public class DeploymentRoutingFilter extends NettyRoutingFilter {
+
+    private final DeploymentConnectionPools connectionPools;
+
+    public DeploymentRoutingFilter(
+            @NonNull HttpClient httpClient,
+            @NonNull ObjectProvider<List<HttpHeadersFilter>> headersFiltersProvider,
+            @NonNull HttpClientProperties properties,
+            @NonNull DeploymentConnectionPools connectionPools
+    ) {
+        super(httpClient, headersFiltersProvider, properties);
+        this.connectionPools = connectionPools;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if ("websocket".equalsIgnoreCase(exchange.getRequest().getHeaders().getUpgrade())) {
+            return chain.filter(exchange);
+        }
+        return super.filter(exchange, chain);
+    }
+
+    @Override
+    protected HttpClient getHttpClient(Route route, ServerWebExchange exchange) {
+        DeploymentId deploymentId = exchange.getAttribute(CONTENTGRID_DEPLOY_ID_ATTR);
+        ServiceInstance serviceInstance = exchange.getAttribute(CONTENTGRID_SERVICE_INSTANCE_ATTR);
+        if (deploymentId == null || serviceInstance == null) {
+            return super.getHttpClient(route, exchange);
+        }
+        var httpClient = this.connectionPools.getHttpClient(deploymentId, serviceInstance);
+
+        var connectTimeout = route.getMetadata().get(CONNECT_TIMEOUT_ATTR);
+        if (connectTimeout != null) {
+            httpClient = httpClient.option(ChannelOption.CONNECT_TIMEOUT_MILLIS,
+                    connectTimeout instanceof Integer timeout ? timeout : Integer.parseInt(connectTimeout.toString()));
+        }
+        return httpClient;
+    }
+
+    @Override
+    public int getOrder() {
+        // the same order as the WebsocketRoutingFilter, which handles the requests that are skipped here
+        return NettyRoutingFilter.ORDER - 1;
+    }
+}
@@ -0,0 +1,43 @@
+package com.contentgrid.gateway.runtime.upstream;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties("contentgrid.gateway.runtime-platform.connection-pool")
+public class UpstreamConnectionPoolProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * Maximum number of connections to a single deployment
+     */
+    private int maxConnections = 100;
+
+    /**
+     * Maximum number of requests waiting for a connection to a single deployment; -1 for no limit
+     */
+    private int pendingAcquireMaxCount = 200;
+
+    /**
+     * How long a request waits for a connection before it fails
+     */
+    private Duration pendingAcquireTimeout = Duration.ofSeconds(5);
+
+    /**
+     * Connections that are idle for this long are closed
+     */
+    private Duration maxIdleTime = Duration.ofSeconds(30);
+
+    /**
+     * Interval for closing idle connections in the background
+     */
+    private Duration evictionInterval = Duration.ofSeconds(30);
+
+    /**
+     * Use HTTP/2 cleartext with prior knowledge for deployments whose service has the
+     * {@code app.contentgrid.com/upstream-protocol: h2c} label
+     */
+    private boolean h2cEnabled = false;
+}
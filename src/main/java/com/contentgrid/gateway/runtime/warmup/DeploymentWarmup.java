@@ -0,0 +1,183 @@
+package com.contentgrid.gateway.runtime.warmup;
+
+import com.contentgrid.gateway.runtime.servicediscovery.ServiceAddedHandler;
+import com.contentgrid.gateway.runtime.servicediscovery.ServiceDeletedHandler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.util.StringUtils;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+
+/**
+ * Prepares newly discovered deployments for traffic.
+ * <p>
+ * When a deployment is discovered, for example during a blue/green switch, the {@link HttpClient} that routes to it is
+ * warmed up, so the first real request does not pay for resolving its host or loading TLS. When configured, pooled
+ * connections are opened and warm-up requests are sent to it over the same client, so they end up in the
+ * connection pool that routing uses. Afterwards, the deployment has a slow-start weight that grows from
+ * {@link DeploymentWarmupProperties.SlowStart#getMinWeight()} to 1 over the slow-start window, which the
+ * {@link com.contentgrid.gateway.runtime.routing.SimpleRuntimeServiceInstanceSelector} uses to ramp traffic onto it.
+ * <p>
+ * Deployments that are already there when the gateway starts are not warmed up, and get their full weight at once.
+ */
+@Slf4j
+public class DeploymentWarmup implements ServiceAddedHandler, ServiceDeletedHandler {
+
+    private static final String METRIC_PREFIX = "contentgrid.gateway.warmup.";
+
+    /**
+     * Discovery moment of services that were part of the initial service discovery
+     */
+    private static final Instant INITIAL = Instant.MIN;
+
+    private final Function<ServiceInstance, HttpClient> httpClients;
+    private final DeploymentWarmupProperties properties;
+
+    /**
+     * Moment every known service instance was discovered, by instance id
+     */
+    private final Map<String, Instant> discoveredAt = new ConcurrentHashMap<>();
+
+    private volatile boolean initialServicesDiscovered;
+
+    private final Counter warmupSuccess;
+    private final Counter warmupFailure;
+    private final Timer slowStartFirstByte;
+    private final Timer steadyFirstByte;
+
+    @Setter
+    @NonNull
+    private Clock clock = Clock.systemUTC();
+
+    /**
+     * @param httpClients the client that routes requests to a service instance
+     */
+    public DeploymentWarmup(@NonNull Function<ServiceInstance, HttpClient> httpClients,
+            @NonNull DeploymentWarmupProperties properties, @NonNull MeterRegistry meterRegistry) {
+        if ((properties.getConnections() > 0 || properties.getRequests() > 0)
+                && !StringUtils.hasText(properties.getPath())) {
+            throw new IllegalArgumentException("A warm-up path is required to open connections or send requests");
+        }
+        this.httpClients = httpClients;
+        this.properties = properties;
+
+        this.warmupSuccess = Counter.builder(METRIC_PREFIX + "requests")
+                .description("Warm-up requests to newly discovered deployments")
+                .tag("outcome", "success")
+                .register(meterRegistry);
+        this.warmupFailure = Counter.builder(METRIC_PREFIX + "requests")
+                .description("Warm-up requests to newly discovered deployments")
+                .tag("outcome", "failure")
+                .register(meterRegistry);
+        this.slowStartFirstByte = Timer.builder(METRIC_PREFIX + "time-to-first-byte")
+                .description("Time until the upstream starts responding, for deployments in and after slow start")
+                .tag("phase", "slow-start")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.steadyFirstByte = Timer.builder(METRIC_PREFIX + "time-to-first-byte")
+                .description("Time until the upstream starts responding, for deployments in and after slow start")
+                .tag("phase", "steady")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Marks the end of the initial service discovery; services that are discovered later are warmed up
+     */
+    public void initialServicesDiscovered() {
+        this.initialServicesDiscovered = true;
+    }
+
+    @Override
+    public void handleServiceAdded(ServiceInstance service) {
+        if (!this.initialServicesDiscovered) {
+            this.discoveredAt.putIfAbsent(service.getInstanceId(), INITIAL);
+            return;
+        }
+        if (this.discoveredAt.putIfAbsent(service.getInstanceId(), this.clock.instant()) != null) {
+            // An update of a service that is already known
+            return;
+        }
+        this.warmUp(service).subscribe();
+    }
+
+    @Override
+    public void handleServiceDeleted(ServiceInstance service) {
+        this.discoveredAt.remove(service.getInstanceId());
+    }
+
+    /**
+     * @return the share of traffic that the service instance should get, between the minimum weight and 1
+     */
+    public double getWeight(@NonNull ServiceInstance service) {
+        var since = this.discoveredAt.get(service.getInstanceId());
+        var slowStart = this.properties.getSlowStart();
+        if (since == null || since == INITIAL || slowStart.getWindow().isZero()) {
+            return 1.0;
+        }
+        var elapsed = Duration.between(since, this.clock.instant());
+        if (elapsed.compareTo(slowStart.getWindow()) >= 0) {
+            return 1.0;
+        }
+        var timeFactor = (double) Math.max(0, elapsed.toMillis()) / slowStart.getWindow().toMillis();
+        return Math.max(slowStart.getMinWeight(), Math.pow(timeFactor, 1.0 / slowStart.getAggression()));
+    }
+
+    void recordTimeToFirstByte(boolean slowStart, long nanos) {
+        (slowStart ? this.slowStartFirstByte : this.steadyFirstByte).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    Mono<Void> warmUp(ServiceInstance service) {
+        var httpClient = this.httpClients.apply(service);
+        var connections = this.properties.getConnections();
+        var requests = this.properties.getRequests();
+        if (connections <= 0 && requests <= 0) {
+            log.debug("Warming up client of {}", service.getServiceId());
+            return httpClient.warmup()
+                    .onErrorResume(error -> {
+                        log.debug("Warming up client of {} failed: {}", service.getServiceId(), error.getMessage());
+                        return Mono.empty();
+                    });
+        }
+
+        var uri = UriComponentsBuilder.newInstance()
+                .scheme(service.isSecure() ? "https" : "http")
+                .host(service.getHost())
+                .port(service.getPort())
+                .path(this.properties.getPath())
+                .build()
+                .toUri();
+
+        // Reactor Netty only opens a pooled connection to send a request on it: concurrent requests open the
+        // connections, the others reuse them
+        log.debug("Warming up {} with {} connections and {} requests to {}", service.getServiceId(), connections,
+                requests, uri);
+        return Flux.range(0, Math.max(connections, requests))
+                .flatMap(i -> httpClient.get()
+                                .uri(uri)
+                                .responseSingle((response, body) -> body.asByteArray().then(Mono.just(response.status())))
+                                .timeout(this.properties.getTimeout())
+                                .doOnNext(status -> this.warmupSuccess.increment())
+                                .onErrorResume(error -> {
+                                    log.debug("Warm-up request to {} failed: {}", uri, error.getMessage());
+                                    this.warmupFailure.increment();
+                                    return Mono.empty();
+                                }),
+                        Math.max(1, connections))
+                .then();
+    }
+}
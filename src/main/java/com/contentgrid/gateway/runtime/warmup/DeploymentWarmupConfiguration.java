@@ -0,0 +1,48 @@
+package com.contentgrid.gateway.runtime.warmup;
+
+import com.contentgrid.gateway.runtime.application.ContentGridDeploymentMetadata;
+import com.contentgrid.gateway.runtime.application.ServiceCatalog;
+import com.contentgrid.gateway.runtime.upstream.DeploymentConnectionPools;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.http.client.HttpClient;
+
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty({"contentgrid.gateway.runtime-platform.enabled", "contentgrid.gateway.runtime-platform.warmup.enabled"})
+@EnableConfigurationProperties(DeploymentWarmupProperties.class)
+public class DeploymentWarmupConfiguration {
+
+    @Bean
+    DeploymentWarmup deploymentWarmup(HttpClient httpClient, ObjectProvider<DeploymentConnectionPools> connectionPools,
+            ContentGridDeploymentMetadata deploymentMetadata, DeploymentWarmupProperties properties,
+            ServiceCatalog serviceCatalog, MeterRegistry meterRegistry) {
+        var pools = connectionPools.getIfAvailable();
+        var warmup = new DeploymentWarmup(service -> pools == null ? httpClient : deploymentMetadata
+                .getDeploymentId(service)
+                .map(deploymentId -> pools.getHttpClient(deploymentId, service))
+                .orElse(httpClient), properties, meterRegistry);
+        serviceCatalog.addServiceAddedHandler(warmup);
+        serviceCatalog.addServiceDeletedHandler(warmup);
+        return warmup;
+    }
+
+    /**
+     * Service discovery starts from an application runner, so the initial services are known once the application
+     * is ready
+     */
+    @Bean
+    ApplicationListener<ApplicationReadyEvent> deploymentWarmupInitialServices(DeploymentWarmup warmup) {
+        return event -> warmup.initialServicesDiscovered();
+    }
+
+    @Bean
+    WarmupGatewayFilter warmupGatewayFilter(DeploymentWarmup warmup) {
+        return new WarmupGatewayFilter(warmup);
+    }
+}
@@ -0,0 +1,55 @@
+package com.contentgrid.gateway.runtime.warmup;
+
+import java.time.Duration;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Data
+@ConfigurationProperties("contentgrid.gateway.runtime-platform.warmup")
+public class DeploymentWarmupProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * Number of pooled connections that are opened to a newly discovered deployment, each with a request to
+     * {@link #path}; without connections or requests, only the client is warmed up
+     */
+    private int connections = 0;
+
+    /**
+     * Number of warm-up requests sent to a newly discovered deployment to warm it up, spread over the pooled
+     * connections
+     */
+    private int requests = 0;
+
+    /**
+     * Path that the warm-up requests are sent to, for example a health endpoint; required for connections or requests
+     */
+    private String path;
+
+    /**
+     * Timeout of a single warm-up request
+     */
+    private Duration timeout = Duration.ofSeconds(5);
+
+    private SlowStart slowStart = new SlowStart();
+
+    @Data
+    public static class SlowStart {
+
+        /**
+         * Duration over which traffic is ramped onto a newly discovered deployment
+         */
+        private Duration window = Duration.ofSeconds(30);
+
+        /**
+         * Shape of the ramp: 1 is linear, higher values move traffic onto the deployment faster at the start
+         */
+        private double aggression = 1.0;
+
+        /**
+         * Share of traffic that a newly discovered deployment gets at the start of the ramp
+         */
+        private double minWeight = 0.1;
+    }
+}
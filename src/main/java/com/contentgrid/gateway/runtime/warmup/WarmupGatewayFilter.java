@@ -0,0 +1,52 @@
+package com.contentgrid.gateway.runtime.warmup;
+
+import static com.contentgrid.gateway.runtime.web.ContentGridAppRequestWebFilter.CONTENTGRID_SERVICE_INSTANCE_ATTR;
+import static org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER;
+
+import com.contentgrid.gateway.runtime.streaming.StreamType;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Records the time until the upstream starts responding, separately for deployments that are still in their
+ * slow-start window, so the effect of a deployment switch on response times is visible. Admitted
+ * {@link StreamType#WEBSOCKET WebSockets} are not recorded.
+ */
+@RequiredArgsConstructor
+public class WarmupGatewayFilter implements GlobalFilter, Ordered {
+
+    @NonNull
+    private final DeploymentWarmup warmup;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServiceInstance serviceInstance = exchange.getAttribute(CONTENTGRID_SERVICE_INSTANCE_ATTR);
+        if (serviceInstance == null || StreamType.of(exchange) == StreamType.WEBSOCKET) {
+            return chain.filter(exchange);
+        }
+
+        var slowStart = this.warmup.getWeight(serviceInstance) < 1.0;
+        var start = System.nanoTime();
+        var recorded = new AtomicBoolean();
+        exchange.getResponse().beforeCommit(() -> {
+            if (recorded.compareAndSet(false, true)) {
+                this.warmup.recordTimeToFirstByte(slowStart, System.nanoTime() - start);
+            }
+            return Mono.empty();
+        });
+        return chain.filter(exchange);
+    }
+
+    @Override
+    public int getOrder() {
+        // just after RuntimeDeploymentGatewayFilter
+        return LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
+    }
+}
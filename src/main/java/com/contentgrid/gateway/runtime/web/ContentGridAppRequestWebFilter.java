@@ -1,14 +1,28 @@
 package com.contentgrid.gateway.runtime.web;
 
+import com.contentgrid.gateway.observability.RequestStageTimers;
+import com.contentgrid.gateway.observability.RequestStageTimers.Stage;
 import com.contentgrid.gateway.runtime.application.ContentGridDeploymentMetadata;
 import com.contentgrid.gateway.runtime.routing.RuntimeRequestRouter;
+import com.contentgrid.gateway.runtime.routing.SynchronousRuntimeRequestRouter;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.boot.actuate.autoconfigure.security.reactive.EndpointRequest;
+import org.springframework.boot.actuate.endpoint.web.PathMappedEndpoints;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebFilter;
 import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
 import reactor.core.publisher.Mono;
 
 @Slf4j
@@ -29,59 +43,116 @@ public class ContentGridAppRequestWebFilter implements WebFilter {
     public static final String CONTENTGRID_DEPLOY_ID_ATTR = "com.contentgrid.gateway.deployment-id";
     public static final String CONTENTGRID_POLICY_PACKAGE_ATTR = "com.contentgrid.gateway.policy-package";
 
+    private static final long UNROUTED_WARNING_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
     @NonNull
     private final ContentGridDeploymentMetadata serviceMetadata;
 
     @NonNull
     private final RuntimeRequestRouter requestRouter;
 
+    /**
+     * Requests that are expected to not be routed to an application, like actuator endpoints; evaluated synchronously
+     */
+    @Setter
+    @NonNull
+    private Predicate<ServerHttpRequest> unroutedRequestMatcher = request -> false;
+
+    @Setter
+    @Nullable
+    private RequestStageTimers stageTimers;
+
+    private final AtomicLong nextUnroutedWarning = new AtomicLong(System.nanoTime() - UNROUTED_WARNING_INTERVAL_NANOS);
+    private final AtomicLong suppressedUnroutedWarnings = new AtomicLong();
+
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        if (this.requestRouter instanceof SynchronousRuntimeRequestRouter router) {
+            var start = System.nanoTime();
+            var service = router.routeSynchronously(exchange);
+            service.ifPresentOrElse(
+                    instance -> this.setAttributes(exchange, instance),
+                    () -> this.logServiceInstanceNotFound(exchange)
+            );
+            if (this.stageTimers != null) {
+                this.stageTimers.record(Stage.ROUTING, service.isPresent() ? "routed" : "unrouted", exchange,
+                        System.nanoTime() - start);
+            }
+            return chain.filter(exchange);
+        }
+
         return this.requestRouter.route(exchange)
-                .switchIfEmpty(Mono.defer(() -> this.logServiceInstanceNotFound(exchange).then(Mono.empty())))
-                .doOnNext(service ->
-                {
-                    var appId = serviceMetadata.getApplicationId(service);
-                    var deployId = serviceMetadata.getDeploymentId(service);
-                    var policyPackage = serviceMetadata.getPolicyPackage(service);
-
-                    log.debug("{} {} -> app-id: {} deploy-id: {}",
-                            exchange.getRequest().getMethod().name(), exchange.getRequest().getURI(),
-                            appId.orElse(null), deployId.orElse(null));
-
-                    var attributes = exchange.getAttributes();
-                    attributes.put(CONTENTGRID_SERVICE_INSTANCE_ATTR, service);
-                    appId.ifPresent(value -> attributes.put(CONTENTGRID_APP_ID_ATTR, value));
-                    deployId.ifPresent(value -> attributes.put(CONTENTGRID_DEPLOY_ID_ATTR, value));
-                    policyPackage.ifPresent(value -> attributes.put(CONTENTGRID_POLICY_PACKAGE_ATTR, value));
-                })
+                .switchIfEmpty(Mono.fromRunnable(() -> this.logServiceInstanceNotFound(exchange)))
+                .doOnNext(service -> this.setAttributes(exchange, service))
                 .then(chain.filter(exchange));
     }
 
+    private void setAttributes(ServerWebExchange exchange, ServiceInstance service) {
+        var appId = serviceMetadata.getApplicationId(service);
+        var deployId = serviceMetadata.getDeploymentId(service);
+        var policyPackage = serviceMetadata.getPolicyPackage(service);
+
+        log.debug("{} {} -> app-id: {} deploy-id: {}",
+                exchange.getRequest().getMethod().name(), exchange.getRequest().getURI(),
+                appId.orElse(null), deployId.orElse(null));
+
+        var attributes = exchange.getAttributes();
+        attributes.put(CONTENTGRID_SERVICE_INSTANCE_ATTR, service);
+        appId.ifPresent(value -> attributes.put(CONTENTGRID_APP_ID_ATTR, value));
+        deployId.ifPresent(value -> attributes.put(CONTENTGRID_DEPLOY_ID_ATTR, value));
+        policyPackage.ifPresent(value -> attributes.put(CONTENTGRID_POLICY_PACKAGE_ATTR, value));
+    }
+
     public static boolean isMigratedApplication(ServerWebExchange exchange) {
         return exchange.getAttribute(CONTENTGRID_SERVICE_INSTANCE_ATTR) != null
                 && exchange.getAttribute(CONTENTGRID_POLICY_PACKAGE_ATTR) == null;
     }
 
-    private Mono<?> logServiceInstanceNotFound(ServerWebExchange exchange) {
-        // EndpointRequest requires application context
-        // but application context is always null in a MockServerWebExchange (from tests)
-        if (exchange.getApplicationContext() == null) {
-            return Mono.empty();
+    private void logServiceInstanceNotFound(ServerWebExchange exchange) {
+        var request = exchange.getRequest();
+        if (this.unroutedRequestMatcher.test(request)) {
+            return;
+        }
+
+        // A scan or a misconfigured DNS record can cause a flood of these, only warn once per interval
+        var now = System.nanoTime();
+        var next = this.nextUnroutedWarning.get();
+        if (now - next < 0 || !this.nextUnroutedWarning.compareAndSet(next, now + UNROUTED_WARNING_INTERVAL_NANOS)) {
+            this.suppressedUnroutedWarnings.incrementAndGet();
+            log.debug("No service found for {} {}", request.getMethod(), request.getURI());
+            return;
         }
 
-        return EndpointRequest.toAnyEndpoint().matches(exchange)
-                .doOnNext(result -> {
-                    // if it is not an actuator request, we want to log this
-                    if (!result.isMatch()) {
-                        var method = exchange.getRequest().getMethod();
-                        var uri = exchange.getRequest().getURI();
-
-                        log.warn("No service found for {} {}", method, uri);
-                        // return HTTP 503 early here in the future ?
-                    }
-                })
-                .flatMap(result -> Mono.empty());
+        var suppressed = this.suppressedUnroutedWarnings.getAndSet(0);
+        if (suppressed > 0) {
+            log.warn("No service found for {} {} ({} similar warnings suppressed)", request.getMethod(),
+                    request.getURI(), suppressed);
+        } else {
+            log.warn("No service found for {} {}", request.getMethod(), request.getURI());
+        }
+        // return HTTP 503 early here in the future ?
+    }
+
+    /**
+     * Matches requests to actuator endpoints, with the paths of all exposed endpoints resolved once, up front
+     */
+    public static Predicate<ServerHttpRequest> actuatorRequestMatcher(PathMappedEndpoints endpoints) {
+        var patterns = new ArrayList<PathPattern>();
+        if (StringUtils.hasText(endpoints.getBasePath())) {
+            patterns.add(PathPatternParser.defaultInstance.parse(endpoints.getBasePath()));
+        }
+        for (var path : endpoints.getAllPaths()) {
+            patterns.add(PathPatternParser.defaultInstance.parse(path + "/**"));
+        }
+        return request -> {
+            var path = request.getPath().pathWithinApplication();
+            for (var pattern : patterns) {
+                if (pattern.matches(path)) {
+                    return true;
+                }
+            }
+            return false;
+        };
     }
 
 }
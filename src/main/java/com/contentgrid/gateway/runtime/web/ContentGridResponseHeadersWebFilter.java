@@ -1,7 +1,14 @@
 package com.contentgrid.gateway.runtime.web;
 
+import com.contentgrid.configuration.applications.ApplicationId;
+import com.contentgrid.gateway.runtime.streaming.StreamType;
+import com.contentgrid.gateway.runtime.traffic.ApplicationTrafficMetrics;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebFilter;
 import org.springframework.web.server.WebFilterChain;
@@ -10,6 +17,13 @@ import reactor.core.publisher.Mono;
 @Slf4j
 public class ContentGridResponseHeadersWebFilter implements WebFilter {
 
+    /**
+     * When set, the traffic of every request to an application is recorded
+     */
+    @Setter
+    @Nullable
+    private ApplicationTrafficMetrics trafficMetrics;
+
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
 
@@ -20,7 +34,32 @@ public class ContentGridResponseHeadersWebFilter implements WebFilter {
                 ContentGridAppRequestWebFilter.CONTENTGRID_DEPLOY_ID_ATTR,
                 ContentGridRuntimeHeaders.CONTENTGRID_DEPLOYMENT_ID);
 
-        return chain.filter(exchange);
+        ApplicationId applicationId = exchange.getAttribute(ContentGridAppRequestWebFilter.CONTENTGRID_APP_ID_ATTR);
+        if (this.trafficMetrics == null || applicationId == null) {
+            return chain.filter(exchange);
+        }
+
+        var trafficMetrics = this.trafficMetrics;
+        var start = System.nanoTime();
+        var errorStatus = new AtomicInteger();
+        return chain.filter(exchange)
+                .doOnError(error -> errorStatus.set(error instanceof ResponseStatusException statusException
+                        ? statusException.getStatusCode().value()
+                        : 500))
+                .doFinally(signal -> {
+                    var response = exchange.getResponse();
+                    var status = errorStatus.get() != 0 ? errorStatus.get()
+                            : response.getStatusCode() != null ? response.getStatusCode().value() : 200;
+                    var requestBytes = Math.max(exchange.getRequest().getHeaders().getContentLength(), 0);
+                    var responseBytes = Math.max(response.getHeaders().getContentLength(), 0);
+                    if (StreamType.of(exchange) != null) {
+                        // event streams and WebSockets stay open for minutes, which is not a request latency
+                        trafficMetrics.recordStream(applicationId, status, requestBytes, responseBytes);
+                    } else {
+                        trafficMetrics.record(applicationId, status, requestBytes, responseBytes,
+                                System.nanoTime() - start);
+                    }
+                });
     }
 
     private static void copyAttributeToResponseHeader(ServerWebExchange exchange, String attributeName, String headerName) {
@@ -1,57 +1,153 @@
 package com.contentgrid.gateway.security.bearer;
 
+import com.contentgrid.configuration.api.ComposedConfiguration;
+import com.contentgrid.configuration.api.observable.Observable;
+import com.contentgrid.configuration.applications.ApplicationConfiguration;
+import com.contentgrid.configuration.applications.ApplicationId;
+import com.contentgrid.gateway.observability.RequestStageTimers;
+import com.contentgrid.gateway.observability.RequestStageTimers.Stage;
 import com.contentgrid.gateway.runtime.config.ApplicationConfigurationRepository;
 import com.contentgrid.gateway.runtime.routing.ApplicationIdRequestResolver;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
-import lombok.RequiredArgsConstructor;
+import lombok.NonNull;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.DelegatingReactiveAuthenticationManager;
 import org.springframework.security.authentication.ReactiveAuthenticationManager;
 import org.springframework.security.authentication.ReactiveAuthenticationManagerResolver;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.jwt.BadJwtException;
 import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
 import org.springframework.security.oauth2.server.resource.InvalidBearerTokenException;
 import org.springframework.security.oauth2.server.resource.authentication.JwtReactiveAuthenticationManager;
 import org.springframework.web.server.ServerWebExchange;
+import reactor.core.Disposable;
 import reactor.core.publisher.Mono;
 import reactor.core.scheduler.Schedulers;
 
 @Slf4j
-@RequiredArgsConstructor
 public class DynamicJwtAuthenticationManagerResolver implements
         ReactiveAuthenticationManagerResolver<ServerWebExchange> {
 
+    private static final String METRIC_PREFIX = "contentgrid.gateway.bearer.";
+
+    /**
+     * A JWT signed with RS256 without a key id and with an invalid signature. Decoding it forces the decoder to run
+     * issuer discovery and to fetch the JWK Set, after which signature verification fails as expected.
+     */
+    private static final String WARM_UP_HEADER = base64Url("{\"alg\":\"RS256\",\"typ\":\"JWT\"}");
+
     private final ApplicationIdRequestResolver applicationIdResolver;
     private final ApplicationConfigurationRepository applicationConfigurationRepository;
+    private final MeterRegistry meterRegistry;
     @Setter
     private Consumer<JwtReactiveAuthenticationManager> authenticationManagerConfigurer = jwtReactiveAuthenticationManager -> {};
     @Setter
     private BiFunction<ReactiveAuthenticationManager, ServerWebExchange, Mono<ReactiveAuthenticationManager>> postProcessor = (authenticationManager, exchange) -> Mono.just(authenticationManager);
-    private final Map<String, Mono<ReactiveAuthenticationManager>> authenticationManagers = new ConcurrentHashMap<>();
+    /**
+     * When set, all decoders share this JWK Set cache, and warm-up fetches the JWK Set into it directly
+     */
+    @Setter
+    private SharedJwkSetCache jwkSetCache;
+    /**
+     * When set, authentication with the resolved authentication manager is recorded as a request stage
+     */
+    @Setter
+    private RequestStageTimers stageTimers;
+    private final Map<String, Mono<IssuerAuthenticationManager>> authenticationManagers = new ConcurrentHashMap<>();
+
+    /**
+     * Issuers that are referenced by each application, as observed from application configuration changes
+     */
+    private final Map<ApplicationId, Set<String>> issuersByApplication = new HashMap<>();
+
+    private final Counter warmUpSuccess;
+    private final Counter warmUpFailure;
+    private final Counter evictions;
+
+    public DynamicJwtAuthenticationManagerResolver(
+            ApplicationIdRequestResolver applicationIdResolver,
+            ApplicationConfigurationRepository applicationConfigurationRepository
+    ) {
+        this(applicationIdResolver, applicationConfigurationRepository, Metrics.globalRegistry);
+    }
+
+    public DynamicJwtAuthenticationManagerResolver(
+            @NonNull ApplicationIdRequestResolver applicationIdResolver,
+            @NonNull ApplicationConfigurationRepository applicationConfigurationRepository,
+            @NonNull MeterRegistry meterRegistry
+    ) {
+        this.applicationIdResolver = applicationIdResolver;
+        this.applicationConfigurationRepository = applicationConfigurationRepository;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder(METRIC_PREFIX + "decoders", this.authenticationManagers, Map::size)
+                .description("Number of per-issuer JWT decoders")
+                .register(meterRegistry);
+        this.warmUpSuccess = Counter.builder(METRIC_PREFIX + "decoders.warmup")
+                .description("Background JWT decoder warm-ups")
+                .tag("outcome", "success")
+                .register(meterRegistry);
+        this.warmUpFailure = Counter.builder(METRIC_PREFIX + "decoders.warmup")
+                .description("Background JWT decoder warm-ups")
+                .tag("outcome", "failure")
+                .register(meterRegistry);
+        this.evictions = Counter.builder(METRIC_PREFIX + "decoders.evicted")
+                .description("JWT decoders dropped because no application references their issuer anymore")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Follows application configuration changes: decoders for newly referenced issuers are built and warmed up in
+     * the background, decoders for issuers that are no longer referenced by any application are dropped.
+     */
+    public Disposable subscribe(Observable<ComposedConfiguration<ApplicationId, ApplicationConfiguration>> configurations) {
+        return configurations.observe()
+                .subscribe(update -> {
+                    var applicationId = update.getValue().getCompositionKey();
+                    switch (update.getType()) {
+                        case ADD, UPDATE -> this.onApplicationIssuersChanged(applicationId, update.getValue()
+                                .getConfiguration()
+                                .map(DynamicJwtAuthenticationManagerResolver::issuers)
+                                .orElseGet(Set::of));
+                        case REMOVE -> this.onApplicationIssuersChanged(applicationId, Set.of());
+                    }
+                });
+    }
 
     @Override
     public Mono<ReactiveAuthenticationManager> resolve(ServerWebExchange exchange) {
 
         return Mono.justOrEmpty(this.applicationIdResolver.resolveApplicationId(exchange))
                 .mapNotNull(this.applicationConfigurationRepository::getApplicationConfiguration)
-                .flatMapIterable(configuration -> Stream.concat(
-                        Stream.of(configuration.getIssuerUri()),
-                        configuration.getAdditionalIssuerUris().stream()
-                ).collect(Collectors.toSet()))
-                .flatMap(issuer -> this.authenticationManagers.computeIfAbsent(
+                .flatMapIterable(DynamicJwtAuthenticationManagerResolver::issuers)
+                .<ReactiveAuthenticationManager>flatMap(issuer -> this.authenticationManagers.computeIfAbsent(
                         issuer, this::createJwtAuthenticationManager))
                 .collectList()
                 .filter(Predicate.not(List::isEmpty))
                 .map(DelegatingReactiveAuthenticationManager::new)
                 .flatMap(authenticationManager -> postProcessor.apply(authenticationManager, exchange))
+                .map(authenticationManager -> this.timed(authenticationManager, exchange))
                 .checkpoint()
 
                 // could not resolve request to an app-id or related client-registration
@@ -61,25 +157,156 @@ public class DynamicJwtAuthenticationManagerResolver implements
                 }));
     }
 
+    private ReactiveAuthenticationManager timed(ReactiveAuthenticationManager authenticationManager,
+            ServerWebExchange exchange) {
+        var timers = this.stageTimers;
+        if (timers == null) {
+            return authenticationManager;
+        }
+        return authentication -> timers.time(Stage.AUTHENTICATION, exchange,
+                authenticationManager.authenticate(authentication),
+                result -> result.isAuthenticated() ? "authenticated" : "unauthenticated");
+    }
+
+    private static Set<String> issuers(ApplicationConfiguration configuration) {
+        return Stream.concat(
+                Stream.of(configuration.getIssuerUri()),
+                configuration.getAdditionalIssuerUris().stream()
+        ).filter(Objects::nonNull).collect(Collectors.toSet());
+    }
+
+    private synchronized void onApplicationIssuersChanged(ApplicationId applicationId, Set<String> issuers) {
+        if (issuers.isEmpty()) {
+            this.issuersByApplication.remove(applicationId);
+        } else {
+            this.issuersByApplication.put(applicationId, issuers);
+        }
+
+        var referencedIssuers = new HashSet<String>();
+        this.issuersByApplication.values().forEach(referencedIssuers::addAll);
+
+        for (var issuer : referencedIssuers) {
+            if (!this.authenticationManagers.containsKey(issuer)) {
+                this.warmUp(issuer);
+            }
+        }
+
+        for (var issuer : Set.copyOf(this.authenticationManagers.keySet())) {
+            if (!referencedIssuers.contains(issuer) && this.authenticationManagers.remove(issuer) != null) {
+                log.debug("Dropped JWT decoder for issuer {}: no longer referenced by any application", issuer);
+                if (this.jwkSetCache != null) {
+                    this.jwkSetCache.evictIssuer(issuer);
+                }
+                this.evictions.increment();
+            }
+        }
+    }
+
+    private void warmUp(String issuer) {
+        var authenticationManager = this.authenticationManagers.computeIfAbsent(issuer,
+                this::createJwtAuthenticationManager);
+        authenticationManager
+                .flatMap(IssuerAuthenticationManager::prefetch)
+                .subscribe(
+                        success -> {
+                            log.debug("Warmed up JWT decoder for issuer {}", issuer);
+                            this.warmUpSuccess.increment();
+                        },
+                        error -> {
+                            log.warn("Failed to warm up JWT decoder for issuer {}: {}", issuer, error.getMessage());
+                            this.warmUpFailure.increment();
+                            // The decoder caches the outcome of issuer discovery; drop it so it gets rebuilt later
+                            this.authenticationManagers.remove(issuer, authenticationManager);
+                        }
+                );
+    }
+
     // Note: this is copied from Spring Security TrustedIssuerJwtAuthenticationManagerResolver
-    private Mono<ReactiveAuthenticationManager> createJwtAuthenticationManager(String issuer) {
-        return Mono.<ReactiveAuthenticationManager>fromCallable(() -> {
-                    var authenticationManager = new JwtReactiveAuthenticationManager(
-                            createJwtDecoder(issuer));
+    private Mono<IssuerAuthenticationManager> createJwtAuthenticationManager(String issuer) {
+        var createdAt = System.nanoTime();
+        return Mono.fromCallable(() -> {
+                    var jwtDecoder = createJwtDecoder(issuer);
+                    var authenticationManager = new JwtReactiveAuthenticationManager(jwtDecoder);
                     authenticationManagerConfigurer.accept(authenticationManager);
-                    return new IssuerGatedJwtAuthenticationManager(
-                            issuer::equals,
-                            authenticationManager
+                    return new IssuerAuthenticationManager(
+                            issuer,
+                            jwtDecoder,
+                            new IssuerGatedJwtAuthenticationManager(
+                                    issuer::equals,
+                                    authenticationManager
+                            ),
+                            createdAt
                     );
                 })
                 .subscribeOn(Schedulers.boundedElastic())
                 .cache(manager -> Duration.ofMillis(Long.MAX_VALUE), ex -> Duration.ZERO, () -> Duration.ZERO);
     }
 
-    private static ReactiveJwtDecoder createJwtDecoder(String issuer) {
+    private ReactiveJwtDecoder createJwtDecoder(String issuer) {
         return ReactiveJwtDecoderBuilder.create()
                 .issuer(issuer)
+                .jwkSetCache(this.jwkSetCache)
                 .build();
     }
 
+    private static String base64Url(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Authentication manager for a single issuer, that keeps hold of its decoder for warming up and records the time
+     * until the first successful authentication
+     */
+    private class IssuerAuthenticationManager implements ReactiveAuthenticationManager {
+
+        private final String issuer;
+        private final ReactiveJwtDecoder jwtDecoder;
+        private final ReactiveAuthenticationManager delegate;
+        private final long createdAt;
+        private final String warmUpToken;
+        private final AtomicBoolean authenticated = new AtomicBoolean(false);
+        private final AtomicBoolean prefetched = new AtomicBoolean(false);
+
+        IssuerAuthenticationManager(String issuer, ReactiveJwtDecoder jwtDecoder,
+                ReactiveAuthenticationManager delegate, long createdAt) {
+            this.issuer = issuer;
+            this.jwtDecoder = jwtDecoder;
+            this.delegate = delegate;
+            this.createdAt = createdAt;
+            this.warmUpToken = WARM_UP_HEADER + "." + base64Url("{\"iss\":\"%s\"}".formatted(issuer)) + ".AA";
+        }
+
+        @Override
+        public Mono<Authentication> authenticate(Authentication authentication) {
+            if (this.authenticated.get()) {
+                return this.delegate.authenticate(authentication);
+            }
+            return this.delegate.authenticate(authentication)
+                    .doOnNext(result -> {
+                        if (this.authenticated.compareAndSet(false, true)) {
+                            Timer.builder(METRIC_PREFIX + "first-authentication")
+                                    .description("Time from creating an issuer decoder until its first successful authentication")
+                                    .tag("prefetched", Boolean.toString(this.prefetched.get()))
+                                    .register(meterRegistry)
+                                    .record(Duration.ofNanos(System.nanoTime() - this.createdAt));
+                        }
+                    });
+        }
+
+        /**
+         * Runs issuer discovery and fetches the JWK Set, so the first real request does not have to
+         */
+        Mono<Boolean> prefetch() {
+            if (jwkSetCache != null) {
+                return jwkSetCache.prefetch(this.issuer)
+                        .thenReturn(true)
+                        .doOnNext(this.prefetched::set);
+            }
+            return this.jwtDecoder.decode(this.warmUpToken)
+                    .thenReturn(true)
+                    .onErrorResume(BadJwtException.class, expected -> Mono.just(true))
+                    .doOnNext(this.prefetched::set);
+        }
+    }
+
 }
@@ -1,8 +1,16 @@
 package com.contentgrid.gateway.security.bearer;
 
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.source.JWKSecurityContextJWKSet;
+import com.nimbusds.jose.proc.JWSVerificationKeySelector;
+import com.nimbusds.jwt.SignedJWT;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.experimental.Accessors;
@@ -11,6 +19,7 @@ import org.springframework.security.oauth2.jwt.JwtValidators;
 import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
 import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder.JwkSetUriReactiveJwtDecoderBuilder;
 import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import reactor.core.publisher.Flux;
 
 @Accessors(fluent = true)
 @Setter
@@ -21,6 +30,11 @@ public class ReactiveJwtDecoderBuilder {
     private String jwkSetUri;
     private List<String> jwsAlgorithms = new ArrayList<>();
 
+    /**
+     * When set, keys are looked up in this gateway-wide cache instead of in a JWK Set cache private to the decoder
+     */
+    private SharedJwkSetCache jwkSetCache;
+
     public ReactiveJwtDecoderBuilder jwsAlgorithm(String jwsAlgorithm) {
         return jwsAlgorithms(List.of(jwsAlgorithm));
     }
@@ -31,6 +45,15 @@ public class ReactiveJwtDecoderBuilder {
     }
 
     public ReactiveJwtDecoder build() {
+        var decoder = jwkSetCache != null ? buildWithSharedJwkSetCache() : buildWithPrivateJwkSetCache();
+        var defaultValidator = issuer != null ?
+                JwtValidators.createDefaultWithIssuer(issuer) :
+                JwtValidators.createDefault();
+        decoder.setJwtValidator(defaultValidator);
+        return decoder;
+    }
+
+    private NimbusReactiveJwtDecoder buildWithPrivateJwkSetCache() {
         // Very similar to what actually happens in
         // org.springframework.boot.autoconfigure.security.oauth2.resource.reactive.ReactiveOAuth2ResourceServerJwkConfiguration.JwtConfiguration
         JwkSetUriReactiveJwtDecoderBuilder decoderBuilder = null;
@@ -46,13 +69,33 @@ public class ReactiveJwtDecoderBuilder {
             decoderBuilder.jwsAlgorithm(SignatureAlgorithm.from(jwsAlgorithm));
         }
 
-        var decoder = decoderBuilder.build();
-        var defaultValidator = issuer != null ?
-                JwtValidators.createDefaultWithIssuer(issuer) :
-                JwtValidators.createDefault();
-        decoder.setJwtValidator(defaultValidator);
-        return decoder;
+        return decoderBuilder.build();
+    }
+
+    private NimbusReactiveJwtDecoder buildWithSharedJwkSetCache() {
+        Function<SignedJWT, Flux<JWK>> jwkSource;
+        if (jwkSetUri != null) {
+            var uri = jwkSetUri;
+            jwkSource = jwt -> jwkSetCache.getKeys(uri, jwt.getHeader());
+        } else if (issuer != null) {
+            var issuerLocation = issuer;
+            jwkSource = jwt -> jwkSetCache.discoverJwkSetUri(issuerLocation)
+                    .flatMapMany(uri -> jwkSetCache.getKeys(uri, jwt.getHeader()));
+        } else {
+            throw new IllegalStateException(
+                    "Neither jwkSetUri nor issuer are provided. Can not construct a JWT decoder.");
+        }
+
+        // Same default as NimbusReactiveJwtDecoder.withJwkSetUri()
+        Set<JWSAlgorithm> algorithms = jwsAlgorithms.isEmpty() ? Set.of(JWSAlgorithm.RS256) : jwsAlgorithms.stream()
+                .map(SignatureAlgorithm::from)
+                .map(algorithm -> JWSAlgorithm.parse(algorithm.getName()))
+                .collect(Collectors.toUnmodifiableSet());
 
+        return NimbusReactiveJwtDecoder.withJwkSource(jwkSource)
+                .jwtProcessorCustomizer(processor -> processor.setJWSKeySelector(
+                        new JWSVerificationKeySelector<>(algorithms, new JWKSecurityContextJWKSet())))
+                .build();
     }
 
 }
@@ -0,0 +1,299 @@
+package com.contentgrid.gateway.security.bearer;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKMatcher;
+import com.nimbusds.jose.jwk.JWKSelector;
+import com.nimbusds.jose.jwk.JWKSet;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.net.URI;
+import java.text.ParseException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.Data;
+import lombok.NonNull;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Gateway-wide cache of JWK Sets, keyed by their {@code jwks_uri}, that is shared by all JWT decoders.
+ * <p>
+ * Every JWK Set is fetched at most once at a time (concurrent requests wait for the same fetch), refreshed in the
+ * background when it is used shortly before it expires, and kept around when a refresh fails. Tokens with a key id that
+ * is not in the cached JWK Set trigger a refetch, but at most once per {@link JwkSetCacheProperties#getUnknownKeyRefetchInterval()}
+ * for every JWK Set, so a flood of tokens with bogus key ids can not be amplified into traffic to the identity provider.
+ */
+@Slf4j
+public class SharedJwkSetCache {
+
+    private static final String METRIC_PREFIX = "contentgrid.gateway.jwks.";
+
+    private final WebClient webClient;
+    private final JwkSetCacheProperties properties;
+
+    private final Map<String, JwkSetEntry> jwkSets = new ConcurrentHashMap<>();
+    private final Map<String, Mono<String>> discoveredJwkSetUris = new ConcurrentHashMap<>();
+    private final Map<String, String> resolvedJwkSetUris = new ConcurrentHashMap<>();
+
+    private final Counter fetchSuccess;
+    private final Counter fetchFailure;
+    private final Counter unknownKeyRefetch;
+    private final Counter unknownKeyRateLimited;
+
+    @Setter
+    @NonNull
+    private Clock clock = Clock.systemUTC();
+
+    public SharedJwkSetCache(@NonNull WebClient webClient, @NonNull JwkSetCacheProperties properties,
+            @NonNull MeterRegistry meterRegistry) {
+        this.webClient = webClient;
+        this.properties = properties;
+
+        Gauge.builder(METRIC_PREFIX + "entries", this.jwkSets, Map::size)
+                .description("Number of cached JWK Sets")
+                .register(meterRegistry);
+        this.fetchSuccess = Counter.builder(METRIC_PREFIX + "fetch")
+                .tag("outcome", "success")
+                .register(meterRegistry);
+        this.fetchFailure = Counter.builder(METRIC_PREFIX + "fetch")
+                .tag("outcome", "failure")
+                .register(meterRegistry);
+        this.unknownKeyRefetch = Counter.builder(METRIC_PREFIX + "unknown-key")
+                .description("Tokens signed with a key that is not in the cached JWK Set")
+                .tag("outcome", "refetch")
+                .register(meterRegistry);
+        this.unknownKeyRateLimited = Counter.builder(METRIC_PREFIX + "unknown-key")
+                .description("Tokens signed with a key that is not in the cached JWK Set")
+                .tag("outcome", "rate-limited")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Resolves the {@code jwks_uri} of an issuer with OpenID Connect discovery, falling back to OAuth 2.0 Authorization
+     * Server Metadata. Successful lookups are cached, failed lookups are retried on the next call.
+     */
+    public Mono<String> discoverJwkSetUri(@NonNull String issuer) {
+        return this.discoveredJwkSetUris.computeIfAbsent(issuer, iss -> this.fetchJwkSetUri(iss)
+                .doOnNext(jwkSetUri -> this.resolvedJwkSetUris.put(iss, jwkSetUri))
+                .doOnError(error -> this.discoveredJwkSetUris.remove(iss))
+                .cache(uri -> Duration.ofMillis(Long.MAX_VALUE), error -> Duration.ZERO, () -> Duration.ZERO));
+    }
+
+    /**
+     * Selects the keys from the JWK Set at {@code jwkSetUri} that can verify a JWS with the given header.
+     */
+    public Flux<JWK> getKeys(@NonNull String jwkSetUri, @NonNull JWSHeader header) {
+        var matcher = JWKMatcher.forJWSHeader(header);
+        if (matcher == null) {
+            // Unsupported algorithm, no key will ever match
+            return Flux.empty();
+        }
+        var selector = new JWKSelector(matcher);
+        return this.jwkSets.computeIfAbsent(jwkSetUri, JwkSetEntry::new).select(selector);
+    }
+
+    /**
+     * Fetches the JWK Set of an issuer into the cache, unless it is already cached
+     */
+    public Mono<Void> prefetch(@NonNull String issuer) {
+        return this.discoverJwkSetUri(issuer)
+                .flatMap(jwkSetUri -> this.jwkSets.computeIfAbsent(jwkSetUri, JwkSetEntry::new).prefetch());
+    }
+
+    /**
+     * Drops everything that is cached for an issuer that is no longer trusted.
+     */
+    public void evictIssuer(@NonNull String issuer) {
+        this.discoveredJwkSetUris.remove(issuer);
+        var jwkSetUri = this.resolvedJwkSetUris.remove(issuer);
+        if (jwkSetUri != null && !this.resolvedJwkSetUris.containsValue(jwkSetUri)) {
+            this.jwkSets.remove(jwkSetUri);
+        }
+    }
+
+    private Mono<String> fetchJwkSetUri(String issuer) {
+        var oidcLocation = UriComponentsBuilder.fromUriString(issuer)
+                .path("/.well-known/openid-configuration")
+                .build(Map.of());
+        var oauthLocation = UriComponentsBuilder.fromUriString(issuer)
+                .replacePath("/.well-known/oauth-authorization-server")
+                .path(URI.create(issuer).getPath())
+                .build(Map.of());
+
+        return this.fetchMetadata(oidcLocation)
+                .onErrorResume(WebClientResponseException.class, ex -> this.fetchMetadata(oauthLocation))
+                .handle((metadata, sink) -> {
+                    if (!Objects.equals(issuer, metadata.issuer())) {
+                        sink.error(new IllegalStateException("The issuer '%s' in the provider metadata does not match the requested issuer '%s'"
+                                .formatted(metadata.issuer(), issuer)));
+                    } else if (metadata.jwkSetUri() == null) {
+                        sink.error(new IllegalStateException("The provider metadata of issuer '%s' has no jwks_uri".formatted(issuer)));
+                    } else {
+                        sink.next(metadata.jwkSetUri());
+                    }
+                });
+    }
+
+    private Mono<ProviderMetadata> fetchMetadata(URI location) {
+        return this.webClient.get()
+                .uri(location)
+                .retrieve()
+                .bodyToMono(ProviderMetadata.class)
+                .timeout(this.properties.getFetchTimeout());
+    }
+
+    private record ProviderMetadata(
+            @JsonProperty("issuer") String issuer,
+            @JsonProperty("jwks_uri") String jwkSetUri
+    ) {
+
+    }
+
+    private record CachedJwkSet(JWKSet jwkSet, Instant fetchedAt) {
+
+    }
+
+    private class JwkSetEntry {
+
+        private final String jwkSetUri;
+        private volatile CachedJwkSet cached;
+        private volatile Instant lastUnknownKeyRefetch = Instant.MIN;
+        private final AtomicReference<CompletableFuture<JWKSet>> inflight = new AtomicReference<>();
+
+        JwkSetEntry(String jwkSetUri) {
+            this.jwkSetUri = jwkSetUri;
+        }
+
+        Mono<Void> prefetch() {
+            return this.cached == null ? this.refresh().then() : Mono.empty();
+        }
+
+        Flux<JWK> select(JWKSelector selector) {
+            var current = this.cached;
+            var now = clock.instant();
+
+            if (current == null) {
+                return this.refresh().flatMapIterable(selector::select);
+            }
+
+            var expiresAt = current.fetchedAt().plus(properties.getTimeToLive());
+            if (!now.isBefore(expiresAt)) {
+                // Expired: wait for a fresh JWK Set, but keep using the old one when the identity provider is unavailable
+                return this.refresh()
+                        .onErrorResume(error -> {
+                            log.warn("Using expired JWK Set {}: {}", this.jwkSetUri, error.getMessage());
+                            return Mono.just(current.jwkSet());
+                        })
+                        .flatMapIterable(selector::select);
+            }
+
+            if (!now.isBefore(expiresAt.minus(properties.getRefreshAhead()))) {
+                // Refresh-ahead: the cached JWK Set is still valid, refresh it in the background
+                this.refresh().subscribe(jwkSet -> {}, error -> {});
+            }
+
+            List<JWK> keys = selector.select(current.jwkSet());
+            if (!keys.isEmpty()) {
+                return Flux.fromIterable(keys);
+            }
+
+            return this.refreshForUnknownKey(now)
+                    .flatMapIterable(selector::select);
+        }
+
+        private Mono<JWKSet> refreshForUnknownKey(Instant now) {
+            synchronized (this) {
+                if (now.isBefore(this.lastUnknownKeyRefetch.plus(properties.getUnknownKeyRefetchInterval()))) {
+                    unknownKeyRateLimited.increment();
+                    log.debug("Not refetching JWK Set {} for an unknown key: rate limit reached", this.jwkSetUri);
+                    return Mono.empty();
+                }
+                this.lastUnknownKeyRefetch = now;
+            }
+            unknownKeyRefetch.increment();
+            return this.refresh();
+        }
+
+        private Mono<JWKSet> refresh() {
+            var promise = new CompletableFuture<JWKSet>();
+            var existing = this.inflight.compareAndExchange(null, promise);
+            if (existing != null) {
+                // single-flight: join the fetch that is already running
+                return Mono.fromFuture(existing, true);
+            }
+
+            this.fetch().subscribe(
+                    jwkSet -> {
+                        this.cached = new CachedJwkSet(jwkSet, clock.instant());
+                        fetchSuccess.increment();
+                        this.inflight.set(null);
+                        promise.complete(jwkSet);
+                    },
+                    error -> {
+                        log.warn("Failed to fetch JWK Set {}: {}", this.jwkSetUri, error.getMessage());
+                        fetchFailure.increment();
+                        this.inflight.set(null);
+                        promise.completeExceptionally(error);
+                    }
+            );
+            return Mono.fromFuture(promise, true);
+        }
+
+        private Mono<JWKSet> fetch() {
+            return webClient.get()
+                    .uri(this.jwkSetUri)
+                    .retrieve()
+                    .bodyToMono(String.class)
+                    .timeout(properties.getFetchTimeout())
+                    .handle((body, sink) -> {
+                        try {
+                            sink.next(JWKSet.parse(body));
+                        } catch (ParseException e) {
+                            sink.error(new JwtException("Failed to parse JWK Set from %s".formatted(this.jwkSetUri), e));
+                        }
+                    });
+        }
+    }
+
+    @Data
+    @ConfigurationProperties("contentgrid.gateway.jwks-cache")
+    public static class JwkSetCacheProperties {
+
+        /**
+         * How long a fetched JWK Set is used before it has to be fetched again
+         */
+        private Duration timeToLive = Duration.ofMinutes(5);
+
+        /**
+         * A JWK Set that is used within this period before it expires is refreshed in the background
+         */
+        private Duration refreshAhead = Duration.ofSeconds(30);
+
+        /**
+         * Minimum time between refetches of a JWK Set that are caused by a token with an unknown key id
+         */
+        private Duration unknownKeyRefetchInterval = Duration.ofSeconds(30);
+
+        /**
+         * Timeout for fetching a JWK Set or provider metadata
+         */
+        private Duration fetchTimeout = Duration.ofSeconds(10);
+    }
+}
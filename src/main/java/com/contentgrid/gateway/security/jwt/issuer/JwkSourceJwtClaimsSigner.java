@@ -1,5 +1,6 @@
 package com.contentgrid.gateway.security.jwt.issuer;
 
+import com.contentgrid.gateway.observability.jfr.JwtSigningEvent;
 import com.nimbusds.jose.JOSEException;
 import com.nimbusds.jose.JOSEObjectType;
 import com.nimbusds.jose.JWSAlgorithm;
@@ -24,6 +25,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
 import java.util.Set;
+import lombok.Setter;
 import lombok.SneakyThrows;
 import org.springframework.util.ConcurrentLruCache;
 
@@ -34,6 +36,11 @@ public class JwkSourceJwtClaimsSigner implements JwtClaimsSigner {
     private final JWKSource<SecurityContext> jwkSource;
     private final Set<JWSAlgorithm> algorithms;
 
+    /**
+     * Name of the signer, only used for diagnostics
+     */
+    @Setter
+    private String name;
 
     public JwkSourceJwtClaimsSigner(JWKSource<SecurityContext> jwkSource, Set<JWSAlgorithm> algorithms) {
         this(new DefaultJWSSignerFactory(), new Random(), jwkSource, algorithms);
@@ -73,42 +80,57 @@ public class JwkSourceJwtClaimsSigner implements JwtClaimsSigner {
     @Override
     @SneakyThrows
     public SignedJWT sign(JWTClaimsSet jwtClaimsSet) {
-        var jwks = new ArrayList<>(getAllSigningKeys());
-
-        Collections.shuffle(jwks, this.random); // Randomly shuffle our keys, so we pick an arbitrary one first
-
-        Set<JWSAlgorithm> algorithmsSupportedByKeys = new HashSet<>();
-
-        for (JWK selectedKey : jwks) {
-            if (selectedKey.getExpirationTime() != null && !new Date().before(selectedKey.getExpirationTime())) {
-                // Skip retired keys
-                continue;
+        var event = new JwtSigningEvent();
+        event.begin();
+
+        event.setOutcome("error");
+        try {
+            var jwks = new ArrayList<>(getAllSigningKeys());
+
+            Collections.shuffle(jwks, this.random); // Randomly shuffle our keys, so we pick an arbitrary one first
+
+            Set<JWSAlgorithm> algorithmsSupportedByKeys = new HashSet<>();
+
+            for (JWK selectedKey : jwks) {
+                if (selectedKey.getExpirationTime() != null && !new Date().before(selectedKey.getExpirationTime())) {
+                    // Skip retired keys
+                    continue;
+                }
+
+                var selectedSigner = getJwsSigner(selectedKey);
+                algorithmsSupportedByKeys.addAll(selectedSigner.supportedJWSAlgorithms());
+                var firstSupportedAlgorithm = algorithms
+                        .stream()
+                        .filter(selectedSigner.supportedJWSAlgorithms()::contains)
+                        .findFirst();
+                if (firstSupportedAlgorithm.isEmpty()) {
+                    // Signer does not support any of the signing algorithms; continue to a next key
+                    continue;
+                }
+                event.setKeyId(selectedKey.getKeyID());
+                event.setAlgorithm(firstSupportedAlgorithm.get().getName());
+                var signedJwt = new SignedJWT(new JWSHeader.Builder(firstSupportedAlgorithm.get())
+                        .type(JOSEObjectType.JWT)
+                        .keyID(selectedKey.getKeyID())
+                        .build(),
+                        jwtClaimsSet
+                );
+                signedJwt.sign(selectedSigner);
+                event.setOutcome("signed");
+                return signedJwt;
             }
-
-            var selectedSigner = getJwsSigner(selectedKey);
-            algorithmsSupportedByKeys.addAll(selectedSigner.supportedJWSAlgorithms());
-            var firstSupportedAlgorithm = algorithms
-                    .stream()
-                    .filter(selectedSigner.supportedJWSAlgorithms()::contains)
-                    .findFirst();
-            if (firstSupportedAlgorithm.isEmpty()) {
-                // Signer does not support any of the signing algorithms; continue to a next key
-                continue;
+            event.setOutcome("no-usable-key");
+            throw new IllegalStateException(
+                    "No active signing keys support any of the configured algorithms (%s); algorithms that can be used by these keys are %s".formatted(
+                            algorithms,
+                            algorithmsSupportedByKeys
+                    ));
+        } finally {
+            if (event.shouldCommit()) {
+                event.setSigner(this.name);
+                event.commit();
             }
-            var signedJwt = new SignedJWT(new JWSHeader.Builder(firstSupportedAlgorithm.get())
-                    .type(JOSEObjectType.JWT)
-                    .keyID(selectedKey.getKeyID())
-                    .build(),
-                    jwtClaimsSet
-            );
-            signedJwt.sign(selectedSigner);
-            return signedJwt;
         }
-        throw new IllegalStateException(
-                "No active signing keys support any of the configured algorithms (%s); algorithms that can be used by these keys are %s".formatted(
-                        algorithms,
-                        algorithmsSupportedByKeys
-                ));
     }
 
     private JWSSigner getJwsSigner(JWK jwk) {
@@ -1,8 +1,10 @@
 package com.contentgrid.gateway.security.jwt.issuer;
 
+import com.contentgrid.gateway.observability.RequestStageTimers;
 import com.contentgrid.gateway.security.jwt.issuer.JwtInternalIssuerConfiguration.ContentgridGatewayJwtProperties;
 import com.contentgrid.gateway.security.jwt.issuer.actuate.JWKSetEndpoint;
 import com.nimbusds.jose.JWSAlgorithm;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.observation.ObservationRegistry;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
@@ -15,6 +17,7 @@ import lombok.Data;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -45,13 +48,18 @@ public class JwtInternalIssuerConfiguration {
     LocallyIssuedJwtGatewayFilterFactory internalJwtIssuerTokenRelayGatewayFilterFactory(
             JwtClaimsResolverLocator jwtClaimsResolverLocator,
             JwtSignerRegistry jwtSignerRegistry,
-            ObservationRegistry observationRegistry
+            ObservationRegistry observationRegistry,
+            ObjectProvider<RequestStageTimers> requestStageTimers,
+            ObjectProvider<MeterRegistry> meterRegistry
     ) {
-        return new LocallyIssuedJwtGatewayFilterFactory(
+        var factory = new LocallyIssuedJwtGatewayFilterFactory(
                 jwtClaimsResolverLocator::getRequiredClaimsResolver,
                 jwtSignerRegistry::getRequiredSigner,
                 observationRegistry
         );
+        requestStageTimers.ifAvailable(factory::setStageTimers);
+        meterRegistry.ifAvailable(factory::setMeterRegistry);
+        return factory;
     }
 
     @Bean
@@ -1,10 +1,15 @@
 package com.contentgrid.gateway.security.jwt.issuer;
 
+import com.contentgrid.gateway.observability.RequestStageTimers;
 import com.contentgrid.gateway.security.jwt.issuer.LocallyIssuedJwtGatewayFilterFactory.Config;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import io.micrometer.observation.ObservationRegistry;
 import java.util.List;
 import java.util.function.Function;
 import lombok.Data;
+import lombok.NonNull;
+import lombok.Setter;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.GatewayFilterFactory;
 import org.springframework.cloud.gateway.support.AbstractConfigurable;
@@ -18,6 +23,11 @@ public class LocallyIssuedJwtGatewayFilterFactory extends AbstractConfigurable<C
     private final Function<String, JwtClaimsResolver> claimsResolverLocator;
     private final Function<String, JwtClaimsSigner> signerLocator;
     private final ObservationRegistry observationRegistry;
+    @Setter
+    private RequestStageTimers stageTimers;
+    @Setter
+    @NonNull
+    private MeterRegistry meterRegistry = Metrics.globalRegistry;
 
     public LocallyIssuedJwtGatewayFilterFactory(
             Function<String, JwtClaimsResolver> claimsResolverLocator,
@@ -46,7 +56,11 @@ public class LocallyIssuedJwtGatewayFilterFactory extends AbstractConfigurable<C
         Assert.notNull(signer, "No signer found with name %s".formatted(config.getSigner()));
 
         var signedJwtIssuer = new SignedJwtIssuer(signer, claimsResolver);
-        return new LocallyIssuedJwtGatewayFilter(new ObservationJwtIssuer(observationRegistry, signedJwtIssuer)) {
+        JwtIssuer issuer = new ObservationJwtIssuer(observationRegistry, signedJwtIssuer, meterRegistry);
+        if (stageTimers != null) {
+            issuer = new TimedJwtIssuer(stageTimers, issuer);
+        }
+        return new LocallyIssuedJwtGatewayFilter(issuer) {
             @Override
             public String toString() {
                 return GatewayToStringStyler.filterToStringCreator(this)
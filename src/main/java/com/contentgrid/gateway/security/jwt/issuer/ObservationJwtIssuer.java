@@ -1,18 +1,25 @@
 package com.contentgrid.gateway.security.jwt.issuer;
 
 import com.nimbusds.jose.jwk.JWKSet;
+import io.micrometer.common.KeyValue;
 import io.micrometer.common.KeyValues;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.micrometer.observation.Observation;
 import io.micrometer.observation.Observation.Context;
 import io.micrometer.observation.ObservationConvention;
 import io.micrometer.observation.ObservationRegistry;
 import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
+import java.security.Principal;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Supplier;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
-import lombok.RequiredArgsConstructor;
+import lombok.NonNull;
 import lombok.Setter;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.core.OAuth2Token;
@@ -21,16 +28,51 @@ import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-@RequiredArgsConstructor
+/**
+ * Observes the issuing of substitution tokens.
+ * <p>
+ * The remaining validity of the incoming and the outgoing token is recorded as a histogram on every issued token. No
+ * observation is started when nothing handles it, and the token timestamps are attached as high cardinality key values
+ * that are only formatted when a handler reads them, so they do not add to the cost of every request. Requests without
+ * a principal are observed as well, marked as anonymous.
+ */
 public class ObservationJwtIssuer implements JwtIssuer {
 
+    private static final String METRIC_PREFIX = "contentgrid.gateway.jwt-issuer.";
+
     private final ObservationRegistry registry;
 
     private final JwtIssuer delegate;
 
+    private final Timer incomingTokenValidity;
+    private final Timer outgoingTokenValidity;
+
     @Setter
     private ObservationConvention<JwtIssuerContext> convention = new ContextObservationConvention();
 
+    @Setter
+    @NonNull
+    private Clock clock = Clock.systemUTC();
+
+    public ObservationJwtIssuer(
+            @NonNull ObservationRegistry registry,
+            @NonNull JwtIssuer delegate,
+            @NonNull MeterRegistry meterRegistry
+    ) {
+        this.registry = registry;
+        this.delegate = delegate;
+        this.incomingTokenValidity = Timer.builder(METRIC_PREFIX + "token.remaining-validity")
+                .description("Remaining validity of tokens when a substitution token is issued")
+                .tag("token", "incoming")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.outgoingTokenValidity = Timer.builder(METRIC_PREFIX + "token.remaining-validity")
+                .description("Remaining validity of tokens when a substitution token is issued")
+                .tag("token", "outgoing")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
     @Override
     public JWKSet getJwkSet() {
         return delegate.getJwkSet();
@@ -38,26 +80,55 @@ public class ObservationJwtIssuer implements JwtIssuer {
 
     @Override
     public Mono<OAuth2Token> issueSubstitutionToken(ServerWebExchange exchange) {
-        var context = new JwtIssuerContext();
-        return exchange.getPrincipal().doOnNext(principal -> {
-            if (principal instanceof Authentication authentication) {
-                findExpirationTime(authentication).ifPresent(context::setExpirationTime);
-            }
-        }).then(
-                Mono.deferContextual(contextView -> {
+        return exchange.<Principal>getPrincipal()
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(principal -> Mono.deferContextual(contextView -> {
+                    var expirationTime = principal
+                            .filter(Authentication.class::isInstance)
+                            .flatMap(authentication -> findExpirationTime((Authentication) authentication))
+                            .orElse(null);
+                    // The delegate needs the principal as well; hand it the one that is already resolved
+                    var principalExchange = principal
+                            .map(resolved -> exchange.mutate().principal(Mono.just(resolved)).build())
+                            .orElse(exchange);
+                    var issued = this.delegate.issueSubstitutionToken(principalExchange)
+                            .doOnNext(token -> this.recordValidity(expirationTime, token));
+
+                    var context = new JwtIssuerContext();
+                    context.setAnonymous(principal.isEmpty());
+                    context.setExpirationTime(expirationTime);
                     Observation observation = Observation.createNotStarted(this.convention, () -> context,
                                     this.registry)
-                            .parentObservation(contextView.getOrDefault(ObservationThreadLocalAccessor.KEY, null))
-                            .start();
-                    return this.delegate.issueSubstitutionToken(exchange).doOnSuccess(result -> {
+                            .parentObservation(contextView.getOrDefault(ObservationThreadLocalAccessor.KEY, null));
+                    if (observation.isNoop()) {
+                        return issued;
+                    }
+
+                    observation.start();
+                    return issued.doOnSuccess(result -> {
                         context.setToken(result);
                         observation.stop();
                     }).doOnCancel(observation::stop).doOnError(t -> {
                         observation.error(t);
                         observation.stop();
                     });
-                })
-        );
+                }));
+    }
+
+    private void recordValidity(Instant incomingExpirationTime, OAuth2Token token) {
+        var now = this.clock.instant();
+        if (incomingExpirationTime != null) {
+            this.incomingTokenValidity.record(remaining(now, incomingExpirationTime));
+        }
+        if (token.getExpiresAt() != null) {
+            this.outgoingTokenValidity.record(remaining(now, token.getExpiresAt()));
+        }
+    }
+
+    private static Duration remaining(Instant now, Instant expirationTime) {
+        var remaining = Duration.between(now, expirationTime);
+        return remaining.isNegative() ? Duration.ZERO : remaining;
     }
 
     private Optional<Instant> findExpirationTime(Authentication authentication) {
@@ -76,6 +147,7 @@ public class ObservationJwtIssuer implements JwtIssuer {
     private static class JwtIssuerContext extends Context {
         private Instant expirationTime;
         private OAuth2Token token;
+        private boolean anonymous;
     }
 
     private static class ContextObservationConvention implements ObservationConvention<JwtIssuerContext> {
@@ -90,12 +162,38 @@ public class ObservationJwtIssuer implements JwtIssuer {
             return "jwt-issuer";
         }
 
+        @Override
+        public KeyValues getLowCardinalityKeyValues(JwtIssuerContext context) {
+            return KeyValues.of("principal", context.isAnonymous() ? "anonymous" : "authenticated");
+        }
+
         @Override
         public KeyValues getHighCardinalityKeyValues(JwtIssuerContext context) {
-            return KeyValues.of("incomingToken.expirationTime", Objects.toString(context.getExpirationTime()))
-                    .and("outgoingToken.issued", Boolean.toString(context.getToken() != null))
-                    .and("outgoingToken.expirationTime", Objects.toString(context.getToken() != null ? context.getToken().getExpiresAt() : null))
-                    .and("outgoingToken.issuedAt", Objects.toString(context.getToken() != null ? context.getToken().getIssuedAt() : null));
+            return KeyValues.of(
+                    new LazyKeyValue("incomingToken.expirationTime",
+                            () -> Objects.toString(context.getExpirationTime())),
+                    new LazyKeyValue("outgoingToken.issued", () -> Boolean.toString(context.getToken() != null)),
+                    new LazyKeyValue("outgoingToken.expirationTime", () -> Objects.toString(
+                            context.getToken() != null ? context.getToken().getExpiresAt() : null)),
+                    new LazyKeyValue("outgoingToken.issuedAt", () -> Objects.toString(
+                            context.getToken() != null ? context.getToken().getIssuedAt() : null))
+            );
+        }
+    }
+
+    /**
+     * Key value that is only formatted when a handler reads it
+     */
+    private record LazyKeyValue(String key, Supplier<String> value) implements KeyValue {
+
+        @Override
+        public String getKey() {
+            return this.key;
+        }
+
+        @Override
+        public String getValue() {
+            return this.value.get();
         }
     }
 }
@@ -80,7 +80,9 @@ class PropertiesBasedJwtSignerRegistry implements JwtSignerRegistry {
                             getJwkSourceMap().keySet()));
         }
 
-        return new JwkSourceJwtClaimsSigner(getJwkSourceMap().get(signerName), gatewayJwtProperties.getSigners().get(signerName).getAlgorithms());
+        var signer = new JwkSourceJwtClaimsSigner(getJwkSourceMap().get(signerName), gatewayJwtProperties.getSigners().get(signerName).getAlgorithms());
+        signer.setName(signerName);
+        return signer;
     }
 
 }
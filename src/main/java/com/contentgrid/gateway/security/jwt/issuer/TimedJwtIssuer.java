@@ -0,0 +1,34 @@
+package com.contentgrid.gateway.security.jwt.issuer;
+
+import com.contentgrid.gateway.observability.RequestStageTimers;
+import com.contentgrid.gateway.observability.RequestStageTimers.Stage;
+import com.nimbusds.jose.jwk.JWKSet;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.oauth2.core.OAuth2Token;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Records issuing a substitution token as the {@link Stage#TOKEN_ISSUING token issuing} request stage
+ */
+@RequiredArgsConstructor
+public class TimedJwtIssuer implements JwtIssuer {
+
+    @NonNull
+    private final RequestStageTimers stageTimers;
+
+    @NonNull
+    private final JwtIssuer delegate;
+
+    @Override
+    public JWKSet getJwkSet() {
+        return this.delegate.getJwkSet();
+    }
+
+    @Override
+    public Mono<OAuth2Token> issueSubstitutionToken(ServerWebExchange exchange) {
+        return this.stageTimers.time(Stage.TOKEN_ISSUING, exchange, this.delegate.issueSubstitutionToken(exchange),
+                token -> "issued");
+    }
+}
@@ -0,0 +1,72 @@
+package com.contentgrid.gateway.security.jwt.issuer.encrypt;
+
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import lombok.NonNull;
+import org.springframework.security.crypto.encrypt.BytesEncryptor;
+
+/**
+ * AES-GCM encryption with a random 96-bit IV that is prepended to the ciphertext.
+ * <p>
+ * Unlike {@link org.springframework.security.crypto.encrypt.AesBytesEncryptor}, which synchronizes all callers on a
+ * single {@link Cipher}, every thread reuses its own {@link Cipher} instance.
+ * Because GCM is authenticated, decrypting with the wrong key or tampered data fails with an {@link IllegalStateException}.
+ */
+public class AesGcmBytesEncryptor implements BytesEncryptor {
+
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH_BITS = 128;
+
+    private static final ThreadLocal<Cipher> CIPHERS = ThreadLocal.withInitial(() -> {
+        try {
+            return Cipher.getInstance(TRANSFORMATION);
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            throw new IllegalStateException("Unable to create cipher " + TRANSFORMATION, e);
+        }
+    });
+
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
+    private final SecretKey secretKey;
+
+    public AesGcmBytesEncryptor(@NonNull SecretKey secretKey) {
+        this.secretKey = secretKey;
+    }
+
+    @Override
+    public byte[] encrypt(byte[] byteArray) {
+        var iv = new byte[IV_LENGTH];
+        SECURE_RANDOM.nextBytes(iv);
+        try {
+            var cipher = CIPHERS.get();
+            cipher.init(Cipher.ENCRYPT_MODE, this.secretKey, new GCMParameterSpec(TAG_LENGTH_BITS, iv));
+            var encrypted = new byte[IV_LENGTH + cipher.getOutputSize(byteArray.length)];
+            System.arraycopy(iv, 0, encrypted, 0, IV_LENGTH);
+            cipher.doFinal(byteArray, 0, byteArray.length, encrypted, IV_LENGTH);
+            return encrypted;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to encrypt", e);
+        }
+    }
+
+    @Override
+    public byte[] decrypt(byte[] encryptedByteArray) {
+        if (encryptedByteArray.length < IV_LENGTH + TAG_LENGTH_BITS / 8) {
+            throw new IllegalStateException("Encrypted data is too short");
+        }
+        try {
+            var cipher = CIPHERS.get();
+            cipher.init(Cipher.DECRYPT_MODE, this.secretKey,
+                    new GCMParameterSpec(TAG_LENGTH_BITS, encryptedByteArray, 0, IV_LENGTH));
+            return cipher.doFinal(encryptedByteArray, IV_LENGTH, encryptedByteArray.length - IV_LENGTH);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to decrypt", e);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.contentgrid.gateway.security.jwt.issuer.encrypt;
+
+import java.util.Arrays;
+import java.util.Optional;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Format of the ciphertexts that are produced by {@link PropertiesBasedTextEncryptorFactory}.
+ * <p>
+ * Ciphertexts in all formats can always be decrypted, so the format can be switched without invalidating data that was
+ * encrypted before.
+ */
+@RequiredArgsConstructor
+public enum CiphertextFormat {
+    /**
+     * Base64-encoded AES-CBC ciphertext without any key identifier; decryption has to try every key
+     */
+    LEGACY(null),
+
+    /**
+     * AES-CBC ciphertext, prefixed with its format and the identifier of the key it was encrypted with
+     */
+    CBC("cbc"),
+
+    /**
+     * AES-GCM ciphertext, prefixed with its format and the identifier of the key it was encrypted with
+     */
+    GCM("gcm");
+
+    @Getter
+    private final String tag;
+
+    static Optional<CiphertextFormat> fromTag(String tag) {
+        return Arrays.stream(values())
+                .filter(format -> format.tag != null && format.tag.equals(tag))
+                .findFirst();
+    }
+}
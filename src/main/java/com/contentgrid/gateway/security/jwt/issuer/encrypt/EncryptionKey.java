@@ -0,0 +1,62 @@
+package com.contentgrid.gateway.security.jwt.issuer.encrypt;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.zip.CRC32;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import lombok.Getter;
+import org.springframework.security.crypto.encrypt.AesBytesEncryptor;
+import org.springframework.security.crypto.encrypt.AesBytesEncryptor.CipherAlgorithm;
+import org.springframework.security.crypto.encrypt.TextEncryptor;
+
+/**
+ * An AES key, together with its encryptor for every {@link CiphertextFormat}.
+ * <p>
+ * The key is identified by an HMAC-SHA256 of a fixed label, keyed with the key itself, so the identifier does not
+ * expose a digest of the bare key material.
+ */
+class EncryptionKey {
+
+    private static final byte[] KEY_ID_LABEL = "contentgrid-gateway encryption key id".getBytes(StandardCharsets.UTF_8);
+    private static final int KEY_ID_BYTES = 8;
+
+    @Getter
+    private final String id;
+    private final Map<CiphertextFormat, TextEncryptor> encryptors = new EnumMap<>(CiphertextFormat.class);
+
+    EncryptionKey(byte[] secretKey) {
+        this.id = keyId(secretKey);
+        var secretKeySpec = new SecretKeySpec(secretKey, "AES");
+
+        CRC32 crc32 = new CRC32();
+        crc32.update(secretKey);
+        var checksum = ByteBuffer.allocate(Long.BYTES)
+                .putLong(crc32.getValue())
+                .array();
+
+        var cbcEncryptor = new Base64TextEncryptor(new ResultCheckedBytesEncryptor(
+                new AesBytesEncryptor(secretKeySpec, null, CipherAlgorithm.CBC), checksum));
+        encryptors.put(CiphertextFormat.LEGACY, cbcEncryptor);
+        encryptors.put(CiphertextFormat.CBC, cbcEncryptor);
+        encryptors.put(CiphertextFormat.GCM, new Base64TextEncryptor(new AesGcmBytesEncryptor(secretKeySpec)));
+    }
+
+    TextEncryptor encryptor(CiphertextFormat format) {
+        return encryptors.get(format);
+    }
+
+    private static String keyId(byte[] secretKey) {
+        try {
+            var mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secretKey, "HmacSHA256"));
+            return HexFormat.of().formatHex(mac.doFinal(KEY_ID_LABEL), 0, KEY_ID_BYTES);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.contentgrid.gateway.security.jwt.issuer.encrypt;
+
+import java.util.List;
+import java.util.Map;
+import org.springframework.security.crypto.encrypt.TextEncryptor;
+
+/**
+ * Encrypts to {@code <format>:<key id>:<ciphertext>}, so decryption can pick the right key directly.
+ * <p>
+ * Ciphertexts without a prefix are in the {@link CiphertextFormat#LEGACY} format, and are decrypted by trying every key.
+ */
+class KeyIdentifiedTextEncryptor implements TextEncryptor {
+
+    private static final char SEPARATOR = ':';
+
+    private final CiphertextFormat format;
+    private final EncryptionKey encryptionKey;
+    private final Map<String, EncryptionKey> decryptionKeys;
+    private final TextEncryptor legacyDecryptor;
+
+    KeyIdentifiedTextEncryptor(CiphertextFormat format, EncryptionKey encryptionKey,
+            Map<String, EncryptionKey> decryptionKeys) {
+        this.format = format;
+        this.encryptionKey = encryptionKey;
+        this.decryptionKeys = decryptionKeys;
+        List<TextEncryptor> legacyDecryptors = decryptionKeys.values()
+                .stream()
+                .map(key -> key.encryptor(CiphertextFormat.LEGACY))
+                .toList();
+        this.legacyDecryptor = new MultipleDecryptorsTextEncryptor(encryptionKey.encryptor(CiphertextFormat.LEGACY),
+                legacyDecryptors);
+    }
+
+    @Override
+    public String encrypt(String text) {
+        var ciphertext = encryptionKey.encryptor(format).encrypt(text);
+        if (format == CiphertextFormat.LEGACY) {
+            return ciphertext;
+        }
+        return format.getTag() + SEPARATOR + encryptionKey.getId() + SEPARATOR + ciphertext;
+    }
+
+    @Override
+    public String decrypt(String encryptedText) {
+        // The separator is not part of the base64 alphabet, so legacy ciphertexts never contain it
+        var formatEnd = encryptedText.indexOf(SEPARATOR);
+        if (formatEnd < 0) {
+            return legacyDecryptor.decrypt(encryptedText);
+        }
+        var keyIdEnd = encryptedText.indexOf(SEPARATOR, formatEnd + 1);
+        if (keyIdEnd < 0) {
+            throw new IllegalStateException("Failed to decrypt: malformed ciphertext");
+        }
+
+        var ciphertextFormat = CiphertextFormat.fromTag(encryptedText.substring(0, formatEnd))
+                .orElseThrow(() -> new IllegalStateException("Failed to decrypt: unknown ciphertext format"));
+        var keyId = encryptedText.substring(formatEnd + 1, keyIdEnd);
+        var key = decryptionKeys.get(keyId);
+        if (key == null) {
+            throw new IllegalStateException("Failed to decrypt: unknown key '%s'".formatted(keyId));
+        }
+        return key.encryptor(ciphertextFormat).decrypt(encryptedText.substring(keyIdEnd + 1));
+    }
+}
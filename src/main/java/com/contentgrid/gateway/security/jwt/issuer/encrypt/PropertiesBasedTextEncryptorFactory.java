@@ -2,53 +2,97 @@ package com.contentgrid.gateway.security.jwt.issuer.encrypt;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
-import java.nio.ByteBuffer;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
-import java.util.zip.CRC32;
-import javax.crypto.spec.SecretKeySpec;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import lombok.RequiredArgsConstructor;
-import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.ResourcePatternResolver;
-import org.springframework.security.crypto.encrypt.AesBytesEncryptor;
-import org.springframework.security.crypto.encrypt.AesBytesEncryptor.CipherAlgorithm;
-import org.springframework.security.crypto.encrypt.BytesEncryptor;
 import org.springframework.security.crypto.encrypt.TextEncryptor;
 
-@RequiredArgsConstructor
+/**
+ * Creates encryptors from AES keys in files.
+ * <p>
+ * The key files are read when the factory is created, and read again when they are older than
+ * {@link TextEncryptorProperties#getRefreshInterval()}, so rotated keys are picked up without a restart. In between,
+ * {@link #newEncryptor()} only selects one of the encryptors that were prepared for the active keys.
+ */
+@Slf4j
 public class PropertiesBasedTextEncryptorFactory implements TextEncryptorFactory {
     private final ResourcePatternResolver resourcePatternResolver;
     private final TextEncryptorProperties encryptorProperties;
     private final Random random;
 
+    private volatile LoadedKeys loadedKeys;
+
     public PropertiesBasedTextEncryptorFactory(ResourcePatternResolver resourcePatternResolver, TextEncryptorProperties properties) {
         this(resourcePatternResolver, properties, new Random());
     }
 
+    public PropertiesBasedTextEncryptorFactory(ResourcePatternResolver resourcePatternResolver,
+            TextEncryptorProperties encryptorProperties, Random random) {
+        this.resourcePatternResolver = resourcePatternResolver;
+        this.encryptorProperties = encryptorProperties;
+        this.random = random;
+        this.loadedKeys = loadKeys();
+    }
+
     @Override
-    @SneakyThrows
     public TextEncryptor newEncryptor() {
+        var encryptors = currentKeys().encryptors();
+        return encryptors.get(random.nextInt(encryptors.size()));
+    }
+
+    /**
+     * Reads the key files again
+     */
+    public synchronized void refresh() {
+        loadedKeys = loadKeys();
+    }
+
+    private LoadedKeys currentKeys() {
+        var keys = loadedKeys;
+        var refreshInterval = encryptorProperties.getRefreshInterval();
+        if (refreshInterval == null || System.nanoTime() - keys.loadedAt() < refreshInterval.toNanos()) {
+            return keys;
+        }
+        synchronized (this) {
+            if (loadedKeys == keys) {
+                try {
+                    loadedKeys = loadKeys();
+                } catch (RuntimeException e) {
+                    log.warn("Failed to reload encryption keys, keeping the current keys", e);
+                    loadedKeys = new LoadedKeys(keys.encryptors(), System.nanoTime());
+                }
+            }
+            return loadedKeys;
+        }
+    }
 
-        List<TextEncryptor> activeEncryptors = readKeys(encryptorProperties.getActiveKeys())
-                .map(this::createEncryptor)
-                .<TextEncryptor>map(Base64TextEncryptor::new)
+    private LoadedKeys loadKeys() {
+        List<EncryptionKey> activeKeys = readKeys(encryptorProperties.getActiveKeys())
+                .map(EncryptionKey::new)
                 .toList();
-        List<TextEncryptor> allEncryptors = readKeys(encryptorProperties.getAllKeys())
-                .map(this::createEncryptor)
-                .map(Base64TextEncryptor::new)
-                .collect(Collectors.toList());
-        allEncryptors.addAll(0, activeEncryptors);
 
-        var selectedEncryptor = activeEncryptors.get(random.nextInt(activeEncryptors.size()));
+        // Active keys first, so they are tried first for legacy ciphertexts; keys that are both active and in all keys are only added once
+        Map<String, EncryptionKey> decryptionKeys = new LinkedHashMap<>();
+        Stream.concat(activeKeys.stream(), readKeys(encryptorProperties.getAllKeys()).map(EncryptionKey::new))
+                .forEach(key -> decryptionKeys.putIfAbsent(key.getId(), key));
+        var unmodifiableDecryptionKeys = Collections.unmodifiableMap(decryptionKeys);
 
-        return new MultipleDecryptorsTextEncryptor(selectedEncryptor, allEncryptors);
+        List<TextEncryptor> encryptors = activeKeys.stream()
+                .<TextEncryptor>map(key -> new KeyIdentifiedTextEncryptor(encryptorProperties.getFormat(), key,
+                        unmodifiableDecryptionKeys))
+                .toList();
+        return new LoadedKeys(encryptors, System.nanoTime());
     }
 
     private Stream<byte[]> readKeys(String pathPattern) {
@@ -68,14 +112,11 @@ public class PropertiesBasedTextEncryptorFactory implements TextEncryptorFactory
         }
     }
 
-    private BytesEncryptor createEncryptor(byte[] secretKey) {
-        CRC32 crc32 = new CRC32();
-        crc32.update(secretKey);
-        var checksum = ByteBuffer.allocate(Long.BYTES)
-                .putLong(crc32.getValue())
-                .array();
+    /**
+     * One encryptor per active key, which all decrypt with every key
+     */
+    private record LoadedKeys(List<TextEncryptor> encryptors, long loadedAt) {
 
-        return new ResultCheckedBytesEncryptor(new AesBytesEncryptor(new SecretKeySpec(secretKey, "AES"), null, CipherAlgorithm.CBC), checksum);
     }
 
     @Data
@@ -84,6 +125,24 @@ public class PropertiesBasedTextEncryptorFactory implements TextEncryptorFactory
     public static class TextEncryptorProperties {
         private String activeKeys;
         private String allKeys;
+
+        /**
+         * Format of newly encrypted data; data in any format can always be decrypted
+         */
+        private CiphertextFormat format = CiphertextFormat.LEGACY;
+
+        /**
+         * How long key files are used before they are read again; {@code null} reads them only once
+         */
+        private Duration refreshInterval = Duration.ofMinutes(5);
+
+        public TextEncryptorProperties(String activeKeys, String allKeys) {
+            this(activeKeys, allKeys, CiphertextFormat.LEGACY);
+        }
+
+        public TextEncryptorProperties(String activeKeys, String allKeys, CiphertextFormat format) {
+            this(activeKeys, allKeys, format, Duration.ofMinutes(5));
+        }
     }
 
 }
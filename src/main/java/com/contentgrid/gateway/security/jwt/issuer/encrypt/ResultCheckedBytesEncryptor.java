@@ -1,5 +1,6 @@
 package com.contentgrid.gateway.security.jwt.issuer.encrypt;
 
+import com.contentgrid.gateway.observability.jfr.ClaimsEncryptionEvent;
 import java.util.Arrays;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.crypto.encrypt.BytesEncryptor;
@@ -11,18 +12,43 @@ public class ResultCheckedBytesEncryptor implements BytesEncryptor {
 
     @Override
     public byte[] encrypt(byte[] byteArray) {
-        var withVerification = new byte[byteArray.length+verificationTag.length];
-        System.arraycopy(verificationTag, 0, withVerification, 0, verificationTag.length);
-        System.arraycopy(byteArray, 0, withVerification, verificationTag.length, byteArray.length);
-        return delegate.encrypt(withVerification);
+        var event = new ClaimsEncryptionEvent();
+        event.begin();
+        byte[] encrypted = null;
+        try {
+            var withVerification = new byte[byteArray.length+verificationTag.length];
+            System.arraycopy(verificationTag, 0, withVerification, 0, verificationTag.length);
+            System.arraycopy(byteArray, 0, withVerification, verificationTag.length, byteArray.length);
+            encrypted = delegate.encrypt(withVerification);
+            return encrypted;
+        } finally {
+            commit(event, "encrypt", encrypted == null ? 0 : encrypted.length, encrypted != null);
+        }
     }
 
     @Override
     public byte[] decrypt(byte[] encryptedByteArray) {
-        var decrypted = delegate.decrypt(encryptedByteArray);
-        if(!Arrays.equals(decrypted, 0, verificationTag.length, verificationTag, 0, verificationTag.length)) {
-            throw new IllegalStateException("Verification tag does not match");
+        var event = new ClaimsEncryptionEvent();
+        event.begin();
+        var success = false;
+        try {
+            var decrypted = delegate.decrypt(encryptedByteArray);
+            if(!Arrays.equals(decrypted, 0, verificationTag.length, verificationTag, 0, verificationTag.length)) {
+                throw new IllegalStateException("Verification tag does not match");
+            }
+            success = true;
+            return Arrays.copyOfRange(decrypted, verificationTag.length, decrypted.length);
+        } finally {
+            commit(event, "decrypt", encryptedByteArray.length, success);
+        }
+    }
+
+    private static void commit(ClaimsEncryptionEvent event, String operation, int size, boolean success) {
+        if (event.shouldCommit()) {
+            event.setOperation(operation);
+            event.setSize(size);
+            event.setSuccess(success);
+            event.commit();
         }
-        return Arrays.copyOfRange(decrypted, verificationTag.length, decrypted.length);
     }
 }
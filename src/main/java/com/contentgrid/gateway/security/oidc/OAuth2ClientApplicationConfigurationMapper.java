@@ -3,13 +3,17 @@ package com.contentgrid.gateway.security.oidc;
 import com.contentgrid.configuration.api.ComposedConfiguration;
 import com.contentgrid.configuration.applications.ApplicationConfiguration;
 import com.contentgrid.configuration.applications.ApplicationId;
+import com.contentgrid.gateway.resilience.CircuitBreakerRegistry;
 import java.util.List;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
 import org.springframework.security.oauth2.client.registration.ClientRegistration;
 import org.springframework.security.oauth2.client.registration.ClientRegistrations;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 @RequiredArgsConstructor
 @Slf4j
@@ -20,22 +24,37 @@ public class OAuth2ClientApplicationConfigurationMapper implements ReactiveClien
 
     public static final List<String> DEFAULT_SCOPES = List.of("openid", "profile", "email");
 
+    /**
+     * When set, provider metadata lookups go through the circuit breaker of the identity provider
+     */
+    @Nullable
+    @Setter
+    private CircuitBreakerRegistry circuitBreakers;
 
     @Override
     public Mono<ClientRegistration> buildClientRegistration(
             @NonNull ComposedConfiguration<ApplicationId, ApplicationConfiguration> applicationConfiguration) {
 
         return this.clientRegistrationIdResolver.resolveRegistrationId(applicationConfiguration.getCompositionKey())
-                .map(clientRegistrationId -> applicationConfiguration.getConfiguration()
-                        .map(config -> ClientRegistrations
-                                .fromIssuerLocation(config.getIssuerUri())
-                                .registrationId(clientRegistrationId)
-                                .clientId(config.getClientId())
-                                .clientSecret(config.getClientSecret())
-                                .scope(DEFAULT_SCOPES)
-                                .build()
-                        )
-                )
-                .flatMap(Mono::justOrEmpty);
+                .flatMap(clientRegistrationId -> Mono.justOrEmpty(applicationConfiguration.getConfiguration())
+                        .flatMap(config -> this.guard(config.getIssuerUri(), Mono.fromCallable(() -> ClientRegistrations
+                                        .fromIssuerLocation(config.getIssuerUri())
+                                        .registrationId(clientRegistrationId)
+                                        .clientId(config.getClientId())
+                                        .clientSecret(config.getClientSecret())
+                                        .scope(DEFAULT_SCOPES)
+                                        .build())
+                                // Provider metadata is fetched with a blocking RestTemplate; keep it off the event loop,
+                                // so the circuit breaker timeout can cancel it
+                                .subscribeOn(Schedulers.boundedElastic())
+                        ))
+                );
+    }
+
+    private Mono<ClientRegistration> guard(String issuer, Mono<ClientRegistration> clientRegistration) {
+        if (this.circuitBreakers == null || issuer == null) {
+            return clientRegistration;
+        }
+        return this.circuitBreakers.identityProvider(issuer).run(clientRegistration);
     }
 }
@@ -1,5 +1,6 @@
 package com.contentgrid.gateway.security.oidc;
 
+import com.contentgrid.gateway.resilience.CircuitBreakerRegistry;
 import com.contentgrid.gateway.security.refresh.AuthenticationRefresher;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.ObjectProvider;
@@ -30,7 +31,8 @@ class OidcClientConfiguration {
             @Autowired(required = false) ServerOAuth2AuthorizedClientRepository authorizedClientRepository,
             ObjectProvider<ReactiveOAuth2AccessTokenResponseClient<OAuth2RefreshTokenGrantRequest>> accessTokenResponseClient,
             ObjectProvider<ReactiveOAuth2UserService<OidcUserRequest, OidcUser>> userService,
-            ObjectProvider<GrantedAuthoritiesMapper> grantedAuthoritiesMapper
+            ObjectProvider<GrantedAuthoritiesMapper> grantedAuthoritiesMapper,
+            ObjectProvider<CircuitBreakerRegistry> circuitBreakerRegistry
     ) {
         if(authorizedClientRepository == null) {
             return null;
@@ -41,6 +43,7 @@ class OidcClientConfiguration {
                 userService.getIfAvailable(OidcReactiveOAuth2UserService::new)
         );
         grantedAuthoritiesMapper.ifAvailable(tokenRefresher::setAuthoritiesMapper);
+        circuitBreakerRegistry.ifAvailable(tokenRefresher::setCircuitBreakers);
         return tokenRefresher;
     }
 
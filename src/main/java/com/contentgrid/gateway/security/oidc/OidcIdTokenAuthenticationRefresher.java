@@ -1,11 +1,17 @@
 package com.contentgrid.gateway.security.oidc;
 
+import com.contentgrid.gateway.observability.jfr.OidcRefreshEvent;
+import com.contentgrid.gateway.resilience.CallNotPermittedException;
+import com.contentgrid.gateway.resilience.CircuitBreakerRegistry;
 import com.contentgrid.gateway.security.refresh.AuthenticationRefresher;
 import java.time.Clock;
 import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
+import org.springframework.lang.Nullable;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.mapping.GrantedAuthoritiesMapper;
 import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
@@ -20,6 +26,7 @@ import org.springframework.security.oauth2.client.web.server.ServerOAuth2Authori
 import org.springframework.security.oauth2.core.OAuth2AuthenticationException;
 import org.springframework.security.oauth2.core.OAuth2AuthorizationException;
 import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2ErrorCodes;
 import org.springframework.security.oauth2.core.endpoint.OAuth2AccessTokenResponse;
 import org.springframework.security.oauth2.core.oidc.OidcIdToken;
 import org.springframework.security.oauth2.core.oidc.endpoint.OidcParameterNames;
@@ -30,6 +37,20 @@ import reactor.core.publisher.Mono;
 
 @RequiredArgsConstructor
 public class OidcIdTokenAuthenticationRefresher implements AuthenticationRefresher {
+
+    /**
+     * Token endpoint errors that are an answer about this client or refresh token, not a sign of an unhealthy
+     * identity provider
+     */
+    private static final Set<String> CLIENT_ERROR_CODES = Set.of(
+            OAuth2ErrorCodes.INVALID_GRANT,
+            OAuth2ErrorCodes.INVALID_CLIENT,
+            OAuth2ErrorCodes.INVALID_REQUEST,
+            OAuth2ErrorCodes.INVALID_SCOPE,
+            OAuth2ErrorCodes.UNAUTHORIZED_CLIENT,
+            OAuth2ErrorCodes.UNSUPPORTED_GRANT_TYPE
+    );
+
     @NonNull
     private final ServerOAuth2AuthorizedClientRepository authorizedClientRepository;
 
@@ -55,18 +76,38 @@ public class OidcIdTokenAuthenticationRefresher implements AuthenticationRefresh
     @Setter
     private Clock clock = Clock.systemUTC();
 
+    /**
+     * When set, token refreshes go through the circuit breaker of the identity provider; while it is open or the
+     * refresh times out, the refresh fails immediately and the user has to log in again
+     */
+    @Nullable
+    @Setter
+    private CircuitBreakerRegistry circuitBreakers;
+
     @Override
     public Mono<Authentication> refresh(Authentication authentication, ServerWebExchange exchange) {
-        if(authentication instanceof OAuth2AuthenticationToken oAuth2AuthenticationToken &&  oAuth2AuthenticationToken.getPrincipal() instanceof OidcUser oidcUser) {
-            if(shouldTokenBeRefreshed(oidcUser.getIdToken())) {
-                return doRefresh(oAuth2AuthenticationToken, exchange).checkpoint("OidcIdTokenAuthenticationRefresher");
-            } else {
-                return Mono.just(authentication);
-            }
+        if(isUpToDate(authentication)) {
+            return Mono.just(authentication);
+        }
+        if(authentication instanceof OAuth2AuthenticationToken oAuth2AuthenticationToken &&  oAuth2AuthenticationToken.getPrincipal() instanceof OidcUser) {
+            return recordEvent(oAuth2AuthenticationToken, doRefresh(oAuth2AuthenticationToken, exchange))
+                    .checkpoint("OidcIdTokenAuthenticationRefresher");
         }
         return Mono.empty();
     }
 
+    @Override
+    public Class<? extends Authentication> getAuthenticationType() {
+        return OAuth2AuthenticationToken.class;
+    }
+
+    @Override
+    public boolean isUpToDate(Authentication authentication) {
+        return authentication instanceof OAuth2AuthenticationToken oAuth2AuthenticationToken
+                && oAuth2AuthenticationToken.getPrincipal() instanceof OidcUser oidcUser
+                && !shouldTokenBeRefreshed(oidcUser.getIdToken());
+    }
+
     private boolean shouldTokenBeRefreshed(OidcIdToken idToken) {
         var idTokenExpires = idToken.getExpiresAt();
         if(idTokenExpires == null) {
@@ -77,13 +118,36 @@ public class OidcIdTokenAuthenticationRefresher implements AuthenticationRefresh
         return clock.instant().isAfter(idTokenExpires.minus(clockSkew));
     }
 
+    private static Mono<Authentication> recordEvent(OAuth2AuthenticationToken authentication,
+            Mono<Authentication> refresh) {
+        return Mono.defer(() -> {
+            var event = new OidcRefreshEvent();
+            if (!event.isEnabled()) {
+                return refresh;
+            }
+            event.begin();
+            return refresh
+                    .doOnSuccess(result -> commit(event, authentication, result == null ? "empty" : "refreshed"))
+                    .doOnError(error -> commit(event, authentication, "error"));
+        });
+    }
+
+    private static void commit(OidcRefreshEvent event, OAuth2AuthenticationToken authentication, String outcome) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.setClientRegistration(authentication.getAuthorizedClientRegistrationId());
+            event.setOutcome(outcome);
+            event.commit();
+        }
+    }
+
     private Mono<Authentication> doRefresh(OAuth2AuthenticationToken oAuth2AuthenticationToken,
             ServerWebExchange exchange) {
         // Load authorized client
         return authorizedClientRepository.loadAuthorizedClient(oAuth2AuthenticationToken.getAuthorizedClientRegistrationId(), oAuth2AuthenticationToken, exchange)
                 .flatMap(authorizedClient -> {
                     // perform a token refresh
-                     return accessTokenResponseClient.getTokenResponse(new OAuth2RefreshTokenGrantRequest(authorizedClient.getClientRegistration(), authorizedClient.getAccessToken(), authorizedClient.getRefreshToken()))
+                     return getTokenResponse(new OAuth2RefreshTokenGrantRequest(authorizedClient.getClientRegistration(), authorizedClient.getAccessToken(), authorizedClient.getRefreshToken()))
                              // Remove authorized client when token refresh fails
                              .onErrorResume(OAuth2AuthorizationException.class, ex -> authorizedClientRepository.removeAuthorizedClient(authorizedClient.getClientRegistration().getRegistrationId(), oAuth2AuthenticationToken, exchange)
                                      .then(Mono.error(ex))
@@ -98,6 +162,24 @@ public class OidcIdTokenAuthenticationRefresher implements AuthenticationRefresh
                 });
     }
 
+    private Mono<OAuth2AccessTokenResponse> getTokenResponse(OAuth2RefreshTokenGrantRequest grantRequest) {
+        var tokenResponse = accessTokenResponseClient.getTokenResponse(grantRequest);
+        if(circuitBreakers == null) {
+            return tokenResponse;
+        }
+        var providerDetails = grantRequest.getClientRegistration().getProviderDetails();
+        var issuer = providerDetails.getIssuerUri() != null ? providerDetails.getIssuerUri() : providerDetails.getTokenUri();
+        return circuitBreakers.identityProvider(issuer)
+                .run(tokenResponse, OidcIdTokenAuthenticationRefresher::isIdentityProviderFailure)
+                .onErrorMap(ex -> ex instanceof CallNotPermittedException || ex instanceof TimeoutException, ex -> new OAuth2AuthenticationException(
+                        new OAuth2Error("temporarily_unavailable", "Identity provider %s is unavailable".formatted(issuer), null), ex));
+    }
+
+    private static boolean isIdentityProviderFailure(Throwable error) {
+        return !(error instanceof OAuth2AuthorizationException authorizationException
+                && CLIENT_ERROR_CODES.contains(authorizationException.getError().getErrorCode()));
+    }
+
     private static OAuth2AuthorizedClient updateAuthorizedClient(OAuth2AuthorizedClient oldClient, OAuth2AccessTokenResponse oAuth2AccessTokenResponse) {
         return new OAuth2AuthorizedClient(
                 oldClient.getClientRegistration(),
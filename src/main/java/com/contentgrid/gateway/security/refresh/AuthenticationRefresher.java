@@ -6,4 +6,23 @@ import reactor.core.publisher.Mono;
 
 public interface AuthenticationRefresher {
     Mono<Authentication> refresh(Authentication authentication, ServerWebExchange exchange);
+
+    /**
+     * The type of {@link Authentication} that this refresher handles.
+     * <p>
+     * {@link CompositeAuthenticationRefresher} only dispatches authentications of this type (or a subtype) to this refresher.
+     */
+    default Class<? extends Authentication> getAuthenticationType() {
+        return Authentication.class;
+    }
+
+    /**
+     * Synchronously checks whether the authentication can be used as-is, without having to call {@link #refresh(Authentication, ServerWebExchange)}.
+     * <p>
+     * When this returns {@code true}, {@link #refresh(Authentication, ServerWebExchange)} would return the same authentication.
+     * Returning {@code false} is always allowed; the authentication will then be refreshed normally.
+     */
+    default boolean isUpToDate(Authentication authentication) {
+        return false;
+    }
 }
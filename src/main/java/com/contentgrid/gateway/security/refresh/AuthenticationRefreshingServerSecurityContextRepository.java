@@ -26,25 +26,32 @@ public class AuthenticationRefreshingServerSecurityContextRepository implements
     @Override
     public Mono<SecurityContext> load(ServerWebExchange exchange) {
         return delegate.load(exchange)
-                .flatMap(context -> authenticationRefresher.refresh(context.getAuthentication(), exchange)
-                        .flatMap(authentication -> {
-                            // Update authentication and context when it has changed
-                            if(authentication != context.getAuthentication()) {
-                                log.debug("Authentication has changed. Updating authentication in security context.");
-                                context.setAuthentication(authentication);
-                                return save(exchange, context)
-                                        .thenReturn(context);
-                            }
-                            log.trace("Authentication did not change. Existing authentication was retained.");
-                            return Mono.just(context);
-                        })
-                        .onErrorResume(AuthenticationException.class, authError -> {
-                            log.debug("Authentication error during refresh. Clearing authentication from security context.", authError);
-                            context.setAuthentication(null);
-                            return save(exchange, context)
-                                    .thenReturn(context);
-                        })
-                );
+                .flatMap(context -> refresh(context, exchange));
+    }
+
+    private Mono<SecurityContext> refresh(SecurityContext context, ServerWebExchange exchange) {
+        if(authenticationRefresher.isUpToDate(context.getAuthentication())) {
+            log.trace("Authentication is up to date. Existing authentication was retained.");
+            return Mono.just(context);
+        }
+        return authenticationRefresher.refresh(context.getAuthentication(), exchange)
+                .flatMap(authentication -> {
+                    // Update authentication and context when it has changed
+                    if(authentication != context.getAuthentication()) {
+                        log.debug("Authentication has changed. Updating authentication in security context.");
+                        context.setAuthentication(authentication);
+                        return save(exchange, context)
+                                .thenReturn(context);
+                    }
+                    log.trace("Authentication did not change. Existing authentication was retained.");
+                    return Mono.just(context);
+                })
+                .onErrorResume(AuthenticationException.class, authError -> {
+                    log.debug("Authentication error during refresh. Clearing authentication from security context.", authError);
+                    context.setAuthentication(null);
+                    return save(exchange, context)
+                            .thenReturn(context);
+                });
     }
 
 }
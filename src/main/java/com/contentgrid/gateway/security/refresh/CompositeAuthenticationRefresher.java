@@ -1,21 +1,74 @@
 package com.contentgrid.gateway.security.refresh;
 
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.NonNull;
-import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-@RequiredArgsConstructor
+/**
+ * Dispatches an authentication to the refreshers that support its type.
+ * <p>
+ * The refreshers for every concrete authentication class are looked up once and remembered, so refreshing an
+ * authentication is a single call to the refresher for its type. When multiple refreshers support the same type, the
+ * result of the first one (in order) that returns a value is used.
+ */
 public class CompositeAuthenticationRefresher implements AuthenticationRefresher {
-    @NonNull
+    private static final AuthenticationRefresher UNSUPPORTED = (authentication, exchange) -> Mono.empty();
+
     private final List<AuthenticationRefresher> refreshers;
 
+    private final Map<Class<?>, AuthenticationRefresher> refreshersByType = new ConcurrentHashMap<>();
+
+    public CompositeAuthenticationRefresher(@NonNull List<AuthenticationRefresher> refreshers) {
+        this.refreshers = List.copyOf(refreshers);
+    }
+
     @Override
     public Mono<Authentication> refresh(Authentication authentication, ServerWebExchange exchange) {
-        return Flux.concat(refreshers.stream().map(refresher -> refresher.refresh(authentication, exchange)).toList())
-                .next();
+        return resolve(authentication).refresh(authentication, exchange);
+    }
+
+    @Override
+    public boolean isUpToDate(Authentication authentication) {
+        return resolve(authentication).isUpToDate(authentication);
+    }
+
+    private AuthenticationRefresher resolve(Authentication authentication) {
+        if(authentication == null) {
+            return UNSUPPORTED;
+        }
+        return refreshersByType.computeIfAbsent(authentication.getClass(), this::findRefresher);
+    }
+
+    private AuthenticationRefresher findRefresher(Class<?> authenticationClass) {
+        var candidates = refreshers.stream()
+                .filter(refresher -> refresher.getAuthenticationType().isAssignableFrom(authenticationClass))
+                .toList();
+
+        return switch (candidates.size()) {
+            case 0 -> UNSUPPORTED;
+            case 1 -> candidates.get(0);
+            default -> new FirstResultAuthenticationRefresher(candidates);
+        };
+    }
+
+    private record FirstResultAuthenticationRefresher(List<AuthenticationRefresher> refreshers) implements AuthenticationRefresher {
+
+        @Override
+        public Mono<Authentication> refresh(Authentication authentication, ServerWebExchange exchange) {
+            return Flux.fromIterable(refreshers)
+                    .concatMap(refresher -> refresher.refresh(authentication, exchange))
+                    .next();
+        }
+
+        @Override
+        public boolean isUpToDate(Authentication authentication) {
+            // Only the first refresher is certain to be consulted
+            return refreshers.get(0).isUpToDate(authentication);
+        }
     }
 }
@@ -19,4 +19,14 @@ public class NoopAuthenticationRefresher implements AuthenticationRefresher{
         }
         return Mono.empty();
     }
+
+    @Override
+    public Class<? extends Authentication> getAuthenticationType() {
+        return authenticationClass;
+    }
+
+    @Override
+    public boolean isUpToDate(Authentication authentication) {
+        return authenticationClass.isInstance(authentication);
+    }
 }
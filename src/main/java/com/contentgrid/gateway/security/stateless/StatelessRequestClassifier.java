@@ -0,0 +1,68 @@
+package com.contentgrid.gateway.security.stateless;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.NonNull;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Decides whether a request takes the stateless fast lane, and counts the requests that do.
+ * <p>
+ * The decision is made once per exchange and remembered in {@link #STATELESS_REASON_ATTR}, so the security context
+ * repository and the session manager agree on it.
+ */
+public class StatelessRequestClassifier {
+
+    public static final String STATELESS_REASON_ATTR = StatelessRequestClassifier.class.getName() + ".reason";
+
+    private static final String NOT_STATELESS = "";
+
+    private final List<StatelessRequestMatcher> matchers;
+    private final Map<String, Counter> counters;
+
+    public StatelessRequestClassifier(@NonNull List<StatelessRequestMatcher> matchers, @NonNull MeterRegistry meterRegistry) {
+        this.matchers = List.copyOf(matchers);
+        this.counters = this.matchers.stream()
+                .map(StatelessRequestMatcher::reason)
+                .distinct()
+                .collect(Collectors.toUnmodifiableMap(Function.identity(), reason -> Counter.builder("contentgrid.gateway.stateless")
+                        .description("Requests that were handled without a session")
+                        .tag("reason", reason)
+                        .register(meterRegistry)));
+    }
+
+    /**
+     * @return The reason why the request is stateless, or empty when it may use a session
+     */
+    public Mono<String> statelessReason(ServerWebExchange exchange) {
+        String known = exchange.getAttribute(STATELESS_REASON_ATTR);
+        if (known != null) {
+            return known.equals(NOT_STATELESS) ? Mono.empty() : Mono.just(known);
+        }
+
+        return Flux.fromIterable(this.matchers)
+                .concatMap(matcher -> matcher.matches(exchange)
+                        .filter(ServerWebExchangeMatcher.MatchResult::isMatch)
+                        .map(result -> matcher.reason()))
+                .next()
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                .doOnNext(reason -> {
+                    exchange.getAttributes().put(STATELESS_REASON_ATTR, reason.orElse(NOT_STATELESS));
+                    reason.map(this.counters::get).ifPresent(Counter::increment);
+                })
+                .flatMap(Mono::justOrEmpty);
+    }
+
+    public Mono<Boolean> isStateless(ServerWebExchange exchange) {
+        return this.statelessReason(exchange).hasElement();
+    }
+}
@@ -0,0 +1,46 @@
+package com.contentgrid.gateway.security.stateless;
+
+import lombok.NonNull;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Matches requests that never need a session: they are handled without loading the security context from the session,
+ * and without looking up or creating a session.
+ */
+public interface StatelessRequestMatcher extends ServerWebExchangeMatcher {
+
+    /**
+     * @return Short, low-cardinality reason why matched requests are stateless; used to tag metrics
+     */
+    String reason();
+
+    static StatelessRequestMatcher of(@NonNull String reason, @NonNull ServerWebExchangeMatcher matcher) {
+        return new StatelessRequestMatcher() {
+            @Override
+            public String reason() {
+                return reason;
+            }
+
+            @Override
+            public Mono<MatchResult> matches(ServerWebExchange exchange) {
+                return matcher.matches(exchange);
+            }
+        };
+    }
+
+    /**
+     * Requests authenticated with a bearer token: the token authenticates every request on its own
+     */
+    static StatelessRequestMatcher bearerToken() {
+        return of("bearer", exchange -> {
+            var authorization = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+            if (authorization != null && authorization.regionMatches(true, 0, "Bearer ", 0, 7)) {
+                return MatchResult.match();
+            }
+            return MatchResult.notMatch();
+        });
+    }
+}
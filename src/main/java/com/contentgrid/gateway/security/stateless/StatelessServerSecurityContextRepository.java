@@ -0,0 +1,33 @@
+package com.contentgrid.gateway.security.stateless;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.web.server.context.ServerSecurityContextRepository;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Bypasses the (session-backed) delegate for requests that are classified as stateless
+ */
+@RequiredArgsConstructor
+public class StatelessServerSecurityContextRepository implements ServerSecurityContextRepository {
+
+    @NonNull
+    private final ServerSecurityContextRepository delegate;
+
+    @NonNull
+    private final StatelessRequestClassifier classifier;
+
+    @Override
+    public Mono<Void> save(ServerWebExchange exchange, SecurityContext context) {
+        return classifier.isStateless(exchange)
+                .flatMap(stateless -> stateless ? Mono.empty() : delegate.save(exchange, context));
+    }
+
+    @Override
+    public Mono<SecurityContext> load(ServerWebExchange exchange) {
+        return classifier.isStateless(exchange)
+                .flatMap(stateless -> stateless ? Mono.empty() : delegate.load(exchange));
+    }
+}
@@ -0,0 +1,149 @@
+package com.contentgrid.gateway;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.contentgrid.gateway.test.security.jwt.SingleKeyJwtClaimsSigner;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.nimbusds.jwt.JWTClaimsSet;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.http.MediaType;
+
+/**
+ * Boots the native image of the gateway with static service discovery, and proxies a request to a WireMock stub.
+ * <p>
+ * Only runs when the path of the native image is passed in the {@value #NATIVE_IMAGE_PROPERTY} system property, which
+ * {@code ./gradlew nativeSmokeTest -Pnative -PspringAot=static} does.
+ */
+@EnabledIfSystemProperty(named = NativeImageSmokeTest.NATIVE_IMAGE_PROPERTY, matches = ".+")
+class NativeImageSmokeTest {
+
+    static final String NATIVE_IMAGE_PROPERTY = "contentgrid.gateway.native-image";
+
+    private static final String APPLICATION = "app1";
+
+    private static final WireMockServer wireMockServer = new WireMockServer(
+            new WireMockConfiguration().dynamicPort());
+
+    private static final SingleKeyJwtClaimsSigner ISSUER_JWT_SIGNER = new SingleKeyJwtClaimsSigner();
+
+    private static final HttpClient httpClient = HttpClient.newHttpClient();
+
+    private static Process gateway;
+    private static int port;
+
+    @BeforeAll
+    static void startGateway() throws IOException {
+        wireMockServer.start();
+        wireMockServer.stubFor(WireMock.get("/realms/contentgrid/.well-known/openid-configuration")
+                .willReturn(WireMock.aResponse()
+                        .withHeader("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                        .withTransformers("response-template")
+                        .withBodyFile("well-known-openid-configuration.json")));
+        wireMockServer.stubFor(WireMock.get("/realms/contentgrid/protocol/openid-connect/certs")
+                .willReturn(WireMock.okJson(ISSUER_JWT_SIGNER.getSigningKeys().toPublicJWKSet().toString())));
+        wireMockServer.stubFor(WireMock.get("/hello")
+                .willReturn(WireMock.ok("hello from upstream")));
+
+        port = freePort();
+        var appConfiguration = "--contentgrid.configuration.static.contentgrid-apps." + APPLICATION + ".";
+        gateway = new ProcessBuilder(List.of(
+                System.getProperty(NATIVE_IMAGE_PROPERTY),
+                "--server.port=" + port,
+                "--management.endpoint.health.probes.enabled=true",
+                "--contentgrid.gateway.runtime-platform.enabled=true",
+                "--servicediscovery.enabled=true",
+                "--servicediscovery.static.deployments[0].application-id=" + APPLICATION,
+                "--servicediscovery.static.deployments[0].deployment-id=deployment1",
+                "--servicediscovery.static.deployments[0].uri=" + wireMockServer.baseUrl(),
+                appConfiguration + "composition-key=" + APPLICATION,
+                appConfiguration + "configuration.contentgrid.routing.domains=localhost",
+                appConfiguration + "configuration.contentgrid.idp.issuer-uri=" + issuer(),
+                appConfiguration + "configuration.contentgrid.idp.client-id=smoke-client",
+                appConfiguration + "configuration.contentgrid.idp.client-secret=smoke-secret"
+        ))
+                .inheritIO()
+                .start();
+
+        Awaitility.await().atMost(Duration.ofSeconds(30)).pollInterval(Duration.ofMillis(100)).until(() -> {
+            assertThat(gateway.isAlive()).as("native image is running").isTrue();
+            return isReady();
+        });
+    }
+
+    @AfterAll
+    static void stopGateway() throws InterruptedException {
+        if (gateway != null) {
+            gateway.destroy();
+            gateway.waitFor(10, TimeUnit.SECONDS);
+        }
+        wireMockServer.stop();
+    }
+
+    private static String issuer() {
+        return wireMockServer.baseUrl() + "/realms/contentgrid";
+    }
+
+    private static int freePort() throws IOException {
+        try (var socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static boolean isReady() throws InterruptedException {
+        try {
+            return get("/actuator/health/readiness", null).statusCode() == 200;
+        } catch (IOException e) {
+            // Not listening yet
+            return false;
+        }
+    }
+
+    private static HttpResponse<String> get(String path, String bearerToken) throws IOException, InterruptedException {
+        var request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path));
+        if (bearerToken != null) {
+            request.header("Authorization", "Bearer " + bearerToken);
+        }
+        return httpClient.send(request.build(), BodyHandlers.ofString());
+    }
+
+    @Test
+    void proxiesAuthenticatedRequest() throws IOException, InterruptedException {
+        var token = ISSUER_JWT_SIGNER.sign(new JWTClaimsSet.Builder()
+                .issuer(issuer())
+                .subject("alice")
+                .issueTime(new Date())
+                .expirationTime(Date.from(Instant.now().plusSeconds(300)))
+                .build());
+
+        var response = get("/hello", token.serialize());
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body()).isEqualTo("hello from upstream");
+        wireMockServer.verify(WireMock.getRequestedFor(WireMock.urlEqualTo("/hello")));
+    }
+
+    @Test
+    void rejectsAnonymousRequest() throws IOException, InterruptedException {
+        var response = get("/hello", null);
+
+        assertThat(response.statusCode()).isIn(302, 401);
+    }
+}
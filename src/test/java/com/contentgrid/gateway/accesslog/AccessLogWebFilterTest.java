@@ -0,0 +1,158 @@
+package com.contentgrid.gateway.accesslog;
+
+import static com.contentgrid.gateway.runtime.web.ContentGridAppRequestWebFilter.CONTENTGRID_APP_ID_ATTR;
+import static com.contentgrid.gateway.runtime.web.ContentGridAppRequestWebFilter.CONTENTGRID_DEPLOY_ID_ATTR;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.contentgrid.configuration.applications.ApplicationId;
+import com.contentgrid.gateway.runtime.application.DeploymentId;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class AccessLogWebFilterTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private static Flux<DataBuffer> body(String content) {
+        return Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(content.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Proxies the request body to the response, like an upstream service that echoes its input
+     */
+    private final WebFilterChain echo = exchange -> exchange.getResponse().writeWith(exchange.getRequest().getBody());
+
+    private static AccessLogProperties properties(int bufferSize) {
+        var properties = new AccessLogProperties();
+        properties.setBufferSize(bufferSize);
+        properties.setFlushInterval(Duration.ofMillis(10));
+        return properties;
+    }
+
+    private static List<JsonNode> lines(StringWriter output) {
+        return output.toString().lines().map(line -> {
+            try {
+                return OBJECT_MAPPER.readTree(line);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }).toList();
+    }
+
+    @Test
+    @SneakyThrows
+    void recordsRequestWithContentGridContext() {
+        var output = new StringWriter();
+        var writer = new AccessLogWriter(properties(16), output, false, meterRegistry);
+        var filter = new AccessLogWebFilter(writer, 1.0);
+
+        var applicationId = ApplicationId.random();
+        var deploymentId = DeploymentId.random();
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.post("https://app.example/documents?secret=1")
+                .body(body("hello")));
+        WebFilterChain chain = ex -> {
+            ex.getAttributes().put(CONTENTGRID_APP_ID_ATTR, applicationId);
+            ex.getAttributes().put(CONTENTGRID_DEPLOY_ID_ATTR, deploymentId);
+            ex.getAttributes().put(AccessLogWebFilter.AUTHENTICATION_KIND_ATTR, "bearer");
+            ex.getAttributes().put(AccessLogWebFilter.AUTHORIZATION_OUTCOME_ATTR, "granted");
+            ex.getResponse().setStatusCode(HttpStatus.CREATED);
+            return echo.filter(ex);
+        };
+
+        filter.filter(exchange, chain).block();
+        writer.close();
+
+        assertThat(lines(output)).singleElement().satisfies(line -> {
+            assertThat(line.get("method").asText()).isEqualTo("POST");
+            assertThat(line.get("path").asText()).isEqualTo("/documents");
+            assertThat(line.get("status").asInt()).isEqualTo(201);
+            assertThat(line.get("requestBytes").asLong()).isEqualTo(5);
+            assertThat(line.get("responseBytes").asLong()).isEqualTo(5);
+            assertThat(line.get("applicationId").asText()).isEqualTo(applicationId.toString());
+            assertThat(line.get("deploymentId").asText()).isEqualTo(deploymentId.getValue());
+            assertThat(line.get("authentication").asText()).isEqualTo("bearer");
+            assertThat(line.get("authorization").asText()).isEqualTo("granted");
+            assertThat(line.has("timeToFirstByteMs")).isTrue();
+        });
+        assertThat(meterRegistry.get("contentgrid.gateway.access-log.records").tag("outcome", "written").counter()
+                .count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @SneakyThrows
+    void recordsStatusOfFailedRequest() {
+        var output = new StringWriter();
+        var writer = new AccessLogWriter(properties(16), output, false, meterRegistry);
+        var filter = new AccessLogWebFilter(writer, 1.0);
+
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("https://app.example/documents"));
+        filter.filter(exchange, ex -> Mono.error(new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS)))
+                .onErrorComplete()
+                .block();
+        writer.close();
+
+        assertThat(lines(output)).singleElement()
+                .satisfies(line -> assertThat(line.get("status").asInt()).isEqualTo(429));
+    }
+
+    @Test
+    @SneakyThrows
+    void unsampledRequestsAreNotRecorded() {
+        var output = new StringWriter();
+        var writer = new AccessLogWriter(properties(16), output, false, meterRegistry);
+        var filter = new AccessLogWebFilter(writer, 0.0);
+
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("https://app.example/")), echo).block();
+        writer.close();
+
+        assertThat(output.toString()).isEmpty();
+    }
+
+    @Test
+    @SneakyThrows
+    void recordsAreDroppedWhenBufferIsFull() {
+        var output = new StringWriter();
+        var properties = properties(2);
+        // an idle writer does not wake up again during the test
+        properties.setFlushInterval(Duration.ofMinutes(1));
+        var writer = new AccessLogWriter(properties, output, false, meterRegistry);
+
+        var record = AccessLogRecord.builder()
+                .timestamp(Instant.now())
+                .method("GET")
+                .path("/")
+                .timeToFirstByteNanos(-1)
+                .build();
+        var accepted = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (writer.offer(record)) {
+                accepted++;
+            }
+        }
+        writer.close();
+
+        assertThat(accepted).isLessThan(1000);
+        assertThat(lines(output)).hasSize(accepted);
+        assertThat(meterRegistry.get("contentgrid.gateway.access-log.records").tag("outcome", "dropped").counter()
+                .count()).isEqualTo(1000.0 - accepted);
+    }
+}
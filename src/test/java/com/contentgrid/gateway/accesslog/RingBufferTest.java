@@ -0,0 +1,81 @@
+package com.contentgrid.gateway.accesslog;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class RingBufferTest {
+
+    @Test
+    void capacityIsRoundedToPowerOfTwo() {
+        assertThat(new RingBuffer<>(1).capacity()).isEqualTo(2);
+        assertThat(new RingBuffer<>(5).capacity()).isEqualTo(8);
+        assertThat(new RingBuffer<>(8).capacity()).isEqualTo(8);
+    }
+
+    @Test
+    void offerFailsWhenFull() {
+        var buffer = new RingBuffer<Integer>(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(buffer.offer(i)).isTrue();
+        }
+        assertThat(buffer.offer(4)).isFalse();
+
+        List<Integer> drained = new ArrayList<>();
+        assertThat(buffer.drain(drained::add, 2)).isEqualTo(2);
+        assertThat(buffer.offer(5)).isTrue();
+        assertThat(buffer.drain(drained::add, 10)).isEqualTo(3);
+
+        assertThat(drained).containsExactly(0, 1, 2, 3, 5);
+        assertThat(buffer.drain(drained::add, 10)).isZero();
+    }
+
+    @Test
+    void concurrentProducersLoseNothingButDrops() throws InterruptedException {
+        var buffer = new RingBuffer<Integer>(1024);
+        var producers = 4;
+        var perProducer = 10_000;
+        var accepted = new AtomicInteger();
+        var start = new CountDownLatch(1);
+        var done = new CountDownLatch(producers);
+
+        try (var executor = Executors.newFixedThreadPool(producers)) {
+            for (int p = 0; p < producers; p++) {
+                var offset = p * perProducer;
+                executor.execute(() -> {
+                    try {
+                        start.await();
+                        for (int i = 0; i < perProducer; i++) {
+                            if (buffer.offer(offset + i)) {
+                                accepted.incrementAndGet();
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+
+            Set<Integer> drained = new HashSet<>();
+            start.countDown();
+            while (done.getCount() > 0) {
+                buffer.drain(drained::add, 256);
+            }
+            assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+            buffer.drain(drained::add, Integer.MAX_VALUE);
+
+            // every accepted element is drained exactly once
+            assertThat(drained).hasSize(accepted.get());
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.contentgrid.gateway.admission;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.contentgrid.gateway.admission.AdmissionProperties.ClassBudget;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class AdmissionControllerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private AdmissionController createController() {
+        var properties = new AdmissionProperties();
+        properties.setMaxConcurrency(10);
+        properties.getClasses().put(PriorityClass.SYSTEM, new ClassBudget(2, 1.0));
+        properties.getClasses().put(PriorityClass.TENANT, new ClassBudget(100, 0.8));
+        return new AdmissionController(properties, meterRegistry);
+    }
+
+    @Test
+    void shedsTenantTrafficBeforeSystemTraffic() {
+        var controller = createController();
+
+        for (int i = 0; i < 8; i++) {
+            assertThat(controller.tryAdmit(PriorityClass.TENANT)).isTrue();
+        }
+        assertThat(controller.tryAdmit(PriorityClass.TENANT)).isFalse();
+
+        // system requests can still use the capacity that is reserved for them
+        assertThat(controller.tryAdmit(PriorityClass.SYSTEM)).isTrue();
+        assertThat(controller.tryAdmit(PriorityClass.SYSTEM)).isTrue();
+
+        assertThat(meterRegistry.get("contentgrid.gateway.admission.shed").tag("class", "tenant").counter().count())
+                .isEqualTo(1.0);
+        assertThat(meterRegistry.get("contentgrid.gateway.admission.in-flight").tag("class", "tenant").gauge().value())
+                .isEqualTo(8.0);
+    }
+
+    @Test
+    void enforcesClassBudget() {
+        var controller = createController();
+
+        assertThat(controller.tryAdmit(PriorityClass.SYSTEM)).isTrue();
+        assertThat(controller.tryAdmit(PriorityClass.SYSTEM)).isTrue();
+        assertThat(controller.tryAdmit(PriorityClass.SYSTEM)).isFalse();
+
+        controller.release(PriorityClass.SYSTEM, TimeUnit.MILLISECONDS.toNanos(5));
+        assertThat(controller.getInFlight(PriorityClass.SYSTEM)).isEqualTo(1);
+        assertThat(controller.tryAdmit(PriorityClass.SYSTEM)).isTrue();
+
+        // the rejected system request did not take up capacity of other classes
+        for (int i = 0; i < 6; i++) {
+            assertThat(controller.tryAdmit(PriorityClass.TENANT)).isTrue();
+        }
+
+        assertThat(meterRegistry.get("contentgrid.gateway.admission.latency").tag("class", "system").timer().count())
+                .isEqualTo(1);
+    }
+}
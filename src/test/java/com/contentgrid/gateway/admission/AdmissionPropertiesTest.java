@@ -0,0 +1,35 @@
+package com.contentgrid.gateway.admission;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.contentgrid.gateway.admission.AdmissionProperties.ClassBudget;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+
+class AdmissionPropertiesTest {
+
+    private static AdmissionProperties bind(Map<String, String> properties) {
+        return new Binder(new MapConfigurationPropertySource(properties))
+                .bindOrCreate("contentgrid.gateway.admission", AdmissionProperties.class);
+    }
+
+    @Test
+    void defaultBudgets() {
+        var properties = bind(Map.of());
+
+        assertThat(properties.getBudget(PriorityClass.SYSTEM)).isEqualTo(new ClassBudget(50, 1.0));
+        assertThat(properties.getBudget(PriorityClass.TENANT)).isEqualTo(new ClassBudget(Integer.MAX_VALUE, 0.8));
+    }
+
+    @Test
+    void configuredPropertyKeepsOtherDefaults() {
+        var properties = bind(Map.of("contentgrid.gateway.admission.classes.login.shed-above", "0.5"));
+
+        assertThat(properties.getBudget(PriorityClass.LOGIN)).isEqualTo(new ClassBudget(100, 0.5));
+        assertThat(properties.getBudget(PriorityClass.SYSTEM)).isEqualTo(new ClassBudget(50, 1.0));
+        assertThat(properties.getBudget(PriorityClass.PLATFORM)).isEqualTo(new ClassBudget(200, 0.9));
+        assertThat(properties.getBudget(PriorityClass.TENANT)).isEqualTo(new ClassBudget(Integer.MAX_VALUE, 0.8));
+    }
+}
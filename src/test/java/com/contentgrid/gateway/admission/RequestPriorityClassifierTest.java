@@ -0,0 +1,35 @@
+package com.contentgrid.gateway.admission;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+class RequestPriorityClassifierTest {
+
+    private final RequestPriorityClassifier classifier = new RequestPriorityClassifier(
+            List.of("/actuator/**"),
+            RequestPriorityClassifier.LOGIN_PATH_PATTERNS,
+            List.of("/.contentgrid/authentication/**")
+    );
+
+    @ParameterizedTest
+    @CsvSource({
+            "/actuator/health/liveness, SYSTEM",
+            "/actuator/prometheus, SYSTEM",
+            "/oauth2/authorization/client-123, LOGIN",
+            "/login/oauth2/code/client-123, LOGIN",
+            "/.contentgrid/authentication/login, PLATFORM",
+            "/.contentgrid/other/path, TENANT",
+            "/documents/123, TENANT",
+            "/, TENANT"
+    })
+    void classifiesByPath(String path, PriorityClass expected) {
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("https://app.example" + path));
+
+        assertThat(classifier.classify(exchange)).isEqualTo(expected);
+    }
+}
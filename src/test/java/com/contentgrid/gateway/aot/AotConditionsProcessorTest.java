@@ -0,0 +1,86 @@
+package com.contentgrid.gateway.aot;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.contentgrid.gateway.aot.AotConditions.PropertyCondition;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.condition.ConditionEvaluationReport;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.oauth2.client.ClientsConfiguredCondition;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+
+class AotConditionsProcessorTest {
+
+    private static ApplicationContextRunner processedWith(String... args) {
+        return new ApplicationContextRunner()
+                .withInitializer(context -> context.getEnvironment().getPropertySources()
+                        .addFirst(new SimpleCommandLinePropertySource(args)));
+    }
+
+    private static AotConditions record(ApplicationContextRunner runner, Class<?> configuration) {
+        var conditions = new AotConditions[1];
+        runner.withUserConfiguration(configuration).run(context -> conditions[0] = AotConditionsProcessor.record(
+                context.getEnvironment(), ConditionEvaluationReport.get(context.getBeanFactory()),
+                context.getClassLoader()));
+        return conditions[0];
+    }
+
+    @Test
+    void recordsListedProperties() {
+        var conditions = record(processedWith(
+                "--contentgrid.gateway.test.enabled=true",
+                "--contentgrid.gateway.test.feature.enabled=false",
+                "--spring.cloud.refresh.enabled=false"
+        ), FeatureConfiguration.class);
+
+        assertThat(conditions.properties()).containsExactlyInAnyOrder(
+                new PropertyCondition("contentgrid.gateway.test.enabled", "", true, true),
+                new PropertyCondition("contentgrid.gateway.test.feature.enabled", "", false, false),
+                // listed, but only a condition of other auto-configurations
+                new PropertyCondition("spring.cloud.refresh.enabled", "", false, false)
+        );
+    }
+
+    @Test
+    void failsForPropertiesThatAreNotListed() {
+        var runner = processedWith("--contentgrid.gateway.test.enabled=true");
+
+        assertThatThrownBy(() -> record(runner, FeatureConfiguration.class))
+                .hasStackTraceContaining("contentgrid.gateway.test.feature.enabled is not listed");
+    }
+
+    @Test
+    void failsForClientRegistrationsThatAreNotListed() {
+        assertThatThrownBy(() -> record(processedWith(), ClientsConfiguration.class))
+                .hasStackTraceContaining(AotConditionsProcessor.CLIENT_REGISTRATIONS_KEY + " must be false");
+
+        assertThat(record(processedWith("--" + AotConditionsProcessor.CLIENT_REGISTRATIONS_KEY + "=false"),
+                ClientsConfiguration.class).clientsConfigured()).isFalse();
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(value = "contentgrid.gateway.test.enabled", matchIfMissing = true)
+    static class FeatureConfiguration {
+
+        @Bean
+        @ConditionalOnProperty("contentgrid.gateway.test.feature.enabled")
+        String feature() {
+            return "feature";
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    static class ClientsConfiguration {
+
+        @Bean
+        @Conditional(ClientsConfiguredCondition.class)
+        String clients() {
+            return "clients";
+        }
+    }
+}
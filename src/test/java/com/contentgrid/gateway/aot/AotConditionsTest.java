@@ -0,0 +1,72 @@
+package com.contentgrid.gateway.aot;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.contentgrid.gateway.aot.AotConditions.PropertyCondition;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+class AotConditionsTest {
+
+    private static AotConditions conditions() {
+        return new AotConditions("kubernetes", false, List.of(
+                new PropertyCondition("contentgrid.gateway.runtime-platform.enabled", "", false, true),
+                new PropertyCondition("opa.service.url", "", false, true),
+                new PropertyCondition("contentgrid.gateway.access-log.enabled", "", false, false),
+                new PropertyCondition("contentgrid.gateway.request-stages.enabled", "", true, true)
+        ));
+    }
+
+    @Test
+    void matchingConfiguration() {
+        var environment = new MockEnvironment()
+                .withProperty("spring.main.cloud-platform", "kubernetes")
+                .withProperty("contentgrid.gateway.runtime-platform.enabled", "TRUE")
+                .withProperty("opa.service.url", "http://opa.contentgrid.svc:8181")
+                .withProperty("contentgrid.gateway.access-log.enabled", "false");
+
+        // request-stages.enabled matches when it is missing
+        assertThat(conditions().verify(environment)).isEmpty();
+    }
+
+    @Test
+    void unsetPropertiesDoNotMatchSetConditions() {
+        var environment = new MockEnvironment()
+                .withProperty("spring.main.cloud-platform", "kubernetes")
+                .withProperty("contentgrid.gateway.runtime-platform.enabled", "true");
+
+        assertThat(conditions().verify(environment)).containsExactly("opa.service.url must be set");
+    }
+
+    @Test
+    void undetectedCloudPlatformIsNone() {
+        var conditions = new AotConditions("none", null, List.of());
+
+        assertThat(conditions.verify(new MockEnvironment())).isEmpty();
+    }
+
+    @Test
+    void mismatchingConfiguration() {
+        var environment = new MockEnvironment()
+                .withProperty("spring.main.cloud-platform", "none")
+                .withProperty("contentgrid.gateway.runtime-platform.enabled", "false")
+                .withProperty("opa.service.url", "http://opa:8181")
+                .withProperty("contentgrid.gateway.access-log.enabled", "true")
+                .withProperty("contentgrid.gateway.request-stages.enabled", "false")
+                .withProperty("spring.security.oauth2.client.registration.keycloak.client-id", "gateway");
+
+        assertThat(conditions().verify(environment)).containsExactly(
+                "spring.main.cloud-platform is none instead of kubernetes",
+                "spring.security.oauth2.client.registration must be empty",
+                "contentgrid.gateway.runtime-platform.enabled must be set",
+                "contentgrid.gateway.access-log.enabled must be unset or false",
+                "contentgrid.gateway.request-stages.enabled must be unset or not false"
+        );
+    }
+
+    @Test
+    void conditionsAreStoredAsProperties() {
+        assertThat(AotConditions.fromProperties(conditions().toProperties())).isEqualTo(conditions());
+    }
+}
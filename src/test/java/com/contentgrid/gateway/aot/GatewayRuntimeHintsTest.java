@@ -0,0 +1,47 @@
+package com.contentgrid.gateway.aot;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.contentgrid.gateway.runtime.RuntimePlatformProperties;
+import com.contentgrid.gateway.runtime.application.DeploymentId;
+import com.contentgrid.gateway.runtime.authorization.AuthenticationModel;
+import com.contentgrid.gateway.runtime.servicediscovery.StaticServiceDiscovery.StaticDeploymentProperties;
+import com.contentgrid.thunx.encoding.json.JsonThunkExpressionCoder;
+import com.nimbusds.jose.JWSAlgorithm;
+import io.fabric8.kubernetes.api.model.ObjectMeta;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+class GatewayRuntimeHintsTest {
+
+    private static RuntimeHints registerHints() {
+        var hints = new RuntimeHints();
+        new GatewayRuntimeHints().registerHints(hints, GatewayRuntimeHintsTest.class.getClassLoader());
+        return hints;
+    }
+
+    @Test
+    void configurationPropertiesAreBindable() {
+        var hints = registerHints();
+
+        assertThat(RuntimeHintsPredicates.reflection().onType(RuntimePlatformProperties.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(StaticDeploymentProperties.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(TypeReference.of(
+                "com.contentgrid.gateway.security.jwt.issuer.JwtInternalIssuerConfiguration$JwtSignerProperties")))
+                .accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onMethod(DeploymentId.class, "from")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(JWSAlgorithm.class)).accepts(hints);
+    }
+
+    @Test
+    void serializedModelsAreRegistered() {
+        var hints = registerHints();
+
+        assertThat(RuntimeHintsPredicates.reflection().onType(AuthenticationModel.class)).accepts(hints);
+        // nested types of the Kubernetes resources are registered as well
+        assertThat(RuntimeHintsPredicates.reflection().onType(ObjectMeta.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(JsonThunkExpressionCoder.class)).accepts(hints);
+    }
+}
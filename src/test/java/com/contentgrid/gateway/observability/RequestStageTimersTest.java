@@ -0,0 +1,64 @@
+package com.contentgrid.gateway.observability;
+
+import static com.contentgrid.gateway.runtime.web.ContentGridAppRequestWebFilter.CONTENTGRID_APP_ID_ATTR;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.contentgrid.configuration.applications.ApplicationId;
+import com.contentgrid.gateway.observability.RequestStageTimers.Stage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.authentication.BadCredentialsException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class RequestStageTimersTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private static MockServerWebExchange createExchange(ApplicationId applicationId) {
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("https://app.example/documents"));
+        exchange.getAttributes().put(CONTENTGRID_APP_ID_ATTR, applicationId);
+        return exchange;
+    }
+
+    @Test
+    void recordsOutcomeOfStage() {
+        var timers = new RequestStageTimers(meterRegistry, false);
+        var exchange = createExchange(ApplicationId.random());
+
+        StepVerifier.create(timers.time(Stage.AUTHORIZATION, exchange, Mono.just(true), granted -> "granted"))
+                .expectNext(true)
+                .verifyComplete();
+        StepVerifier.create(timers.time(Stage.AUTHORIZATION, exchange, Mono.just(true), granted -> "granted"))
+                .expectNext(true)
+                .verifyComplete();
+        StepVerifier.create(timers.time(Stage.AUTHENTICATION, exchange, Mono.error(new BadCredentialsException("bad")), value -> "authenticated"))
+                .verifyError(BadCredentialsException.class);
+        StepVerifier.create(timers.time(Stage.TOKEN_ISSUING, exchange, Mono.empty(), value -> "issued"))
+                .verifyComplete();
+
+        assertThat(meterRegistry.get(RequestStageTimers.METRIC_NAME).tag("stage", "authorization").tag("outcome", "granted")
+                .timer().count()).isEqualTo(2);
+        assertThat(meterRegistry.get(RequestStageTimers.METRIC_NAME).tag("stage", "authentication").tag("outcome", "rejected")
+                .timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(RequestStageTimers.METRIC_NAME).tag("stage", "token-issuing").tag("outcome", "empty")
+                .timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.find(RequestStageTimers.METRIC_NAME).tagKeys("application").timers()).isEmpty();
+    }
+
+    @Test
+    void tagsApplicationWhenEnabled() {
+        var timers = new RequestStageTimers(meterRegistry, true);
+        var applicationId = ApplicationId.random();
+
+        timers.record(Stage.ROUTING, "routed", createExchange(applicationId), 1_000);
+        timers.record(Stage.ROUTING, "unrouted", MockServerWebExchange.from(MockServerHttpRequest.get("https://unknown.example/")), 1_000);
+
+        assertThat(meterRegistry.get(RequestStageTimers.METRIC_NAME).tag("stage", "routing")
+                .tag("application", applicationId.toString()).timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get(RequestStageTimers.METRIC_NAME).tag("stage", "routing")
+                .tag("application", "none").timer().count()).isEqualTo(1);
+    }
+}
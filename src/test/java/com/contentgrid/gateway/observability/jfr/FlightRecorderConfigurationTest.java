@@ -0,0 +1,73 @@
+package com.contentgrid.gateway.observability.jfr;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.contentgrid.gateway.security.jwt.issuer.encrypt.ResultCheckedBytesEncryptor;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.security.crypto.encrypt.Encryptors;
+
+class FlightRecorderConfigurationTest {
+
+    private static final List<Class<? extends Event>> EVENTS = List.of(
+            ApplicationIdResolutionEvent.class,
+            ServiceInstanceSelectionEvent.class,
+            OpaQueryEvent.class,
+            OpaDecisionEvent.class,
+            JwtSigningEvent.class,
+            ClaimsEncryptionEvent.class,
+            OidcRefreshEvent.class
+    );
+
+    @SneakyThrows
+    private static Configuration settingsProfile() {
+        try (var reader = new InputStreamReader(new ClassPathResource("META-INF/jfr/contentgrid-gateway.jfc").getInputStream(),
+                StandardCharsets.UTF_8)) {
+            return Configuration.create(reader);
+        }
+    }
+
+    @Test
+    void settingsProfileEnablesAllEvents() {
+        var settings = settingsProfile().getSettings();
+
+        assertThat(EVENTS).allSatisfy(event -> {
+            var name = event.getAnnotation(Name.class).value();
+            assertThat(settings).containsEntry(name + "#enabled", "true");
+        });
+    }
+
+    @Test
+    @SneakyThrows
+    void eventsAreRecordedWithSettingsProfile(@TempDir Path tempDir) {
+        var settings = new HashMap<>(settingsProfile().getSettings());
+        settings.replaceAll((key, value) -> key.endsWith("#threshold") ? "0 ms" : value);
+
+        var encryptor = new ResultCheckedBytesEncryptor(Encryptors.standard("test", "abcdef"), new byte[] {1,2,3});
+        var destination = tempDir.resolve("recording.jfr");
+        try (var recording = new Recording(settings)) {
+            recording.start();
+            encryptor.decrypt(encryptor.encrypt(new byte[] { 8,8,6 }));
+            recording.stop();
+            recording.dump(destination);
+        }
+
+        var events = RecordingFile.readAllEvents(destination).stream()
+                .filter(event -> event.getEventType().getName().equals("com.contentgrid.gateway.ClaimsEncryption"))
+                .toList();
+        assertThat(events).map(event -> event.getString("operation")).containsExactly("encrypt", "decrypt");
+        assertThat(events).allSatisfy(event -> assertThat(event.getBoolean("success")).isTrue());
+    }
+}
@@ -0,0 +1,137 @@
+package com.contentgrid.gateway.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.contentgrid.gateway.resilience.CircuitBreaker.State;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class CircuitBreakerTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-01T12:00:00Z");
+
+    private SimpleMeterRegistry meterRegistry;
+    private CircuitBreaker circuitBreaker;
+
+    @BeforeEach
+    void setup() {
+        var properties = new CircuitBreakerProperties();
+        properties.setSlidingWindowSize(10);
+        properties.setMinimumNumberOfCalls(4);
+        properties.setFailureRateThreshold(0.5);
+        properties.setWaitDurationInOpenState(Duration.ofSeconds(30));
+        properties.setPermittedCallsInHalfOpenState(2);
+        properties.setCallTimeout(Duration.ofMillis(100));
+
+        meterRegistry = new SimpleMeterRegistry();
+        var registry = new CircuitBreakerRegistry(properties, meterRegistry);
+        registry.setClock(Clock.fixed(NOW, ZoneOffset.UTC));
+        circuitBreaker = registry.opa("http://opa:8181");
+    }
+
+    private void advanceTo(Instant instant) {
+        circuitBreaker.setClock(Clock.fixed(instant, ZoneOffset.UTC));
+    }
+
+    private void succeed(int times) {
+        for (int i = 0; i < times; i++) {
+            StepVerifier.create(circuitBreaker.run(Mono.just("ok"))).expectNext("ok").verifyComplete();
+        }
+    }
+
+    private void fail(int times) {
+        for (int i = 0; i < times; i++) {
+            StepVerifier.create(circuitBreaker.run(Mono.error(new IllegalStateException("down"))))
+                    .verifyError(IllegalStateException.class);
+        }
+    }
+
+    private double count(String meter, String... tags) {
+        return meterRegistry.get("contentgrid.gateway.circuit-breaker." + meter).tags(tags).counter().count();
+    }
+
+    @Test
+    void opensWhenFailureRateReachesThreshold() {
+        succeed(2);
+        fail(1);
+        assertThat(circuitBreaker.getState()).isEqualTo(State.CLOSED);
+
+        fail(1);
+        assertThat(circuitBreaker.getState()).isEqualTo(State.OPEN);
+        assertThat(count("transitions", "from", "closed", "to", "open")).isEqualTo(1.0);
+        assertThat(meterRegistry.get("contentgrid.gateway.circuit-breaker.state").tag("state", "open").gauge().value())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void openCircuitBreakerFailsFastWithoutCalling() {
+        fail(4);
+
+        var subscribed = new boolean[]{false};
+        StepVerifier.create(circuitBreaker.run(Mono.fromCallable(() -> subscribed[0] = true)))
+                .verifyError(CallNotPermittedException.class);
+
+        assertThat(subscribed[0]).isFalse();
+        assertThat(count("calls", "outcome", "not-permitted")).isEqualTo(1.0);
+    }
+
+    @Test
+    void successfulProbesCloseCircuitBreaker() {
+        fail(4);
+        advanceTo(NOW.plusSeconds(31));
+
+        succeed(1);
+        assertThat(circuitBreaker.getState()).isEqualTo(State.HALF_OPEN);
+        succeed(1);
+        assertThat(circuitBreaker.getState()).isEqualTo(State.CLOSED);
+        assertThat(circuitBreaker.getBufferedCalls()).isZero();
+    }
+
+    @Test
+    void failedProbeReopensCircuitBreaker() {
+        fail(4);
+        advanceTo(NOW.plusSeconds(31));
+
+        fail(1);
+        assertThat(circuitBreaker.getState()).isEqualTo(State.OPEN);
+        StepVerifier.create(circuitBreaker.run(Mono.just("ok"))).verifyError(CallNotPermittedException.class);
+        assertThat(count("transitions", "from", "half-open", "to", "open")).isEqualTo(1.0);
+    }
+
+    @Test
+    void halfOpenLimitsConcurrentProbes() {
+        fail(4);
+        advanceTo(NOW.plusSeconds(31));
+
+        assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+        assertThat(circuitBreaker.tryAcquirePermission()).isTrue();
+        assertThat(circuitBreaker.tryAcquirePermission()).isFalse();
+    }
+
+    @Test
+    void slowCallsTimeOutAndCountAsFailure() {
+        for (int i = 0; i < 4; i++) {
+            StepVerifier.create(circuitBreaker.run(Mono.never())).verifyError(TimeoutException.class);
+        }
+        assertThat(circuitBreaker.getState()).isEqualTo(State.OPEN);
+    }
+
+    @Test
+    void ignoredErrorsDoNotOpenCircuitBreaker() {
+        for (int i = 0; i < 10; i++) {
+            StepVerifier.create(circuitBreaker.run(Mono.error(new IllegalArgumentException("bad request")),
+                            error -> !(error instanceof IllegalArgumentException)))
+                    .verifyError(IllegalArgumentException.class);
+        }
+        assertThat(circuitBreaker.getState()).isEqualTo(State.CLOSED);
+        assertThat(circuitBreaker.getFailureRate()).isZero();
+    }
+}
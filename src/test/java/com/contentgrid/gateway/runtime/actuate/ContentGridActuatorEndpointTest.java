@@ -58,6 +58,20 @@ class ContentGridActuatorEndpointTest {
                         """);
     }
 
+    @Test
+    @WithMockUser
+    void listDeployments_concurrencyLimitDisabled() {
+        testClient.get()
+                .uri("http://localhost:" + port + "/actuator/contentgrid/deployments")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().json("""
+                        {
+                            "deployments": []
+                        }
+                        """);
+    }
+
     @Test
     @WithMockUser
     void listApplications() {
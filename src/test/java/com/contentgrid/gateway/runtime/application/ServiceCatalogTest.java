@@ -4,7 +4,9 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import com.contentgrid.configuration.applications.ApplicationId;
 import com.contentgrid.gateway.test.runtime.ServiceInstanceStubs;
+import java.util.ArrayList;
 import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.ServiceInstance;
 
 class ServiceCatalogTest {
 
@@ -38,4 +40,36 @@ class ServiceCatalogTest {
         var result = catalog.findByApplicationId(ApplicationId.random());
         assertThat(result).isEmpty();
     }
-}
\ No newline at end of file
+
+    @Test
+    void findAllByDeploymentId() {
+        var catalog = new ServiceCatalog(deploymentMetadata);
+        var appId = ApplicationId.random();
+        var deployId = DeploymentId.random();
+        var policyPackage = ServiceInstanceStubs.randomPolicyPackage();
+
+        catalog.handleServiceAdded(ServiceInstanceStubs.serviceInstance(deployId, appId, policyPackage));
+        catalog.handleServiceAdded(ServiceInstanceStubs.serviceInstance(deployId, appId, policyPackage));
+        catalog.handleServiceAdded(ServiceInstanceStubs.serviceInstance(DeploymentId.random(), appId));
+
+        assertThat(catalog.findAllByDeploymentId(deployId)).hasSize(2);
+        assertThat(catalog.findAllByDeploymentId(DeploymentId.random())).isEmpty();
+    }
+
+    @Test
+    void handlersAreNotified() {
+        var catalog = new ServiceCatalog(deploymentMetadata);
+        var added = new ArrayList<ServiceInstance>();
+        var deleted = new ArrayList<ServiceInstance>();
+        catalog.addServiceAddedHandler(added::add);
+        catalog.addServiceDeletedHandler(deleted::add);
+
+        var service = ServiceInstanceStubs.serviceInstance(ApplicationId.random());
+        catalog.handleServiceAdded(service);
+        assertThat(added).containsExactly(service);
+        assertThat(deleted).isEmpty();
+
+        catalog.handleServiceDeleted(service);
+        assertThat(deleted).containsExactly(service);
+    }
+}
@@ -6,6 +6,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 
 import com.contentgrid.configuration.applications.ApplicationId;
+import com.contentgrid.gateway.accesslog.AccessLogWebFilter;
 import com.contentgrid.gateway.test.runtime.ServiceInstanceStubs;
 import java.util.function.Consumer;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,8 +14,10 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
 import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.authentication.TestingAuthenticationToken;
 import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.authorization.ReactiveAuthorizationManager;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.web.server.authorization.AuthorizationContext;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
@@ -61,6 +64,25 @@ class PolicyPackageAuthorizationManagerTest {
         Mockito.verify(delegate).check(any(), any());
     }
 
+    @Test
+    void authenticationAndDecision_areRecordedForAccessLog() {
+        var service = ServiceInstanceStubs.serviceInstance(ApplicationId.random());
+        var context = authorizationContext(exchange -> {
+            exchange.getAttributes().put(CONTENTGRID_SERVICE_INSTANCE_ATTR, service);
+            exchange.getAttributes().put(CONTENTGRID_POLICY_PACKAGE_ATTR, "contentgrid.userapps.example");
+        });
+        Mockito.when(delegate.check(any(), any())).thenAnswer(invocation -> invocation.<Mono<Authentication>>getArgument(0)
+                .thenReturn(new AuthorizationDecision(false)));
+
+        StepVerifier.create(manager.check(Mono.just(new TestingAuthenticationToken("user", null)), context))
+                .assertNext(decision -> assertThat(decision.isGranted()).isFalse())
+                .verifyComplete();
+
+        assertThat(context.getExchange().getAttributes())
+                .containsEntry(AccessLogWebFilter.AUTHENTICATION_KIND_ATTR, "other")
+                .containsEntry(AccessLogWebFilter.AUTHORIZATION_OUTCOME_ATTR, "denied");
+    }
+
     @Test
     void unresolvedApplication_delegates_preservingFailClosed() {
         // no service-instance attribute -> not a resolved app; must NOT be treated as migrated
@@ -0,0 +1,117 @@
+package com.contentgrid.gateway.runtime.concurrency;
+
+import static com.contentgrid.gateway.runtime.web.ContentGridAppRequestWebFilter.CONTENTGRID_DEPLOY_ID_ATTR;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+
+import com.contentgrid.gateway.runtime.application.DeploymentId;
+import com.contentgrid.gateway.runtime.streaming.StreamType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.URI;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+class ConcurrencyLimitGatewayFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final DeploymentConcurrencyLimiters limiters;
+    private final ConcurrencyLimitGatewayFilter filter;
+
+    ConcurrencyLimitGatewayFilterTest() {
+        var properties = new ConcurrencyLimitProperties();
+        properties.setInitialLimit(2);
+        properties.setMinLimit(1);
+        this.limiters = new DeploymentConcurrencyLimiters(properties, meterRegistry);
+        this.filter = new ConcurrencyLimitGatewayFilter(limiters);
+    }
+
+    private static MockServerWebExchange createExchange(DeploymentId deploymentId) {
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("https://app.example/documents"));
+        exchange.getAttributes().put(GATEWAY_REQUEST_URL_ATTR, URI.create("cg://ignored/documents"));
+        exchange.getAttributes().put(CONTENTGRID_DEPLOY_ID_ATTR, deploymentId);
+        return exchange;
+    }
+
+    @Test
+    void shedsRequestsAboveLimitWith503() {
+        var deploymentId = DeploymentId.random();
+        var upstream = Sinks.empty();
+        GatewayFilterChain slowChain = exchange -> upstream.asMono().then();
+
+        var first = filter.filter(createExchange(deploymentId), slowChain).subscribe();
+        var second = filter.filter(createExchange(deploymentId), slowChain).subscribe();
+
+        var rejected = createExchange(deploymentId);
+        StepVerifier.create(filter.filter(rejected, slowChain)).verifyComplete();
+        assertThat(rejected.getResponse().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+
+        assertThat(meterRegistry.get("contentgrid.gateway.concurrency.in-flight")
+                .tag("deployment", deploymentId.getValue()).gauge().value()).isEqualTo(2.0);
+        assertThat(meterRegistry.get("contentgrid.gateway.concurrency.shed")
+                .tag("deployment", deploymentId.getValue()).functionCounter().count()).isEqualTo(1.0);
+
+        // other deployments are not affected
+        var other = createExchange(DeploymentId.random());
+        StepVerifier.create(filter.filter(other, exchange -> Mono.empty())).verifyComplete();
+        assertThat(other.getResponse().getStatusCode()).isNull();
+
+        upstream.tryEmitEmpty();
+        assertThat(first.isDisposed()).isTrue();
+        assertThat(second.isDisposed()).isTrue();
+        assertThat(limiters.states())
+                .filteredOn(state -> state.deploymentId().equals(deploymentId.getValue()))
+                .singleElement()
+                .satisfies(state -> {
+                    assertThat(state.inFlight()).isZero();
+                    assertThat(state.shed()).isEqualTo(1);
+                });
+    }
+
+    @Test
+    void requestsToOtherRoutesAreNotLimited() {
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("https://app.example/.contentgrid/authentication/login"));
+        exchange.getAttributes().put(GATEWAY_REQUEST_URL_ATTR, URI.create("http://authentication/login"));
+        exchange.getAttributes().put(CONTENTGRID_DEPLOY_ID_ATTR, DeploymentId.random());
+
+        StepVerifier.create(filter.filter(exchange, e -> Mono.empty())).verifyComplete();
+
+        assertThat(limiters.states()).isEmpty();
+    }
+
+    @Test
+    void acceptingEventStreamIsLimited() {
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("https://app.example/assistant/events")
+                .accept(MediaType.TEXT_EVENT_STREAM));
+        exchange.getAttributes().put(GATEWAY_REQUEST_URL_ATTR, URI.create("cg://ignored/assistant/events"));
+        exchange.getAttributes().put(CONTENTGRID_DEPLOY_ID_ATTR, DeploymentId.random());
+
+        StepVerifier.create(filter.filter(exchange, e -> Mono.empty())).verifyComplete();
+
+        assertThat(limiters.states()).singleElement().satisfies(state -> assertThat(state.inFlight()).isZero());
+    }
+
+    @Test
+    void admittedEventStreamIsReleasedWhenUpstreamResponds() {
+        var deploymentId = DeploymentId.random();
+        var upstream = Sinks.empty();
+        GatewayFilterChain eventStream = exchange -> {
+            // as admitted by StreamWebFilter, when the upstream response turns out to be an event stream
+            exchange.getAttributes().put(StreamType.STREAM_TYPE_ATTR, StreamType.EVENT_STREAM);
+            return exchange.getResponse().setComplete().then(upstream.asMono()).then();
+        };
+
+        var stream = filter.filter(createExchange(deploymentId), eventStream).subscribe();
+
+        assertThat(limiters.states()).singleElement().satisfies(state -> assertThat(state.inFlight()).isZero());
+        upstream.tryEmitEmpty();
+        assertThat(stream.isDisposed()).isTrue();
+        assertThat(limiters.states()).singleElement().satisfies(state -> assertThat(state.inFlight()).isZero());
+    }
+}
@@ -0,0 +1,102 @@
+package com.contentgrid.gateway.runtime.concurrency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class GradientConcurrencyLimitTest {
+
+    private static final long RTT = TimeUnit.MILLISECONDS.toNanos(20);
+
+    private static ConcurrencyLimitProperties properties() {
+        var properties = new ConcurrencyLimitProperties();
+        properties.setInitialLimit(10);
+        properties.setMinLimit(2);
+        properties.setMaxLimit(100);
+        properties.setLongWindow(100);
+        return properties;
+    }
+
+    private static void saturate(GradientConcurrencyLimit limit) {
+        while (limit.tryAcquire(0)) {
+            // fill up to the current limit
+        }
+    }
+
+    private static void releaseAll(GradientConcurrencyLimit limit) {
+        while (limit.getInFlight() > 0) {
+            limit.release();
+        }
+    }
+
+    @Test
+    void shedsRequestsAboveLimit() {
+        var limit = new GradientConcurrencyLimit(properties(), 0);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(limit.tryAcquire(0)).isTrue();
+        }
+        assertThat(limit.tryAcquire(0)).isFalse();
+        assertThat(limit.getShed()).isEqualTo(1);
+
+        limit.release();
+        assertThat(limit.tryAcquire(0)).isTrue();
+    }
+
+    @Test
+    void growsWhileResponseTimesAreStable() {
+        var limit = new GradientConcurrencyLimit(properties(), 0);
+
+        for (int i = 0; i < 50; i++) {
+            saturate(limit);
+            limit.onSample(RTT, false);
+            releaseAll(limit);
+        }
+
+        assertThat(limit.getLimit()).isGreaterThan(10);
+    }
+
+    @Test
+    void doesNotGrowWhenUnderutilized() {
+        var limit = new GradientConcurrencyLimit(properties(), 0);
+
+        for (int i = 0; i < 50; i++) {
+            limit.tryAcquire(0);
+            limit.onSample(RTT, false);
+            limit.release();
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(10);
+    }
+
+    @Test
+    void shrinksWhenResponseTimesIncrease() {
+        var limit = new GradientConcurrencyLimit(properties(), 0);
+        for (int i = 0; i < 20; i++) {
+            saturate(limit);
+            limit.onSample(RTT, false);
+            releaseAll(limit);
+        }
+        var stableLimit = limit.getLimit();
+
+        for (int i = 0; i < 10; i++) {
+            saturate(limit);
+            limit.onSample(RTT * 10, false);
+            releaseAll(limit);
+        }
+
+        assertThat(limit.getLimit()).isLessThan(stableLimit);
+    }
+
+    @Test
+    void backsOffOnFailures() {
+        var limit = new GradientConcurrencyLimit(properties(), 0);
+
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(RTT, true);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(2);
+    }
+}
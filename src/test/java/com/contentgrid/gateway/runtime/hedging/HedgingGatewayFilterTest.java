@@ -0,0 +1,174 @@
+package com.contentgrid.gateway.runtime.hedging;
+
+import static com.contentgrid.gateway.runtime.web.ContentGridAppRequestWebFilter.CONTENTGRID_APP_ID_ATTR;
+import static com.contentgrid.gateway.runtime.web.ContentGridAppRequestWebFilter.CONTENTGRID_DEPLOY_ID_ATTR;
+import static com.contentgrid.gateway.runtime.web.ContentGridAppRequestWebFilter.CONTENTGRID_SERVICE_INSTANCE_ATTR;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.CLIENT_RESPONSE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+import com.contentgrid.configuration.applications.ApplicationId;
+import com.contentgrid.gateway.runtime.application.DeploymentId;
+import com.contentgrid.gateway.test.runtime.ServiceInstanceStubs;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.client.HttpClientResponse;
+import reactor.netty.http.server.HttpServer;
+
+class HedgingGatewayFilterTest {
+
+    private static final Duration HEDGE_DELAY = Duration.ofMillis(50);
+
+    private final ApplicationId applicationId = ApplicationId.random();
+    private final DeploymentId deploymentId = DeploymentId.random();
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private final CountDownLatch slowConnectionClosed = new CountDownLatch(1);
+    private DisposableServer server;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private HedgingGatewayFilter filter;
+
+    @BeforeEach
+    void setup() {
+        // The second request stalls, like a pod that is slow; every other request responds right away
+        this.server = HttpServer.create()
+                .port(0)
+                .handle((request, response) -> {
+                    var number = this.requests.incrementAndGet();
+                    response.header("X-Request-Number", Integer.toString(number));
+                    if (number == 2) {
+                        request.withConnection(
+                                connection -> connection.onDispose(this.slowConnectionClosed::countDown));
+                        return Mono.delay(Duration.ofSeconds(10)).then(response.sendString(Mono.just("slow")).then());
+                    }
+                    return response.sendString(Mono.just("fast"));
+                })
+                .bindNow();
+
+        var properties = new HedgingProperties();
+        properties.setEnabled(true);
+        properties.setMinimumSamples(1);
+        properties.setMinDelay(HEDGE_DELAY);
+        properties.setMaxDelay(HEDGE_DELAY);
+        properties.getBudget().setRatio(1.0);
+        properties.getBudget().setBurst(1);
+
+        @SuppressWarnings("unchecked")
+        ObjectProvider<List<HttpHeadersFilter>> headersFilters = mock(ObjectProvider.class);
+        when(headersFilters.getIfAvailable(any())).thenReturn(List.of());
+
+        this.filter = new HedgingGatewayFilter(HttpClient.create(), headersFilters, new HttpClientProperties(), null,
+                properties, this.meterRegistry);
+    }
+
+    @AfterEach
+    void teardown() {
+        this.server.disposeNow();
+    }
+
+    private ServerWebExchange exchange() {
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("https://app.contentgrid.test/documents"));
+        var route = Route.async()
+                .id("deployment")
+                .uri("cg://ignored")
+                .predicate(e -> true)
+                .metadata(HedgingGatewayFilter.HEDGING_METADATA, true)
+                .build();
+        exchange.getAttributes().put(GATEWAY_REQUEST_URL_ATTR,
+                URI.create("http://localhost:%d/documents".formatted(this.server.port())));
+        exchange.getAttributes().put(GATEWAY_ROUTE_ATTR, route);
+        exchange.getAttributes().put(CONTENTGRID_APP_ID_ATTR, this.applicationId);
+        exchange.getAttributes().put(CONTENTGRID_DEPLOY_ID_ATTR, this.deploymentId);
+        exchange.getAttributes().put(CONTENTGRID_SERVICE_INSTANCE_ATTR,
+                ServiceInstanceStubs.serviceInstance(this.deploymentId, this.applicationId));
+        return exchange;
+    }
+
+    private HttpClientResponse route(ServerWebExchange exchange) {
+        GatewayFilterChain chain = e -> Mono.empty();
+        this.filter.filter(exchange, chain).block(Duration.ofSeconds(5));
+
+        Connection connection = exchange.getAttribute(CLIENT_RESPONSE_CONN_ATTR);
+        assertThat(connection).isNotNull();
+        connection.dispose();
+        return exchange.getAttribute(CLIENT_RESPONSE_ATTR);
+    }
+
+    private double counter(String name, String tag, String value) {
+        return this.meterRegistry.get("contentgrid.gateway.hedging." + name).tag(tag, value).counter().count();
+    }
+
+    @Test
+    void hedgedRequestWins_whenPrimaryIsSlow() throws InterruptedException {
+        // Without samples there is no delay yet, so the first request is not hedged
+        var first = this.route(this.exchange());
+        assertThat(first.responseHeaders().get("X-Request-Number")).isEqualTo("1");
+        assertThat(this.filter.getBudget(this.applicationId).getBalance()).isEqualTo(1.0);
+
+        var response = this.route(this.exchange());
+
+        assertThat(response.responseHeaders().get("X-Request-Number")).isEqualTo("3");
+        assertThat(this.counter("responses", "request", "hedge")).isEqualTo(1.0);
+        assertThat(this.counter("responses", "request", "primary")).isEqualTo(1.0);
+        assertThat(this.counter("hedges", "outcome", "sent")).isEqualTo(1.0);
+        assertThat(this.filter.getBudget(this.applicationId).getBalance()).isEqualTo(0.0);
+
+        // The slow request is cancelled, which closes its connection
+        assertThat(this.slowConnectionClosed.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void hedgeIsNotSent_whenBudgetIsExhausted() {
+        var properties = new HedgingProperties();
+        properties.setMinimumSamples(1);
+        properties.setMinDelay(HEDGE_DELAY);
+        properties.setMaxDelay(HEDGE_DELAY);
+        properties.getBudget().setRatio(0.0);
+
+        @SuppressWarnings("unchecked")
+        ObjectProvider<List<HttpHeadersFilter>> headersFilters = mock(ObjectProvider.class);
+        when(headersFilters.getIfAvailable(any())).thenReturn(List.of());
+        this.filter = new HedgingGatewayFilter(HttpClient.create(), headersFilters, new HttpClientProperties(), null,
+                properties, this.meterRegistry);
+
+        this.route(this.exchange());
+        this.server.disposeNow();
+        this.server = HttpServer.create()
+                .port(0)
+                .handle((request, response) -> Mono.delay(HEDGE_DELAY.multipliedBy(4))
+                        .then(response.sendString(Mono.just("slow")).then()))
+                .bindNow();
+
+        var response = this.route(this.exchange());
+
+        assertThat(response.status().code()).isEqualTo(200);
+        assertThat(this.counter("hedges", "outcome", "budget-exhausted")).isEqualTo(1.0);
+        assertThat(this.counter("responses", "request", "primary")).isEqualTo(2.0);
+    }
+}
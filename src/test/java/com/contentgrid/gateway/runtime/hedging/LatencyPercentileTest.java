@@ -0,0 +1,46 @@
+package com.contentgrid.gateway.runtime.hedging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyPercentileTest {
+
+    @Test
+    void unknownUntilMinimumSamples() {
+        var percentile = new LatencyPercentile(0.95, 20);
+
+        for (int i = 0; i < 19; i++) {
+            percentile.record(1_000);
+        }
+        assertThat(percentile.getNanos()).isEqualTo(-1);
+
+        percentile.record(1_000);
+        assertThat(percentile.getNanos()).isEqualTo(1_000);
+    }
+
+    @Test
+    void estimatesPercentile() {
+        var percentile = new LatencyPercentile(0.95, 20);
+
+        for (int i = 1; i <= 100; i++) {
+            percentile.record(i * 1_000L);
+        }
+
+        assertThat(percentile.getNanos()).isEqualTo(95_000);
+    }
+
+    @Test
+    void followsRecentSamples() {
+        var percentile = new LatencyPercentile(0.95, 20);
+
+        for (int i = 0; i < 256; i++) {
+            percentile.record(1_000_000);
+        }
+        for (int i = 0; i < 256; i++) {
+            percentile.record(1_000);
+        }
+
+        assertThat(percentile.getNanos()).isEqualTo(1_000);
+    }
+}
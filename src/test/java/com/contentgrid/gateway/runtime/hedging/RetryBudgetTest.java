@@ -0,0 +1,45 @@
+package com.contentgrid.gateway.runtime.hedging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class RetryBudgetTest {
+
+    @Test
+    void emptyBudgetDoesNotAllowRetries() {
+        var budget = new RetryBudget(0.1, 10);
+
+        assertThat(budget.tryWithdraw()).isFalse();
+    }
+
+    @Test
+    void retriesAreLimitedToRatioOfRequests() {
+        var budget = new RetryBudget(0.1, 10);
+
+        var retries = 0;
+        for (int i = 0; i < 100; i++) {
+            budget.deposit();
+            if (budget.tryWithdraw()) {
+                retries++;
+            }
+        }
+
+        assertThat(retries).isEqualTo(10);
+    }
+
+    @Test
+    void savedUpRetriesAreCappedAtBurst() {
+        var budget = new RetryBudget(0.5, 3);
+
+        for (int i = 0; i < 100; i++) {
+            budget.deposit();
+        }
+
+        assertThat(budget.getBalance()).isEqualTo(3.0);
+        assertThat(budget.tryWithdraw()).isTrue();
+        assertThat(budget.tryWithdraw()).isTrue();
+        assertThat(budget.tryWithdraw()).isTrue();
+        assertThat(budget.tryWithdraw()).isFalse();
+    }
+}
@@ -0,0 +1,110 @@
+package com.contentgrid.gateway.runtime.ratelimit;
+
+import static com.contentgrid.gateway.runtime.web.ContentGridAppRequestWebFilter.CONTENTGRID_APP_ID_ATTR;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.contentgrid.configuration.applications.ApplicationId;
+import com.contentgrid.gateway.runtime.ratelimit.RateLimitProperties.Limit;
+import com.contentgrid.gateway.runtime.ratelimit.RateLimitWebFilter.RateLimitKeyResolver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class RateLimitWebFilterTest {
+
+    private final AtomicInteger forwarded = new AtomicInteger();
+    private final WebFilterChain chain = exchange -> {
+        forwarded.incrementAndGet();
+        return Mono.empty();
+    };
+
+    private final RateLimitWebFilter filter = new RateLimitWebFilter(
+            new RateLimiter("application", applicationId -> new Limit(0.5, 2), Duration.ofMinutes(1),
+                    new SimpleMeterRegistry()),
+            RateLimitKeyResolver.application(),
+            exchange -> {
+                var cors = new CorsConfiguration();
+                cors.addAllowedOrigin("https://app.example");
+                return cors;
+            }
+    );
+
+    private static MockServerWebExchange createExchange(ApplicationId applicationId) {
+        return createExchange(applicationId, MockServerHttpRequest.get("https://app.example/documents"));
+    }
+
+    private static MockServerWebExchange createExchange(ApplicationId applicationId,
+            MockServerHttpRequest.BaseBuilder<?> request) {
+        var exchange = MockServerWebExchange.from(request);
+        if (applicationId != null) {
+            exchange.getAttributes().put(CONTENTGRID_APP_ID_ATTR, applicationId);
+        }
+        return exchange;
+    }
+
+    @Test
+    void rejectsWithRetryAfterWhenLimited() {
+        var applicationId = ApplicationId.random();
+
+        for (int i = 0; i < 2; i++) {
+            var exchange = createExchange(applicationId);
+            StepVerifier.create(filter.filter(exchange, chain)).verifyComplete();
+            assertThat(exchange.getResponse().getStatusCode()).isNull();
+        }
+
+        var limited = createExchange(applicationId);
+        StepVerifier.create(filter.filter(limited, chain)).verifyComplete();
+
+        assertThat(forwarded).hasValue(2);
+        assertThat(limited.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(limited.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+
+        // other applications have their own bucket
+        StepVerifier.create(filter.filter(createExchange(ApplicationId.random()), chain)).verifyComplete();
+        assertThat(forwarded).hasValue(3);
+    }
+
+    @Test
+    void requestsWithoutApplicationAreNotLimited() {
+        for (int i = 0; i < 5; i++) {
+            StepVerifier.create(filter.filter(createExchange(null), chain)).verifyComplete();
+        }
+        assertThat(forwarded).hasValue(5);
+    }
+
+    @Test
+    void rejectionHasCorsHeaders() {
+        var applicationId = ApplicationId.random();
+        for (int i = 0; i < 2; i++) {
+            StepVerifier.create(filter.filter(createExchange(applicationId), chain)).verifyComplete();
+        }
+
+        var limited = createExchange(applicationId, MockServerHttpRequest.get("https://api.example/documents")
+                .header(HttpHeaders.ORIGIN, "https://app.example"));
+        StepVerifier.create(filter.filter(limited, chain)).verifyComplete();
+
+        assertThat(limited.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(limited.getResponse().getHeaders().getAccessControlAllowOrigin()).isEqualTo("https://app.example");
+    }
+
+    @Test
+    void preflightRequestsAreNotLimited() {
+        var applicationId = ApplicationId.random();
+        for (int i = 0; i < 5; i++) {
+            var preflight = createExchange(applicationId, MockServerHttpRequest.options("https://api.example/documents")
+                    .header(HttpHeaders.ORIGIN, "https://app.example")
+                    .header(HttpHeaders.ACCESS_CONTROL_REQUEST_METHOD, "GET"));
+            StepVerifier.create(filter.filter(preflight, chain)).verifyComplete();
+        }
+        assertThat(forwarded).hasValue(5);
+    }
+}
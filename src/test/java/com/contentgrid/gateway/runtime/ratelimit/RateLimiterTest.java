@@ -0,0 +1,125 @@
+package com.contentgrid.gateway.runtime.ratelimit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.contentgrid.configuration.applications.ApplicationId;
+import com.contentgrid.gateway.runtime.ratelimit.RateLimitProperties.Limit;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class RateLimiterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    // nanoTime() has an arbitrary origin, which can be negative
+    private final AtomicLong now = new AtomicLong(-TimeUnit.HOURS.toNanos(1));
+
+    private RateLimiter createRateLimiter() {
+        var rateLimiter = new RateLimiter("application", applicationId -> new Limit(10, 5), Duration.ofMinutes(1),
+                meterRegistry);
+        rateLimiter.setTicker(now::get);
+        return rateLimiter;
+    }
+
+    private void advance(RateLimiter rateLimiter, Duration duration) {
+        now.addAndGet(duration.toNanos());
+    }
+
+    @Test
+    void admitsBurstThenSustainedRate() {
+        var rateLimiter = createRateLimiter();
+        var key = RateLimitKey.forApplication(ApplicationId.random());
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(rateLimiter.acquire(key)).isZero();
+        }
+        assertThat(rateLimiter.acquire(key)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+
+        advance(rateLimiter, Duration.ofMillis(100));
+        assertThat(rateLimiter.acquire(key)).isZero();
+        assertThat(rateLimiter.acquire(key)).isPositive();
+
+        assertThat(meterRegistry.get("contentgrid.gateway.rate-limit.rejected")
+                .tag("application", key.applicationId().toString())
+                .counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void bucketsAreIndependent() {
+        var rateLimiter = createRateLimiter();
+        var applicationId = ApplicationId.random();
+        var alice = RateLimitKey.forPrincipal(applicationId, "alice");
+        var bob = RateLimitKey.forPrincipal(applicationId, "bob");
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(rateLimiter.acquire(alice)).isZero();
+        }
+        assertThat(rateLimiter.acquire(alice)).isPositive();
+        assertThat(rateLimiter.acquire(bob)).isZero();
+    }
+
+    @Test
+    void idleBucketsAreRemoved() {
+        var rateLimiter = createRateLimiter();
+        var key = RateLimitKey.forApplication(ApplicationId.random());
+
+        rateLimiter.acquire(key);
+        var gauge = meterRegistry.get("contentgrid.gateway.rate-limit.available")
+                .tag("application", key.applicationId().toString())
+                .gauge();
+        assertThat(gauge.value()).isEqualTo(4.0);
+        assertThat(meterRegistry.get("contentgrid.gateway.rate-limit.buckets").gauge().value()).isEqualTo(1.0);
+
+        advance(rateLimiter, Duration.ofSeconds(30));
+        rateLimiter.acquire(key);
+        assertThat(meterRegistry.get("contentgrid.gateway.rate-limit.available").gauge()).isSameAs(gauge);
+
+        // The sweep runs on the next request to the same shard, after which a new bucket is created
+        advance(rateLimiter, Duration.ofMinutes(2));
+        rateLimiter.acquire(key);
+        assertThat(rateLimiter.size()).isEqualTo(1);
+        assertThat(meterRegistry.get("contentgrid.gateway.rate-limit.available").gauge())
+                .isNotSameAs(gauge)
+                .satisfies(newGauge -> assertThat(newGauge.value()).isEqualTo(4.0));
+    }
+
+    @Test
+    void deletedApplicationsAreRemoved() {
+        var rateLimiter = createRateLimiter();
+        var applicationId = ApplicationId.random();
+        var otherApplicationId = ApplicationId.random();
+
+        for (int i = 0; i < 6; i++) {
+            rateLimiter.acquire(RateLimitKey.forApplication(applicationId));
+        }
+        rateLimiter.acquire(RateLimitKey.forApplication(otherApplicationId));
+        assertThat(meterRegistry.find("contentgrid.gateway.rate-limit.rejected")
+                .tag("application", applicationId.toString()).counter()).isNotNull();
+
+        rateLimiter.removeApplication(applicationId);
+
+        assertThat(rateLimiter.size()).isEqualTo(1);
+        assertThat(meterRegistry.find("contentgrid.gateway.rate-limit.rejected")
+                .tag("application", applicationId.toString()).counter()).isNull();
+        assertThat(meterRegistry.find("contentgrid.gateway.rate-limit.available")
+                .tag("application", applicationId.toString()).gauge()).isNull();
+        assertThat(meterRegistry.find("contentgrid.gateway.rate-limit.available")
+                .tag("application", otherApplicationId.toString()).gauge()).isNotNull();
+    }
+
+    @Test
+    void tokenBucketRefillsToBurst() {
+        var bucket = new TokenBucket(10, 5, 0);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(bucket.tryAcquire(0)).isZero();
+        }
+        assertThat(bucket.availableTokens(0)).isZero();
+        assertThat(bucket.availableTokens(TimeUnit.MILLISECONDS.toNanos(250))).isEqualTo(2.5);
+        assertThat(bucket.availableTokens(TimeUnit.SECONDS.toNanos(10))).isEqualTo(5.0);
+        assertThat(bucket.isIdle(TimeUnit.SECONDS.toNanos(10), TimeUnit.SECONDS.toNanos(5))).isTrue();
+        assertThat(bucket.isIdle(TimeUnit.SECONDS.toNanos(1), TimeUnit.SECONDS.toNanos(5))).isFalse();
+    }
+}
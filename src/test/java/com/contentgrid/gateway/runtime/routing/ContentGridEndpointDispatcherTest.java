@@ -0,0 +1,64 @@
+package com.contentgrid.gateway.runtime.routing;
+
+import static com.contentgrid.gateway.runtime.routing.ContentGridEndpointDispatcher.CONTENTGRID_ENDPOINT_ID_ATTR;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR;
+
+import com.contentgrid.gateway.runtime.RuntimePlatformProperties.AuthorizationType;
+import com.contentgrid.gateway.runtime.RuntimePlatformProperties.EndpointDefinition;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class ContentGridEndpointDispatcherTest {
+
+    private final AtomicReference<String> appliedFilter = new AtomicReference<>();
+
+    private final ContentGridEndpointDispatcher dispatcher = new ContentGridEndpointDispatcher(List.of(
+            new EndpointDefinition("authentication", "http://authentication:8080", AuthorizationType.DEFAULT),
+            new EndpointDefinition("assistant", "https://assistant.internal", AuthorizationType.AUTHENTICATED)
+    ), endpoint -> (exchange, chain) -> {
+        this.appliedFilter.set(endpoint.endpointId());
+        return chain.filter(exchange);
+    });
+
+    @Test
+    void extractsEndpointId() {
+        assertThat(ContentGridEndpointDispatcher.extractEndpointId("/.contentgrid/authentication/login")).isEqualTo("authentication");
+        assertThat(ContentGridEndpointDispatcher.extractEndpointId("/.contentgrid/authentication")).isEqualTo("authentication");
+        assertThat(ContentGridEndpointDispatcher.extractEndpointId("/.contentgrid/")).isNull();
+        assertThat(ContentGridEndpointDispatcher.extractEndpointId("/documents/.contentgrid/authentication")).isNull();
+    }
+
+    @Test
+    void matchesKnownEndpointsOnly() {
+        var known = MockServerWebExchange.from(MockServerHttpRequest.get("https://app.example/.contentgrid/assistant/chat"));
+        assertThat(dispatcher.matches(known)).isTrue();
+        assertThat(known.getAttributes()).containsEntry(CONTENTGRID_ENDPOINT_ID_ATTR, "assistant");
+
+        var unknown = MockServerWebExchange.from(MockServerHttpRequest.get("https://app.example/.contentgrid/unknown/xyz"));
+        assertThat(dispatcher.matches(unknown)).isFalse();
+
+        var application = MockServerWebExchange.from(MockServerHttpRequest.get("https://app.example/documents"));
+        assertThat(dispatcher.matches(application)).isFalse();
+        assertThat(application.getAttributes()).doesNotContainKey(CONTENTGRID_ENDPOINT_ID_ATTR);
+    }
+
+    @Test
+    void dispatchesToUpstreamOfEndpoint() {
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("https://app.example/.contentgrid/authentication/xyz?q=1"));
+        assertThat(dispatcher.matches(exchange)).isTrue();
+        exchange.getAttributes().put(GATEWAY_REQUEST_URL_ATTR, URI.create("http://ignored/.contentgrid/authentication/xyz?q=1"));
+
+        StepVerifier.create(dispatcher.dispatchFilter().filter(exchange, e -> Mono.empty())).verifyComplete();
+
+        assertThat(exchange.<URI>getAttribute(GATEWAY_REQUEST_URL_ATTR))
+                .isEqualTo(URI.create("http://authentication:8080/.contentgrid/authentication/xyz?q=1"));
+        assertThat(appliedFilter).hasValue("authentication");
+    }
+}
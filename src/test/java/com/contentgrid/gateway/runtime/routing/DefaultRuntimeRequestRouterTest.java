@@ -10,6 +10,7 @@ import com.contentgrid.gateway.runtime.config.kubernetes.KubernetesLabels;
 import java.util.Map;
 import java.util.UUID;
 import lombok.NonNull;
+import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.cloud.client.DefaultServiceInstance;
@@ -53,6 +54,20 @@ class DefaultRuntimeRequestRouterTest {
         assertThat(this.requestRouter.route(exchange2)).hasValue();
     }
 
+    @Test
+    void testSynchronousRouting() {
+        var router = (SynchronousRuntimeRequestRouter) this.requestRouter;
+        var deployId = DeploymentId.random();
+
+        Assertions.assertThat(router.routeSynchronously(createExchange("https://my-app.contentgrid.cloud/me"))).isEmpty();
+
+        this.serviceCatalog.handleServiceAdded(serviceInstance(deployId, APP_ID_1));
+
+        Assertions.assertThat(router.routeSynchronously(createExchange("https://my-app.contentgrid.cloud/me")))
+                .hasValueSatisfying(service -> Assertions.assertThat(deployMetadata.getDeploymentId(service)).hasValue(deployId));
+        Assertions.assertThat(router.routeSynchronously(createExchange("https://unknown.contentgrid.cloud/me"))).isEmpty();
+    }
+
     @Test
     void testMultipleBackends() {
 
@@ -0,0 +1,60 @@
+package com.contentgrid.gateway.runtime.routing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.contentgrid.configuration.applications.ApplicationId;
+import com.contentgrid.gateway.runtime.application.DeploymentId;
+import com.contentgrid.gateway.runtime.application.SimpleContentGridDeploymentMetadata;
+import com.contentgrid.gateway.test.runtime.ServiceInstanceStubs;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+class SimpleRuntimeServiceInstanceSelectorTest {
+
+    private final MockServerWebExchange exchange = MockServerWebExchange.from(
+            MockServerHttpRequest.get("https://app.contentgrid.test/"));
+
+    private final SimpleContentGridDeploymentMetadata deploymentMetadata = new SimpleContentGridDeploymentMetadata();
+
+    @Test
+    void selectsLowestDeploymentIdWithoutWeights() {
+        var appId = ApplicationId.random();
+        var first = ServiceInstanceStubs.serviceInstance(DeploymentId.from("a-first"), appId);
+        var second = ServiceInstanceStubs.serviceInstance(DeploymentId.from("b-second"), appId);
+
+        var selector = new SimpleRuntimeServiceInstanceSelector(deploymentMetadata);
+
+        assertThat(selector.selectService(exchange, List.of(second, first))).contains(first);
+    }
+
+    @Test
+    void selectsByWeight() {
+        var appId = ApplicationId.random();
+        var established = ServiceInstanceStubs.serviceInstance(DeploymentId.from("a-established"), appId);
+        // sorts after the established deployment, still gets its share
+        var fresh = ServiceInstanceStubs.serviceInstance(DeploymentId.from("b-fresh"), appId);
+        var weights = Map.of(established, 1.0, fresh, 0.25);
+
+        var selector = new SimpleRuntimeServiceInstanceSelector(deploymentMetadata, weights::get);
+
+        // established gets [0, 0.8), fresh gets [0.8, 1)
+        selector.setRandom(() -> 0.5);
+        assertThat(selector.selectService(exchange, List.of(fresh, established))).contains(established);
+
+        selector.setRandom(() -> 0.9);
+        assertThat(selector.selectService(exchange, List.of(fresh, established))).contains(fresh);
+    }
+
+    @Test
+    void singleCandidateIsAlwaysSelected() {
+        var fresh = ServiceInstanceStubs.serviceInstance(ApplicationId.random());
+
+        var selector = new SimpleRuntimeServiceInstanceSelector(deploymentMetadata, service -> 0.1);
+        selector.setRandom(() -> 0.99);
+
+        assertThat(selector.selectService(exchange, List.of(fresh))).contains(fresh);
+    }
+}
@@ -0,0 +1,96 @@
+package com.contentgrid.gateway.runtime.security.authority;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.contentgrid.gateway.runtime.security.jwt.ContentGridClaimNames;
+import com.contentgrid.gateway.security.authority.Actor.ActorType;
+import com.contentgrid.gateway.security.authority.ActorConverter;
+import com.contentgrid.gateway.security.authority.DelegatedAuthenticationDetailsGrantedAuthority;
+import com.contentgrid.gateway.security.jwt.issuer.encrypt.TextEncryptorFactory;
+import com.contentgrid.gateway.test.security.FakeBase64TextEncryptorFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+class ExtensionDelegationGrantedAuthorityConverterTest {
+
+    private static final Instant NOW = Instant.parse("2024-05-01T12:00:00Z");
+
+    private final AtomicInteger decryptions = new AtomicInteger();
+    private final TextEncryptorFactory encryptorFactory = () -> {
+        decryptions.incrementAndGet();
+        return new FakeBase64TextEncryptorFactory().newEncryptor();
+    };
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ExtensionDelegationGrantedAuthorityConverter createConverter(Instant now) {
+        var converter = new ExtensionDelegationGrantedAuthorityConverter(
+                encryptorFactory,
+                new ActorConverter(iss -> true, ActorType.USER, claims -> claims),
+                meterRegistry
+        );
+        converter.setClock(Clock.fixed(now, ZoneOffset.UTC));
+        return converter;
+    }
+
+    private static Jwt delegationToken(String tokenValue, Instant expiresAt) {
+        var principalClaims = new FakeBase64TextEncryptorFactory().newEncryptor().encrypt("""
+                {"iss": "https://idp.example", "sub": "user-123"}
+                """);
+        return Jwt.withTokenValue(tokenValue)
+                .header("alg", "RS256")
+                .claim(ContentGridClaimNames.RESTRICT_PRINCIPAL_CLAIMS, principalClaims)
+                .claim(ContentGridClaimNames.ACT, Map.of("iss", "https://extensions.example", "sub", "extension"))
+                .expiresAt(expiresAt)
+                .build();
+    }
+
+    private double cacheCount(String result) {
+        return meterRegistry.get("contentgrid.gateway.extension-delegation.cache").tag("result", result).counter().count();
+    }
+
+    @Test
+    void reusedTokenIsConvertedOnce() {
+        var converter = createConverter(NOW);
+        var token = delegationToken("token-1", NOW.plus(Duration.ofMinutes(5)));
+
+        var first = converter.convert(token);
+        var second = converter.convert(token);
+
+        assertThat(first).singleElement().isInstanceOf(DelegatedAuthenticationDetailsGrantedAuthority.class);
+        assertThat(second).isEqualTo(first);
+        assertThat(decryptions).hasValue(1);
+        assertThat(cacheCount("miss")).isEqualTo(1.0);
+        assertThat(cacheCount("hit")).isEqualTo(1.0);
+    }
+
+    @Test
+    void differentTokensAreConvertedSeparately() {
+        var converter = createConverter(NOW);
+
+        converter.convert(delegationToken("token-1", NOW.plus(Duration.ofMinutes(5))));
+        converter.convert(delegationToken("token-2", NOW.plus(Duration.ofMinutes(5))));
+
+        assertThat(decryptions).hasValue(2);
+        assertThat(cacheCount("miss")).isEqualTo(2.0);
+    }
+
+    @Test
+    void expiredEntriesAreConvertedAgain() {
+        var token = delegationToken("token-1", NOW.plus(Duration.ofMinutes(5)));
+
+        createConverter(NOW).convert(token);
+        var laterConverter = createConverter(NOW.plus(Duration.ofMinutes(10)));
+        laterConverter.convert(token);
+        laterConverter.convert(token);
+
+        assertThat(decryptions).hasValue(3);
+        assertThat(cacheCount("hit")).isEqualTo(0.0);
+    }
+}
@@ -0,0 +1,84 @@
+package com.contentgrid.gateway.runtime.security.jwt.issuer;
+
+import static com.contentgrid.gateway.runtime.web.ContentGridAppRequestWebFilter.CONTENTGRID_APP_ID_ATTR;
+import static com.contentgrid.gateway.runtime.web.ContentGridAppRequestWebFilter.CONTENTGRID_DEPLOY_ID_ATTR;
+import static com.contentgrid.thunx.spring.security.ReactivePolicyAuthorizationManager.ABAC_POLICY_PREDICATE_ATTR;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.contentgrid.configuration.applications.ApplicationId;
+import com.contentgrid.gateway.runtime.application.DeploymentId;
+import com.contentgrid.gateway.security.authority.Actor;
+import com.contentgrid.gateway.security.authority.Actor.ActorType;
+import com.contentgrid.gateway.security.authority.PrincipalAuthenticationDetailsGrantedAuthority;
+import com.contentgrid.thunx.encoding.json.JsonThunkExpressionCoder;
+import com.contentgrid.thunx.predicates.model.Comparison;
+import com.contentgrid.thunx.predicates.model.Scalar;
+import com.contentgrid.thunx.predicates.model.SymbolicReference;
+import com.contentgrid.thunx.predicates.model.ThunkExpression;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+class RuntimeJwtClaimsResolverTest {
+
+    private static final ApplicationId APPLICATION_ID = ApplicationId.from("a1");
+    private static final DeploymentId DEPLOYMENT_ID = DeploymentId.from("d1");
+
+    private static final PrincipalAuthenticationDetailsGrantedAuthority AUTHENTICATION_DETAILS = new PrincipalAuthenticationDetailsGrantedAuthority(
+            new Actor(ActorType.USER, () -> Map.of("iss", "https://upstream-issuer.example", "sub", "my-user", "name", "My User"), null)
+    );
+
+    private static ThunkExpression<Boolean> predicate() {
+        return Comparison.areEqual(
+                SymbolicReference.parse("input.entity.public"),
+                Scalar.of(true)
+        );
+    }
+
+    private static MockServerWebExchange exchange(ThunkExpression<Boolean> predicate) {
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("https://foo.userapps.contentgrid.com").build());
+        exchange.getAttributes().put(CONTENTGRID_APP_ID_ATTR, APPLICATION_ID);
+        exchange.getAttributes().put(CONTENTGRID_DEPLOY_ID_ATTR, DEPLOYMENT_ID);
+        exchange.getAttributes().put(ABAC_POLICY_PREDICATE_ATTR, predicate);
+        return exchange;
+    }
+
+    @Test
+    void encodesAbacContext() {
+        var resolver = new RuntimeJwtClaimsResolver(new SimpleMeterRegistry());
+
+        var first = resolver.resolveAdditionalClaims(exchange(predicate()), AUTHENTICATION_DETAILS).block();
+        var second = resolver.resolveAdditionalClaims(exchange(predicate()), AUTHENTICATION_DETAILS).block();
+
+        var expected = new String(new JsonThunkExpressionCoder().encode(predicate()), StandardCharsets.UTF_8);
+        assertThat(first).isNotNull();
+        assertThat(second).isNotNull();
+        assertThat(first.getClaim("x-abac-context")).isEqualTo(expected);
+        assertThat(second.getClaim("x-abac-context")).isEqualTo(expected);
+        assertThat(first.getAudience()).containsExactly("contentgrid:app:a1:d1");
+    }
+
+    @Test
+    void reusesEncodedPredicateForEqualPredicates() {
+        var meterRegistry = new SimpleMeterRegistry();
+        var resolver = new RuntimeJwtClaimsResolver(meterRegistry);
+        // Every request gets a freshly built predicate: equal, but never the same instance
+        var predicates = List.of(predicate(), predicate(), predicate());
+        assertThat(predicates.get(0)).isEqualTo(predicates.get(1)).isNotSameAs(predicates.get(1));
+
+        for (var predicate : predicates) {
+            resolver.resolveAdditionalClaims(exchange(predicate), AUTHENTICATION_DETAILS).block();
+        }
+
+        assertThat(meterRegistry.get("contentgrid.gateway.abac-context.cache").tag("result", "miss").counter().count())
+                .isEqualTo(1.0);
+        assertThat(meterRegistry.get("contentgrid.gateway.abac-context.cache").tag("result", "hit").counter().count())
+                .isEqualTo(2.0);
+        assertThat(meterRegistry.get("contentgrid.gateway.abac-context.encoding").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("contentgrid.gateway.abac-context.size").summary().totalAmount()).isPositive();
+    }
+}
@@ -0,0 +1,46 @@
+package com.contentgrid.gateway.runtime.streaming;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class BandwidthShaperTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void burstIsNotDelayed() {
+        var shaper = new BandwidthShaper(0);
+
+        assertThat(shaper.reserve(1000, 1000, 2000, 0)).isZero();
+        assertThat(shaper.reserve(1000, 1000, 2000, 0)).isZero();
+        // burst is used up, the next kilobyte has to wait for a second
+        assertThat(shaper.reserve(1000, 1000, 2000, 0)).isEqualTo(SECOND);
+    }
+
+    @Test
+    void reservationsQueueUpBehindEachOther() {
+        var shaper = new BandwidthShaper(0);
+
+        assertThat(shaper.reserve(500, 1000, 0, 0)).isEqualTo(SECOND / 2);
+        assertThat(shaper.reserve(500, 1000, 0, 0)).isEqualTo(SECOND);
+        assertThat(shaper.reserve(500, 1000, 0, SECOND)).isEqualTo(SECOND / 2);
+    }
+
+    @Test
+    void idleTimeRefillsTheBurst() {
+        var shaper = new BandwidthShaper(0);
+
+        assertThat(shaper.reserve(2000, 1000, 1000, 0)).isEqualTo(SECOND);
+        assertThat(shaper.reserve(1000, 1000, 1000, 10 * SECOND)).isZero();
+    }
+
+    @Test
+    void changedBandwidthAppliesToNextReservation() {
+        var shaper = new BandwidthShaper(0);
+
+        assertThat(shaper.reserve(1000, 1000, 0, 0)).isEqualTo(SECOND);
+        // doubled bandwidth: the next kilobyte only takes half a second
+        assertThat(shaper.reserve(1000, 2000, 0, 0)).isEqualTo(SECOND + SECOND / 2);
+    }
+}
@@ -0,0 +1,145 @@
+package com.contentgrid.gateway.runtime.streaming;
+
+import static com.contentgrid.gateway.runtime.web.ContentGridAppRequestWebFilter.CONTENTGRID_APP_ID_ATTR;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.contentgrid.configuration.applications.ApplicationId;
+import com.contentgrid.gateway.runtime.streaming.StreamingProperties.Limits;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+class StreamWebFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final OpenStreams openStreams = new OpenStreams(applicationId -> {
+        var limits = new Limits();
+        limits.setMaxConcurrentStreams(1);
+        return limits;
+    }, meterRegistry);
+
+    private final StreamWebFilter filter = new StreamWebFilter(openStreams, Duration.ofMinutes(1));
+
+    private static MockServerWebExchange createExchange(ApplicationId applicationId, MockServerHttpRequest request) {
+        var exchange = MockServerWebExchange.from(request);
+        exchange.getAttributes().put(CONTENTGRID_APP_ID_ATTR, applicationId);
+        return exchange;
+    }
+
+    private static MockServerWebExchange createExchange(ApplicationId applicationId) {
+        return createExchange(applicationId, MockServerHttpRequest.get("https://app.example/assistant/events")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .build());
+    }
+
+    private static DataBuffer event(String data) {
+        return DefaultDataBufferFactory.sharedInstance.wrap(("data: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Responds like an upstream service, with a body that stays open
+     */
+    private static WebFilterChain respondWith(MediaType contentType) {
+        return exchange -> {
+            exchange.getResponse().getHeaders().setContentType(contentType);
+            return exchange.getResponse().writeWith(Flux.just(event("hello")).concatWith(Flux.never()));
+        };
+    }
+
+    @Test
+    void capsOpenEventStreamsPerApplication() {
+        var applicationId = ApplicationId.random();
+        var eventStream = respondWith(MediaType.TEXT_EVENT_STREAM);
+
+        var firstExchange = createExchange(applicationId);
+        var first = filter.filter(firstExchange, eventStream).subscribe();
+        assertThat(openStreams.getOpen(applicationId)).isEqualTo(1);
+        assertThat(StreamType.of(firstExchange)).isEqualTo(StreamType.EVENT_STREAM);
+
+        var rejected = createExchange(applicationId);
+        StepVerifier.create(filter.filter(rejected, eventStream)).verifyComplete();
+        assertThat(rejected.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(StreamType.of(rejected)).isNull();
+
+        // ordinary responses and other applications are not affected
+        var ordinary = createExchange(applicationId);
+        StepVerifier.create(filter.filter(ordinary, exchange -> Mono.empty())).verifyComplete();
+        assertThat(ordinary.getResponse().getStatusCode()).isNull();
+        var other = createExchange(ApplicationId.random());
+        var otherStream = filter.filter(other, eventStream).subscribe();
+        assertThat(other.getResponse().getStatusCode()).isNull();
+
+        first.dispose();
+        otherStream.dispose();
+        assertThat(openStreams.getOpen(applicationId)).isZero();
+        assertThat(meterRegistry.get("contentgrid.gateway.streaming.streams.rejected")
+                .tag("application", applicationId.toString()).counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("contentgrid.gateway.streaming.streams.duration")
+                .tag("type", "event-stream").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void acceptHeaderDoesNotMakeAStream() {
+        var applicationId = ApplicationId.random();
+        var exchange = createExchange(applicationId);
+
+        var json = filter.filter(exchange, respondWith(MediaType.APPLICATION_JSON)).subscribe();
+
+        assertThat(StreamType.of(exchange)).isNull();
+        assertThat(openStreams.getOpen(applicationId)).isZero();
+        json.dispose();
+    }
+
+    @Test
+    void capsOpenWebSocketsPerApplication() {
+        var applicationId = ApplicationId.random();
+        var upstream = Sinks.empty();
+        WebFilterChain openChain = exchange -> upstream.asMono().then();
+        var handshake = MockServerHttpRequest.get("https://app.example/socket")
+                .header(HttpHeaders.UPGRADE, "WebSocket");
+
+        var firstExchange = createExchange(applicationId, handshake.build());
+        var first = filter.filter(firstExchange, openChain).subscribe();
+        assertThat(StreamType.of(firstExchange)).isEqualTo(StreamType.WEBSOCKET);
+
+        var rejected = createExchange(applicationId, handshake.build());
+        StepVerifier.create(filter.filter(rejected, exchange -> Mono.error(new AssertionError("Request was forwarded"))))
+                .verifyComplete();
+        assertThat(rejected.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+
+        upstream.tryEmitEmpty();
+        assertThat(first.isDisposed()).isTrue();
+        assertThat(openStreams.getOpen(applicationId)).isZero();
+    }
+
+    @Test
+    void endsIdleEventStreams() {
+        var filter = new StreamWebFilter(openStreams, Duration.ofMillis(100));
+        var exchange = createExchange(ApplicationId.random());
+        WebFilterChain eventChain = e -> {
+            e.getResponse().getHeaders().setContentType(MediaType.TEXT_EVENT_STREAM);
+            return e.getResponse().writeWith(Flux.just(event("hello")).concatWith(Flux.never()));
+        };
+
+        StepVerifier.create(filter.filter(exchange, eventChain)).expectComplete().verify(Duration.ofSeconds(5));
+
+        assertThat(exchange.getResponse().getHeaders().getFirst(StreamWebFilter.X_ACCEL_BUFFERING)).isEqualTo("no");
+        StepVerifier.create(exchange.getResponse().getBodyAsString())
+                .expectNext("data: hello\n\n")
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,116 @@
+package com.contentgrid.gateway.runtime.streaming;
+
+import static com.contentgrid.gateway.runtime.web.ContentGridAppRequestWebFilter.CONTENTGRID_APP_ID_ATTR;
+import static com.contentgrid.gateway.runtime.web.ContentGridAppRequestWebFilter.CONTENTGRID_DEPLOY_ID_ATTR;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.contentgrid.configuration.applications.ApplicationId;
+import com.contentgrid.gateway.runtime.application.DeploymentId;
+import com.contentgrid.gateway.runtime.streaming.StreamingProperties.Limits;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class StreamingBodyWebFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final BodyAccounting accounting = new BodyAccounting(applicationId -> {
+        var limits = new Limits();
+        limits.setMaxRequestSize(DataSize.ofBytes(10));
+        return limits;
+    }, meterRegistry);
+
+    private final StreamingBodyWebFilter filter = new StreamingBodyWebFilter(accounting);
+
+    /**
+     * Proxies the request body to the response, like an upstream service that echoes its input
+     */
+    private final WebFilterChain echo = exchange -> exchange.getResponse().writeWith(exchange.getRequest().getBody());
+
+    private static Flux<DataBuffer> body(String... chunks) {
+        return Flux.fromArray(chunks)
+                .map(chunk -> DefaultDataBufferFactory.sharedInstance.wrap(chunk.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static ServerWebExchange createExchange(ApplicationId applicationId, DeploymentId deploymentId,
+            MockServerHttpRequest request) {
+        var exchange = MockServerWebExchange.from(request);
+        exchange.getAttributes().put(CONTENTGRID_APP_ID_ATTR, applicationId);
+        exchange.getAttributes().put(CONTENTGRID_DEPLOY_ID_ATTR, deploymentId);
+        return exchange;
+    }
+
+    @Test
+    void countsBytesInBothDirections() {
+        var applicationId = ApplicationId.random();
+        var deploymentId = DeploymentId.random();
+        var exchange = createExchange(applicationId, deploymentId, MockServerHttpRequest.post("https://app.example/documents")
+                .body(body("hello", "world")));
+
+        StepVerifier.create(filter.filter(exchange, echo)).verifyComplete();
+
+        for (var direction : new String[]{"in", "out"}) {
+            assertThat(meterRegistry.get("contentgrid.gateway.streaming.bytes")
+                    .tag("direction", direction)
+                    .tag("application", applicationId.toString())
+                    .tag("deployment", deploymentId.getValue())
+                    .counter().count()).isEqualTo(10.0);
+            assertThat(meterRegistry.get("contentgrid.gateway.streaming.in-flight")
+                    .tag("direction", direction)
+                    .gauge().value()).isZero();
+        }
+    }
+
+    @Test
+    void countersOfDeletedDeploymentAreRemoved() {
+        var applicationId = ApplicationId.random();
+        var deploymentId = DeploymentId.random();
+        var exchange = createExchange(applicationId, deploymentId, MockServerHttpRequest.post("https://app.example/documents")
+                .body(body("hello")));
+
+        StepVerifier.create(filter.filter(exchange, echo)).verifyComplete();
+        accounting.removeDeployment(deploymentId);
+
+        assertThat(meterRegistry.find("contentgrid.gateway.streaming.bytes")
+                .tag("deployment", deploymentId.getValue())
+                .counters()).isEmpty();
+    }
+
+    @Test
+    void rejectsDeclaredContentLengthAboveMaximum() {
+        var exchange = createExchange(ApplicationId.random(), DeploymentId.random(),
+                MockServerHttpRequest.post("https://app.example/documents")
+                        .contentLength(11)
+                        .body(body("hello world")));
+
+        StepVerifier.create(filter.filter(exchange, chain -> Mono.error(new AssertionError("Request was forwarded"))))
+                .verifyComplete();
+
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+
+    @Test
+    void failsStreamedBodyAboveMaximum() {
+        var exchange = createExchange(ApplicationId.random(), DeploymentId.random(),
+                MockServerHttpRequest.post("https://app.example/documents").body(body("hello", "world", "!")));
+
+        StepVerifier.create(filter.filter(exchange, echo))
+                .expectErrorSatisfies(error -> assertThat(error)
+                        .isInstanceOfSatisfying(ResponseStatusException.class, ex -> assertThat(ex.getStatusCode())
+                                .isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE)))
+                .verify();
+    }
+}
@@ -0,0 +1,114 @@
+package com.contentgrid.gateway.runtime.traffic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.contentgrid.configuration.applications.ApplicationId;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class ApplicationTrafficMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ApplicationTrafficMetrics createMetrics(int topK) {
+        var properties = new TrafficMetricsProperties();
+        properties.setTopK(topK);
+        properties.setSketchCapacity(10);
+        // refreshes are triggered by the test
+        properties.setRefreshInterval(Duration.ofDays(1));
+        return new ApplicationTrafficMetrics(properties, meterRegistry);
+    }
+
+    private double requests(String application, String outcome) {
+        var counter = meterRegistry.find("contentgrid.gateway.application.requests")
+                .tag("application", application)
+                .tag("outcome", outcome)
+                .counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    @Test
+    void onlyTopApplicationsGetTheirOwnSeries() {
+        var metrics = createMetrics(1);
+        var noisy = ApplicationId.random();
+        var quiet = ApplicationId.random();
+
+        for (int i = 0; i < 10; i++) {
+            metrics.record(noisy, 200, 10, 100, 1_000_000);
+        }
+        metrics.record(quiet, 500, 0, 0, 1_000_000);
+        // before the first refresh, all traffic is in the 'other' series
+        assertThat(requests(ApplicationTrafficMetrics.OTHER, "SUCCESS")).isEqualTo(10);
+
+        metrics.refresh();
+        metrics.record(noisy, 404, 0, 0, 1_000_000);
+        metrics.record(quiet, 200, 0, 0, 1_000_000);
+
+        assertThat(requests(noisy.toString(), "CLIENT_ERROR")).isEqualTo(1);
+        assertThat(requests(quiet.toString(), "SUCCESS")).isZero();
+        assertThat(requests(ApplicationTrafficMetrics.OTHER, "SUCCESS")).isEqualTo(11);
+        assertThat(meterRegistry.get("contentgrid.gateway.application.bytes").tag("application", "other")
+                .tag("direction", "out").counter().count()).isEqualTo(1000);
+
+        assertThat(metrics.top()).first().satisfies(traffic -> {
+            assertThat(traffic.applicationId()).isEqualTo(noisy.toString());
+            assertThat(traffic.tracked()).isTrue();
+        });
+    }
+
+    @Test
+    void seriesAreRemovedWhenApplicationDropsOutOfTop() {
+        var metrics = createMetrics(1);
+        var first = ApplicationId.random();
+        var second = ApplicationId.random();
+
+        metrics.record(first, 200, 0, 0, 1_000_000);
+        metrics.refresh();
+        metrics.record(first, 200, 0, 0, 1_000_000);
+        assertThat(requests(first.toString(), "SUCCESS")).isEqualTo(1);
+
+        for (int i = 0; i < 10; i++) {
+            metrics.record(second, 200, 0, 0, 1_000_000);
+        }
+        metrics.refresh();
+
+        assertThat(meterRegistry.find("contentgrid.gateway.application.requests")
+                .tag("application", first.toString())
+                .counters()).isEmpty();
+        assertThat(meterRegistry.find("contentgrid.gateway.application.latency")
+                .tag("application", first.toString())
+                .timers()).isEmpty();
+    }
+
+    @Test
+    void seriesOfApplicationsThatStayInTopAreKept() {
+        var metrics = createMetrics(1);
+        var application = ApplicationId.random();
+
+        metrics.record(application, 200, 0, 0, 1_000_000);
+        metrics.refresh();
+        metrics.record(application, 200, 0, 0, 1_000_000);
+        var counter = meterRegistry.get("contentgrid.gateway.application.requests")
+                .tag("application", application.toString())
+                .tag("outcome", "SUCCESS")
+                .counter();
+
+        metrics.refresh();
+        metrics.record(application, 200, 0, 0, 1_000_000);
+
+        assertThat(counter.count()).isEqualTo(2);
+    }
+
+    @Test
+    void streamsAreNotRecordedAsLatency() {
+        var metrics = createMetrics(1);
+        var application = ApplicationId.random();
+
+        metrics.recordStream(application, 200, 0, 100);
+
+        assertThat(requests(ApplicationTrafficMetrics.OTHER, "SUCCESS")).isEqualTo(1);
+        assertThat(meterRegistry.get("contentgrid.gateway.application.latency").tag("application", "other").timer()
+                .count()).isZero();
+    }
+}
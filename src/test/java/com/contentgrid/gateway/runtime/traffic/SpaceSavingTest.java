@@ -0,0 +1,65 @@
+package com.contentgrid.gateway.runtime.traffic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.contentgrid.gateway.runtime.traffic.SpaceSaving.Estimate;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class SpaceSavingTest {
+
+    @Test
+    void heavyHittersSurviveLongTail() {
+        var sketch = new SpaceSaving<String>(10);
+        for (int i = 0; i < 1000; i++) {
+            sketch.offer("heavy", 1);
+            sketch.offer("medium-" + (i % 2), 1);
+            sketch.offer("tail-" + i, 1);
+        }
+
+        assertThat(sketch.top(3)).map(Estimate::key)
+                .containsExactlyInAnyOrder("heavy", "medium-0", "medium-1");
+        assertThat(sketch.top(1)).singleElement().satisfies(estimate -> {
+            assertThat(estimate.key()).isEqualTo("heavy");
+            // the estimate never underestimates, and overestimates by at most the reported error
+            assertThat(estimate.count()).isGreaterThanOrEqualTo(1000);
+            assertThat(estimate.count() - estimate.error()).isLessThanOrEqualTo(1000);
+        });
+    }
+
+    @Test
+    void decayForgetsOldTraffic() {
+        var sketch = new SpaceSaving<String>(10);
+        sketch.offer("old", 4);
+        sketch.offer("once", 1);
+
+        sketch.decay();
+
+        assertThat(sketch.top(10)).containsExactly(new Estimate<>("old", 2, 0));
+    }
+
+    @Test
+    void mergeAddsCountsOfAllSketches() {
+        var first = new SpaceSaving<String>(2);
+        var second = new SpaceSaving<String>(2);
+        first.offer("shared", 3);
+        first.offer("first", 1);
+        second.offer("shared", 2);
+
+        assertThat(SpaceSaving.merge(List.of(first, second), 2))
+                .containsExactly(new Estimate<>("shared", 5, 0), new Estimate<>("first", 1, 0));
+    }
+
+    @Test
+    void mergeCountsEvictionsOfFullSketchesAsError() {
+        var full = new SpaceSaving<String>(1);
+        var other = new SpaceSaving<String>(2);
+        full.offer("evicted", 1);
+        full.offer("kept", 1);
+        other.offer("evicted", 4);
+
+        // 'evicted' may have been offered as often as the smallest count of the full sketch
+        assertThat(SpaceSaving.merge(List.of(full, other), 1))
+                .containsExactly(new Estimate<>("evicted", 6, 2));
+    }
+}
@@ -0,0 +1,80 @@
+package com.contentgrid.gateway.runtime.upstream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.contentgrid.configuration.applications.ApplicationId;
+import com.contentgrid.gateway.runtime.application.DeploymentId;
+import com.contentgrid.gateway.runtime.application.ServiceCatalog;
+import com.contentgrid.gateway.runtime.application.SimpleContentGridDeploymentMetadata;
+import com.contentgrid.gateway.test.runtime.ServiceInstanceStubs;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import reactor.netty.http.client.HttpClient;
+
+class DeploymentConnectionPoolsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SimpleContentGridDeploymentMetadata deploymentMetadata = new SimpleContentGridDeploymentMetadata();
+    private final ServiceCatalog serviceCatalog = new ServiceCatalog(deploymentMetadata);
+    private final AtomicInteger createdClients = new AtomicInteger();
+
+    private final DeploymentConnectionPools pools = new DeploymentConnectionPools(
+            new UpstreamConnectionPoolProperties(),
+            connectionProvider -> {
+                createdClients.incrementAndGet();
+                return HttpClient.create(connectionProvider);
+            },
+            deploymentMetadata,
+            serviceCatalog,
+            meterRegistry
+    );
+
+    {
+        serviceCatalog.addServiceDeletedHandler(pools);
+    }
+
+    @Test
+    void everyDeploymentHasItsOwnPool() {
+        var appId = ApplicationId.random();
+        var deploy1 = DeploymentId.random();
+        var deploy2 = DeploymentId.random();
+        var service1 = ServiceInstanceStubs.serviceInstance(deploy1, appId);
+        var service2 = ServiceInstanceStubs.serviceInstance(deploy2, appId);
+        serviceCatalog.handleServiceAdded(service1);
+        serviceCatalog.handleServiceAdded(service2);
+
+        var client1 = pools.getHttpClient(deploy1, service1);
+        assertThat(pools.getHttpClient(deploy1, service1)).isSameAs(client1);
+        assertThat(pools.getHttpClient(deploy2, service2)).isNotSameAs(client1);
+        assertThat(createdClients).hasValue(2);
+        assertThat(meterRegistry.get("contentgrid.gateway.upstream-pool.pools").gauge().value()).isEqualTo(2.0);
+    }
+
+    @Test
+    void poolIsDisposedWhenDeploymentIsDeleted() {
+        var deploymentId = DeploymentId.random();
+        var service = ServiceInstanceStubs.serviceInstance(deploymentId, ApplicationId.random());
+        serviceCatalog.handleServiceAdded(service);
+
+        var client = pools.getHttpClient(deploymentId, service);
+        serviceCatalog.handleServiceDeleted(service);
+
+        assertThat(meterRegistry.get("contentgrid.gateway.upstream-pool.pools").gauge().value()).isZero();
+        serviceCatalog.handleServiceAdded(service);
+        assertThat(pools.getHttpClient(deploymentId, service)).isNotSameAs(client);
+    }
+
+    @Test
+    void poolOfDeletedDeploymentIsNotKept() {
+        var deploymentId = DeploymentId.random();
+        var service = ServiceInstanceStubs.serviceInstance(deploymentId, ApplicationId.random());
+        serviceCatalog.handleServiceAdded(service);
+        // a request that was routed just before the deployment was deleted
+        serviceCatalog.handleServiceDeleted(service);
+
+        assertThat(pools.getHttpClient(deploymentId, service)).isNotNull();
+
+        assertThat(meterRegistry.get("contentgrid.gateway.upstream-pool.pools").gauge().value()).isZero();
+    }
+}
@@ -0,0 +1,100 @@
+package com.contentgrid.gateway.runtime.warmup;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.contentgrid.configuration.applications.ApplicationId;
+import com.contentgrid.gateway.test.runtime.ServiceInstanceStubs;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import org.junit.jupiter.api.Test;
+import reactor.netty.http.client.HttpClient;
+
+class DeploymentWarmupTest {
+
+    private static final Instant NOW = Instant.parse("2024-01-01T12:00:00Z");
+
+    static DeploymentWarmup createWarmup() {
+        var properties = new DeploymentWarmupProperties();
+        properties.getSlowStart().setWindow(Duration.ofSeconds(100));
+        properties.getSlowStart().setMinWeight(0.1);
+        var warmup = new DeploymentWarmup(service -> HttpClient.create(), properties, new SimpleMeterRegistry());
+        warmup.setClock(Clock.fixed(NOW, ZoneOffset.UTC));
+        warmup.initialServicesDiscovered();
+        return warmup;
+    }
+
+    @Test
+    void initialServiceHasFullWeight() {
+        var properties = new DeploymentWarmupProperties();
+        var warmup = new DeploymentWarmup(service -> HttpClient.create(), properties, new SimpleMeterRegistry());
+        var initial = ServiceInstanceStubs.serviceInstance(ApplicationId.random());
+        warmup.handleServiceAdded(initial);
+        warmup.initialServicesDiscovered();
+
+        var later = ServiceInstanceStubs.serviceInstance(ApplicationId.random());
+        warmup.handleServiceAdded(later);
+
+        assertThat(warmup.getWeight(initial)).isEqualTo(1.0);
+        assertThat(warmup.getWeight(later)).isEqualTo(properties.getSlowStart().getMinWeight());
+    }
+
+    @Test
+    void requestsNeedPath() {
+        var properties = new DeploymentWarmupProperties();
+        properties.setRequests(2);
+
+        assertThatThrownBy(() -> new DeploymentWarmup(service -> HttpClient.create(), properties,
+                new SimpleMeterRegistry())).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void unknownServiceHasFullWeight() {
+        var warmup = createWarmup();
+
+        assertThat(warmup.getWeight(ServiceInstanceStubs.serviceInstance(ApplicationId.random()))).isEqualTo(1.0);
+    }
+
+    @Test
+    void weightRampsUpOverSlowStartWindow() {
+        var warmup = createWarmup();
+        var service = ServiceInstanceStubs.serviceInstance(ApplicationId.random());
+        warmup.handleServiceAdded(service);
+
+        assertThat(warmup.getWeight(service)).isEqualTo(0.1);
+
+        warmup.setClock(Clock.fixed(NOW.plusSeconds(50), ZoneOffset.UTC));
+        assertThat(warmup.getWeight(service)).isEqualTo(0.5);
+
+        warmup.setClock(Clock.fixed(NOW.plusSeconds(100), ZoneOffset.UTC));
+        assertThat(warmup.getWeight(service)).isEqualTo(1.0);
+    }
+
+    @Test
+    void updatedServiceDoesNotRestartSlowStart() {
+        var warmup = createWarmup();
+        var service = ServiceInstanceStubs.serviceInstance(ApplicationId.random());
+        warmup.handleServiceAdded(service);
+
+        warmup.setClock(Clock.fixed(NOW.plusSeconds(100), ZoneOffset.UTC));
+        warmup.handleServiceAdded(service);
+
+        assertThat(warmup.getWeight(service)).isEqualTo(1.0);
+    }
+
+    @Test
+    void deletedServiceIsForgotten() {
+        var warmup = createWarmup();
+        var service = ServiceInstanceStubs.serviceInstance(ApplicationId.random());
+        warmup.handleServiceAdded(service);
+        warmup.handleServiceDeleted(service);
+
+        warmup.setClock(Clock.fixed(NOW.plusSeconds(10), ZoneOffset.UTC));
+        warmup.handleServiceAdded(service);
+
+        assertThat(warmup.getWeight(service)).isEqualTo(0.1);
+    }
+}
@@ -10,6 +10,8 @@ import com.contentgrid.gateway.test.runtime.ServiceInstanceStubs;
 import com.contentgrid.gateway.runtime.application.DeploymentId;
 import com.contentgrid.gateway.runtime.application.SimpleContentGridDeploymentMetadata;
 import com.contentgrid.gateway.runtime.routing.RuntimeRequestRouter;
+import com.contentgrid.gateway.runtime.routing.SynchronousRuntimeRequestRouter;
+import java.util.Optional;
 import lombok.NonNull;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -69,6 +71,42 @@ class ContentGridAppRequestWebFilterTest {
         assertThat(request.getAttributes()).doesNotContainKey(CONTENTGRID_DEPLOY_ID_ATTR);
     }
 
+    @Test
+    void synchronousRouter_hasAttributes() {
+        var appId = ApplicationId.random();
+        var deploymentId = DeploymentId.random();
+        SynchronousRuntimeRequestRouter synchronousRouter = exchange ->
+                Optional.of(ServiceInstanceStubs.serviceInstance(deploymentId, appId));
+
+        var filter = new ContentGridAppRequestWebFilter(serviceMetadata, synchronousRouter);
+
+        var request = createExchange(appId);
+        var result = filter.filter(request, chain);
+
+        StepVerifier.create(result).verifyComplete();
+
+        assertThat(request.getAttributes()).containsEntry(CONTENTGRID_APP_ID_ATTR, appId);
+        assertThat(request.getAttributes()).containsEntry(CONTENTGRID_DEPLOY_ID_ATTR, deploymentId);
+        Mockito.verify(chain).filter(request);
+    }
+
+    @Test
+    void synchronousRouter_noMatchingRoute_hasNoAttributes() {
+        var appId = ApplicationId.random();
+        SynchronousRuntimeRequestRouter synchronousRouter = exchange -> Optional.empty();
+
+        var filter = new ContentGridAppRequestWebFilter(serviceMetadata, synchronousRouter);
+        filter.setUnroutedRequestMatcher(request -> request.getPath().value().startsWith("/actuator"));
+
+        for (var path : new String[]{"/me", "/actuator/health"}) {
+            var request = MockServerWebExchange.from(MockServerHttpRequest.get("https://{appId}.userapps.contentgrid.com" + path, appId).build());
+            StepVerifier.create(filter.filter(request, chain)).verifyComplete();
+
+            assertThat(request.getAttributes()).doesNotContainKey(CONTENTGRID_APP_ID_ATTR);
+            Mockito.verify(chain).filter(request);
+        }
+    }
+
     @NonNull
     private static MockServerWebExchange createExchange(ApplicationId appId) {
         var uriTemplate = "https://{appId}.userapps.contentgrid.com/me";
@@ -0,0 +1,122 @@
+package com.contentgrid.gateway.security.bearer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import com.contentgrid.configuration.api.ComposedConfiguration;
+import com.contentgrid.configuration.api.observable.Observable.UpdateType;
+import com.contentgrid.configuration.api.observable.Publisher;
+import com.contentgrid.configuration.applications.ApplicationConfiguration;
+import com.contentgrid.configuration.applications.ApplicationId;
+import com.contentgrid.gateway.runtime.config.StaticApplicationConfigurationRepository;
+import com.contentgrid.gateway.security.jwt.issuer.JwtClaimsSigner;
+import com.contentgrid.gateway.test.security.jwt.SingleKeyJwtClaimsSigner;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.nimbusds.jwt.JWTClaimsSet;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Map;
+import java.util.Optional;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.oauth2.server.resource.authentication.BearerTokenAuthenticationToken;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+class DynamicJwtAuthenticationManagerResolverTest {
+
+    private static final WireMockServer wireMockServer = new WireMockServer(
+            new WireMockConfiguration().dynamicPort());
+
+    private static final JwtClaimsSigner ISSUER_JWT_SIGNER = new SingleKeyJwtClaimsSigner();
+
+    @BeforeAll
+    static void startWiremock() {
+        wireMockServer.start();
+        wireMockServer.stubFor(WireMock.get("/issuer/.well-known/openid-configuration").willReturn(WireMock.okJson("""
+                {
+                    "issuer": "{baseUrl}/issuer",
+                    "jwks_uri": "{baseUrl}/issuer/jwks"
+                }
+                """.replace("{baseUrl}", wireMockServer.baseUrl()))));
+
+        wireMockServer.stubFor(WireMock.get("/issuer/jwks")
+                .willReturn(WireMock.okJson(ISSUER_JWT_SIGNER.getSigningKeys().toPublicJWKSet().toString())));
+    }
+
+    @AfterAll
+    static void shutdownWiremock() {
+        wireMockServer.stop();
+    }
+
+    @SneakyThrows
+    private static String sign(Map<String, Object> claims) {
+        return ISSUER_JWT_SIGNER.sign(JWTClaimsSet.parse(claims)).serialize();
+    }
+
+    @Test
+    void decodersAreWarmedUpAndEvicted() {
+        var publisher = new Publisher<ComposedConfiguration<ApplicationId, ApplicationConfiguration>>();
+        var meterRegistry = new SimpleMeterRegistry();
+        var resolver = new DynamicJwtAuthenticationManagerResolver(
+                exchange -> Optional.empty(),
+                new StaticApplicationConfigurationRepository(Map.of()),
+                meterRegistry
+        );
+        resolver.subscribe(publisher);
+
+        var appId = ApplicationId.random();
+        publisher.emit(UpdateType.ADD, ApplicationConfiguration.builder()
+                .issuerUri(wireMockServer.url("issuer"))
+                .buildForApplication(appId));
+
+        await().untilAsserted(() -> assertThat(meterRegistry.get("contentgrid.gateway.bearer.decoders.warmup")
+                .tag("outcome", "success")
+                .counter()
+                .count()).isEqualTo(1.0));
+        wireMockServer.verify(WireMock.getRequestedFor(WireMock.urlEqualTo("/issuer/jwks")));
+        assertThat(meterRegistry.get("contentgrid.gateway.bearer.decoders").gauge().value()).isEqualTo(1.0);
+
+        publisher.emit(UpdateType.REMOVE, ApplicationConfiguration.builder()
+                .issuerUri(wireMockServer.url("issuer"))
+                .buildForApplication(appId));
+
+        assertThat(meterRegistry.get("contentgrid.gateway.bearer.decoders").gauge().value()).isEqualTo(0.0);
+        assertThat(meterRegistry.get("contentgrid.gateway.bearer.decoders.evicted").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void firstAuthenticationIsRecorded() {
+        var meterRegistry = new SimpleMeterRegistry();
+        var appId = ApplicationId.random();
+        var resolver = new DynamicJwtAuthenticationManagerResolver(
+                exchange -> Optional.of(appId),
+                new StaticApplicationConfigurationRepository(Map.of(appId, ApplicationConfiguration.builder()
+                        .issuerUri(wireMockServer.url("issuer"))
+                        .build())),
+                meterRegistry
+        );
+
+        var token = sign(Map.of(
+                "iss", wireMockServer.url("issuer"),
+                "sub", "test123"
+        ));
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("https://app.contentgrid.test/"));
+
+        for (int i = 0; i < 2; i++) {
+            var authentication = resolver.resolve(exchange)
+                    .flatMap(manager -> manager.authenticate(new BearerTokenAuthenticationToken(token)))
+                    .block();
+            assertThat(authentication).isInstanceOf(JwtAuthenticationToken.class);
+        }
+
+        assertThat(meterRegistry.get("contentgrid.gateway.bearer.first-authentication")
+                .tag("prefetched", "false")
+                .timer()
+                .count()).isEqualTo(1);
+    }
+}
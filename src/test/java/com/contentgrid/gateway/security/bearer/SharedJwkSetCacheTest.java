@@ -0,0 +1,123 @@
+package com.contentgrid.gateway.security.bearer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.contentgrid.gateway.security.bearer.SharedJwkSetCache.JwkSetCacheProperties;
+import com.contentgrid.gateway.security.jwt.issuer.JwtClaimsSigner;
+import com.contentgrid.gateway.test.security.jwt.SingleKeyJwtClaimsSigner;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jwt.JWTClaimsSet;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Map;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+class SharedJwkSetCacheTest {
+
+    private static final WireMockServer wireMockServer = new WireMockServer(
+            new WireMockConfiguration().dynamicPort());
+
+    private static final JwtClaimsSigner ISSUER_JWT_SIGNER = new SingleKeyJwtClaimsSigner();
+
+    @BeforeAll
+    static void startWiremock() {
+        wireMockServer.start();
+    }
+
+    @BeforeEach
+    void setupStubs() {
+        wireMockServer.resetAll();
+        wireMockServer.stubFor(WireMock.get("/issuer/.well-known/openid-configuration").willReturn(WireMock.okJson("""
+                {
+                    "issuer": "{baseUrl}/issuer",
+                    "jwks_uri": "{baseUrl}/issuer/jwks"
+                }
+                """.replace("{baseUrl}", wireMockServer.baseUrl()))));
+
+        wireMockServer.stubFor(WireMock.get("/issuer/jwks")
+                .willReturn(WireMock.okJson(ISSUER_JWT_SIGNER.getSigningKeys().toPublicJWKSet().toString())
+                        .withFixedDelay(100)));
+    }
+
+    @AfterAll
+    static void shutdownWiremock() {
+        wireMockServer.stop();
+    }
+
+    private static SharedJwkSetCache createCache(SimpleMeterRegistry meterRegistry) {
+        var properties = new JwkSetCacheProperties();
+        properties.setUnknownKeyRefetchInterval(Duration.ofMinutes(1));
+        return new SharedJwkSetCache(WebClient.create(), properties, meterRegistry);
+    }
+
+    @SneakyThrows
+    private static JWSHeader signedHeader() {
+        return ISSUER_JWT_SIGNER.sign(JWTClaimsSet.parse(Map.of("sub", "test123"))).getHeader();
+    }
+
+    @Test
+    void concurrentLookupsShareOneFetch() {
+        var meterRegistry = new SimpleMeterRegistry();
+        var cache = createCache(meterRegistry);
+        var header = signedHeader();
+
+        var keys = Flux.range(0, 10)
+                .flatMap(i -> cache.getKeys(wireMockServer.url("issuer/jwks"), header))
+                .collectList()
+                .block();
+
+        assertThat(keys).hasSize(10);
+        wireMockServer.verify(1, WireMock.getRequestedFor(WireMock.urlEqualTo("/issuer/jwks")));
+        assertThat(meterRegistry.get("contentgrid.gateway.jwks.fetch").tag("outcome", "success").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void unknownKeyRefetchIsRateLimited() {
+        var meterRegistry = new SimpleMeterRegistry();
+        var cache = createCache(meterRegistry);
+        var jwkSetUri = wireMockServer.url("issuer/jwks");
+        var unknownKeyHeader = new JWSHeader.Builder(JWSAlgorithm.RS256).keyID("unknown").build();
+
+        assertThat(cache.getKeys(jwkSetUri, signedHeader()).collectList().block()).hasSize(1);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(cache.getKeys(jwkSetUri, unknownKeyHeader).collectList().block()).isEmpty();
+        }
+
+        // the initial fetch, and a single refetch for the unknown key
+        wireMockServer.verify(2, WireMock.getRequestedFor(WireMock.urlEqualTo("/issuer/jwks")));
+        assertThat(meterRegistry.get("contentgrid.gateway.jwks.unknown-key").tag("outcome", "refetch").counter().count())
+                .isEqualTo(1.0);
+        assertThat(meterRegistry.get("contentgrid.gateway.jwks.unknown-key").tag("outcome", "rate-limited").counter().count())
+                .isEqualTo(4.0);
+    }
+
+    @Test
+    void issuerIsDiscoveredAndPrefetched() {
+        var meterRegistry = new SimpleMeterRegistry();
+        var cache = createCache(meterRegistry);
+        var issuer = wireMockServer.url("issuer");
+
+        assertThat(cache.discoverJwkSetUri(issuer).block()).isEqualTo(wireMockServer.url("issuer/jwks"));
+        cache.prefetch(issuer).block();
+        cache.prefetch(issuer).block();
+
+        wireMockServer.verify(1, WireMock.getRequestedFor(WireMock.urlEqualTo("/issuer/.well-known/openid-configuration")));
+        wireMockServer.verify(1, WireMock.getRequestedFor(WireMock.urlEqualTo("/issuer/jwks")));
+        assertThat(meterRegistry.get("contentgrid.gateway.jwks.entries").gauge().value()).isEqualTo(1.0);
+
+        cache.evictIssuer(issuer);
+        assertThat(meterRegistry.get("contentgrid.gateway.jwks.entries").gauge().value()).isEqualTo(0.0);
+    }
+}
@@ -0,0 +1,143 @@
+package com.contentgrid.gateway.security.jwt.issuer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.nimbusds.jose.jwk.JWKSet;
+import io.micrometer.common.KeyValues;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.Observation.Context;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.oauth2.core.OAuth2Token;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+class ObservationJwtIssuerTest {
+
+    private static final Instant NOW = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+    private static final JwtIssuer DELEGATE = new JwtIssuer() {
+        @Override
+        public JWKSet getJwkSet() {
+            return new JWKSet();
+        }
+
+        @Override
+        public Mono<OAuth2Token> issueSubstitutionToken(ServerWebExchange exchange) {
+            return exchange.getPrincipal().map(principal -> Jwt.withTokenValue("outgoing")
+                    .header("alg", "none")
+                    .subject(principal.getName())
+                    .issuedAt(NOW)
+                    .expiresAt(NOW.plusSeconds(300))
+                    .build());
+        }
+    };
+
+    private static ServerWebExchange exchange(AtomicInteger principalSubscriptions) {
+        var incoming = Jwt.withTokenValue("incoming")
+                .header("alg", "none")
+                .subject("alice")
+                .expiresAt(NOW.plusSeconds(600))
+                .build();
+        return MockServerWebExchange.from(MockServerHttpRequest.get("https://app.contentgrid.test/"))
+                .mutate()
+                .principal(Mono.fromSupplier(() -> {
+                    principalSubscriptions.incrementAndGet();
+                    return new JwtAuthenticationToken(incoming);
+                }))
+                .build();
+    }
+
+    private static List<KeyValues> recordKeyValues(ObservationRegistry registry,
+            Function<Context, KeyValues> keyValues) {
+        var recorded = new ArrayList<KeyValues>();
+        registry.observationConfig().observationHandler(new ObservationHandler<Context>() {
+            @Override
+            public boolean supportsContext(Context context) {
+                return true;
+            }
+
+            @Override
+            public void onStop(Context context) {
+                recorded.add(keyValues.apply(context));
+            }
+        });
+        return recorded;
+    }
+
+    @Test
+    void principalIsResolvedOnce() {
+        var principalSubscriptions = new AtomicInteger();
+        var issuer = new ObservationJwtIssuer(ObservationRegistry.create(), DELEGATE, new SimpleMeterRegistry());
+
+        var token = issuer.issueSubstitutionToken(exchange(principalSubscriptions)).block();
+
+        assertThat(token).isInstanceOfSatisfying(Jwt.class, jwt -> assertThat(jwt.getSubject()).isEqualTo("alice"));
+        assertThat(principalSubscriptions).hasValue(1);
+    }
+
+    @Test
+    void remainingValidityIsRecorded() {
+        var meterRegistry = new SimpleMeterRegistry();
+        var issuer = new ObservationJwtIssuer(ObservationRegistry.NOOP, DELEGATE, meterRegistry);
+
+        issuer.issueSubstitutionToken(exchange(new AtomicInteger())).block();
+
+        var incoming = meterRegistry.get("contentgrid.gateway.jwt-issuer.token.remaining-validity")
+                .tag("token", "incoming")
+                .timer();
+        var outgoing = meterRegistry.get("contentgrid.gateway.jwt-issuer.token.remaining-validity")
+                .tag("token", "outgoing")
+                .timer();
+        assertThat(incoming.count()).isEqualTo(1);
+        assertThat(outgoing.count()).isEqualTo(1);
+        assertThat(incoming.max(TimeUnit.SECONDS)).isGreaterThan(outgoing.max(TimeUnit.SECONDS));
+    }
+
+    @Test
+    void tokenTimestampsAreAttachedAsHighCardinalityKeyValues() {
+        var registry = ObservationRegistry.create();
+        var recorded = recordKeyValues(registry, Context::getHighCardinalityKeyValues);
+        var issuer = new ObservationJwtIssuer(registry, DELEGATE, new SimpleMeterRegistry());
+
+        issuer.issueSubstitutionToken(exchange(new AtomicInteger())).block();
+
+        assertThat(recorded).singleElement()
+                .satisfies(keyValues -> assertThat(keyValues.stream()
+                        .map(keyValue -> Map.entry(keyValue.getKey(), keyValue.getValue())))
+                        .contains(
+                                Map.entry("incomingToken.expirationTime", NOW.plusSeconds(600).toString()),
+                                Map.entry("outgoingToken.issued", "true"),
+                                Map.entry("outgoingToken.expirationTime", NOW.plusSeconds(300).toString())
+                        ));
+    }
+
+    @Test
+    void requestWithoutPrincipalIsObservedAsAnonymous() {
+        var registry = ObservationRegistry.create();
+        var recorded = recordKeyValues(registry, Context::getLowCardinalityKeyValues);
+        var issuer = new ObservationJwtIssuer(registry, DELEGATE, new SimpleMeterRegistry());
+
+        var token = issuer.issueSubstitutionToken(
+                MockServerWebExchange.from(MockServerHttpRequest.get("https://app.contentgrid.test/"))).block();
+
+        assertThat(token).isNull();
+        assertThat(recorded).singleElement()
+                .satisfies(keyValues -> assertThat(keyValues.stream()
+                        .map(keyValue -> Map.entry(keyValue.getKey(), keyValue.getValue())))
+                        .contains(Map.entry("principal", "anonymous")));
+    }
+}
@@ -0,0 +1,49 @@
+package com.contentgrid.gateway.security.jwt.issuer.encrypt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import javax.crypto.spec.SecretKeySpec;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.keygen.KeyGenerators;
+
+class AesGcmBytesEncryptorTest {
+
+    private static AesGcmBytesEncryptor createEncryptor() {
+        return new AesGcmBytesEncryptor(new SecretKeySpec(KeyGenerators.secureRandom(16).generateKey(), "AES"));
+    }
+
+    @Test
+    void encryptDecrypt() {
+        var encryptor = createEncryptor();
+
+        var encrypted = encryptor.encrypt(new byte[]{8, 8, 6});
+
+        assertThat(encryptor.decrypt(encrypted)).containsExactly(8, 8, 6);
+    }
+
+    @Test
+    void encryptUsesRandomIv() {
+        var encryptor = createEncryptor();
+
+        assertThat(encryptor.encrypt(new byte[]{8, 8, 6})).isNotEqualTo(encryptor.encrypt(new byte[]{8, 8, 6}));
+    }
+
+    @Test
+    void decryptWithDifferentKey() {
+        var encrypted = createEncryptor().encrypt(new byte[]{8, 8, 6});
+
+        assertThatThrownBy(() -> createEncryptor().decrypt(encrypted))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void decryptTamperedData() {
+        var encryptor = createEncryptor();
+        var encrypted = encryptor.encrypt(new byte[]{8, 8, 6});
+        encrypted[encrypted.length - 1] ^= 1;
+
+        assertThatThrownBy(() -> encryptor.decrypt(encrypted))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
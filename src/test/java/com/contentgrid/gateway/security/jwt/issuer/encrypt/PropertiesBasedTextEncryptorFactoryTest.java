@@ -2,13 +2,22 @@ package com.contentgrid.gateway.security.jwt.issuer.encrypt;
 
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import com.contentgrid.gateway.test.util.MockResourcePatternResolver;
 import com.contentgrid.gateway.security.jwt.issuer.encrypt.PropertiesBasedTextEncryptorFactory.TextEncryptorProperties;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.HexFormat;
 import java.util.HashSet;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
 import org.springframework.security.crypto.encrypt.TextEncryptor;
 import org.springframework.security.crypto.keygen.BytesKeyGenerator;
 import org.springframework.security.crypto.keygen.KeyGenerators;
@@ -117,4 +126,110 @@ class PropertiesBasedTextEncryptorFactoryTest {
         assertThat(textDecryptor.newEncryptor().decrypt(encrypted)).isEqualTo("test");
     }
 
-}
\ No newline at end of file
+    @ParameterizedTest
+    @EnumSource(CiphertextFormat.class)
+    void decrypts_all_formats_with_all_keys(CiphertextFormat format) {
+        var resolver = MockResourcePatternResolver.builder()
+                .resource("file:/keys/active.bin", new InMemoryResource(KEY_GENERATOR.generateKey()))
+                .resource("file:/keys/retired-1.bin", new InMemoryResource(KEY_GENERATOR.generateKey()))
+                .build();
+
+        var textDecryptor = new PropertiesBasedTextEncryptorFactory(
+                resolver,
+                new TextEncryptorProperties("file:/keys/active.bin", "file:/keys/retired-*.bin")
+        );
+        var textEncryptor = new PropertiesBasedTextEncryptorFactory(
+                resolver,
+                new TextEncryptorProperties("file:/keys/retired-1.bin", null, format)
+        );
+
+        var encrypted = textEncryptor.newEncryptor().encrypt("test");
+
+        assertThat(textDecryptor.newEncryptor().decrypt(encrypted)).isEqualTo("test");
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = CiphertextFormat.class, names = {"CBC", "GCM"})
+    void keyed_format_identifies_key(CiphertextFormat format) {
+        var resolver = MockResourcePatternResolver.builder()
+                .resource("file:/keys/active.bin", new InMemoryResource(KEY_GENERATOR.generateKey()))
+                .resource("file:/keys/other.bin", new InMemoryResource(KEY_GENERATOR.generateKey()))
+                .build();
+
+        var textEncryptor = new PropertiesBasedTextEncryptorFactory(
+                resolver,
+                new TextEncryptorProperties("file:/keys/active.bin", null, format)
+        ).newEncryptor();
+
+        var encrypted = textEncryptor.encrypt("test");
+        assertThat(encrypted).startsWith(format.getTag() + ":");
+
+        var otherDecryptor = new PropertiesBasedTextEncryptorFactory(
+                resolver,
+                new TextEncryptorProperties("file:/keys/other.bin", null)
+        ).newEncryptor();
+
+        assertThatThrownBy(() -> otherDecryptor.decrypt(encrypted))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("unknown key");
+    }
+
+    @Test
+    void reads_key_files_once() {
+        var delegate = MockResourcePatternResolver.builder()
+                .resource("file:/keys/active.bin", new InMemoryResource(KEY_GENERATOR.generateKey()))
+                .resource("file:/keys/retired-1.bin", new InMemoryResource(KEY_GENERATOR.generateKey()))
+                .build();
+        var lookups = new AtomicInteger();
+        var resolver = new ResourcePatternResolver() {
+            @Override
+            public Resource[] getResources(String locationPattern) throws IOException {
+                lookups.incrementAndGet();
+                return delegate.getResources(locationPattern);
+            }
+
+            @Override
+            public Resource getResource(String location) {
+                return delegate.getResource(location);
+            }
+
+            @Override
+            public ClassLoader getClassLoader() {
+                return delegate.getClassLoader();
+            }
+        };
+
+        var factory = new PropertiesBasedTextEncryptorFactory(
+                resolver,
+                new TextEncryptorProperties("file:/keys/active.bin", "file:/keys/retired-*.bin")
+        );
+        var lookupsAfterCreation = lookups.get();
+
+        for (int i = 0; i < 10; i++) {
+            var encryptor = factory.newEncryptor();
+            assertThat(encryptor.decrypt(encryptor.encrypt("test"))).isEqualTo("test");
+        }
+        assertThat(lookups.get()).isEqualTo(lookupsAfterCreation);
+
+        factory.refresh();
+        assertThat(lookups.get()).isEqualTo(2 * lookupsAfterCreation);
+    }
+
+    @Test
+    void key_id_is_not_a_plain_digest_of_the_key() throws Exception {
+        var key = KEY_GENERATOR.generateKey();
+        var resolver = MockResourcePatternResolver.builder()
+                .resource("file:/keys/active.bin", new InMemoryResource(key))
+                .build();
+
+        var encrypted = new PropertiesBasedTextEncryptorFactory(
+                resolver,
+                new TextEncryptorProperties("file:/keys/active.bin", null, CiphertextFormat.GCM)
+        ).newEncryptor().encrypt("test");
+
+        var plainDigest = HexFormat.of()
+                .formatHex(MessageDigest.getInstance("SHA-256").digest(key), 0, 8);
+        assertThat(encrypted.split(":")[1]).hasSize(16).isNotEqualTo(plainDigest);
+    }
+
+}
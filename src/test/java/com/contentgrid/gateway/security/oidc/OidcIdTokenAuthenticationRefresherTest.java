@@ -90,6 +90,7 @@ class OidcIdTokenAuthenticationRefresherTest {
 
         var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/").build());
 
+        assertThat(authenticationRefresher.isUpToDate(authentication)).isTrue();
         assertThat(authenticationRefresher.refresh(authentication, exchange).block()).isInstanceOfSatisfying(OAuth2AuthenticationToken.class, newAuthentication -> {
             assertThat(newAuthentication).isSameAs(authentication);
             assertThat(newAuthentication.getPrincipal()).isInstanceOfSatisfying(OidcUser.class, oidcUser -> {
@@ -137,6 +138,8 @@ class OidcIdTokenAuthenticationRefresherTest {
         var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/").build());
 
 
+        assertThat(authenticationRefresher.isUpToDate(authentication)).isFalse();
+
         Mockito.when(refreshClient.getTokenResponse(Mockito.any()))
                 .thenReturn(Mono.just(OAuth2AccessTokenResponse.withToken("access-token-2")
                                 .refreshToken("refresh-token-2")
@@ -6,11 +6,15 @@ import static org.assertj.core.api.Assertions.assertThat;
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.Test;
 import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
 import org.springframework.mock.web.server.MockServerWebExchange;
 import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
@@ -58,6 +62,54 @@ class CompositeAuthenticationRefresherTest {
                 });
     }
 
+    @Test
+    void dispatchesOnAuthenticationType() {
+        var usernamePasswordRefreshes = new AtomicInteger();
+        var composite = new CompositeAuthenticationRefresher(List.of(
+                new NoopAuthenticationRefresher(AnonymousAuthenticationToken.class),
+                new AuthenticationRefresher() {
+                    @Override
+                    public Mono<Authentication> refresh(Authentication authentication, ServerWebExchange exchange) {
+                        usernamePasswordRefreshes.incrementAndGet();
+                        return Mono.just(authentication);
+                    }
+
+                    @Override
+                    public Class<? extends Authentication> getAuthenticationType() {
+                        return UsernamePasswordAuthenticationToken.class;
+                    }
+                }
+        ));
+
+        var anonymous = new AnonymousAuthenticationToken("key", "anonymous", AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS"));
+        var usernamePassword = UsernamePasswordAuthenticationToken.authenticated("user", "password", List.of());
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(composite.refresh(anonymous, createExchange()).block()).isSameAs(anonymous);
+        }
+        assertThat(usernamePasswordRefreshes).hasValue(0);
+
+        assertThat(composite.refresh(usernamePassword, createExchange()).block()).isSameAs(usernamePassword);
+        assertThat(usernamePasswordRefreshes).hasValue(1);
+
+        assertThat(composite.refresh(createAuthentication("other"), createExchange()).blockOptional()).isEmpty();
+        assertThat(composite.refresh(null, createExchange()).blockOptional()).isEmpty();
+    }
+
+    @Test
+    void isUpToDateIsDispatchedOnAuthenticationType() {
+        var composite = new CompositeAuthenticationRefresher(List.of(
+                new NoopAuthenticationRefresher(AnonymousAuthenticationToken.class),
+                (auth, exchange) -> Mono.just(createAuthentication("refreshed"))
+        ));
+
+        var anonymous = new AnonymousAuthenticationToken("key", "anonymous", AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS"));
+
+        assertThat(composite.isUpToDate(anonymous)).isTrue();
+        assertThat(composite.isUpToDate(createAuthentication("principal"))).isFalse();
+        assertThat(composite.isUpToDate(null)).isFalse();
+    }
+
     private static Authentication createAuthentication(String subject) {
         return new AbstractAuthenticationToken(null) {
             @Override
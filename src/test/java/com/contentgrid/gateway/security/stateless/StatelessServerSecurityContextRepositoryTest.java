@@ -0,0 +1,88 @@
+package com.contentgrid.gateway.security.stateless;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.server.context.ServerSecurityContextRepository;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatchers;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+class StatelessServerSecurityContextRepositoryTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private final AtomicInteger saves = new AtomicInteger();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ServerSecurityContextRepository sessionRepository = new ServerSecurityContextRepository() {
+        @Override
+        public Mono<Void> save(ServerWebExchange exchange, SecurityContext context) {
+            saves.incrementAndGet();
+            return Mono.empty();
+        }
+
+        @Override
+        public Mono<SecurityContext> load(ServerWebExchange exchange) {
+            loads.incrementAndGet();
+            return Mono.just(new SecurityContextImpl(new TestingAuthenticationToken("user", "")));
+        }
+    };
+
+    private final StatelessServerSecurityContextRepository repository = new StatelessServerSecurityContextRepository(
+            sessionRepository,
+            new StatelessRequestClassifier(List.of(
+                    StatelessRequestMatcher.bearerToken(),
+                    StatelessRequestMatcher.of("public-endpoint", ServerWebExchangeMatchers.pathMatchers("/.contentgrid/public/**"))
+            ), meterRegistry)
+    );
+
+    private double fastLaneCount(String reason) {
+        return meterRegistry.get("contentgrid.gateway.stateless").tag("reason", reason).counter().count();
+    }
+
+    @Test
+    void bearerTokenRequestSkipsSession() {
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("https://app.example/documents")
+                .header(HttpHeaders.AUTHORIZATION, "bearer abc.def.ghi"));
+
+        assertThat(repository.load(exchange).block()).isNull();
+        repository.save(exchange, new SecurityContextImpl()).block();
+
+        assertThat(loads).hasValue(0);
+        assertThat(saves).hasValue(0);
+        assertThat(fastLaneCount("bearer")).isEqualTo(1.0);
+    }
+
+    @Test
+    void publicEndpointRequestSkipsSession() {
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("https://app.example/.contentgrid/public/login"));
+
+        assertThat(repository.load(exchange).block()).isNull();
+
+        assertThat(loads).hasValue(0);
+        assertThat(fastLaneCount("public-endpoint")).isEqualTo(1.0);
+    }
+
+    @Test
+    void otherRequestsUseSession() {
+        var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("https://app.example/documents")
+                .header(HttpHeaders.AUTHORIZATION, "Basic dXNlcjpwYXNz"));
+
+        assertThat(repository.load(exchange).block()).isNotNull();
+        repository.save(exchange, new SecurityContextImpl()).block();
+
+        assertThat(loads).hasValue(1);
+        assertThat(saves).hasValue(1);
+        assertThat(fastLaneCount("bearer")).isEqualTo(0.0);
+        assertThat(fastLaneCount("public-endpoint")).isEqualTo(0.0);
+    }
+}